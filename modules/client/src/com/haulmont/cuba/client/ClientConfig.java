@@ -377,4 +377,57 @@ public interface ClientConfig extends Config {
     @Property("cuba.gui.validationNotificationType")
     @Default("TRAY")
     String getValidationNotificationType();
-}
\ No newline at end of file
+
+    /**
+     * @return file extension of the format used by the {@code excel} list action to export all rows in the streaming
+     * mode: {@code xlsx} or {@code csv}. If empty, all rows are exported into XLS format in memory.
+     */
+    @Property("cuba.gui.excelAction.streamingFormat")
+    String getExcelActionStreamingFormat();
+
+    /**
+     * @return whether {@code ScreenData.loadAll()} loads entities of all screen loaders in one middleware call.
+     * The middleware can execute the loaders concurrently, see {@code cuba.batchLoadThreads} application property.
+     */
+    @Property("cuba.gui.batchDataLoading")
+    @DefaultBoolean(false)
+    boolean getBatchDataLoading();
+
+    /**
+     * @return whether service invocations and file transfer to the middleware use the shared HTTP client keeping
+     * a pool of persistent connections
+     */
+    @Property("cuba.pooledHttpClientEnabled")
+    @DefaultBoolean(false)
+    boolean getPooledHttpClientEnabled();
+
+    /**
+     * @return maximum total number of connections of the pooled HTTP client
+     */
+    @Property("cuba.pooledHttpClientMaxConnections")
+    @DefaultInt(100)
+    int getPooledHttpClientMaxConnections();
+
+    /**
+     * @return maximum number of connections of the pooled HTTP client to one middleware server
+     */
+    @Property("cuba.pooledHttpClientMaxConnectionsPerRoute")
+    @DefaultInt(20)
+    int getPooledHttpClientMaxConnectionsPerRoute();
+
+    /**
+     * @return time in milliseconds to wait for a free connection of the pooled HTTP client. When it elapses, the
+     * request fails instead of waiting for connections held by other requests, e.g. by unclosed download streams
+     */
+    @Property("cuba.pooledHttpClientConnectionRequestTimeout")
+    @DefaultInt(30000)
+    int getPooledHttpClientConnectionRequestTimeout();
+
+    /**
+     * @return size of a service invocation request in bytes starting from which the pooled HTTP client compresses
+     * the request with gzip and asks the middleware to compress the response, -1 to disable compression
+     */
+    @Property("cuba.remotingCompressionThreshold")
+    @DefaultInt(-1)
+    int getRemotingCompressionThreshold();
+}
@@ -36,6 +36,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component(Configuration.NAME)
 public class ConfigurationClientImpl implements ClientConfiguration {
     protected Map<Class, ConfigHandler> handlersCache = new ConcurrentHashMap<>();
+    protected Map<Class, Config> proxiesCache = new ConcurrentHashMap<>();
     protected ConfigStorageService configStorageCache;
 
     @Inject
@@ -45,6 +46,11 @@ public class ConfigurationClientImpl implements ClientConfiguration {
 
     @Override
     public <T extends Config> T getConfig(Class<T> configInterface) {
+        Config config = proxiesCache.get(configInterface);
+        if (config != null) {
+            return configInterface.cast(config);
+        }
+
         ConfigHandler handler = handlersCache.get(configInterface);
         if (handler == null) {
             handler = new ConfigHandler(createConfigPersister(false), configInterface);
@@ -52,6 +58,7 @@ public class ConfigurationClientImpl implements ClientConfiguration {
         }
         ClassLoader classLoader = configInterface.getClassLoader();
         Object proxy = Proxy.newProxyInstance(classLoader, new Class[]{configInterface}, handler);
+        proxiesCache.put(configInterface, (Config) proxy);
         return configInterface.cast(proxy);
     }
 
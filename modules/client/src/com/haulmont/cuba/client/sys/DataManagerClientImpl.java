@@ -57,6 +57,11 @@ public class DataManagerClientImpl implements DataManager {
         return dataService.loadList(context);
     }
 
+    @Override
+    public List<List<Entity>> loadBatch(List<LoadContext<? extends Entity>> contexts) {
+        return dataService.loadBatch(contexts);
+    }
+
     @Override
     public long getCount(LoadContext<? extends Entity> context) {
         return dataService.getCount(context);
@@ -23,8 +23,12 @@ import com.haulmont.cuba.core.entity.FileDescriptor;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.remoting.LocalFileExchangeService;
+import com.haulmont.cuba.core.sys.remoting.RemotingHttpClient;
 import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
@@ -34,6 +38,7 @@ import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -41,6 +46,7 @@ import org.springframework.stereotype.Component;
 import javax.annotation.Nullable;
 import javax.annotation.Resource;
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
@@ -65,6 +71,9 @@ public class FileLoaderClientImpl implements FileLoader {
     @Inject
     protected FileStorageService fileStorageService;
 
+    @Inject
+    protected RemotingHttpClient remotingHttpClient;
+
     @Override
     public void saveStream(FileDescriptor fd, Supplier<InputStream> inputStreamSupplier) throws FileStorageException {
         try {
@@ -102,6 +111,23 @@ public class FileLoaderClientImpl implements FileLoader {
         }
     }
 
+    @Override
+    public InputStream openStream(FileDescriptor fd, long offset, long length) throws FileStorageException {
+        checkNotNullArgument(fd);
+
+        String useLocalInvocation = AppContext.getProperty("cuba.useLocalServiceInvocation");
+        if (Boolean.parseBoolean(useLocalInvocation)) {
+            // cannot be injected since there is no implementation for Desktop
+            LocalFileExchangeService localFileExchangeService = AppBeans.get(LocalFileExchangeService.NAME);
+            return localFileExchangeService.downloadFile(fd, offset, length);
+        } else {
+            if (length <= 0) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            return openStreamWithServlet(fd, offset, length);
+        }
+    }
+
     @Override
     public void removeFile(FileDescriptor fd) throws FileStorageException {
         checkNotNullArgument(fd);
@@ -145,12 +171,11 @@ public class FileLoaderClientImpl implements FileLoader {
                 method.setEntity(new InputStreamProgressEntity(inputStream,
                         ContentType.APPLICATION_OCTET_STREAM, progressListener));
 
-                HttpClientConnectionManager connectionManager = new BasicHttpClientConnectionManager();
-                HttpClient client = HttpClientBuilder.create()
-                        .setConnectionManager(connectionManager)
-                        .build();
+                HttpClientConnectionManager connectionManager = createConnectionManager();
+                HttpClient client = getHttpClient(connectionManager);
+                HttpResponse response = null;
                 try {
-                    HttpResponse response = client.execute(method);
+                    response = client.execute(method);
 
                     int statusCode = response.getStatusLine().getStatusCode();
                     if (statusCode == HttpStatus.SC_OK) {
@@ -172,7 +197,12 @@ public class FileLoaderClientImpl implements FileLoader {
                         throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fd.getName(), e);
                     }
                 } finally {
-                    connectionManager.shutdown();
+                    if (connectionManager != null) {
+                        connectionManager.shutdown();
+                    } else if (response != null) {
+                        // return the connection to the pool
+                        EntityUtils.consumeQuietly(response.getEntity());
+                    }
                 }
             } catch (IOException | RetryUnsupportedException e) {
                 throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fd.getName(), e);
@@ -193,6 +223,15 @@ public class FileLoaderClientImpl implements FileLoader {
     }
 
     protected InputStream openStreamWithServlet(FileDescriptor fd) throws FileStorageException {
+        return openStreamWithServlet(fd, 0, -1);
+    }
+
+    /**
+     * Loads a part of the file using HTTP {@code Range} request.
+     *
+     * @param length number of bytes to load, negative value means the whole file
+     */
+    protected InputStream openStreamWithServlet(FileDescriptor fd, long offset, long length) throws FileStorageException {
         ClientConfig clientConfig = configuration.getConfig(ClientConfig.class);
         String fileDownloadContext = clientConfig.getFileDownloadContext();
 
@@ -206,20 +245,27 @@ public class FileLoaderClientImpl implements FileLoader {
                     "?s=" + userSessionSource.getUserSession().getId() +
                     "&f=" + fd.getId().toString();
 
-            HttpClientConnectionManager connectionManager = new BasicHttpClientConnectionManager();
-            HttpClient httpClient = HttpClientBuilder.create()
-                    .setConnectionManager(connectionManager)
-                    .build();
+            HttpClient httpClient = getHttpClient(createConnectionManager());
 
             HttpGet httpGet = new HttpGet(url);
+            boolean ranged = length >= 0;
+            if (ranged) {
+                httpGet.setHeader(HttpHeaders.RANGE, "bytes=" + offset + "-" + (offset + length - 1));
+            }
 
             try {
                 HttpResponse httpResponse = httpClient.execute(httpGet);
                 int httpStatus = httpResponse.getStatusLine().getStatusCode();
-                if (httpStatus == HttpStatus.SC_OK) {
+                if (httpStatus == HttpStatus.SC_OK || (ranged && httpStatus == HttpStatus.SC_PARTIAL_CONTENT)) {
                     HttpEntity httpEntity = httpResponse.getEntity();
                     if (httpEntity != null) {
-                        return httpEntity.getContent();
+                        InputStream content = httpEntity.getContent();
+                        if (ranged && httpStatus == HttpStatus.SC_OK) {
+                            // the range is ignored by the server, e.g. if the file size is unknown
+                            IOUtils.skipFully(content, offset);
+                            return new BoundedInputStream(content, length);
+                        }
+                        return content;
                     } else {
                         log.debug("Unable to download file from {}\nHttpEntity is null", url);
                         selectedUrl = failAndGetNextUrl(context);
@@ -229,6 +275,7 @@ public class FileLoaderClientImpl implements FileLoader {
                     }
                 } else {
                     log.debug("Unable to download file from {}\n{}", url, httpResponse.getStatusLine());
+                    EntityUtils.consumeQuietly(httpResponse.getEntity());
                     selectedUrl = failAndGetNextUrl(context);
                     if (selectedUrl == null) {
                         throw new FileStorageException(FileStorageException.Type.fromHttpStatus(httpStatus), fd.getName());
@@ -247,6 +294,26 @@ public class FileLoaderClientImpl implements FileLoader {
         }
     }
 
+    /**
+     * @return connection manager for a single file transfer, or null if the shared pooled client is used
+     */
+    @Nullable
+    protected HttpClientConnectionManager createConnectionManager() {
+        if (remotingHttpClient.isEnabled()) {
+            return null;
+        }
+        return new BasicHttpClientConnectionManager();
+    }
+
+    protected HttpClient getHttpClient(@Nullable HttpClientConnectionManager connectionManager) {
+        if (connectionManager == null) {
+            return remotingHttpClient.getHttpClient();
+        }
+        return HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .build();
+    }
+
     @Nullable
     protected String failAndGetNextUrl(Object context) {
         serverSelector.fail(context);
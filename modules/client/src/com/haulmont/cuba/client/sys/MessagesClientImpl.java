@@ -17,6 +17,7 @@
 
 package com.haulmont.cuba.client.sys;
 
+import com.google.common.collect.ImmutableMap;
 import com.haulmont.cuba.client.ClientConfig;
 import com.haulmont.cuba.core.app.LocalizedMessageService;
 import com.haulmont.cuba.core.global.Configuration;
@@ -31,10 +32,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.net.SocketException;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component(Messages.NAME)
 public class MessagesClientImpl extends AbstractMessages {
@@ -49,6 +53,9 @@ public class MessagesClientImpl extends AbstractMessages {
 
     protected ClientConfig clientConfig;
 
+    // message packs loaded from the middleware, indexed by locale and pack name
+    protected Map<Locale, Map<String, Map<String, String>>> remotePacks = new ConcurrentHashMap<>();
+
     private static final Logger log = LoggerFactory.getLogger(MessagesClientImpl.class);
 
     @Inject
@@ -74,13 +81,26 @@ public class MessagesClientImpl extends AbstractMessages {
         if (log.isTraceEnabled())
             log.trace("searchRemotely: " + pack + "/" + locale + "/" + key);
 
+        Map<String, Map<String, String>> localePacks = remotePacks.computeIfAbsent(locale, l -> new ConcurrentHashMap<>());
+        Map<String, String> packMessages = localePacks.get(pack);
+        if (packMessages == null) {
+            packMessages = loadRemotePack(pack, locale);
+            if (packMessages == null)
+                return null;
+            localePacks.put(pack, packMessages);
+        }
+        return packMessages.get(key);
+    }
+
+    /**
+     * Loads all messages of the pack from the middleware in one call instead of requesting them key by key.
+     */
+    @Nullable
+    protected Map<String, String> loadRemotePack(String pack, Locale locale) {
         StopWatch stopWatch = new Slf4JStopWatch("Messages.searchRemotely");
         try {
-            String message = localizedMessageService.getMessage(pack, key, locale);
-            if (key.equals(message))
-                return null;
-            else
-                return message;
+            remoteCalls.increment();
+            return ImmutableMap.copyOf(localizedMessageService.getMessages(pack, locale));
         } catch (Exception e) {
             List list = ExceptionUtils.getThrowableList(e);
             for (Object throwable : list) {
@@ -95,6 +115,12 @@ public class MessagesClientImpl extends AbstractMessages {
         }
     }
 
+    @Override
+    public void clearCache() {
+        super.clearCache();
+        remotePacks.clear();
+    }
+
     public boolean isRemoteSearch() {
         return remoteSearch;
     }
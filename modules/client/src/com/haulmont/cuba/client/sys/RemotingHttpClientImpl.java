@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.client.sys;
+
+import com.haulmont.cuba.client.ClientConfig;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.remoting.RemotingHttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client tier implementation of {@link RemotingHttpClient} configured by {@link ClientConfig}.
+ */
+@Component(RemotingHttpClient.NAME)
+public class RemotingHttpClientImpl implements RemotingHttpClient {
+
+    private static final Logger log = LoggerFactory.getLogger(RemotingHttpClientImpl.class);
+
+    @Inject
+    protected ClientConfig clientConfig;
+
+    protected volatile CloseableHttpClient httpClient;
+
+    @Override
+    public boolean isEnabled() {
+        return clientConfig.getPooledHttpClientEnabled();
+    }
+
+    @Override
+    public int getCompressionThreshold() {
+        return clientConfig.getRemotingCompressionThreshold();
+    }
+
+    @Override
+    public CloseableHttpClient getHttpClient() {
+        CloseableHttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = createHttpClient();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    @Override
+    public RequestConfig getRequestConfig() {
+        int connectionRequestTimeout = clientConfig.getPooledHttpClientConnectionRequestTimeout();
+        Args.positive(connectionRequestTimeout, "cuba.pooledHttpClientConnectionRequestTimeout");
+        return RequestConfig.custom()
+                .setConnectTimeout(getIntProperty("cuba.connectionTimeout", -1))
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .setSocketTimeout(getIntProperty("cuba.connectionReadTimeout", -1))
+                .build();
+    }
+
+    protected CloseableHttpClient createHttpClient() {
+        return HttpClientBuilder.create()
+                .setConnectionManager(createConnectionManager())
+                .setDefaultRequestConfig(getRequestConfig())
+                .disableContentCompression()
+                .evictIdleConnections(60, TimeUnit.SECONDS)
+                .build();
+    }
+
+    protected PoolingHttpClientConnectionManager createConnectionManager() {
+        int maxConnections = clientConfig.getPooledHttpClientMaxConnections();
+        int maxConnectionsPerRoute = clientConfig.getPooledHttpClientMaxConnectionsPerRoute();
+        Args.positive(maxConnections, "cuba.pooledHttpClientMaxConnections");
+        Args.positive(maxConnectionsPerRoute, "cuba.pooledHttpClientMaxConnectionsPerRoute");
+
+        log.debug("Creating pooled HTTP client, max connections: {}, max connections per route: {}",
+                maxConnections, maxConnectionsPerRoute);
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        // connections closed by the server while idle in the pool are detected before reuse
+        connectionManager.setValidateAfterInactivity(2000);
+        return connectionManager;
+    }
+
+    protected int getIntProperty(String name, int defaultValue) {
+        String value = AppContext.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    @PreDestroy
+    protected void close() {
+        CloseableHttpClient client = httpClient;
+        if (client != null) {
+            httpClient = null;
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("Error closing HTTP client", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.client.sys;
+
+import com.haulmont.cuba.client.ClientConfig;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RemotingHttpClientImplTest {
+
+    private RemotingHttpClientImpl remotingHttpClient;
+
+    @After
+    public void tearDown() throws Exception {
+        if (remotingHttpClient != null) {
+            remotingHttpClient.close();
+        }
+    }
+
+    @Test
+    public void testSettings() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getPooledHttpClientEnabled", true);
+        values.put("getRemotingCompressionThreshold", 4096);
+        remotingHttpClient = createClient(values);
+
+        assertTrue(remotingHttpClient.isEnabled());
+        assertEquals(4096, remotingHttpClient.getCompressionThreshold());
+    }
+
+    @Test
+    public void testConnectionPool() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getPooledHttpClientMaxConnections", 50);
+        values.put("getPooledHttpClientMaxConnectionsPerRoute", 5);
+        remotingHttpClient = createClient(values);
+
+        PoolingHttpClientConnectionManager connectionManager = remotingHttpClient.createConnectionManager();
+        try {
+            assertEquals(50, connectionManager.getMaxTotal());
+            assertEquals(5, connectionManager.getDefaultMaxPerRoute());
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testConnectionRequestTimeout() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getPooledHttpClientConnectionRequestTimeout", 5000);
+        remotingHttpClient = createClient(values);
+
+        RequestConfig requestConfig = remotingHttpClient.getRequestConfig();
+
+        // waiting for a pooled connection is limited even if the connection timeout is not
+        assertEquals(5000, requestConfig.getConnectionRequestTimeout());
+        assertEquals(-1, requestConfig.getConnectTimeout());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInfiniteConnectionRequestTimeout() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getPooledHttpClientConnectionRequestTimeout", -1);
+        remotingHttpClient = createClient(values);
+
+        remotingHttpClient.getRequestConfig();
+    }
+
+    @Test
+    public void testHttpClientIsShared() throws Exception {
+        remotingHttpClient = createClient(new HashMap<>());
+
+        CloseableHttpClient httpClient = remotingHttpClient.getHttpClient();
+
+        assertNotNull(httpClient);
+        assertSame(httpClient, remotingHttpClient.getHttpClient());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPoolSize() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getPooledHttpClientMaxConnections", 0);
+        remotingHttpClient = createClient(values);
+
+        remotingHttpClient.createConnectionManager();
+    }
+
+    private RemotingHttpClientImpl createClient(Map<String, Object> values) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("getPooledHttpClientEnabled", false);
+        defaults.put("getPooledHttpClientMaxConnections", 100);
+        defaults.put("getPooledHttpClientMaxConnectionsPerRoute", 20);
+        defaults.put("getPooledHttpClientConnectionRequestTimeout", 30000);
+        defaults.put("getRemotingCompressionThreshold", -1);
+        defaults.putAll(values);
+
+        RemotingHttpClientImpl client = new RemotingHttpClientImpl() {
+            @Override
+            protected int getIntProperty(String name, int defaultValue) {
+                return defaultValue;
+            }
+        };
+        client.clientConfig = (ClientConfig) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ClientConfig.class},
+                (proxy, method, args) -> defaults.get(method.getName()));
+        return client;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.chile.core.model.utils;
+
+import com.haulmont.cuba.security.entity.Group;
+import com.haulmont.cuba.security.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares getters and setters bound by {@link MethodsCache} with reflective invocation of the same methods,
+ * on an entity with a few properties and on an entity with many properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodsCacheBenchmark {
+
+    private static final String[] GROUP_PROPERTIES = {"name", "parent"};
+
+    private static final String[] USER_PROPERTIES = {
+            "login", "loginLowerCase", "password", "passwordEncryption", "name", "group", "email", "language",
+            "timeZone", "timeZoneAuto", "firstName", "lastName", "middleName", "position", "active", "ipMask",
+            "changePasswordAtNextLogon"
+    };
+
+    @Param({"small", "wide"})
+    public String entity;
+
+    @Param({"bound", "reflective"})
+    public String accessors;
+
+    private MethodsCache cache;
+    private Object instance;
+    private String[] properties;
+
+    @Setup
+    public void setUp() {
+        Class<?> entityClass;
+        if ("small".equals(entity)) {
+            Group group = new Group();
+            group.setName("group");
+            instance = group;
+            entityClass = Group.class;
+            properties = GROUP_PROPERTIES;
+        } else {
+            User user = new User();
+            user.setLogin("admin");
+            user.setName("Administrator");
+            instance = user;
+            entityClass = User.class;
+            properties = USER_PROPERTIES;
+        }
+
+        if ("bound".equals(accessors)) {
+            cache = new MethodsCache(entityClass);
+        } else {
+            cache = new MethodsCache(entityClass) {
+                @Override
+                protected boolean canBind(Method method) {
+                    return false;
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    public Object getter() {
+        return cache.invokeGetter(instance, "name");
+    }
+
+    @Benchmark
+    public void setter() {
+        cache.invokeSetter(instance, "name", "name");
+    }
+
+    @Benchmark
+    public void allGetters(Blackhole blackhole) {
+        for (String property : properties) {
+            blackhole.consume(cache.invokeGetter(instance, property));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.config;
+
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.ConfigPersisterImpl;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a getter of a configuration interface served from the value snapshot of {@link ConfigHandler}
+ * with the same getter reading and converting the property on each call, as it was done before the snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigHandlerBenchmark {
+
+    private ServerConfig snapshotConfig;
+    private ServerConfig uncachedConfig;
+
+    @Setup
+    public void setUp() throws Throwable {
+        TestContainer.Common.INSTANCE.before();
+
+        snapshotConfig = AppBeans.get(Configuration.class).getConfig(ServerConfig.class);
+
+        // negative version disables the snapshot, so each call reads the property from ConfigStorage
+        ConfigPersister persister = new ConfigPersisterImpl(AppContext.getApplicationContext()) {
+            @Override
+            public long getVersion() {
+                return -1;
+            }
+        };
+        uncachedConfig = (ServerConfig) Proxy.newProxyInstance(ServerConfig.class.getClassLoader(),
+                new Class[]{ServerConfig.class}, new ConfigHandler(persister, ServerConfig.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        TestContainer.Common.INSTANCE.after();
+    }
+
+    @Benchmark
+    public boolean snapshot() {
+        return snapshotConfig.getInMemoryDistinct();
+    }
+
+    @Benchmark
+    public boolean uncached() {
+        return uncachedConfig.getInMemoryDistinct();
+    }
+}
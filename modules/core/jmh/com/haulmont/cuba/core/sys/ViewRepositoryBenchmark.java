@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.sys;
+
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Metadata;
+import com.haulmont.cuba.core.global.View;
+import com.haulmont.cuba.core.global.ViewRepository;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ViewRepository#getView(Class, String)} for a flat and a deep view. The {@code copy} benchmark
+ * adds a deep copy of the returned view, which is what each lookup did before views were shared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewRepositoryBenchmark {
+
+    // user.edit includes group, userRoles with role and substitutions with substitutedUser
+    @Param({View.LOCAL, "user.edit"})
+    public String viewName;
+
+    private ViewRepository viewRepository;
+
+    @Setup
+    public void setUp() throws Throwable {
+        TestContainer.Common.INSTANCE.before();
+
+        viewRepository = AppBeans.get(Metadata.class).getViewRepository();
+    }
+
+    @TearDown
+    public void tearDown() {
+        TestContainer.Common.INSTANCE.after();
+    }
+
+    @Benchmark
+    public View getView() {
+        return viewRepository.getView(User.class, viewName);
+    }
+
+    @Benchmark
+    public View copy() {
+        return View.copy(viewRepository.getView(User.class, viewName));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.security.global;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.impl.MetaClassImpl;
+import com.haulmont.chile.core.model.impl.MetaModelImpl;
+import com.haulmont.chile.core.model.impl.MetaPropertyImpl;
+import com.haulmont.chile.core.model.impl.SessionImpl;
+import com.haulmont.cuba.security.entity.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a single entity operation and entity attribute permission check of {@link UserSession}.
+ * The {@code ...ByTarget} benchmarks check the same permissions by a target string built on each call, as the
+ * entity checks did before permissions were compiled per entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSessionBenchmark {
+
+    private static final int PROPERTY_COUNT = 20;
+
+    private MetaClass metaClass;
+    private UserSession session;
+
+    @Setup
+    public void setUp() {
+        metaClass = new MetaClassImpl(new MetaModelImpl(new SessionImpl(), "test"), "test$Order");
+        for (int i = 0; i < PROPERTY_COUNT; i++) {
+            new MetaPropertyImpl(metaClass, "property" + i);
+        }
+
+        Role role = new Role();
+        role.setName("test");
+        role.setType(RoleType.STANDARD);
+
+        session = new UserSession(UUID.randomUUID(), new User(), Collections.singletonList(role), Locale.ENGLISH,
+                false);
+        session.addPermission(PermissionType.ENTITY_OP, "test$Order:delete", null, 0);
+        session.addPermission(PermissionType.ENTITY_ATTR, "test$Order:property5", null, EntityAttrAccess.VIEW.getId());
+        session.addPermission(PermissionType.ENTITY_ATTR, "test$Order:property15", null, EntityAttrAccess.DENY.getId());
+    }
+
+    @Benchmark
+    public boolean entityOp() {
+        return session.isEntityOpPermitted(metaClass, EntityOp.UPDATE);
+    }
+
+    @Benchmark
+    public boolean entityOpByTarget() {
+        return session.isPermitted(PermissionType.ENTITY_OP,
+                metaClass.getName() + Permission.TARGET_PATH_DELIMETER + EntityOp.UPDATE.getId());
+    }
+
+    @Benchmark
+    public boolean entityAttr() {
+        return session.isEntityAttrPermitted(metaClass, "property5", EntityAttrAccess.MODIFY);
+    }
+
+    @Benchmark
+    public boolean entityAttrByTarget() {
+        return session.isPermitted(PermissionType.ENTITY_ATTR,
+                metaClass.getName() + Permission.TARGET_PATH_DELIMETER + "property5",
+                EntityAttrAccess.MODIFY.getId());
+    }
+}
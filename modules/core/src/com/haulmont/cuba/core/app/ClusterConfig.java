@@ -66,4 +66,19 @@ public interface ClusterConfig extends Config {
     @Property("cuba.cluster.messageSendingQueueCapacity")
     @DefaultInt(Integer.MAX_VALUE)
     int getClusterMessageSendingQueueCapacity();
+
+    /**
+     * @return whether the state sent to a joining node is compressed
+     */
+    @Property("cuba.cluster.stateCompression")
+    @DefaultBoolean(true)
+    boolean getStateCompression();
+
+    /**
+     * @return name of the {@link com.haulmont.cuba.core.sys.serialization.Serialization} implementation used for
+     * cluster messages, e.g. {@link ClusterMessageSerialization}. If not set, the platform serialization is used.
+     * See {@link ClusterMessageSerialization} on how to enable it in a running cluster.
+     */
+    @Property("cuba.cluster.messageSerialization")
+    String getMessageSerialization();
 }
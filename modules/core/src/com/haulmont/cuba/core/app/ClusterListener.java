@@ -16,6 +16,13 @@
  */
 package com.haulmont.cuba.core.app;
 
+import com.haulmont.cuba.core.sys.serialization.Serialization;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * Interface to be implemented by middleware cluster listeners. A cluster listener receives messages from other nodes
  * in the cluster.
@@ -50,4 +57,37 @@ public interface ClusterListener<T> {
      * @param state byte array containing the state
      */
     void setState(byte[] state);
+
+    /**
+     * Write state of this cluster node to the stream to send it to other nodes.
+     *
+     * <p>Invoked instead of {@link #getState()} by clustering implementations supporting streaming state transfer.
+     * Override this method to write the state without building it in memory. The default implementation writes
+     * the result of {@link #getState()}.</p>
+     *
+     * @param output        stream to write the state to, must not be closed by the listener
+     * @param serialization serialization of cluster messages, to be used for encoding objects of the state
+     */
+    default void writeState(OutputStream output, Serialization serialization) throws IOException {
+        byte[] state = getState();
+        if (state != null) {
+            output.write(state);
+        }
+    }
+
+    /**
+     * Read state of this cluster node from the stream written by {@link #writeState(OutputStream, Serialization)}
+     * on other node.
+     *
+     * <p>The default implementation reads the whole stream and passes it to {@link #setState(byte[])}.</p>
+     *
+     * @param input         stream containing the state, must not be closed by the listener
+     * @param serialization serialization used by the sending node to encode objects of the state
+     */
+    default void readState(InputStream input, Serialization serialization) throws IOException {
+        byte[] state = IOUtils.toByteArray(input);
+        if (state.length > 0) {
+            setState(state);
+        }
+    }
 }
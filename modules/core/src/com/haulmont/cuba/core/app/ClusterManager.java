@@ -19,14 +19,19 @@ package com.haulmont.cuba.core.app;
 import com.google.common.base.Strings;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.haulmont.bali.util.Preconditions;
+import com.haulmont.bali.util.ReflectionHelper;
 import com.haulmont.cuba.core.global.Events;
 import com.haulmont.cuba.core.global.GlobalConfig;
 import com.haulmont.cuba.core.global.Resources;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.events.AppContextInitializedEvent;
 import com.haulmont.cuba.core.sys.events.AppContextStoppedEvent;
+import com.haulmont.cuba.core.sys.serialization.Serialization;
 import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.jgroups.*;
 import org.jgroups.conf.XmlConfigurator;
 import org.jgroups.jmx.JmxConfigurator;
@@ -49,6 +54,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Standard implementation of middleware clustering based on JGroups.
@@ -79,8 +86,22 @@ public class ClusterManager implements ClusterManagerAPI {
 
     protected Map<String, MessageStat> messagesStat = new ConcurrentHashMap<>();
 
+    protected Serialization messageSerialization;
+
+    protected String messageSerializationName;
+
+    protected volatile ClusterMessageSerialization clusterMessageReader;
+
+    protected volatile Exception stateReceivingError;
+
     protected static final String STATE_MAGIC = "CUBA_STATE";
 
+    protected static final String STREAMING_STATE_MAGIC = "CUBA_STATE_STREAM";
+
+    protected static final int STATE_CHUNK_SIZE = 64 * 1024;
+
+    protected Map<String, StateStat> stateStat = new ConcurrentHashMap<>();
+
     public JChannel getChannel() {
         return channel;
     }
@@ -98,6 +119,78 @@ public class ClusterManager implements ClusterManagerAPI {
                         log.info("Queue capacity is exceeded. Message: {}: {}", sendMessageRunnable.message.getClass(), sendMessageRunnable.message);
                     }
                 });
+        initMessageSerialization();
+    }
+
+    protected void initMessageSerialization() {
+        messageSerializationName = StringUtils.trimToEmpty(clusterConfig.getMessageSerialization());
+        messageSerialization = createMessageSerialization(messageSerializationName);
+        if (!messageSerializationName.isEmpty()) {
+            log.info("Using {} for cluster messages", messageSerializationName);
+        }
+    }
+
+    /**
+     * @param className serialization class name, empty string for the platform serialization
+     */
+    protected Serialization createMessageSerialization(String className) {
+        if (className.isEmpty()) {
+            return new PlatformSerialization();
+        }
+        try {
+            Class<Serialization> aClass = ReflectionHelper.getClass(className);
+            return ReflectionHelper.newInstance(aClass);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(
+                    String.format("Could not create an instance of cluster message serialization class [%s]", className));
+        }
+    }
+
+    protected byte[] serializeMessage(Serializable message) {
+        return messageSerialization.serialize(message);
+    }
+
+    /**
+     * Messages written by {@link ClusterMessageSerialization} are read regardless of the configured serialization,
+     * so it can be enabled on the nodes one by one.
+     */
+    protected Object deserializeMessage(byte[] bytes) {
+        if (!(messageSerialization instanceof ClusterMessageSerialization)
+                && ClusterMessageSerialization.hasHeader(bytes)) {
+            return getClusterMessageReader().deserialize(bytes);
+        }
+        return messageSerialization.deserialize(bytes);
+    }
+
+    protected ClusterMessageSerialization getClusterMessageReader() {
+        if (clusterMessageReader == null) {
+            clusterMessageReader = new ClusterMessageSerialization();
+        }
+        return clusterMessageReader;
+    }
+
+    /**
+     * @param className serialization the state has been written by on the sending node
+     * @return serialization to read the state
+     * @throws IllegalStateException if the serialization is not available on this node
+     */
+    protected Serialization getStateSerialization(String className) {
+        if (className.equals(messageSerializationName)) {
+            return messageSerialization;
+        }
+        log.info("Cluster state is written by {} serialization, this node uses {}",
+                className.isEmpty() ? "platform" : className,
+                messageSerializationName.isEmpty() ? "platform" : messageSerializationName);
+        try {
+            return createMessageSerialization(className);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException(
+                    String.format("Cluster state is written by serialization [%s] unavailable on this node", className), e);
+        }
+    }
+
+    protected MessageStat getMessageStat(String className) {
+        return messagesStat.computeIfAbsent(className, name -> new MessageStat());
     }
 
     @EventListener(AppContextInitializedEvent.class)
@@ -141,16 +234,13 @@ public class ClusterManager implements ClusterManagerAPI {
         try {
             byte[] bytes;
             try {
-                bytes = SerializationSupport.serialize(message);
+                bytes = serializeMessage(message);
             } catch (Exception e) {
                 log.error("Cluster message serialization error", e);
                 throw new RuntimeException("Cluster message serialization error", e);
             }
             log.debug("Sending message: {}: {} ({} bytes)", message.getClass(), message, bytes.length);
-            MessageStat stat = messagesStat.get(message.getClass().getName());
-            if (stat != null) {
-                stat.updateSent(bytes.length);
-            }
+            getMessageStat(message.getClass().getName()).updateSent(bytes.length);
             Message msg = new Message(null, null, bytes);
             if (sync) {
                 msg.setFlag(Message.Flag.RSVP);
@@ -183,7 +273,7 @@ public class ClusterManager implements ClusterManagerAPI {
     public synchronized void addListener(Class messageClass, ClusterListener listener) {
         String className = messageClass.getName();
         listeners.put(className, listener);
-        messagesStat.put(className, new MessageStat());
+        getMessageStat(className);
     }
 
     @Override
@@ -217,7 +307,11 @@ public class ClusterManager implements ClusterManagerAPI {
             channel.connect(getClusterName());
             try {
                 log.info("Receiving cluster state...");
+                stateReceivingError = null;
                 channel.getState(null, clusterConfig.getStateReceiveTimeout());
+                if (stateReceivingError != null) {
+                    throw new IllegalStateException("Error receiving the cluster state", stateReceivingError);
+                }
             } catch (Exception e) {
                 if (clusterConfig.getAbortOnStateReceivingFailure())
                     throw e;
@@ -329,16 +423,24 @@ public class ClusterManager implements ClusterManagerAPI {
     public String printSharedStateStat() {
         StringBuilder clusterStateStat = new StringBuilder();
         for (Map.Entry<String, ClusterListener> entry : listeners.entrySet()) {
-            byte[] data = null;
+            CountingOutputStream out = new CountingOutputStream(new NullOutputStream());
             StopWatch sw = new StopWatch();
             try {
-                data = entry.getValue().getState();
+                entry.getValue().writeState(out, messageSerialization);
+            } catch (IOException e) {
+                log.error("Error writing state: {}", entry.getKey(), e);
             } finally {
                 sw.stop();
             }
             clusterStateStat
                     .append(String.format("State: %s, size: %s bytes, serialize time: %s ms\n",
-                            entry.getKey(), data != null ? data.length : -1, sw.getElapsedTime()));
+                            entry.getKey(), out.getByteCount(), sw.getElapsedTime()));
+        }
+        for (Map.Entry<String, StateStat> entry : stateStat.entrySet()) {
+            StateStat stat = entry.getValue();
+            clusterStateStat
+                    .append(String.format("Last %s state: %s, size: %s bytes, time: %s ms\n",
+                            stat.sent ? "sent" : "received", entry.getKey(), stat.bytes, stat.time));
         }
         return clusterStateStat.toString();
     }
@@ -412,7 +514,7 @@ public class ClusterManager implements ClusterManagerAPI {
             try {
                 Serializable data;
                 try {
-                    data = (Serializable) SerializationSupport.deserialize(bytes);
+                    data = (Serializable) deserializeMessage(bytes);
                 } catch (Exception e) {
                     log.error("Cluster message deserialization error", e);
                     throw new RuntimeException("Cluster message deserialization error", e);
@@ -420,10 +522,7 @@ public class ClusterManager implements ClusterManagerAPI {
                 String className = data.getClass().getName();
                 simpleClassName = data.getClass().getSimpleName();
                 log.debug("Received message: {}: {} ({} bytes)", data.getClass(), data, bytes.length);
-                MessageStat stat = messagesStat.get(className);
-                if (stat != null) {
-                    stat.updateReceived(bytes.length);
-                }
+                getMessageStat(className).updateReceived(bytes.length);
                 ClusterListener listener = listeners.get(className);
                 if (listener != null) {
                     listener.receive(data);
@@ -439,39 +538,46 @@ public class ClusterManager implements ClusterManagerAPI {
             currentView = new_view;
         }
 
+        /**
+         * Writes the state of all listeners. The header contains the name of the serialization which encodes objects
+         * of the state, empty for the platform serialization. Nodes of versions before the streaming state transfer
+         * cannot read this format, so all nodes of the cluster must be updated together.
+         */
         @Override
         public void getState(OutputStream output) {
             log.debug("Sending state");
             try (DataOutputStream out = new DataOutputStream(output)) {
-                Map<String, byte[]> state = new HashMap<>();
+                out.writeUTF(STREAMING_STATE_MAGIC);
+                out.writeUTF(messageSerializationName);
                 for (Map.Entry<String, ClusterListener> entry : listeners.entrySet()) {
-                    byte[] data;
-                    StopWatch sw = new Slf4JStopWatch(String.format("getClusterState(%s)", entry.getKey()));
-                    try {
-                        data = entry.getValue().getState();
-                    } finally {
-                        sw.stop();
-                    }
-                    if (data != null && data.length > 0) {
-                        state.put(entry.getKey(), data);
-                    }
-                }
-
-                if (state.size() > 0) {
-                    out.writeUTF(STATE_MAGIC);
-                    out.writeInt(state.size());
-                    for (Map.Entry<String, byte[]> entry : state.entrySet()) {
-                        log.debug("Sending state: {} ({} bytes)", entry.getKey(), entry.getValue().length);
-                        out.writeUTF(entry.getKey());
-                        out.writeInt(entry.getValue().length);
-                        out.write(entry.getValue());
-                    }
+                    writeListenerState(out, entry.getKey(), entry.getValue());
                 }
+                out.writeUTF("");
             } catch (Exception e) {
                 log.error("Error sending state", e);
             }
         }
 
+        protected void writeListenerState(DataOutputStream out, String name, ClusterListener listener) throws IOException {
+            boolean compress = clusterConfig.getStateCompression();
+            out.writeUTF(name);
+            out.writeBoolean(compress);
+
+            ChunkedOutputStream chunked = new ChunkedOutputStream(out);
+            OutputStream section = compress ? new DeflaterOutputStream(chunked) : chunked;
+            StopWatch sw = new Slf4JStopWatch(String.format("getClusterState(%s)", name));
+            try {
+                listener.writeState(section, messageSerialization);
+            } catch (Exception e) {
+                log.error("Error writing state: {}", name, e);
+            } finally {
+                section.close();
+                sw.stop();
+            }
+            log.debug("Sent state: {} ({} bytes, {} ms)", name, chunked.getSize(), sw.getElapsedTime());
+            stateStat.put(name, new StateStat(chunked.getSize(), sw.getElapsedTime(), true));
+        }
+
         @Override
         public void suspect(Address suspected_mbr) {
             log.info("Suspected member: {}", suspected_mbr);
@@ -486,34 +592,69 @@ public class ClusterManager implements ClusterManagerAPI {
                     return;
 
                 String magic = in.readUTF();
-                if (!STATE_MAGIC.equals(magic)) {
-                    log.debug("Invalid magic in state received");
-                    return;
-                }
-                int count = in.readInt();
-                for (int i = 0; i < count; i++) {
-                    String name = in.readUTF();
-                    int len = in.readInt();
-                    StopWatch sw = new Slf4JStopWatch(String.format("setClusterState(%s)", name));
-                    try {
-                        log.debug("Receiving state: {} ({} bytes)", name, len);
-                        byte[] data = new byte[len];
-                        int c = in.read(data);
-                        if (c != len) {
-                            log.error("Error receiving state: invalid data length");
-                            return;
-                        }
-                        ClusterListener listener = listeners.get(name);
-                        if (listener != null) {
-                            listener.setState(data);
-                        }
-                    } finally {
-                        sw.stop();
+                if (STREAMING_STATE_MAGIC.equals(magic)) {
+                    Serialization serialization = getStateSerialization(in.readUTF());
+                    for (String name = in.readUTF(); !name.isEmpty(); name = in.readUTF()) {
+                        readListenerState(in, name, serialization);
                     }
+                } else if (STATE_MAGIC.equals(magic)) {
+                    readState(in);
+                } else {
+                    throw new IllegalStateException("Unsupported format of the cluster state: " + magic);
                 }
                 log.debug("State received");
             } catch (Exception e) {
                 log.error("Error receiving state", e);
+                stateReceivingError = e;
+            }
+        }
+
+        protected void readListenerState(DataInputStream in, String name, Serialization serialization)
+                throws IOException {
+            boolean compressed = in.readBoolean();
+
+            ChunkedInputStream chunked = new ChunkedInputStream(in);
+            InputStream section = compressed ? new InflaterInputStream(chunked) : chunked;
+            StopWatch sw = new Slf4JStopWatch(String.format("setClusterState(%s)", name));
+            try {
+                ClusterListener listener = listeners.get(name);
+                if (listener != null) {
+                    listener.readState(section, serialization);
+                }
+            } catch (Exception e) {
+                log.error("Error receiving state: {}", name, e);
+                if (stateReceivingError == null) {
+                    stateReceivingError = e;
+                }
+            } finally {
+                // skip data not read by the listener
+                section.close();
+                sw.stop();
+            }
+            log.debug("Received state: {} ({} bytes, {} ms)", name, chunked.getSize(), sw.getElapsedTime());
+            stateStat.put(name, new StateStat(chunked.getSize(), sw.getElapsedTime(), false));
+        }
+
+        /**
+         * Reads state in the format used by previous versions, where each listener state is a byte array.
+         */
+        protected void readState(DataInputStream in) throws IOException {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                int len = in.readInt();
+                StopWatch sw = new Slf4JStopWatch(String.format("setClusterState(%s)", name));
+                try {
+                    log.debug("Receiving state: {} ({} bytes)", name, len);
+                    byte[] data = new byte[len];
+                    in.readFully(data);
+                    ClusterListener listener = listeners.get(name);
+                    if (listener != null) {
+                        listener.setState(data);
+                    }
+                } finally {
+                    sw.stop();
+                }
             }
         }
 
@@ -526,6 +667,31 @@ public class ClusterManager implements ClusterManagerAPI {
         }
     }
 
+    /**
+     * Platform serialization configured by {@code cuba.serialization.impl}.
+     */
+    protected static class PlatformSerialization implements Serialization {
+        @Override
+        public void serialize(Object object, OutputStream os) {
+            SerializationSupport.serialize(object, os);
+        }
+
+        @Override
+        public Object deserialize(InputStream is) {
+            return SerializationSupport.deserialize(is);
+        }
+
+        @Override
+        public byte[] serialize(Object object) {
+            return SerializationSupport.serialize(object);
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            return SerializationSupport.deserialize(bytes);
+        }
+    }
+
     protected class SendMessageRunnable implements Runnable {
         protected Serializable message;
 
@@ -571,4 +737,140 @@ public class ClusterManager implements ClusterManagerAPI {
             return receivedMessages.longValue();
         }
     }
-}
\ No newline at end of file
+
+    protected static class StateStat {
+        protected final long bytes;
+        protected final long time;
+        protected final boolean sent;
+
+        public StateStat(long bytes, long time, boolean sent) {
+            this.bytes = bytes;
+            this.time = time;
+            this.sent = sent;
+        }
+    }
+
+    /**
+     * Writes data as a sequence of length-prefixed chunks terminated by a zero length chunk, so the state of a listener
+     * can be streamed without knowing its size in advance. Closing the stream terminates the sequence but does not
+     * close the underlying stream.
+     */
+    protected static class ChunkedOutputStream extends OutputStream {
+        protected final DataOutputStream out;
+        protected final byte[] buffer = new byte[STATE_CHUNK_SIZE];
+        protected int count;
+        protected long size;
+        protected boolean closed;
+
+        public ChunkedOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        protected void writeChunk() throws IOException {
+            if (count > 0) {
+                out.writeInt(count);
+                out.write(buffer, 0, count);
+                size += count;
+                count = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                writeChunk();
+                out.writeInt(0);
+            }
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Reads data written by {@link ChunkedOutputStream}. Closing the stream skips the rest of the chunks but does not
+     * close the underlying stream.
+     */
+    protected static class ChunkedInputStream extends InputStream {
+        protected final DataInputStream in;
+        protected int remaining;
+        protected long size;
+        protected boolean eof;
+
+        public ChunkedInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        protected boolean nextChunk() throws IOException {
+            while (remaining == 0 && !eof) {
+                remaining = in.readInt();
+                size += remaining;
+                if (remaining == 0) {
+                    eof = true;
+                }
+            }
+            return !eof;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            remaining--;
+            return in.readUnsignedByte();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            int n = in.read(b, off, Math.min(len, remaining));
+            if (n < 0) {
+                throw new EOFException("Unexpected end of cluster state");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            while (nextChunk()) {
+                IOUtils.skipFully(in, remaining);
+                remaining = 0;
+            }
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
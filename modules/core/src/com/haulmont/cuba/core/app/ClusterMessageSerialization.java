@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.google.common.collect.ImmutableList;
+import com.haulmont.cuba.core.sys.serialization.KryoSerialization;
+import com.haulmont.cuba.core.sys.serialization.Serialization;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import com.haulmont.cuba.core.sys.serialization.StandardSerialization;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Serialization of cluster messages. Known platform messages are written by Kryo with classes registered under fixed
+ * identifiers, so class names are not sent over the wire. Other messages, and messages Kryo fails to write, are
+ * written by standard Java serialization.
+ * <p>
+ * Each message starts with a header identifying its format. Messages without the header are considered to be sent
+ * by a node using the platform serialization and are read by {@link SerializationSupport}. {@link ClusterManager}
+ * reads messages with the header even if it is not configured to use this serialization.
+ * <p>
+ * Nodes of versions without this class cannot read messages written by it, so it must be enabled in two phases:
+ * <ol>
+ *     <li>update all nodes of the cluster to a version containing this class, keeping
+ *     {@code cuba.cluster.messageSerialization} not set;</li>
+ *     <li>set {@code cuba.cluster.messageSerialization} to the name of this class. Nodes can be restarted with the
+ *     new setting one by one, as all of them already read messages of both formats.</li>
+ * </ol>
+ * Classes are registered in Kryo by position in {@link #REGISTERED_CLASSES}, so all nodes using this serialization
+ * must run the same version of the platform.
+ */
+public class ClusterMessageSerialization implements Serialization {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterMessageSerialization.class);
+
+    protected static final byte HEADER = (byte) 0xC5;
+    protected static final byte KRYO_FORMAT = 1;
+    protected static final byte JAVA_FORMAT = 2;
+
+    protected static final int FIRST_REGISTRATION_ID = 1000;
+
+    protected static final int MESSAGE_CLASSES_COUNT = 5;
+
+    /**
+     * Classes registered in Kryo. Identifiers are assigned in the order of the list, so new classes must be added to
+     * the end of it. The first {@link #MESSAGE_CLASSES_COUNT} classes are messages written by Kryo.
+     */
+    protected static final List<String> REGISTERED_CLASSES = ImmutableList.of(
+            "com.haulmont.cuba.security.app.UserSessions$UserSessionInfo",
+            "com.haulmont.cuba.security.app.UserSessions$UserSessionsTouchMsg",
+            "com.haulmont.cuba.core.global.LockInfo",
+            "com.haulmont.cuba.core.sys.entitycache.QueryCacheManager$InvalidateQueryCacheMsg",
+            "com.haulmont.cuba.core.app.dynamicattributes.DynamicAttributesManager$ReloadCacheMsg",
+            "com.haulmont.cuba.core.sys.entitycache.QueryKey",
+            "com.haulmont.cuba.security.global.UserSession",
+            "com.haulmont.cuba.security.entity.User",
+            "com.haulmont.cuba.security.entity.RoleType",
+            "java.util.UUID",
+            "java.util.Date",
+            "java.util.Locale",
+            "java.util.HashMap",
+            "java.util.HashSet",
+            "java.util.ArrayList",
+            "java.util.concurrent.ConcurrentHashMap",
+            "java.util.Map[]",
+            "java.lang.Object[]",
+            "long[]"
+    );
+
+    protected final Set<Class> messageClasses;
+
+    protected final KryoSerialization kryoSerialization;
+
+    protected final StandardSerialization javaSerialization = new StandardSerialization();
+
+    public ClusterMessageSerialization() {
+        List<Class> classes = loadRegisteredClasses();
+        messageClasses = new HashSet<>(classes.subList(0, MESSAGE_CLASSES_COUNT));
+        kryoSerialization = new RegisteredClassesKryoSerialization(classes);
+    }
+
+    protected List<Class> loadRegisteredClasses() {
+        ClassLoader classLoader = ClusterMessageSerialization.class.getClassLoader();
+        List<Class> classes = new ArrayList<>(REGISTERED_CLASSES.size());
+        for (String className : REGISTERED_CLASSES) {
+            try {
+                classes.add(ClassUtils.getClass(classLoader, className, false));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Unable to register cluster message class " + className, e);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * @return whether the bytes contain a message written by this serialization
+     */
+    public static boolean hasHeader(byte[] bytes) {
+        return bytes != null && bytes.length >= 2 && bytes[0] == HEADER
+                && (bytes[1] == KRYO_FORMAT || bytes[1] == JAVA_FORMAT);
+    }
+
+    /**
+     * @return whether the message is written by Kryo
+     */
+    public boolean isRegistered(Object message) {
+        return message != null && messageClasses.contains(message.getClass());
+    }
+
+    @Override
+    public void serialize(Object object, OutputStream os) {
+        try {
+            os.write(serialize(object));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize object", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(InputStream is) {
+        try {
+            return deserialize(IOUtils.toByteArray(is));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to deserialize object", e);
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object object) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        if (isRegistered(object)) {
+            bos.write(HEADER);
+            bos.write(KRYO_FORMAT);
+            try {
+                kryoSerialization.serialize(object, bos);
+                return bos.toByteArray();
+            } catch (RuntimeException e) {
+                log.warn("Unable to serialize {} by Kryo, falling back to Java serialization", object.getClass(), e);
+                bos.reset();
+            }
+        }
+        bos.write(HEADER);
+        bos.write(JAVA_FORMAT);
+        javaSerialization.serialize(object, bos);
+        return bos.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length < 2 || bytes[0] != HEADER) {
+            return SerializationSupport.deserialize(bytes);
+        }
+        InputStream is = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+        switch (bytes[1]) {
+            case KRYO_FORMAT:
+                return kryoSerialization.deserialize(is);
+            case JAVA_FORMAT:
+                return javaSerialization.deserialize(is);
+            default:
+                throw new IllegalArgumentException("Unknown cluster message format: " + bytes[1]);
+        }
+    }
+
+    protected static class RegisteredClassesKryoSerialization extends KryoSerialization {
+
+        protected final List<Class> registeredClasses;
+
+        public RegisteredClassesKryoSerialization(List<Class> registeredClasses) {
+            this.registeredClasses = registeredClasses;
+        }
+
+        @Override
+        protected Kryo newKryoInstance() {
+            Kryo kryo = super.newKryoInstance();
+            int id = FIRST_REGISTRATION_ID;
+            for (Class aClass : registeredClasses) {
+                // keep serializers assigned by default, e.g. for entities
+                kryo.register(aClass, kryo.getDefaultSerializer(aClass), id++);
+            }
+            return kryo;
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -52,6 +53,8 @@ public class ConfigStorage implements ConfigStorageAPI {
 
     protected Map<String, String> cache;
 
+    protected AtomicLong version = new AtomicLong();
+
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
     protected Lock readLock = lock.readLock();
     protected Lock writeLock = lock.writeLock();
@@ -83,11 +86,17 @@ public class ConfigStorage implements ConfigStorageAPI {
         writeLock.lock();
         try {
             cache = null;
+            version.incrementAndGet();
         } finally {
             writeLock.unlock();
         }
     }
 
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
     @Override
     public Map<String, String> getDbProperties() {
         readLock.lock();
@@ -59,4 +59,12 @@ public interface ConfigStorageAPI {
      * Clear properties cache. Invoke this method if you changed the properties directly in the database.
      */
     void clearCache();
+
+    /**
+     * @return a number which is increased each time the cached properties are changed or invalidated,
+     * or a negative number if the changes are not tracked
+     */
+    default long getVersion() {
+        return -1;
+    }
 }
@@ -16,18 +16,27 @@
  */
 package com.haulmont.cuba.core.app;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.KeyValueEntity;
 import com.haulmont.cuba.core.global.CommitContext;
 import com.haulmont.cuba.core.global.DataManager;
 import com.haulmont.cuba.core.global.LoadContext;
 import com.haulmont.cuba.core.global.ValueLoadContext;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.SecurityContext;
+import org.perf4j.StopWatch;
+import org.perf4j.slf4j.Slf4JStopWatch;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.*;
 
 @Service(DataService.NAME)
 public class DataServiceBean implements DataService {
@@ -35,6 +44,11 @@ public class DataServiceBean implements DataService {
     @Inject
     protected DataManager dataManager;
 
+    @Inject
+    protected ServerConfig serverConfig;
+
+    protected volatile ThreadPoolExecutor batchLoadExecutor;
+
     @Override
     public Set<Entity> commit(CommitContext context) {
         context.setAuthorizationRequired(true);
@@ -54,6 +68,110 @@ public class DataServiceBean implements DataService {
         return dataManager.loadList(context);
     }
 
+    @Override
+    public List<List<Entity>> loadBatch(List<LoadContext<? extends Entity>> contexts) {
+        for (LoadContext<? extends Entity> context : contexts) {
+            context.setAuthorizationRequired(true);
+        }
+        ThreadPoolExecutor executor = contexts.size() > 1 ? getBatchLoadExecutor() : null;
+        if (executor == null) {
+            List<List<Entity>> results = new ArrayList<>(contexts.size());
+            for (LoadContext<? extends Entity> context : contexts) {
+                results.add(loadBatchItem(context));
+            }
+            return results;
+        }
+
+        // the first context is executed by the calling thread while the others are loaded by the pool
+        SecurityContext securityContext = AppContext.getSecurityContext();
+        List<Future<List<Entity>>> futures = new ArrayList<>(contexts.size() - 1);
+        for (LoadContext<? extends Entity> context : contexts.subList(1, contexts.size())) {
+            Callable<List<Entity>> task = () ->
+                    AppContext.withSecurityContext(securityContext, () -> loadBatchItem(context));
+            try {
+                futures.add(executor.submit(task));
+            } catch (RejectedExecutionException e) {
+                FutureTask<List<Entity>> futureTask = new FutureTask<>(task);
+                futureTask.run();
+                futures.add(futureTask);
+            }
+        }
+
+        List<List<Entity>> results = new ArrayList<>(contexts.size());
+        try {
+            results.add(loadBatchItem(contexts.get(0)));
+            for (Future<List<Entity>> future : futures) {
+                results.add(getBatchResult(future));
+            }
+        } finally {
+            for (Future<List<Entity>> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return results;
+    }
+
+    protected List<Entity> loadBatchItem(LoadContext<? extends Entity> context) {
+        StopWatch sw = new Slf4JStopWatch("DataService.loadBatch." + context.getMetaClass());
+        try {
+            if (context.getId() != null) {
+                Entity entity = dataManager.load(context);
+                return entity == null ? Collections.emptyList() : Collections.singletonList(entity);
+            } else {
+                return new ArrayList<>(dataManager.loadList(context));
+            }
+        } finally {
+            sw.stop();
+        }
+    }
+
+    protected List<Entity> getBatchResult(Future<List<Entity>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for batch load results", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("Error loading batch", cause);
+        }
+    }
+
+    @Nullable
+    protected ThreadPoolExecutor getBatchLoadExecutor() {
+        ThreadPoolExecutor executor = batchLoadExecutor;
+        if (executor == null) {
+            int threads = serverConfig.getBatchLoadThreads();
+            if (threads <= 0) {
+                return null;
+            }
+            synchronized (this) {
+                executor = batchLoadExecutor;
+                if (executor == null) {
+                    executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(threads * 16),
+                            new ThreadFactoryBuilder().setNameFormat("DataServiceBatchLoader-%d").setDaemon(true).build());
+                    executor.allowCoreThreadTimeOut(true);
+                    batchLoadExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    protected void shutdownBatchLoadExecutor() {
+        if (batchLoadExecutor != null) {
+            batchLoadExecutor.shutdownNow();
+        }
+    }
+
     @Override
     public long getCount(LoadContext<? extends Entity> context) {
         context.setAuthorizationRequired(true);
@@ -21,7 +21,9 @@ import com.haulmont.cuba.core.global.Messages;
 
 import org.springframework.stereotype.Component;
 import javax.inject.Inject;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 @Component(LocalizedMessageService.NAME)
 public class LocalizedMessageServiceBean implements LocalizedMessageService {
@@ -33,4 +35,10 @@ public class LocalizedMessageServiceBean implements LocalizedMessageService {
     public String getMessage(String pack, String key, Locale locale) {
         return messages.getMessage(pack, key, locale);
     }
+
+    @Override
+    public Map<String, String> getMessages(String pack, Locale locale) {
+        // return serializable map
+        return new HashMap<>(messages.getMessages(pack, locale));
+    }
 }
\ No newline at end of file
@@ -29,6 +29,7 @@ import com.haulmont.cuba.core.app.queryresults.QueryResultsManagerAPI;
 import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.EntityFetcher;
+import com.haulmont.cuba.core.sys.jpql.QueryTransformationCache;
 import com.haulmont.cuba.core.sys.persistence.EntityChangedEventManager;
 import com.haulmont.cuba.security.entity.ConstraintOperationType;
 import com.haulmont.cuba.security.entity.EntityAttrAccess;
@@ -92,6 +93,9 @@ public class RdbmsStore implements DataStore {
     @Inject
     protected QueryTransformerFactory queryTransformerFactory;
 
+    @Inject
+    protected QueryTransformationCache queryTransformationCache;
+
     @Inject
     protected EntityFetcher entityFetcher;
 
@@ -211,11 +215,10 @@ public class RdbmsStore implements DataStore {
 
             boolean ensureDistinct = false;
             if (serverConfig.getInMemoryDistinct() && context.getQuery() != null) {
-                QueryTransformer transformer = queryTransformerFactory.transformer(
-                        context.getQuery().getQueryString());
-                ensureDistinct = transformer.removeDistinct();
+                String queryString = queryTransformationCache.removeDistinct(context.getQuery().getQueryString());
+                ensureDistinct = queryString != null;
                 if (ensureDistinct) {
-                    context.getQuery().setQueryString(transformer.getResult());
+                    context.getQuery().setQueryString(queryString);
                 }
             }
             View view = createRestrictedView(context);
@@ -290,11 +293,10 @@ public class RdbmsStore implements DataStore {
 
                 boolean ensureDistinct = false;
                 if (serverConfig.getInMemoryDistinct() && context.getQuery() != null) {
-                    QueryTransformer transformer = QueryTransformerFactory.createTransformer(
-                            context.getQuery().getQueryString());
-                    ensureDistinct = transformer.removeDistinct();
+                    String queryString = queryTransformationCache.removeDistinct(context.getQuery().getQueryString());
+                    ensureDistinct = queryString != null;
                     if (ensureDistinct) {
-                        context.getQuery().setQueryString(transformer.getResult());
+                        context.getQuery().setQueryString(queryString);
                     }
                 }
                 context.getQuery().setFirstResult(0);
@@ -309,9 +311,8 @@ public class RdbmsStore implements DataStore {
             }
             return resultList.size();
         } else {
-            QueryTransformer transformer = QueryTransformerFactory.createTransformer(context.getQuery().getQueryString());
-            transformer.replaceWithCount();
-            context.getQuery().setQueryString(transformer.getResult());
+            context.getQuery().setQueryString(
+                    queryTransformationCache.replaceWithCount(context.getQuery().getQueryString()));
 
             Number result;
             try (Transaction tx = getLoadTransaction(context.isJoinTransaction())) {
@@ -523,7 +524,7 @@ public class RdbmsStore implements DataStore {
                     + (contextQuery.getFirstResult() == 0 ? "" : ", first=" + contextQuery.getFirstResult())
                     + (contextQuery.getMaxResults() == 0 ? "" : ", max=" + contextQuery.getMaxResults()));
 
-        QueryParser queryParser = queryTransformerFactory.parser(contextQuery.getQueryString());
+        QueryParser queryParser = queryTransformationCache.parser(contextQuery.getQueryString());
         if (isAuthorizationRequired(context) && !checkValueQueryPermissions(queryParser)) {
             return Collections.emptyList();
         }
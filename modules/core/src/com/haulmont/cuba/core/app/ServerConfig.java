@@ -21,8 +21,14 @@ import com.haulmont.cuba.core.config.Property;
 import com.haulmont.cuba.core.config.Source;
 import com.haulmont.cuba.core.config.SourceType;
 import com.haulmont.cuba.core.config.defaults.*;
+import com.haulmont.cuba.core.config.type.CommaSeparatedStringListStringify;
+import com.haulmont.cuba.core.config.type.CommaSeparatedStringListTypeFactory;
+import com.haulmont.cuba.core.config.type.Factory;
+import com.haulmont.cuba.core.config.type.Stringify;
 import com.haulmont.cuba.security.app.UserSessionsAPI;
 
+import java.util.List;
+
 /**
  * Configuration parameters interface used by the CORE layer.
  */
@@ -102,6 +108,14 @@ public interface ServerConfig extends Config {
     @DefaultInt(1)
     int getUserSessionTouchTimeoutSec();
 
+    /**
+     * @return if true, refreshes of user sessions are propagated to the cluster as batches of session ids with
+     * last usage timestamps, and whole sessions are sent only when they are created, changed or removed
+     */
+    @Property("cuba.userSessionTouchReplication")
+    @DefaultBoolean(true)
+    boolean getUserSessionTouchReplication();
+
     /**
      * @return DB scripts directory.
      * Does not end with "/"
@@ -131,6 +145,29 @@ public interface ServerConfig extends Config {
     @DefaultBoolean(true)
     boolean getImmutableFileStorage();
 
+    /**
+     * @return number of threads copying files to each secondary {@link FileStorageAPI} storage directory
+     */
+    @Property("cuba.fileStorageReplicationThreads")
+    @DefaultInt(2)
+    int getFileStorageReplicationThreads();
+
+    /**
+     * Maximum number of files waiting to be copied to a secondary storage directory. When the limit is reached,
+     * the file is copied synchronously by the thread which saves it.
+     */
+    @Property("cuba.fileStorageReplicationQueueCapacity")
+    @DefaultInt(1000)
+    int getFileStorageReplicationQueueCapacity();
+
+    /**
+     * @return number of threads executing load contexts passed to {@link DataService#loadBatch(List)} concurrently.
+     * If 0, the contexts are executed sequentially by the calling thread.
+     */
+    @Property("cuba.batchLoadThreads")
+    @DefaultInt(4)
+    int getBatchLoadThreads();
+
     /**
      * @return Scheduled tasks execution control.
      */
@@ -308,4 +345,53 @@ public interface ServerConfig extends Config {
     @Property("cuba.implicitConversionOfJpqlParams")
     @DefaultBoolean(false)
     boolean getImplicitConversionOfJpqlParams();
-}
\ No newline at end of file
+
+    /**
+     * @return whether parsed JPQL queries and results of JPQL transformations are cached on the middleware
+     */
+    @Property("cuba.queryTransformationCache.enabled")
+    @DefaultBoolean(true)
+    boolean getQueryTransformationCacheEnabled();
+
+    /**
+     * @return maximum number of parsed queries and, separately, of transformation results kept in the cache
+     */
+    @Property("cuba.queryTransformationCache.maxSize")
+    @DefaultInt(1000)
+    int getQueryTransformationCacheMaxSize();
+
+    /**
+     * @return maximum number of fetch plans (fetch group attributes and JOIN/BATCH hints calculated for a query
+     * and a view) kept in the cache of {@code FetchGroupManager}
+     */
+    @Property("cuba.fetchPlanCache.maxSize")
+    @DefaultInt(1000)
+    int getFetchPlanCacheMaxSize();
+
+    /**
+     * @return domains of {@link UniqueNumbersAPI} which numbers are allocated in blocks. A domain with an existing
+     * sequence can be added here, its next numbers start from the sequence value multiplied by
+     * {@link #getUniqueNumbersBlockSize()}. A domain must not be removed from the list while its sequence exists.
+     */
+    @Property("cuba.uniqueNumbers.blockAllocationDomains")
+    @Factory(factory = CommaSeparatedStringListTypeFactory.class)
+    @Stringify(stringify = CommaSeparatedStringListStringify.class)
+    List<String> getUniqueNumbersBlockAllocationDomains();
+
+    /**
+     * @return number of unique numbers allocated by one database round trip for block allocation domains.
+     * Must not be changed after sequences of these domains are created.
+     */
+    @Property("cuba.uniqueNumbers.blockSize")
+    @DefaultInt(100)
+    int getUniqueNumbersBlockSize();
+
+    /**
+     * @return time in seconds after which unused numbers of an allocated block are discarded. Shorter time produces
+     * more gaps but keeps numbers issued by different cluster nodes closer to the order of issue. 0 means that
+     * blocks are used until exhausted.
+     */
+    @Property("cuba.uniqueNumbers.blockExpirationTime")
+    @DefaultInt(0)
+    int getUniqueNumbersBlockExpirationTime();
+}
@@ -17,23 +17,58 @@
 package com.haulmont.cuba.core.app;
 
 import com.haulmont.cuba.core.global.Stores;
+import com.haulmont.cuba.core.global.TimeSource;
 import org.apache.commons.lang3.StringUtils;
 
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Provides unique numbers based on database sequences.
+ * <p>
+ * Numbers of domains listed in {@link ServerConfig#getUniqueNumbersBlockAllocationDomains()} are allocated in blocks
+ * using hi/lo numbering: a value of the domain sequence multiplied by the block size is the first number of a block,
+ * and the numbers of a block are issued from memory. Blocks do not overlap whatever increment the sequence has been
+ * created with, so an existing domain can be switched to block allocation. Unused numbers of a block are lost when
+ * the block expires, the sequence value is changed or the server is stopped.
+ * For these domains {@link #getCurrentNumber(String)} returns the first number of the last block allocated in the
+ * cluster, and after {@link #setCurrentNumber(String, long)} numbers are issued from the next block following the
+ * given value.
  */
 @Component(UniqueNumbersAPI.NAME)
 public class UniqueNumbers implements UniqueNumbersAPI {
 
+    protected static final long NO_NUMBER = Long.MIN_VALUE;
+
     @Inject
     protected Sequences sequences;
 
+    @Inject
+    protected ServerConfig serverConfig;
+
+    @Inject
+    protected TimeSource timeSource;
+
+    protected ConcurrentMap<String, NumberBlock> blocks = new ConcurrentHashMap<>();
+
+    protected ConcurrentMap<String, Object> blockLocks = new ConcurrentHashMap<>();
+
+    protected LongAdder allocatedBlocks = new LongAdder();
+    protected LongAdder numbersFromBlocks = new LongAdder();
+    protected LongAdder discardedNumbers = new LongAdder();
+
     @Override
     public long getNextNumber(String domain) {
+        int blockSize = getBlockSize(domain);
+        if (blockSize > 1) {
+            return getNextNumberFromBlock(domain, blockSize);
+        }
         Sequence sequence = Sequence.withName(getSequenceName(domain))
                 .setStore(getDataStore(domain))
                 .setStartValue(1)
@@ -45,21 +80,108 @@ public class UniqueNumbers implements UniqueNumbersAPI {
     public long getCurrentNumber(String domain) {
         Sequence sequence = Sequence.withName(getSequenceName(domain))
                 .setStore(getDataStore(domain));
-        return sequences.getCurrentValue(sequence);
+        long value = sequences.getCurrentValue(sequence);
+        int blockSize = getBlockSize(domain);
+        return blockSize > 1 ? Math.multiplyExact(value, (long) blockSize) : value;
     }
 
     @Override
     public void setCurrentNumber(String domain, long value) {
         Sequence sequence = Sequence.withName(getSequenceName(domain))
                 .setStore(getDataStore(domain));
-        sequences.setCurrentValue(sequence, value);
+        int blockSize = getBlockSize(domain);
+        synchronized (getBlockLock(domain)) {
+            discardBlock(domain);
+            sequences.setCurrentValue(sequence, blockSize > 1 ? Math.floorDiv(value, blockSize) : value);
+        }
     }
 
     @Override
     public void deleteSequence(String domain) {
         Sequence sequence = Sequence.withName(getSequenceName(domain))
                 .setStore(getDataStore(domain));
-        sequences.deleteSequence(sequence);
+        synchronized (getBlockLock(domain)) {
+            discardBlock(domain);
+            sequences.deleteSequence(sequence);
+        }
+    }
+
+    @Override
+    public long getAllocatedBlocksCount() {
+        return allocatedBlocks.sum();
+    }
+
+    @Override
+    public long getNumbersFromBlocksCount() {
+        return numbersFromBlocks.sum();
+    }
+
+    @Override
+    public long getDiscardedNumbersCount() {
+        return discardedNumbers.sum();
+    }
+
+    protected long getNextNumberFromBlock(String domain, int blockSize) {
+        NumberBlock block = blocks.get(domain);
+        long number = block != null ? block.next(timeSource.currentTimeMillis()) : NO_NUMBER;
+        if (number == NO_NUMBER) {
+            synchronized (getBlockLock(domain)) {
+                // another thread could allocate a new block while this one was waiting
+                block = blocks.get(domain);
+                number = block != null ? block.next(timeSource.currentTimeMillis()) : NO_NUMBER;
+                if (number == NO_NUMBER) {
+                    return allocateBlock(domain, blockSize);
+                }
+            }
+        }
+        numbersFromBlocks.increment();
+        return number;
+    }
+
+    /**
+     * Allocates a new block of numbers by one database round trip and returns the first number of the block.
+     */
+    protected long allocateBlock(String domain, int blockSize) {
+        Sequence sequence = Sequence.withName(getSequenceName(domain))
+                .setStore(getDataStore(domain))
+                .setStartValue(1)
+                .setIncrement(1);
+        long first = Math.multiplyExact(sequences.createNextValue(sequence), (long) blockSize);
+        allocatedBlocks.increment();
+
+        int expirationTime = serverConfig.getUniqueNumbersBlockExpirationTime();
+        long expirationTs = expirationTime > 0 ? timeSource.currentTimeMillis() + expirationTime * 1000L : 0;
+        NumberBlock oldBlock = blocks.put(domain, new NumberBlock(first + 1, first + blockSize - 1, expirationTs));
+        if (oldBlock != null) {
+            discardedNumbers.add(oldBlock.remaining());
+        }
+        return first;
+    }
+
+    protected void discardBlock(String domain) {
+        NumberBlock block = blocks.remove(domain);
+        if (block != null) {
+            discardedNumbers.add(block.remaining());
+        }
+    }
+
+    protected Object getBlockLock(String domain) {
+        return blockLocks.computeIfAbsent(domain, k -> new Object());
+    }
+
+    /**
+     * Override this method if you want to control the block size for a particular domain. Must return the same value
+     * for the domain on all cluster nodes as long as its sequence exists.
+     *
+     * @param domain    sequence identifier passed to the interface methods
+     * @return          number of unique numbers allocated by one database round trip, 1 to disable block allocation
+     */
+    protected int getBlockSize(String domain) {
+        List<String> blockAllocationDomains = serverConfig.getUniqueNumbersBlockAllocationDomains();
+        if (blockAllocationDomains != null && blockAllocationDomains.contains(domain)) {
+            return serverConfig.getUniqueNumbersBlockSize();
+        }
+        return 1;
     }
 
     /**
@@ -77,4 +199,35 @@ public class UniqueNumbers implements UniqueNumbersAPI {
             throw new IllegalArgumentException("Domain name can not be blank");
         return "seq_un_" + domain;
     }
-}
\ No newline at end of file
+
+    /**
+     * Range of numbers issued from memory without locking.
+     */
+    protected static class NumberBlock {
+
+        protected final AtomicLong next;
+        protected final long last;
+        protected final long expirationTs;
+
+        public NumberBlock(long first, long last, long expirationTs) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+            this.expirationTs = expirationTs;
+        }
+
+        /**
+         * @return next number of the block or {@link #NO_NUMBER} if the block is exhausted or expired
+         */
+        public long next(long now) {
+            if (expirationTs > 0 && now >= expirationTs) {
+                return NO_NUMBER;
+            }
+            long number = next.getAndIncrement();
+            return number <= last ? number : NO_NUMBER;
+        }
+
+        public long remaining() {
+            return Math.max(0, last - next.get() + 1);
+        }
+    }
+}
@@ -57,4 +57,25 @@ public interface UniqueNumbersAPI {
      * @throws java.lang.IllegalStateException if sequence does not exist
      */
     void deleteSequence(String domain);
+
+    /**
+     * @return number of database round trips made to allocate blocks of numbers
+     */
+    default long getAllocatedBlocksCount() {
+        return 0;
+    }
+
+    /**
+     * @return number of numbers issued from allocated blocks, i.e. database round trips avoided
+     */
+    default long getNumbersFromBlocksCount() {
+        return 0;
+    }
+
+    /**
+     * @return number of unused numbers of discarded blocks, i.e. gaps in sequences
+     */
+    default long getDiscardedNumbersCount() {
+        return 0;
+    }
 }
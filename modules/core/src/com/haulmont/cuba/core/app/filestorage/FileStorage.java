@@ -16,32 +16,35 @@
  */
 package com.haulmont.cuba.core.app.filestorage;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.haulmont.cuba.core.app.FileStorageAPI;
 import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.entity.FileDescriptor;
 import com.haulmont.cuba.core.global.*;
-import com.haulmont.cuba.core.sys.AppContext;
-import com.haulmont.cuba.core.sys.SecurityContext;
+import com.haulmont.cuba.core.sys.events.AppContextStartedEvent;
 import com.haulmont.cuba.security.global.UserSession;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.haulmont.bali.util.Preconditions.checkNotNullArgument;
 
@@ -61,8 +64,9 @@ public class FileStorage implements FileStorageAPI {
 
     protected boolean isImmutableFileStorage;
 
-    protected ExecutorService writeExecutor = Executors.newFixedThreadPool(5,
-            new ThreadFactoryBuilder().setNameFormat("FileStorageWriter-%d").build());
+    protected volatile FileStorageReplicator replicator;
+
+    protected Map<File, FileStorageLog> storageLogs = new ConcurrentHashMap<>();
 
     protected volatile File[] storageRoots;
 
@@ -98,6 +102,47 @@ public class FileStorage implements FileStorageAPI {
         return storageRoots;
     }
 
+    /**
+     * INTERNAL. Don't use in application code.
+     *
+     * @return replicator copying files to secondary storage roots or null if only one root is defined
+     */
+    @Nullable
+    public FileStorageReplicator getReplicator() {
+        if (replicator == null) {
+            synchronized (this) {
+                if (replicator == null) {
+                    File[] roots = getStorageRoots();
+                    if (roots.length < 2) {
+                        return null;
+                    }
+                    ServerConfig serverConfig = configuration.getConfig(ServerConfig.class);
+                    FileStorageReplicator newReplicator = createReplicator(roots[0],
+                            serverConfig.getFileStorageReplicationThreads(),
+                            serverConfig.getFileStorageReplicationQueueCapacity());
+                    newReplicator.recover();
+                    replicator = newReplicator;
+                }
+            }
+        }
+        return replicator;
+    }
+
+    protected FileStorageReplicator createReplicator(File primaryRoot, int threadsPerRoot, int queueCapacity) {
+        return new FileStorageReplicator(primaryRoot, threadsPerRoot, queueCapacity,
+                (file, user) -> writeLog(file, user, false));
+    }
+
+    @EventListener(AppContextStartedEvent.class)
+    protected void resumeReplication() {
+        try {
+            // continue copying of files which have not been replicated before the previous shutdown
+            getReplicator();
+        } catch (Exception e) {
+            log.error("Unable to resume file storage replication", e);
+        }
+    }
+
     @Override
     public long saveStream(final FileDescriptor fileDescr, final InputStream inputStream) throws FileStorageException {
         checkFileDescriptor(fileDescr);
@@ -134,7 +179,7 @@ public class FileStorage implements FileStorageAPI {
 
         // Copy file to secondary storages asynchronously
 
-        final SecurityContext securityContext = AppContext.getSecurityContext();
+        String user = roots.length > 1 ? getCurrentUser() : null;
         for (int i = 1; i < roots.length; i++) {
             if (!roots[i].exists()) {
                 log.error("Error saving {} into {} : directory doesn't exist", fileDescr, roots[i]);
@@ -142,22 +187,9 @@ public class FileStorage implements FileStorageAPI {
             }
 
             File copyDir = getStorageDir(roots[i], fileDescr);
-            final File fileCopy = new File(copyDir, getFileName(fileDescr));
-
-            writeExecutor.submit(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        AppContext.setSecurityContext(securityContext);
-                        FileUtils.copyFile(file, fileCopy, true);
-                        writeLog(fileCopy, false);
-                    } catch (Exception e) {
-                        log.error("Error saving {} into {} : {}", fileDescr, fileCopy.getAbsolutePath(), e.getMessage());
-                    } finally {
-                        AppContext.setSecurityContext(null);
-                    }
-                }
-            });
+            File fileCopy = new File(copyDir, getFileName(fileDescr));
+
+            getReplicator().replicate(roots[i], file, fileCopy, user);
         }
 
         return size;
@@ -193,7 +225,11 @@ public class FileStorage implements FileStorageAPI {
         saveStream(fileDescr, new ByteArrayInputStream(data));
     }
 
-    protected synchronized void writeLog(File file, boolean remove) {
+    protected void writeLog(File file, boolean remove) {
+        writeLog(file, getCurrentUser(), remove);
+    }
+
+    protected void writeLog(File file, String user, boolean remove) {
         File rootDir;
         try {
             rootDir = file.getParentFile().getParentFile().getParentFile().getParentFile();
@@ -202,29 +238,19 @@ public class FileStorage implements FileStorageAPI {
             return;
         }
 
-        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-
-        UserSession userSession = userSessionSource.getUserSession();
-        String userLogin = userSession.getUser().getLogin();
-        String userId = userSession.getUser().getId().toString();
-
-        StringBuilder sb = new StringBuilder();
-        sb.append(df.format(timeSource.currentTimestamp())).append(" ");
-
-        sb.append("[").append(userLogin).append("--").append(userId).append("] ");
-        sb.append(remove ? "REMOVE" : "CREATE").append(" ");
-        sb.append("\"").append(file.getAbsolutePath()).append("\"\n");
-
-        File logFile = new File(rootDir, "storage.log");
+        FileStorageLog storageLog = storageLogs.computeIfAbsent(rootDir, FileStorageLog::new);
         try {
-            try (FileOutputStream fos = new FileOutputStream(logFile, true)) {
-                IOUtils.write(sb.toString(), fos, StandardCharsets.UTF_8);
-            }
+            storageLog.write(timeSource.currentTimestamp(), user, file, remove);
         } catch (IOException e) {
             log.error("Unable to write log", e);
         }
     }
 
+    protected String getCurrentUser() {
+        UserSession userSession = userSessionSource.getUserSession();
+        return userSession.getUser().getLogin() + "--" + userSession.getUser().getId();
+    }
+
     @Override
     public void removeFile(FileDescriptor fileDescr) throws FileStorageException {
         checkFileDescriptor(fileDescr);
@@ -287,6 +313,66 @@ public class FileStorage implements FileStorageAPI {
             throw new FileStorageException(FileStorageException.Type.FILE_NOT_FOUND, fileDescr.getId().toString());
     }
 
+    @Override
+    public InputStream openStream(FileDescriptor fileDescr, long offset, long length) throws FileStorageException {
+        FileChannel channel = openChannel(fileDescr);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(channel);
+            throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fileDescr.getId().toString(), e);
+        }
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public long transferTo(FileDescriptor fileDescr, long offset, long length, WritableByteChannel target)
+            throws FileStorageException {
+        try (FileChannel channel = openChannel(fileDescr)) {
+            long size = channel.size();
+            long end = length < size - offset ? offset + length : size;
+            long position = offset;
+            // transferTo() may transfer less than requested, so it is called until the range is written
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0 && position >= channel.size()) {
+                    break;
+                }
+                position += transferred;
+            }
+            return Math.max(position - offset, 0);
+        } catch (IOException e) {
+            throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fileDescr.getId().toString(), e);
+        }
+    }
+
+    protected FileChannel openChannel(FileDescriptor fileDescr) throws FileStorageException {
+        checkFileDescriptor(fileDescr);
+
+        File[] roots = getStorageRoots();
+        if (roots.length == 0) {
+            log.error("No storage directories available");
+            throw new FileStorageException(FileStorageException.Type.FILE_NOT_FOUND, fileDescr.getId().toString());
+        }
+
+        for (File root : roots) {
+            File dir = getStorageDir(root, fileDescr);
+
+            File file = new File(dir, getFileName(fileDescr));
+            if (!file.exists()) {
+                log.error("File " + file + " not found");
+                continue;
+            }
+
+            try {
+                return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                log.error("Error opening channel for " + file, e);
+            }
+        }
+        throw new FileStorageException(FileStorageException.Type.FILE_NOT_FOUND, fileDescr.getId().toString());
+    }
+
     @Override
     public byte[] loadFile(FileDescriptor fileDescr) throws FileStorageException {
         InputStream inputStream = openStream(fileDescr);
@@ -338,6 +424,11 @@ public class FileStorage implements FileStorageAPI {
 
     @PreDestroy
     protected void stopWriteExecutor() {
-        writeExecutor.shutdown();
+        if (replicator != null) {
+            replicator.shutdown();
+        }
+        for (FileStorageLog storageLog : storageLogs.values()) {
+            storageLog.close();
+        }
     }
 }
\ No newline at end of file
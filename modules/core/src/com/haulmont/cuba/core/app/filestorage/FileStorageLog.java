@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.filestorage;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Append-only {@code storage.log} of a file storage root.
+ * <p>
+ * The underlying writer is opened once and kept open, each record is flushed as soon as it is written.
+ */
+public class FileStorageLog implements Closeable {
+
+    public static final String LOG_FILE_NAME = "storage.log";
+
+    protected static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    protected final File logFile;
+
+    protected Writer writer;
+
+    public FileStorageLog(File rootDir) {
+        this.logFile = new File(rootDir, LOG_FILE_NAME);
+    }
+
+    /**
+     * Appends a record about created or removed file.
+     *
+     * @param timestamp time of the operation
+     * @param user      user in the {@code login--id} form
+     * @param file      created or removed file
+     * @param remove    true if the file has been removed
+     */
+    public synchronized void write(Date timestamp, String user, File file, boolean remove) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(DATE_FORMAT.format(timestamp.toInstant())).append(" ");
+        sb.append("[").append(user).append("] ");
+        sb.append(remove ? "REMOVE" : "CREATE").append(" ");
+        sb.append("\"").append(file.getAbsolutePath()).append("\"\n");
+
+        if (writer == null) {
+            writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(logFile, true), StandardCharsets.UTF_8));
+        }
+        try {
+            writer.write(sb.toString());
+            writer.flush();
+        } catch (IOException e) {
+            // reopen the file on next write
+            IOUtils.closeQuietly(writer);
+            writer = null;
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        IOUtils.closeQuietly(writer);
+        writer = null;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.filestorage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Copies files from the primary file storage root to secondary roots in background.
+ * <p>
+ * Each secondary root is served by its own bounded thread pool, so a slow or hung root does not delay
+ * replication to the others. When the queue of a root is full, the replica is copied in the calling thread,
+ * which slows down uploads instead of accumulating unbounded amount of work in memory.
+ * <p>
+ * Every scheduled replica is recorded in the {@code replication.journal} file of the primary root before the
+ * copying starts and is marked as done after it completes. Replicas that have not been completed before
+ * the server shutdown or crash, including the failed ones, are restored from the journal and copied again on the
+ * next start. The journal is rewritten to contain only such replicas when no copying is in progress and after every
+ * {@link #COMPACTION_THRESHOLD} completed replicas, so it does not grow under continuous load or after failures.
+ */
+public class FileStorageReplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(FileStorageReplicator.class);
+
+    public static final String JOURNAL_FILE_NAME = "replication.journal";
+
+    protected static final String ADD = "A";
+    protected static final String DONE = "D";
+    protected static final String SEPARATOR = "\t";
+
+    /**
+     * Number of completed replicas after which the journal is compacted.
+     */
+    public static final int COMPACTION_THRESHOLD = 1000;
+
+    protected final File journalFile;
+    protected final int threadsPerRoot;
+    protected final int queueCapacity;
+    protected final BiConsumer<File, String> replicaCreatedListener;
+
+    protected final Map<File, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+    protected final Map<File, Replica> pending = new ConcurrentHashMap<>();
+
+    protected final Object journalLock = new Object();
+    protected Writer journalWriter;
+    protected int completedSinceCompaction;
+
+    protected volatile boolean stopped;
+
+    /**
+     * @param primaryRoot            primary storage root which keeps the journal
+     * @param threadsPerRoot         number of copying threads for each secondary root
+     * @param queueCapacity          maximum number of replicas waiting to be copied to a secondary root
+     * @param replicaCreatedListener invoked with the created copy and the user who has uploaded the file
+     */
+    public FileStorageReplicator(File primaryRoot, int threadsPerRoot, int queueCapacity,
+                                 BiConsumer<File, String> replicaCreatedListener) {
+        this.journalFile = new File(primaryRoot, JOURNAL_FILE_NAME);
+        this.threadsPerRoot = Math.max(threadsPerRoot, 1);
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        this.replicaCreatedListener = replicaCreatedListener;
+    }
+
+    /**
+     * Schedules copying of a file into a secondary root.
+     *
+     * @param root   secondary storage root
+     * @param source file in the primary root
+     * @param target file in the secondary root
+     * @param user   user who has uploaded the file, in the {@code login--id} form
+     */
+    public void replicate(File root, File source, File target, String user) {
+        Replica replica = new Replica(root, source, target, user, System.currentTimeMillis());
+        pending.put(replica.target, replica);
+        appendToJournal(replica, false);
+        submit(replica);
+    }
+
+    /**
+     * Restores replicas which have not been completed before the previous shutdown and schedules them again.
+     */
+    public void recover() {
+        List<Replica> replicas;
+        synchronized (journalLock) {
+            if (!journalFile.exists()) {
+                return;
+            }
+            Map<File, Replica> incomplete = new LinkedHashMap<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(SEPARATOR);
+                    if (ADD.equals(parts[0]) && parts.length == 6) {
+                        Replica replica = new Replica(new File(parts[3]), new File(parts[4]), new File(parts[5]),
+                                parts[2], Long.parseLong(parts[1]));
+                        incomplete.put(replica.target, replica);
+                    } else if (DONE.equals(parts[0]) && parts.length == 2) {
+                        incomplete.remove(new File(parts[1]).getAbsoluteFile());
+                    } else if (StringUtils.isNotBlank(line)) {
+                        log.warn("Skipping invalid replication journal record: {}", line);
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                log.error("Unable to read replication journal " + journalFile, e);
+                return;
+            }
+
+            replicas = new ArrayList<>(incomplete.values());
+            pending.putAll(incomplete);
+            // leave only incomplete replicas in the journal
+            try {
+                compactJournal();
+            } catch (IOException e) {
+                log.error("Unable to compact replication journal " + journalFile, e);
+                closeJournal();
+            }
+        }
+
+        if (!replicas.isEmpty()) {
+            log.info("Resuming replication of {} files", replicas.size());
+            for (Replica replica : replicas) {
+                submit(replica);
+            }
+        }
+    }
+
+    /**
+     * @return number of replicas waiting to be copied or being copied at the moment
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (Replica replica : pending.values()) {
+            if (!replica.failed)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of replicas which have failed and will be retried on the next start
+     */
+    public int getFailedCount() {
+        return pending.size() - getPendingCount();
+    }
+
+    /**
+     * @return age in milliseconds of the oldest replica waiting to be copied, 0 if there are no such replicas
+     */
+    public long getLag() {
+        long oldest = Long.MAX_VALUE;
+        for (Replica replica : pending.values()) {
+            if (!replica.failed && replica.createTs < oldest)
+                oldest = replica.createTs;
+        }
+        return oldest == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    public void shutdown() {
+        stopped = true;
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+        synchronized (journalLock) {
+            closeJournal();
+        }
+    }
+
+    protected void submit(Replica replica) {
+        if (stopped) {
+            // the replica stays in the journal and will be copied on the next start
+            return;
+        }
+        getExecutor(replica.root).execute(() -> copy(replica));
+    }
+
+    protected ThreadPoolExecutor getExecutor(File root) {
+        return executors.computeIfAbsent(root, r -> new ThreadPoolExecutor(
+                threadsPerRoot, threadsPerRoot, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("FileStorageWriter-" + r.getName() + "-%d").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy()));
+    }
+
+    protected void copy(Replica replica) {
+        try {
+            if (!replica.source.exists()) {
+                log.warn("Skipping replication of {} : the file has been removed", replica.source);
+            } else {
+                FileUtils.copyFile(replica.source, replica.target, true);
+                if (replicaCreatedListener != null) {
+                    replicaCreatedListener.accept(replica.target, replica.user);
+                }
+            }
+        } catch (Exception e) {
+            replica.failed = true;
+            log.error("Error saving {} into {} : {}", replica.source, replica.target.getAbsolutePath(), e.getMessage());
+            return;
+        }
+        pending.remove(replica.target);
+        appendToJournal(replica, true);
+    }
+
+    protected void appendToJournal(Replica replica, boolean done) {
+        synchronized (journalLock) {
+            if (stopped) {
+                appendAfterShutdown(replica, done);
+                return;
+            }
+            try {
+                if (done && (++completedSinceCompaction >= COMPACTION_THRESHOLD || getPendingCount() == 0)) {
+                    compactJournal();
+                } else {
+                    if (journalWriter == null) {
+                        journalWriter = openJournal(true);
+                    }
+                    journalWriter.write(done
+                            ? DONE + SEPARATOR + replica.target.getPath() + "\n"
+                            : replica.toJournalRecord());
+                    journalWriter.flush();
+                }
+            } catch (IOException e) {
+                log.error("Unable to write replication journal " + journalFile, e);
+                closeJournal();
+            }
+        }
+    }
+
+    /**
+     * The journal is closed on shutdown, so it is not kept open by copying finished after it. A completed replica
+     * is not recorded and is copied again on the next start, a new replica is appended by a short-lived writer.
+     * Must be called under the journal lock.
+     */
+    protected void appendAfterShutdown(Replica replica, boolean done) {
+        if (done) {
+            return;
+        }
+        try (Writer writer = openJournal(true)) {
+            writer.write(replica.toJournalRecord());
+        } catch (IOException e) {
+            log.error("Unable to write replication journal " + journalFile, e);
+        }
+    }
+
+    /**
+     * Rewrites the journal so that it contains only the replicas which are still pending or have failed.
+     * Must be called under the journal lock.
+     */
+    protected void compactJournal() throws IOException {
+        closeJournal();
+        completedSinceCompaction = 0;
+        journalWriter = openJournal(false);
+        for (Replica replica : pending.values()) {
+            journalWriter.write(replica.toJournalRecord());
+        }
+        journalWriter.flush();
+    }
+
+    protected Writer openJournal(boolean append) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(journalFile, append), StandardCharsets.UTF_8));
+    }
+
+    protected void closeJournal() {
+        IOUtils.closeQuietly(journalWriter);
+        journalWriter = null;
+    }
+
+    protected static class Replica {
+
+        protected final File root;
+        protected final File source;
+        protected final File target;
+        protected final String user;
+        protected final long createTs;
+
+        protected volatile boolean failed;
+
+        protected Replica(File root, File source, File target, String user, long createTs) {
+            this.root = root;
+            this.source = source;
+            this.target = target.getAbsoluteFile();
+            this.user = user;
+            this.createTs = createTs;
+        }
+
+        protected String toJournalRecord() {
+            return ADD + SEPARATOR + createTs + SEPARATOR + user + SEPARATOR + root.getPath() + SEPARATOR
+                    + source.getPath() + SEPARATOR + target.getPath() + "\n";
+        }
+    }
+}
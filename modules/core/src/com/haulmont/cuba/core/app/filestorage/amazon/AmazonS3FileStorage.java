@@ -28,6 +28,7 @@ import com.haulmont.cuba.core.global.FileStorageException;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.ByteArrayInputStream;
 import java.io.DataOutputStream;
@@ -162,11 +163,27 @@ public class AmazonS3FileStorage implements FileStorageAPI {
 
     @Override
     public InputStream openStream(FileDescriptor fileDescr) throws FileStorageException {
+        return openStream(fileDescr, null);
+    }
+
+    @Override
+    public InputStream openStream(FileDescriptor fileDescr, long offset, long length) throws FileStorageException {
+        if (length <= 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        // ranged GET, the last byte position is inclusive
+        return openStream(fileDescr, "bytes=" + offset + "-" + (offset + length - 1));
+    }
+
+    protected InputStream openStream(FileDescriptor fileDescr, @Nullable String range) throws FileStorageException {
         URL amazonUrl = getAmazonUrl(fileDescr);
 
         // for a simple GET, we have no body so supply the precomputed 'empty' hash
         Map<String, String> headers = new HashMap<>();
         headers.put("x-amz-content-sha256", AWS4SignerBase.EMPTY_BODY_SHA256);
+        if (range != null) {
+            headers.put("Range", range);
+        }
 
         String authorization = createAuthorizationHeader(amazonUrl, "GET", headers);
 
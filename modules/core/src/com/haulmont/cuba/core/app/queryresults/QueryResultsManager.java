@@ -24,6 +24,7 @@ import com.haulmont.cuba.core.app.RdbmsQueryBuilder;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.QueryHolder;
+import com.haulmont.cuba.core.sys.jpql.QueryTransformationCache;
 import com.haulmont.cuba.core.sys.persistence.DbTypeConverter;
 import com.haulmont.cuba.security.app.UserSessionsAPI;
 import com.haulmont.cuba.security.global.UserSession;
@@ -62,6 +63,9 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
     @Inject
     protected Metadata metadata;
 
+    @Inject
+    protected QueryTransformationCache queryTransformationCache;
+
     protected static final int BATCH_SIZE = 100;
 
     protected static final int DELETE_BATCH_SIZE = 100;
@@ -77,7 +81,7 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
         LoadContext.Query contextQuery = prevQueries.get(prevQueries.size() - 1);
         String entityName = loadContext.getMetaClass();
 
-        QueryParser parser = QueryTransformerFactory.createParser(contextQuery.getQueryString());
+        QueryParser parser = queryTransformationCache.parser(contextQuery.getQueryString());
         if (!parser.isEntitySelect(entityName))
             return;
 
@@ -92,10 +96,8 @@ public class QueryResultsManager implements QueryResultsManagerAPI {
             EntityManager em = persistence.getEntityManager();
             em.setSoftDeletion(loadContext.isSoftDeletion());
 
-            QueryTransformer transformer = QueryTransformerFactory.createTransformer(contextQuery.getQueryString());
-            transformer.replaceWithSelectId(metadata.getTools().getPrimaryKeyName(metadata.getClassNN(entityName)));
-            transformer.removeOrderBy();
-            String queryString = transformer.getResult();
+            String queryString = queryTransformationCache.replaceWithSelectId(contextQuery.getQueryString(),
+                    metadata.getTools().getPrimaryKeyName(metadata.getClassNN(entityName)));
 
             RdbmsQueryBuilder queryBuilder = AppBeans.get(RdbmsQueryBuilder.NAME);
             queryBuilder.init(queryString, contextQuery.getCondition(), contextQuery.getSort(),
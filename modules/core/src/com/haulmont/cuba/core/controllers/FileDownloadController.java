@@ -25,6 +25,7 @@ import com.haulmont.cuba.core.global.FileTypesHelper;
 import com.haulmont.cuba.core.global.LoadContext;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.SecurityContext;
+import com.haulmont.cuba.core.sys.servlet.FileDownloadSupport;
 import com.haulmont.cuba.security.app.UserSessionsAPI;
 import com.haulmont.cuba.security.global.UserSession;
 import org.apache.commons.io.FileUtils;
@@ -42,6 +43,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.util.UUID;
 
 /**
@@ -80,6 +82,11 @@ public class FileDownloadController {
             if (fd == null && file == null)
                 return;
 
+            if (fd != null) {
+                downloadFileDescriptor(fd, request, response);
+                return;
+            }
+
             response.setHeader("Cache-Control", "no-cache");
             response.setHeader("Pragma", "no-cache");
             response.setIntHeader("Expires", -1);
@@ -88,13 +95,10 @@ public class FileDownloadController {
             InputStream is = null;
             ServletOutputStream os = null;
             try {
-                is = fd != null ? fileStorage.openStream(fd) : FileUtils.openInputStream(file);
+                is = FileUtils.openInputStream(file);
                 os = response.getOutputStream();
                 IOUtils.copy(is, os);
                 os.flush();
-            } catch (FileStorageException e) {
-                log.error("Unable to download file", e);
-                response.sendError(e.getType().getHttpStatus());
             } catch (Exception ex) {
                 log.error("Unable to download file", ex);
                 response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -107,6 +111,63 @@ public class FileDownloadController {
         }
     }
 
+    /**
+     * Writes the file from the file storage to the response, supporting conditional requests and single range
+     * requests. The bytes of a range or of the whole file of a known size are transferred by
+     * {@link FileStorageAPI#transferTo}, which avoids copying them through the Java heap if supported by the file
+     * storage.
+     */
+    protected void downloadFileDescriptor(FileDescriptor fd, HttpServletRequest request,
+                                          HttpServletResponse response) throws IOException {
+        FileDownloadSupport.setCacheHeaders(response, fd);
+        if (FileDownloadSupport.isNotModified(request, fd)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        FileDownloadSupport.Range range;
+        try {
+            range = FileDownloadSupport.getRange(request, fd);
+        } catch (IllegalArgumentException e) {
+            FileDownloadSupport.setRangeNotSatisfiable(response, fd);
+            return;
+        }
+
+        response.setHeader("Content-Type", FileTypesHelper.DEFAULT_MIME_TYPE);
+
+        ServletOutputStream os = null;
+        try {
+            if (range != null) {
+                FileDownloadSupport.setPartialContent(response, fd, range);
+                os = response.getOutputStream();
+                fileStorage.transferTo(fd, range.getStart(), range.getLength(), Channels.newChannel(os));
+            } else if (fd.getSize() != null) {
+                os = response.getOutputStream();
+                fileStorage.transferTo(fd, 0, fd.getSize(), Channels.newChannel(os));
+            } else {
+                os = response.getOutputStream();
+                try (InputStream is = fileStorage.openStream(fd)) {
+                    IOUtils.copyLarge(is, os);
+                }
+            }
+            os.flush();
+        } catch (FileStorageException e) {
+            log.error("Unable to download file", e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(e.getType().getHttpStatus());
+            }
+        } catch (Exception ex) {
+            log.error("Unable to download file", ex);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
     protected UserSession getSession(HttpServletRequest request, HttpServletResponse response) throws IOException {
         UUID sessionId;
         try {
@@ -21,8 +21,10 @@ import com.haulmont.cuba.core.app.dynamicattributes.DynamicAttributesManagerAPI;
 import com.haulmont.cuba.core.global.Messages;
 import com.haulmont.cuba.core.global.Scripting;
 import com.haulmont.cuba.core.global.ViewRepository;
+import com.haulmont.cuba.core.sys.AbstractMessages;
 import com.haulmont.cuba.core.sys.AbstractViewRepository;
 import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.FetchGroupManager;
 import com.haulmont.cuba.security.app.EntityLogAPI;
 
 import org.springframework.stereotype.Component;
@@ -49,11 +51,24 @@ public class CachingFacade implements CachingFacadeMBean {
     @Inject
     protected DynamicAttributesManagerAPI dynamicAttributesManagerAPI;
 
+    @Inject
+    protected FetchGroupManager fetchGroupManager;
+
     @Override
     public int getMessagesCacheSize() {
         return messages.getCacheSize();
     }
 
+    @Override
+    public long getMessagesCacheHitCount() {
+        return messages instanceof AbstractMessages ? ((AbstractMessages) messages).getCacheHitCount() : 0;
+    }
+
+    @Override
+    public long getMessagesCacheMissCount() {
+        return messages instanceof AbstractMessages ? ((AbstractMessages) messages).getCacheMissCount() : 0;
+    }
+
     @Override
     public void clearGroovyCache() {
         scripting.clearCache();
@@ -88,4 +103,24 @@ public class CachingFacade implements CachingFacadeMBean {
     public void clearViewRepositoryCache() {
         ((AbstractViewRepository) viewRepository).reset();
     }
+
+    @Override
+    public long getFetchPlanCacheSize() {
+        return fetchGroupManager.getFetchPlansCount();
+    }
+
+    @Override
+    public long getComputedFetchPlansCount() {
+        return fetchGroupManager.getComputedFetchPlansCount();
+    }
+
+    @Override
+    public long getReusedFetchPlansCount() {
+        return fetchGroupManager.getReusedFetchPlansCount();
+    }
+
+    @Override
+    public void clearFetchPlanCache() {
+        fetchGroupManager.invalidateFetchPlans();
+    }
 }
\ No newline at end of file
@@ -20,6 +20,10 @@ public interface CachingFacadeMBean {
 
     int getMessagesCacheSize();
 
+    long getMessagesCacheHitCount();
+
+    long getMessagesCacheMissCount();
+
     void clearGroovyCache();
 
     void clearMessagesCache();
@@ -33,4 +37,12 @@ public interface CachingFacadeMBean {
     void clearDynamicAttributesCache();
 
     void clearSystemPropertiesCache();
+
+    long getFetchPlanCacheSize();
+
+    long getComputedFetchPlansCount();
+
+    long getReusedFetchPlansCount();
+
+    void clearFetchPlanCache();
 }
\ No newline at end of file
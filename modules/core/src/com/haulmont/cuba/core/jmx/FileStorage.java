@@ -23,6 +23,7 @@ import com.haulmont.cuba.core.Persistence;
 import com.haulmont.cuba.core.Transaction;
 import com.haulmont.cuba.core.TypedQuery;
 import com.haulmont.cuba.core.app.FileStorageAPI;
+import com.haulmont.cuba.core.app.filestorage.FileStorageReplicator;
 import com.haulmont.cuba.core.entity.FileDescriptor;
 import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.FileStorageException;
@@ -30,6 +31,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
 import java.util.Collection;
@@ -53,6 +55,34 @@ public class FileStorage implements FileStorageMBean {
         }
     }
 
+    @Override
+    public int getPendingReplicasCount() {
+        FileStorageReplicator replicator = getReplicator();
+        return replicator != null ? replicator.getPendingCount() : 0;
+    }
+
+    @Override
+    public int getFailedReplicasCount() {
+        FileStorageReplicator replicator = getReplicator();
+        return replicator != null ? replicator.getFailedCount() : 0;
+    }
+
+    @Override
+    public long getReplicationLag() {
+        FileStorageReplicator replicator = getReplicator();
+        return replicator != null ? replicator.getLag() : 0;
+    }
+
+    @Nullable
+    protected FileStorageReplicator getReplicator() {
+        FileStorageAPI fileStorageAPI = AppBeans.get(FileStorageAPI.class);
+        if (fileStorageAPI instanceof com.haulmont.cuba.core.app.filestorage.FileStorage) {
+            return ((com.haulmont.cuba.core.app.filestorage.FileStorage) fileStorageAPI).getReplicator();
+        } else {
+            return null;
+        }
+    }
+
     @Override
     public String findOrphanDescriptors() {
         com.haulmont.cuba.core.app.filestorage.FileStorage fileStorage;
@@ -116,7 +146,7 @@ public class FileStorage implements FileStorageMBean {
         Collection<File> systemFiles = FileUtils.listFiles(storageFolder, null, true);
         @SuppressWarnings("unchecked")
         Collection<File> filesInRootFolder = FileUtils.listFiles(storageFolder, null, false);
-        //remove files of root storage folder (e.g. storage.log) from files collection
+        //remove files of root storage folder (e.g. storage.log, replication.journal) from files collection
         systemFiles.removeAll(filesInRootFolder);
 
         List<FileDescriptor> fileDescriptors;
@@ -38,4 +38,19 @@ public interface FileStorageMBean {
      * @return the list of files in the storage which have no corresponding descriptors in the database
      */
     String findOrphanFiles();
+
+    /**
+     * @return the number of files waiting to be copied to secondary storages
+     */
+    int getPendingReplicasCount();
+
+    /**
+     * @return the number of files which have failed to be copied to secondary storages and will be retried on restart
+     */
+    int getFailedReplicasCount();
+
+    /**
+     * @return age in milliseconds of the oldest file waiting to be copied to secondary storages
+     */
+    long getReplicationLag();
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.remoting.LocalServiceDirectory;
+import com.haulmont.cuba.core.sys.remoting.LocalServiceInvoker;
+import com.haulmont.cuba.core.sys.remoting.LocalServiceInvokerImpl;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component("cuba_LocalServiceInvocationsMBean")
+public class LocalServiceInvocations implements LocalServiceInvocationsMBean {
+
+    @Override
+    public String printStatistics() {
+        String prefix = AppContext.getProperty("cuba.webContextName");
+        Map<String, LocalServiceInvoker> invokers = new TreeMap<>(LocalServiceDirectory.getInvokers());
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, LocalServiceInvoker> entry : invokers.entrySet()) {
+            if (!(entry.getValue() instanceof LocalServiceInvokerImpl)
+                    || prefix != null && !entry.getKey().startsWith(prefix)) {
+                continue;
+            }
+            String serviceName = StringUtils.removeStart(StringUtils.removeStart(entry.getKey(), prefix), "/");
+            LocalServiceInvokerImpl invoker = (LocalServiceInvokerImpl) entry.getValue();
+            for (LocalServiceInvokerImpl.InvocationStats stats : invoker.getStatistics()) {
+                builder.append(serviceName)
+                        .append(".")
+                        .append(stats)
+                        .append("\n");
+            }
+        }
+        return builder.length() == 0 ? "No statistics" : builder.toString();
+    }
+}
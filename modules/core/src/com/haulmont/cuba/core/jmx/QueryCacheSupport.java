@@ -20,6 +20,7 @@ import com.google.common.base.Strings;
 import com.haulmont.cuba.core.global.UuidProvider;
 import com.haulmont.cuba.core.sys.entitycache.QueryCache;
 import com.haulmont.cuba.core.sys.entitycache.QueryCacheManager;
+import com.haulmont.cuba.core.sys.entitycache.QueryCacheStats;
 import com.haulmont.cuba.core.sys.entitycache.QueryKey;
 import com.haulmont.cuba.core.sys.entitycache.QueryResult;
 import org.springframework.stereotype.Component;
@@ -45,6 +46,32 @@ public class QueryCacheSupport implements QueryCacheSupportMBean {
         return queryCache.size();
     }
 
+    @Override
+    public long getRequestedClusterInvalidations() {
+        return queryCacheMgr.getRequestedInvalidationsCount();
+    }
+
+    @Override
+    public long getSentClusterInvalidations() {
+        return queryCacheMgr.getSentInvalidationsCount();
+    }
+
+    @Override
+    public String printStatistics() {
+        Map<String, QueryCacheStats> statistics = queryCache.getStatistics();
+        if (statistics.isEmpty()) {
+            return "No statistics";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, QueryCacheStats> entry : statistics.entrySet()) {
+            builder.append(entry.getKey())
+                    .append(": ")
+                    .append(entry.getValue())
+                    .append("\n");
+        }
+        return builder.toString();
+    }
+
     @Override
     public String evictAll() {
         queryCacheMgr.invalidateAll(true);
@@ -27,6 +27,15 @@ public interface QueryCacheSupportMBean {
     @ManagedAttribute(description = "Current number of cached queries")
     long getSize();
 
+    @ManagedAttribute(description = "Number of query cache invalidations requested to be sent in cluster")
+    long getRequestedClusterInvalidations();
+
+    @ManagedAttribute(description = "Number of invalidation messages sent in cluster after merging")
+    long getSentClusterInvalidations();
+
+    @ManagedOperation(description = "Print hit, miss, eviction and invalidation statistics by entity")
+    String printStatistics();
+
     @ManagedOperation(description = "Discard all query results in the cache")
     String evictAll();
 
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import com.haulmont.cuba.core.sys.jpql.QueryTransformationCache;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+@Component("cuba_QueryTransformationCacheSupportMBean")
+public class QueryTransformationCacheSupport implements QueryTransformationCacheSupportMBean {
+
+    @Inject
+    protected QueryTransformationCache cache;
+
+    @Override
+    public boolean isEnabled() {
+        return cache.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        cache.setEnabled(enabled);
+    }
+
+    @Override
+    public long getMaxSize() {
+        return cache.getMaxSize();
+    }
+
+    @Override
+    public long getParsersCount() {
+        return cache.getParsersCount();
+    }
+
+    @Override
+    public long getTransformationsCount() {
+        return cache.getTransformationsCount();
+    }
+
+    @Override
+    public long getParserHitCount() {
+        return cache.getParserStats().hitCount();
+    }
+
+    @Override
+    public long getParserMissCount() {
+        return cache.getParserStats().missCount();
+    }
+
+    @Override
+    public long getTransformationHitCount() {
+        return cache.getTransformationStats().hitCount();
+    }
+
+    @Override
+    public long getTransformationMissCount() {
+        return cache.getTransformationStats().missCount();
+    }
+
+    @Override
+    public String invalidateAll() {
+        cache.invalidateAll();
+        return "Done";
+    }
+
+    @Override
+    public String printStats() {
+        return "Parsers: " + cache.getParsersCount() + " cached, " + cache.getParserStats() + "\n"
+                + "Transformations: " + cache.getTransformationsCount() + " cached, " + cache.getTransformationStats();
+    }
+}
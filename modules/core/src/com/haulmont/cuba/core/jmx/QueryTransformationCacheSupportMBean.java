@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Manages cache of parsed JPQL queries and query transformation results")
+public interface QueryTransformationCacheSupportMBean {
+
+    @ManagedAttribute(description = "Whether the cache is enabled")
+    boolean isEnabled();
+
+    @ManagedAttribute(description = "Whether the cache is enabled")
+    void setEnabled(boolean enabled);
+
+    @ManagedAttribute(description = "Maximum number of cached parsers and transformation results")
+    long getMaxSize();
+
+    @ManagedAttribute(description = "Current number of cached parsers")
+    long getParsersCount();
+
+    @ManagedAttribute(description = "Current number of cached transformation results")
+    long getTransformationsCount();
+
+    @ManagedAttribute(description = "Number of parser requests served from the cache")
+    long getParserHitCount();
+
+    @ManagedAttribute(description = "Number of queries parsed because of a cache miss")
+    long getParserMissCount();
+
+    @ManagedAttribute(description = "Number of transformations served from the cache")
+    long getTransformationHitCount();
+
+    @ManagedAttribute(description = "Number of transformations performed because of a cache miss")
+    long getTransformationMissCount();
+
+    @ManagedOperation(description = "Discard all parsed queries and transformation results")
+    String invalidateAll();
+
+    @ManagedOperation(description = "Print cache statistics")
+    String printStats();
+}
@@ -19,6 +19,7 @@ package com.haulmont.cuba.core.jmx;
 
 import com.haulmont.cuba.core.app.MiddlewareStatisticsAccumulator;
 import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.SecurityTokenManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +41,9 @@ public class StatisticsCounter implements StatisticsCounterMBean {
     @Inject
     protected MiddlewareStatisticsAccumulator accumulator;
 
+    @Inject
+    protected SecurityTokenManager securityTokenManager;
+
     protected volatile ObjectName dbConnPoolObjectName;
 
     protected volatile boolean dbConnPoolNotFound;
@@ -209,4 +213,29 @@ public class StatisticsCounter implements StatisticsCounterMBean {
     public double getAvgThreadCount() {
         return accumulator.getAvgThreadCount();
     }
-}
\ No newline at end of file
+
+    @Override
+    public long getSecurityTokensWrittenCount() {
+        return securityTokenManager.getWrittenTokensCount();
+    }
+
+    @Override
+    public double getAvgSecurityTokenSize() {
+        return securityTokenManager.getAvgWrittenTokenSize();
+    }
+
+    @Override
+    public double getAvgSecurityTokenWriteTime() {
+        return securityTokenManager.getAvgTokenWriteTime();
+    }
+
+    @Override
+    public long getSecurityTokensReadCount() {
+        return securityTokenManager.getReadTokensCount();
+    }
+
+    @Override
+    public double getAvgSecurityTokenReadTime() {
+        return securityTokenManager.getAvgTokenReadTime();
+    }
+}
@@ -17,6 +17,7 @@
 
 package com.haulmont.cuba.core.jmx;
 
+import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedResource;
 
 @ManagedResource(description = "Provides various information about middleware performance statistics")
@@ -74,4 +75,19 @@ public interface StatisticsCounterMBean {
     double getAvgProcessCpuLoad();
 
     double getAvgThreadCount();
-}
\ No newline at end of file
+
+    @ManagedAttribute(description = "Number of security tokens written since the server start")
+    long getSecurityTokensWrittenCount();
+
+    @ManagedAttribute(description = "Average size of security tokens in bytes")
+    double getAvgSecurityTokenSize();
+
+    @ManagedAttribute(description = "Average time of writing a security token in microseconds")
+    double getAvgSecurityTokenWriteTime();
+
+    @ManagedAttribute(description = "Number of security tokens read since the server start")
+    long getSecurityTokensReadCount();
+
+    @ManagedAttribute(description = "Average time of reading a security token in microseconds")
+    double getAvgSecurityTokenReadTime();
+}
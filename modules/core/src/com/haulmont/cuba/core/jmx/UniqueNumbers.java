@@ -42,4 +42,19 @@ public class UniqueNumbers implements UniqueNumbersMBean {
     public long getNextNumber(String domain) {
         return uniqueNumbers.getNextNumber(domain);
     }
-}
\ No newline at end of file
+
+    @Override
+    public long getAllocatedBlocksCount() {
+        return uniqueNumbers.getAllocatedBlocksCount();
+    }
+
+    @Override
+    public long getNumbersFromBlocksCount() {
+        return uniqueNumbers.getNumbersFromBlocksCount();
+    }
+
+    @Override
+    public long getDiscardedNumbersCount() {
+        return uniqueNumbers.getDiscardedNumbersCount();
+    }
+}
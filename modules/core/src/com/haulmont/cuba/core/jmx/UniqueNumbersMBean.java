@@ -16,6 +16,7 @@
  */
 package com.haulmont.cuba.core.jmx;
 
+import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperationParameter;
 import org.springframework.jmx.export.annotation.ManagedOperationParameters;
 
@@ -36,4 +37,13 @@ public interface UniqueNumbersMBean {
 
     @ManagedOperationParameters({@ManagedOperationParameter(name = "domain", description = "")})
     long getNextNumber(String domain);
+
+    @ManagedAttribute(description = "Number of database round trips made to allocate blocks of numbers")
+    long getAllocatedBlocksCount();
+
+    @ManagedAttribute(description = "Number of numbers issued from allocated blocks without database round trips")
+    long getNumbersFromBlocksCount();
+
+    @ManagedAttribute(description = "Number of unused numbers of discarded blocks")
+    long getDiscardedNumbersCount();
 }
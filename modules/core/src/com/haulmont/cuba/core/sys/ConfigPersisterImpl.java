@@ -31,6 +31,8 @@ public class ConfigPersisterImpl implements ConfigPersister {
 
     protected ApplicationContext applicationContext;
 
+    protected volatile ConfigStorageAPI configStorageAPI;
+
     public ConfigPersisterImpl(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
     }
@@ -76,7 +78,20 @@ public class ConfigPersisterImpl implements ConfigPersister {
         }
     }
 
+    @Override
+    public long getVersion() {
+        long dbVersion = getConfigStorageAPI().getVersion();
+        if (dbVersion < 0) {
+            return -1;
+        }
+        // both versions only grow, so their sum changes whenever any of them changes
+        return AppContext.getPropertiesVersion() + dbVersion;
+    }
+
     protected ConfigStorageAPI getConfigStorageAPI() {
-        return (ConfigStorageAPI) applicationContext.getBean(ConfigStorageAPI.NAME);
+        if (configStorageAPI == null) {
+            configStorageAPI = (ConfigStorageAPI) applicationContext.getBean(ConfigStorageAPI.NAME);
+        }
+        return configStorageAPI;
     }
 }
\ No newline at end of file
@@ -17,16 +17,20 @@
 
 package com.haulmont.cuba.core.sys;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.MetaProperty;
 import com.haulmont.chile.core.model.MetaPropertyPath;
 import com.haulmont.chile.core.model.Range;
+import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.entity.BaseUuidEntity;
 import com.haulmont.cuba.core.entity.EmbeddableEntity;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.SoftDelete;
 import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.core.sys.jpql.QueryTransformationCache;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.persistence.config.QueryHints;
 import org.eclipse.persistence.jpa.JpaQuery;
@@ -39,6 +43,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.ClassUtils;
 
 import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.lang.reflect.Method;
 import java.util.*;
@@ -60,6 +65,28 @@ public class FetchGroupManager {
     @Inject
     private ViewRepository viewRepository;
 
+    @Inject
+    private QueryTransformationCache queryTransformationCache;
+
+    @Inject
+    private ServerConfig serverConfig;
+
+    private Cache<FetchPlanKey, FetchGroupDescription> fetchPlans;
+
+    // signatures of frozen views, which cannot change; weak keys are compared by identity
+    private Cache<View, String> frozenViewSignatures;
+
+    @PostConstruct
+    protected void init() {
+        fetchPlans = CacheBuilder.newBuilder()
+                .maximumSize(serverConfig.getFetchPlanCacheMaxSize())
+                .recordStats()
+                .build();
+        frozenViewSignatures = CacheBuilder.newBuilder()
+                .weakKeys()
+                .build();
+    }
+
     public void setView(JpaQuery query, String queryString, @Nullable View view, boolean singleResultExpected) {
         Preconditions.checkNotNullArgument(query, "query is null");
         if (view != null) {
@@ -128,10 +155,93 @@ public class FetchGroupManager {
         }
     }
 
+    /**
+     * Calculates attributes and fetch hints for the given query and view. The result depends only on the query
+     * string, the view structure and the flags, so it is cached and returned to subsequent calls with the same
+     * arguments. The returned instance must not be modified.
+     */
     public FetchGroupDescription calculateFetchGroup(String queryString,
                                                      View view,
                                                      boolean singleResultExpected,
                                                      boolean useFetchGroup) {
+        FetchPlanKey key = new FetchPlanKey(queryString, getViewSignature(view), singleResultExpected, useFetchGroup);
+        FetchGroupDescription description = fetchPlans.getIfPresent(key);
+        if (description == null) {
+            description = doCalculateFetchGroup(queryString, view, singleResultExpected, useFetchGroup);
+            fetchPlans.put(key, description);
+        }
+        return description;
+    }
+
+    /**
+     * Discards all cached fetch plans. Invoked when views are redeployed.
+     */
+    public void invalidateFetchPlans() {
+        log.debug("Invalidate fetch plans cache");
+        fetchPlans.invalidateAll();
+        frozenViewSignatures.invalidateAll();
+    }
+
+    public long getFetchPlansCount() {
+        return fetchPlans.size();
+    }
+
+    /**
+     * @return number of fetch plans calculated because of a cache miss
+     */
+    public long getComputedFetchPlansCount() {
+        return fetchPlans.stats().missCount();
+    }
+
+    /**
+     * @return number of fetch plans taken from the cache
+     */
+    public long getReusedFetchPlansCount() {
+        return fetchPlans.stats().hitCount();
+    }
+
+    /**
+     * Returns a string describing the structure of the view graph. The signature of a frozen view, e.g. a view
+     * returned by {@link ViewRepository}, is calculated once and reused while the view instance is alive.
+     */
+    protected String getViewSignature(View view) {
+        if (view.isFrozen()) {
+            String signature = frozenViewSignatures.getIfPresent(view);
+            if (signature == null) {
+                signature = buildViewSignature(view);
+                frozenViewSignatures.put(view, signature);
+            }
+            return signature;
+        }
+        return buildViewSignature(view);
+    }
+
+    private String buildViewSignature(View view) {
+        StringBuilder sb = new StringBuilder();
+        appendViewSignature(view, sb);
+        return sb.toString();
+    }
+
+    private void appendViewSignature(View view, StringBuilder sb) {
+        sb.append(view.getEntityClass().getName());
+        if (view.loadPartialEntities()) {
+            sb.append('!');
+        }
+        sb.append('{');
+        for (ViewProperty property : view.getProperties()) {
+            sb.append(property.getName()).append(':').append(property.getFetchMode());
+            if (property.getView() != null) {
+                appendViewSignature(property.getView(), sb);
+            }
+            sb.append(',');
+        }
+        sb.append('}');
+    }
+
+    private FetchGroupDescription doCalculateFetchGroup(String queryString,
+                                                        View view,
+                                                        boolean singleResultExpected,
+                                                        boolean useFetchGroup) {
         Set<FetchGroupField> fetchGroupFields = new LinkedHashSet<>();
         processView(view, null, fetchGroupFields, useFetchGroup);
 
@@ -149,7 +259,7 @@ public class FetchGroupManager {
 
         MetaClass metaClass = metadata.getClassNN(view.getEntityClass());
         if (!refFields.isEmpty()) {
-            String alias = QueryTransformerFactory.createParser(queryString).getEntityAlias();
+            String alias = queryTransformationCache.parser(queryString).getEntityAlias();
 
             List<FetchGroupField> batchFields = new ArrayList<>();
             List<FetchGroupField> joinFields = new ArrayList<>();
@@ -216,7 +326,7 @@ public class FetchGroupManager {
                 }
             }
 
-            QueryParser parser = QueryTransformerFactory.createParser(queryString);
+            QueryParser parser = queryTransformationCache.parser(queryString);
 
             List<FetchGroupField> isNullFields = joinFields.stream()
                     .filter(f -> f.fetchMode == FetchMode.AUTO && parser.hasIsNullCondition(f.path()))
@@ -498,4 +608,40 @@ public class FetchGroupManager {
             return path();
         }
     }
-}
\ No newline at end of file
+
+    protected static class FetchPlanKey {
+        private final String queryString;
+        private final String viewSignature;
+        private final boolean singleResultExpected;
+        private final boolean useFetchGroup;
+
+        public FetchPlanKey(String queryString, String viewSignature, boolean singleResultExpected, boolean useFetchGroup) {
+            this.queryString = queryString;
+            this.viewSignature = viewSignature;
+            this.singleResultExpected = singleResultExpected;
+            this.useFetchGroup = useFetchGroup;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            FetchPlanKey that = (FetchPlanKey) o;
+
+            return singleResultExpected == that.singleResultExpected
+                    && useFetchGroup == that.useFetchGroup
+                    && queryString.equals(that.queryString)
+                    && viewSignature.equals(that.viewSignature);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = queryString.hashCode();
+            result = 31 * result + viewSignature.hashCode();
+            result = 31 * result + (singleResultExpected ? 1 : 0);
+            result = 31 * result + (useFetchGroup ? 1 : 0);
+            return result;
+        }
+    }
+}
@@ -60,6 +60,13 @@ public class FileLoaderImpl implements FileLoader {
         return fileStorageAPI.openStream(fd);
     }
 
+    @Override
+    public InputStream openStream(FileDescriptor fd, long offset, long length) throws FileStorageException {
+        checkNotNullArgument(fd);
+        checkIfFileDescriptorExists(fd);
+        return fileStorageAPI.openStream(fd, offset, length);
+    }
+
     @Override
     public void removeFile(FileDescriptor fd) throws FileStorageException {
         fileStorageAPI.removeFile(fd);
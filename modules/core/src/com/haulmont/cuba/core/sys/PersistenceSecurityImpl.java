@@ -30,6 +30,7 @@ import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.jpql.JpqlSyntaxException;
+import com.haulmont.cuba.core.sys.jpql.QueryTransformationCache;
 import com.haulmont.cuba.security.entity.ConstraintOperationType;
 import com.haulmont.cuba.security.global.ConstraintData;
 import com.haulmont.cuba.security.global.UserSession;
@@ -42,6 +43,7 @@ import javax.inject.Inject;
 import java.io.Serializable;
 import java.util.*;
 import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 
 import static java.lang.String.format;
 
@@ -70,10 +72,13 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     @Inject
     protected GlobalConfig globalConfig;
 
+    @Inject
+    protected QueryTransformationCache queryTransformationCache;
+
     @Override
     public boolean applyConstraints(Query query) {
-        QueryParser parser = QueryTransformerFactory.createParser(query.getQueryString());
-        String entityName = parser.getEntityName();
+        String queryString = query.getQueryString();
+        String entityName = queryTransformationCache.parser(queryString).getEntityName();
 
         List<ConstraintData> constraints = getConstraints(metadata.getClassNN(entityName), constraint ->
                 constraint.getCheckType().database()
@@ -83,19 +88,33 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
         if (constraints.isEmpty())
             return false;
 
-        QueryTransformer transformer = QueryTransformerFactory.createTransformer(query.getQueryString());
-
-        for (ConstraintData constraint : constraints) {
-            processConstraint(transformer, constraint, entityName);
-        }
-        query.setQueryString(transformer.getResult());
+        QueryTransformationCache.TransformationResult result = queryTransformationCache.transformWithParams(
+                queryString, getConstraintsTransformation(constraints), transformer -> {
+                    for (ConstraintData constraint : constraints) {
+                        processConstraint(transformer, constraint, entityName);
+                    }
+                });
+        query.setQueryString(result.getQuery());
 
-        for (String paramName : transformer.getAddedParams()) {
+        for (String paramName : result.getAddedParams()) {
             setQueryParam(query, paramName);
         }
         return true;
     }
 
+    /**
+     * Returns identifier of the query transformation applying the given constraints. Constraints are identified
+     * by their JPQL text rather than by id, so the cached result is not used after a constraint is changed.
+     */
+    protected String getConstraintsTransformation(List<ConstraintData> constraints) {
+        StringBuilder sb = new StringBuilder("constraints");
+        for (ConstraintData constraint : constraints) {
+            sb.append('\0').append(StringUtils.defaultString(constraint.getJoin()))
+                    .append('\0').append(StringUtils.defaultString(constraint.getWhereClause()));
+        }
+        return sb.toString();
+    }
+
     @Override
     public void setQueryParam(Query query, String paramName) {
         if (paramName.startsWith(CONSTRAINT_PARAM_SESSION_ATTR)) {
@@ -130,10 +149,11 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
 
     @Override
     public boolean filterByConstraints(Collection<Entity> entities) {
+        Predicate<Entity> permitted = createPermittedInMemoryPredicate();
         boolean filtered = false;
         for (Iterator<Entity> iterator = entities.iterator(); iterator.hasNext(); ) {
             Entity entity = iterator.next();
-            if (!isPermittedInMemory(entity)) {
+            if (!permitted.test(entity)) {
                 //we ignore situations when the collection is immutable
                 iterator.remove();
                 filtered = true;
@@ -166,7 +186,10 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     @Override
     public void calculateFilteredData(Collection<Entity> entities) {
         Set<EntityId> handled = new LinkedHashSet<>();
-        entities.forEach(entity -> calculateFilteredData(entity, handled, false));
+        Predicate<Entity> permitted = createPermittedInMemoryPredicate();
+        List<Entity> tokenEntities = new ArrayList<>();
+        entities.forEach(entity -> calculateFilteredData(entity, handled, false, permitted, tokenEntities));
+        securityTokenManager.writeSecurityTokens(tokenEntities);
     }
 
     @Override
@@ -331,13 +354,30 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
         }
     }
 
-    @SuppressWarnings("unchecked")
     protected boolean calculateFilteredData(Entity entity, Set<EntityId> handled, boolean checkPermitted) {
+        List<Entity> tokenEntities = new ArrayList<>();
+        boolean result = calculateFilteredData(entity, handled, checkPermitted, createPermittedInMemoryPredicate(),
+                tokenEntities);
+        securityTokenManager.writeSecurityTokens(tokenEntities);
+        return result;
+    }
+
+    /**
+     * Calculates filtered data of the entity and its loaded references.
+     *
+     * @param permitted     checks in-memory constraints of an entity
+     * @param tokenEntities collects entities which need the security token, the tokens are written for all of
+     *                      them at once after the whole graph is processed
+     * @return true if the entity itself does not satisfy in-memory constraints
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean calculateFilteredData(Entity entity, Set<EntityId> handled, boolean checkPermitted,
+                                            Predicate<Entity> permitted, List<Entity> tokenEntities) {
         if (referenceToEntitySupport.getReferenceId(entity) == null) {
             return false;
         }
         MetaClass metaClass = entity.getMetaClass();
-        if (!isPermittedInMemory(entity) && checkPermitted) {
+        if (checkPermitted && !permitted.test(entity)) {
             return true;
         }
         EntityId entityId = new EntityId(referenceToEntitySupport.getReferenceId(entity), metaClass.getName());
@@ -353,7 +393,7 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
                     if (value instanceof Collection) {
                         Set filtered = new LinkedHashSet();
                         for (Entity item : (Collection<Entity>) value) {
-                            if (calculateFilteredData(item, handled, true)) {
+                            if (calculateFilteredData(item, handled, true, permitted, tokenEntities)) {
                                 filtered.add(referenceToEntitySupport.getReferenceId(item));
                             }
                         }
@@ -362,20 +402,24 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
                         }
                     } else if (value instanceof Entity) {
                         Entity valueEntity = (Entity) value;
-                        if (calculateFilteredData(valueEntity, handled, true)) {
+                        if (calculateFilteredData(valueEntity, handled, true, permitted, tokenEntities)) {
                             securityTokenManager.addFiltered(baseGenericIdEntity, property.getName(),
                                     referenceToEntitySupport.getReferenceId(valueEntity));
                         }
                     }
                 }
             }
-            securityTokenManager.writeSecurityToken(baseGenericIdEntity);
+            tokenEntities.add(baseGenericIdEntity);
         }
         return false;
     }
 
     protected boolean isPermittedInMemory(Entity entity) {
-        return isPermitted(entity, constraint ->
+        return createPermittedInMemoryPredicate().test(entity);
+    }
+
+    protected Predicate<Entity> createPermittedInMemoryPredicate() {
+        return createPermittedPredicate(constraint ->
                 constraint.getCheckType().memory()
                         && (constraint.getOperationType() == ConstraintOperationType.READ
                         || constraint.getOperationType() == ConstraintOperationType.ALL));
@@ -31,6 +31,7 @@ import com.haulmont.cuba.core.entity.contracts.Ids;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.entitycache.QueryCacheManager;
 import com.haulmont.cuba.core.sys.entitycache.QueryKey;
+import com.haulmont.cuba.core.sys.jpql.QueryTransformationCache;
 import com.haulmont.cuba.core.sys.persistence.DbmsFeatures;
 import com.haulmont.cuba.core.sys.persistence.DbmsSpecificFactory;
 import com.haulmont.cuba.core.sys.persistence.PersistenceImplSupport;
@@ -77,6 +78,8 @@ public class QueryImpl<T> implements TypedQuery<T> {
     @Inject
     protected QueryTransformerFactory queryTransformerFactory;
     @Inject
+    protected QueryTransformationCache queryTransformationCache;
+    @Inject
     protected ServerConfig serverConfig;
 
     protected javax.persistence.EntityManager emDelegate;
@@ -229,16 +232,14 @@ public class QueryImpl<T> implements TypedQuery<T> {
         String result = expandMacros(queryString);
 
         boolean rebuildParser = false;
-        QueryParser parser = queryTransformerFactory.parser(result);
+        QueryParser parser = queryTransformationCache.parser(result);
 
         String entityName = parser.getEntityName();
         Class effectiveClass = metadata.getExtendedEntities().getEffectiveClass(entityName);
         MetaClass effectiveMetaClass = metadata.getClassNN(effectiveClass);
         String effectiveEntityName = effectiveMetaClass.getName();
         if (!effectiveEntityName.equals(entityName)) {
-            QueryTransformer transformer = queryTransformerFactory.transformer(result);
-            transformer.replaceEntityName(effectiveEntityName);
-            result = transformer.getResult();
+            result = queryTransformationCache.replaceEntityName(result, effectiveEntityName);
             rebuildParser = true;
         }
 
@@ -246,9 +247,8 @@ public class QueryImpl<T> implements TypedQuery<T> {
             String storeName = metadata.getTools().getStoreName(effectiveMetaClass);
             DbmsFeatures dbmsFeatures = DbmsSpecificFactory.getDbmsFeatures(storeName);
             if (dbmsFeatures.useOrderByForPaging()) {
-                QueryTransformer transformer = queryTransformerFactory.transformer(result);
-                transformer.addOrderByIdIfNotExists(metadata.getTools().getPrimaryKeyName(effectiveMetaClass));
-                result = transformer.getResult();
+                result = queryTransformationCache.addOrderByIdIfNotExists(result,
+                        metadata.getTools().getPrimaryKeyName(effectiveMetaClass));
                 rebuildParser = true;
             }
         }
@@ -256,7 +256,7 @@ public class QueryImpl<T> implements TypedQuery<T> {
         result = replaceParams(result, parser);
 
         if (rebuildParser) {
-            parser = queryTransformerFactory.parser(result);
+            parser = queryTransformationCache.parser(result);
         }
         String nestedEntityName = parser.getOriginalEntityName();
         String nestedEntityPath = parser.getOriginalEntityPath();
@@ -264,12 +264,14 @@ public class QueryImpl<T> implements TypedQuery<T> {
             if (parser.isCollectionOriginalEntitySelect()) {
                 throw new IllegalStateException(String.format("Collection attributes are not supported in select clause: %s", nestedEntityPath));
             }
-            QueryTransformer transformer = queryTransformerFactory.transformer(result);
-            transformer.replaceWithSelectEntityVariable("tempEntityAlias");
-            transformer.addFirstSelectionSource(String.format("%s tempEntityAlias", nestedEntityName));
-            transformer.addWhereAsIs(String.format("tempEntityAlias.id = %s.id", nestedEntityPath));
-            transformer.addEntityInGroupBy("tempEntityAlias");
-            result = transformer.getResult();
+            result = queryTransformationCache.transform(result,
+                    "selectNestedEntity:" + nestedEntityName + ":" + nestedEntityPath,
+                    transformer -> {
+                        transformer.replaceWithSelectEntityVariable("tempEntityAlias");
+                        transformer.addFirstSelectionSource(String.format("%s tempEntityAlias", nestedEntityName));
+                        transformer.addWhereAsIs(String.format("tempEntityAlias.id = %s.id", nestedEntityPath));
+                        transformer.addEntityInGroupBy("tempEntityAlias");
+                    });
         }
 
         return result;
@@ -322,15 +324,13 @@ public class QueryImpl<T> implements TypedQuery<T> {
     }
 
     protected String replaceCaseInsensitiveParam(String query, String paramName) {
-        QueryTransformer transformer = queryTransformerFactory.transformer(query);
-        transformer.handleCaseInsensitiveParam(paramName);
-        return transformer.getResult();
+        return queryTransformationCache.transform(query, "handleCaseInsensitiveParam:" + paramName,
+                transformer -> transformer.handleCaseInsensitiveParam(paramName));
     }
 
     protected String replaceInCollectionParam(String query, String paramName) {
-        QueryTransformer transformer = queryTransformerFactory.transformer(query);
-        transformer.replaceInCondition(paramName);
-        return transformer.getResult();
+        return queryTransformationCache.transform(query, "replaceInCondition:" + paramName,
+                transformer -> transformer.replaceInCondition(paramName));
     }
 
     protected void addMacroParams(javax.persistence.TypedQuery jpaQuery) {
@@ -685,7 +685,7 @@ public class QueryImpl<T> implements TypedQuery<T> {
         boolean useQueryCache = cacheable && !isNative && queryCacheMgr.isEnabled() && lockMode == null;
         Object result;
         if (useQueryCache) {
-            QueryParser parser = QueryTransformerFactory.createParser(transformedQueryString);
+            QueryParser parser = queryTransformationCache.parser(transformedQueryString);
             String entityName = parser.getEntityName();
             useQueryCache = parser.isEntitySelect(entityName);
             QueryKey queryKey = null;
@@ -36,13 +36,22 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.haulmont.cuba.core.entity.BaseEntityInternalAccess.*;
 import static org.apache.commons.lang3.StringUtils.rightPad;
 import static org.apache.commons.lang3.StringUtils.substring;
 
+/**
+ * Writes and reads encrypted security tokens of entities.
+ * <p>
+ * A token is an AES-encrypted binary record containing the entity name and id, identifiers of filtered references
+ * and attribute access restrictions. Tokens in the JSON format of previous versions are still accepted.
+ * Initialized ciphers are kept per thread and reused for all tokens.
+ */
 @Component(SecurityTokenManager.NAME)
 public class SecurityTokenManager {
     public static final String NAME = "cuba_SecurityTokenManager";
@@ -63,49 +72,153 @@ public class SecurityTokenManager {
     protected static final Set SYSTEM_ATTRIBUTE_KEYS = Sets.newHashSet(READ_ONLY_ATTRIBUTES_KEY,
             REQUIRED_ATTRIBUTES_KEY, HIDDEN_ATTRIBUTES_KEY, ENTITY_NAME_KEY, ENTITY_ID_KEY);
 
+    /**
+     * First byte of a decrypted token in the binary format. Tokens in the JSON format start with '{'.
+     */
+    protected static final byte BINARY_FORMAT_VERSION = 1;
+
+    protected static final byte NULL_VALUE = 0;
+    protected static final byte UUID_VALUE = 1;
+    protected static final byte LONG_VALUE = 2;
+    protected static final byte INTEGER_VALUE = 3;
+    protected static final byte STRING_VALUE = 4;
+
+    // key and initialized cipher, only JDK classes are kept in thread locals
+    protected final ThreadLocal<Map.Entry<String, Cipher>> encryptionCipher = new ThreadLocal<>();
+    protected final ThreadLocal<Map.Entry<String, Cipher>> decryptionCipher = new ThreadLocal<>();
+
+    protected final LongAdder writtenTokens = new LongAdder();
+    protected final LongAdder writtenBytes = new LongAdder();
+    protected final LongAdder writeTime = new LongAdder();
+    protected final LongAdder readTokens = new LongAdder();
+    protected final LongAdder readTime = new LongAdder();
+
     /**
      * Encrypt filtered data and write the result to the security token
      */
     public void writeSecurityToken(Entity entity) {
-        SecurityState securityState = getOrCreateSecurityState(entity);
-        if (securityState != null) {
-            JSONObject jsonObject = new JSONObject();
-            Multimap<String, Object> filtered = getFilteredData(securityState);
-            if (filtered != null) {
-                Set<Map.Entry<String, Collection<Object>>> entries = filtered.asMap().entrySet();
-                String[] filteredAttributes = new String[entries.size()];
-                int i = 0;
-                for (Map.Entry<String, Collection<Object>> entry : entries) {
-                    jsonObject.put(entry.getKey(), entry.getValue());
-                    filteredAttributes[i++] = entry.getKey();
+        writeSecurityTokens(Collections.singletonList(entity));
+    }
+
+    /**
+     * Encrypt filtered data and write the result to security tokens of the given entities.
+     */
+    public void writeSecurityTokens(Collection<? extends Entity> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int count = 0;
+        long bytes = 0;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        for (Entity entity : entities) {
+            SecurityState securityState = getOrCreateSecurityState(entity);
+            if (securityState != null) {
+                buffer.reset();
+                try {
+                    writeToken(new DataOutputStream(buffer), entity, securityState);
+                } catch (IOException e) {
+                    throw new RuntimeException("An error occurred while generating security token", e);
                 }
-                setFilteredAttributes(securityState, filteredAttributes);
-            }
-            if (!securityState.getReadonlyAttributes().isEmpty()) {
-                jsonObject.put(READ_ONLY_ATTRIBUTES_KEY, securityState.getReadonlyAttributes());
-            }
-            if (!securityState.getHiddenAttributes().isEmpty()) {
-                jsonObject.put(HIDDEN_ATTRIBUTES_KEY, securityState.getHiddenAttributes());
-            }
-            if (!securityState.getRequiredAttributes().isEmpty()) {
-                jsonObject.put(REQUIRED_ATTRIBUTES_KEY, securityState.getRequiredAttributes());
-            }
-            MetaClass metaClass = entity.getMetaClass();
-            jsonObject.put(ENTITY_NAME_KEY, metaClass.getName());
-            if (!metadata.getTools().hasCompositePrimaryKey(metaClass)) {
-                jsonObject.put(ENTITY_ID_KEY, getEntityId(entity));
+                byte[] encrypted = doFinal(Cipher.ENCRYPT_MODE, buffer.toByteArray());
+                setSecurityToken(securityState, encrypted);
+                count++;
+                bytes += encrypted.length;
             }
+        }
+        writtenTokens.add(count);
+        writtenBytes.add(bytes);
+        writeTime.add(System.nanoTime() - start);
+    }
+
+    protected void writeToken(DataOutputStream out, Entity entity, SecurityState securityState) throws IOException {
+        out.writeByte(BINARY_FORMAT_VERSION);
 
-            String json = jsonObject.toString();
-            byte[] encrypted;
-            Cipher cipher = getCipher(Cipher.ENCRYPT_MODE);
-            try {
-                encrypted = cipher.doFinal(json.getBytes(StandardCharsets.UTF_8));
-            } catch (Exception e) {
-                throw new RuntimeException("An error occurred while generating security token", e);
+        MetaClass metaClass = entity.getMetaClass();
+        out.writeUTF(metaClass.getName());
+        if (metadata.getTools().hasCompositePrimaryKey(metaClass)) {
+            out.writeByte(NULL_VALUE);
+        } else {
+            writeId(out, getEntityId(entity));
+        }
+
+        Multimap<String, Object> filtered = getFilteredData(securityState);
+        if (filtered != null) {
+            Set<Map.Entry<String, Collection<Object>>> entries = filtered.asMap().entrySet();
+            String[] filteredAttributes = new String[entries.size()];
+            out.writeInt(entries.size());
+            int i = 0;
+            for (Map.Entry<String, Collection<Object>> entry : entries) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Object id : entry.getValue()) {
+                    writeId(out, id);
+                }
+                filteredAttributes[i++] = entry.getKey();
             }
-            setSecurityToken(securityState, encrypted);
+            setFilteredAttributes(securityState, filteredAttributes);
+        } else {
+            out.writeInt(0);
         }
+
+        writeStrings(out, securityState.getReadonlyAttributes());
+        writeStrings(out, securityState.getHiddenAttributes());
+        writeStrings(out, securityState.getRequiredAttributes());
+    }
+
+    protected void writeId(DataOutputStream out, Object id) throws IOException {
+        if (id instanceof IdProxy) {
+            id = ((IdProxy) id).get();
+        }
+        if (id == null) {
+            out.writeByte(NULL_VALUE);
+        } else if (id instanceof UUID) {
+            out.writeByte(UUID_VALUE);
+            out.writeLong(((UUID) id).getMostSignificantBits());
+            out.writeLong(((UUID) id).getLeastSignificantBits());
+        } else if (id instanceof Long) {
+            out.writeByte(LONG_VALUE);
+            out.writeLong((Long) id);
+        } else if (id instanceof Integer) {
+            out.writeByte(INTEGER_VALUE);
+            out.writeInt((Integer) id);
+        } else {
+            out.writeByte(STRING_VALUE);
+            out.writeUTF(id.toString());
+        }
+    }
+
+    protected Object readId(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL_VALUE:
+                return null;
+            case UUID_VALUE:
+                return new UUID(in.readLong(), in.readLong());
+            case LONG_VALUE:
+                return in.readLong();
+            case INTEGER_VALUE:
+                return in.readInt();
+            case STRING_VALUE:
+                return in.readUTF();
+            default:
+                throw new SecurityTokenException("Invalid format for security token: unknown id type");
+        }
+    }
+
+    protected void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+    }
+
+    protected String[] readStrings(DataInputStream in) throws IOException {
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        return strings;
     }
 
     /**
@@ -116,66 +229,152 @@ public class SecurityTokenManager {
         if (getSecurityToken(entity) == null) {
             return;
         }
+        long start = System.nanoTime();
         Multimap<String, Object> filteredData = ArrayListMultimap.create();
         BaseEntityInternalAccess.setFilteredData(securityState, filteredData);
-        Cipher cipher = getCipher(Cipher.DECRYPT_MODE);
         try {
-            byte[] decrypted = cipher.doFinal(getSecurityToken(securityState));
-            String json = new String(decrypted, StandardCharsets.UTF_8);
-            JSONObject jsonObject = new JSONObject(json);
-            for (Object key : jsonObject.keySet()) {
-                if (!SYSTEM_ATTRIBUTE_KEYS.contains(key)) {
-                    String elementName = String.valueOf(key);
-                    JSONArray jsonArray = jsonObject.getJSONArray(elementName);
-                    MetaProperty metaProperty = entity.getMetaClass().getPropertyNN(elementName);
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        Object id = jsonArray.get(i);
-                        filteredData.put(elementName, convertId(id, metaProperty.getRange().asClass(), true));
-                    }
-                }
+            byte[] decrypted = doFinal(Cipher.DECRYPT_MODE, getSecurityToken(securityState));
+            if (decrypted.length > 0 && decrypted[0] == BINARY_FORMAT_VERSION) {
+                readToken(new DataInputStream(new ByteArrayInputStream(decrypted)), entity, securityState,
+                        filteredData);
+            } else {
+                readJsonToken(new String(decrypted, StandardCharsets.UTF_8), entity, securityState, filteredData);
             }
-            if (jsonObject.has(READ_ONLY_ATTRIBUTES_KEY)) {
-                BaseEntityInternalAccess.setReadonlyAttributes(securityState, parseJsonArrayAsStrings(
-                        jsonObject.getJSONArray(READ_ONLY_ATTRIBUTES_KEY)));
+        } catch (SecurityTokenException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("An error occurred while reading security token", e);
+        }
+        readTokens.increment();
+        readTime.add(System.nanoTime() - start);
+    }
+
+    protected void readToken(DataInputStream in, Entity entity, SecurityState securityState,
+                             Multimap<String, Object> filteredData) throws IOException {
+        in.readByte();
+        String entityName = in.readUTF();
+        Object tokenEntityId = readId(in);
+
+        int filteredCount = in.readInt();
+        for (int i = 0; i < filteredCount; i++) {
+            String elementName = in.readUTF();
+            int idsCount = in.readInt();
+            for (int j = 0; j < idsCount; j++) {
+                filteredData.put(elementName, readId(in));
+            }
+        }
+
+        String[] readonlyAttributes = readStrings(in);
+        if (readonlyAttributes.length > 0) {
+            BaseEntityInternalAccess.setReadonlyAttributes(securityState, readonlyAttributes);
+        }
+        String[] hiddenAttributes = readStrings(in);
+        if (hiddenAttributes.length > 0) {
+            BaseEntityInternalAccess.setHiddenAttributes(securityState, hiddenAttributes);
+        }
+        String[] requiredAttributes = readStrings(in);
+        if (requiredAttributes.length > 0) {
+            BaseEntityInternalAccess.setRequiredAttributes(securityState, requiredAttributes);
+        }
+
+        MetaClass metaClass = entity.getMetaClass();
+        if (!metadata.getTools().hasCompositePrimaryKey(metaClass)
+                && !(entity instanceof EmbeddableEntity)) {
+            if (!Objects.equals(entityName, metaClass.getName())) {
+                throw new SecurityTokenException("Invalid format for security token: incorrect entity type");
             }
-            if (jsonObject.has(HIDDEN_ATTRIBUTES_KEY)) {
-                BaseEntityInternalAccess.setHiddenAttributes(securityState, parseJsonArrayAsStrings(
-                        jsonObject.getJSONArray(HIDDEN_ATTRIBUTES_KEY)));
+            if (tokenEntityId == null) {
+                throw new SecurityTokenException("Invalid format for security token: incorrect entity id");
             }
-            if (jsonObject.has(REQUIRED_ATTRIBUTES_KEY)) {
-                BaseEntityInternalAccess.setRequiredAttributes(securityState, parseJsonArrayAsStrings(
-                        jsonObject.getJSONArray(REQUIRED_ATTRIBUTES_KEY)));
+            Object entityId = getEntityId(entity);
+            if (entityId != null && !Objects.equals(entityId, tokenEntityId)) {
+                throw new SecurityTokenException("Invalid format for security token: incorrect entity id");
             }
-            MetaClass metaClass = entity.getMetaClass();
-            if (!metadata.getTools().hasCompositePrimaryKey(entity.getMetaClass())
-                    && !(entity instanceof EmbeddableEntity)) {
-                if (!jsonObject.has(ENTITY_ID_KEY) || !jsonObject.has(ENTITY_NAME_KEY)) {
-                    throw new SecurityTokenException("Invalid format for security token");
-                }
-                String entityName = jsonObject.getString(ENTITY_NAME_KEY);
-                if (!Objects.equals(entityName, metaClass.getName())) {
-                    throw new SecurityTokenException("Invalid format for security token: incorrect entity type");
-                }
-                Object jsonEntityId = jsonObject.get(ENTITY_ID_KEY);
-                if (jsonEntityId == null) {
-                    throw new SecurityTokenException("Invalid format for security token: incorrect entity id");
-                }
-                Object entityId = getEntityId(entity);
-                if (entityId != null && !Objects.equals(entityId, convertId(jsonEntityId, metaClass, false))) {
-                    throw new SecurityTokenException("Invalid format for security token: incorrect entity id");
+        }
+    }
+
+    /**
+     * Reads a token written in the JSON format by previous versions.
+     */
+    protected void readJsonToken(String json, Entity entity, SecurityState securityState,
+                                 Multimap<String, Object> filteredData) {
+        JSONObject jsonObject = new JSONObject(json);
+        for (Object key : jsonObject.keySet()) {
+            if (!SYSTEM_ATTRIBUTE_KEYS.contains(key)) {
+                String elementName = String.valueOf(key);
+                JSONArray jsonArray = jsonObject.getJSONArray(elementName);
+                MetaProperty metaProperty = entity.getMetaClass().getPropertyNN(elementName);
+                for (int i = 0; i < jsonArray.length(); i++) {
+                    Object id = jsonArray.get(i);
+                    filteredData.put(elementName, convertId(id, metaProperty.getRange().asClass(), true));
                 }
             }
-        } catch (SecurityTokenException e) {
-            throw e;
+        }
+        if (jsonObject.has(READ_ONLY_ATTRIBUTES_KEY)) {
+            BaseEntityInternalAccess.setReadonlyAttributes(securityState, parseJsonArrayAsStrings(
+                    jsonObject.getJSONArray(READ_ONLY_ATTRIBUTES_KEY)));
+        }
+        if (jsonObject.has(HIDDEN_ATTRIBUTES_KEY)) {
+            BaseEntityInternalAccess.setHiddenAttributes(securityState, parseJsonArrayAsStrings(
+                    jsonObject.getJSONArray(HIDDEN_ATTRIBUTES_KEY)));
+        }
+        if (jsonObject.has(REQUIRED_ATTRIBUTES_KEY)) {
+            BaseEntityInternalAccess.setRequiredAttributes(securityState, parseJsonArrayAsStrings(
+                    jsonObject.getJSONArray(REQUIRED_ATTRIBUTES_KEY)));
+        }
+        MetaClass metaClass = entity.getMetaClass();
+        if (!metadata.getTools().hasCompositePrimaryKey(entity.getMetaClass())
+                && !(entity instanceof EmbeddableEntity)) {
+            if (!jsonObject.has(ENTITY_ID_KEY) || !jsonObject.has(ENTITY_NAME_KEY)) {
+                throw new SecurityTokenException("Invalid format for security token");
+            }
+            String entityName = jsonObject.getString(ENTITY_NAME_KEY);
+            if (!Objects.equals(entityName, metaClass.getName())) {
+                throw new SecurityTokenException("Invalid format for security token: incorrect entity type");
+            }
+            Object jsonEntityId = jsonObject.get(ENTITY_ID_KEY);
+            if (jsonEntityId == null) {
+                throw new SecurityTokenException("Invalid format for security token: incorrect entity id");
+            }
+            Object entityId = getEntityId(entity);
+            if (entityId != null && !Objects.equals(entityId, convertId(jsonEntityId, metaClass, false))) {
+                throw new SecurityTokenException("Invalid format for security token: incorrect entity id");
+            }
+        }
+    }
+
+    protected byte[] doFinal(int mode, byte[] input) {
+        Cipher cipher = getCipher(mode);
+        try {
+            return cipher.doFinal(input);
         } catch (Exception e) {
-            throw new RuntimeException("An error occurred while reading security token", e);
+            // do not reuse the cipher which may be left in an unknown state
+            (mode == Cipher.ENCRYPT_MODE ? encryptionCipher : decryptionCipher).remove();
+            throw new RuntimeException(mode == Cipher.ENCRYPT_MODE
+                    ? "An error occurred while generating security token"
+                    : "An error occurred while reading security token", e);
         }
     }
 
+    /**
+     * Returns the cipher of the current thread initialized with the current encryption key.
+     */
     protected Cipher getCipher(int mode) {
+        ThreadLocal<Map.Entry<String, Cipher>> threadCipher =
+                mode == Cipher.ENCRYPT_MODE ? encryptionCipher : decryptionCipher;
+        String key = config.getKeyForSecurityTokenEncryption();
+        Map.Entry<String, Cipher> entry = threadCipher.get();
+        if (entry == null || !entry.getKey().equals(key)) {
+            entry = new AbstractMap.SimpleImmutableEntry<>(key, createCipher(mode, key));
+            threadCipher.set(entry);
+        }
+        return entry.getValue();
+    }
+
+    protected Cipher createCipher(int mode, String key) {
         try {
             Cipher cipher = Cipher.getInstance("AES");
-            byte[] encryptionKey = rightPad(substring(config.getKeyForSecurityTokenEncryption(), 0, 16), 16)
+            byte[] encryptionKey = rightPad(substring(key, 0, 16), 16)
                     .getBytes(StandardCharsets.UTF_8);
 
             SecretKeySpec sKeySpec = new SecretKeySpec(encryptionKey, "AES");
@@ -186,6 +385,44 @@ public class SecurityTokenManager {
         }
     }
 
+    /**
+     * @return number of security tokens written since the server start
+     */
+    public long getWrittenTokensCount() {
+        return writtenTokens.sum();
+    }
+
+    /**
+     * @return average size of written security tokens in bytes
+     */
+    public double getAvgWrittenTokenSize() {
+        long count = writtenTokens.sum();
+        return count == 0 ? 0 : (double) writtenBytes.sum() / count;
+    }
+
+    /**
+     * @return average time of writing a security token in microseconds
+     */
+    public double getAvgTokenWriteTime() {
+        long count = writtenTokens.sum();
+        return count == 0 ? 0 : writeTime.sum() / 1000.0 / count;
+    }
+
+    /**
+     * @return number of security tokens read since the server start
+     */
+    public long getReadTokensCount() {
+        return readTokens.sum();
+    }
+
+    /**
+     * @return average time of reading a security token in microseconds
+     */
+    public double getAvgTokenReadTime() {
+        long count = readTokens.sum();
+        return count == 0 ? 0 : readTime.sum() / 1000.0 / count;
+    }
+
     protected String[] parseJsonArrayAsStrings(JSONArray array) {
         List<String> result = new ArrayList<>();
         for (int i = 0; i < array.length(); i++) {
@@ -21,6 +21,18 @@ import com.haulmont.cuba.core.global.ViewRepository;
 
 import org.springframework.stereotype.Component;
 
+import javax.inject.Inject;
+
 @Component(ViewRepository.NAME)
 public class ViewRepositoryImpl extends AbstractViewRepository implements ViewRepository {
+
+    @Inject
+    protected FetchGroupManager fetchGroupManager;
+
+    @Override
+    public void reset() {
+        super.reset();
+        // fetch plans include minimal views of related entities
+        fetchGroupManager.invalidateFetchPlans();
+    }
 }
\ No newline at end of file
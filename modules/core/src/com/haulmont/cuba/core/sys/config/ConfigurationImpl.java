@@ -41,10 +41,18 @@ public class ConfigurationImpl implements Configuration, BeanFactoryPostProcesso
 
     protected Map<Class, ConfigHandler> cache = new ConcurrentHashMap<>();
 
+    protected Map<Class, Config> proxies = new ConcurrentHashMap<>();
+
     protected ApplicationContext applicationContext;
 
     @Override
     public <T extends Config> T getConfig(Class<T> configInterface) {
+        // proxies are stateless, property values are cached by the handler
+        Config config = proxies.get(configInterface);
+        if (config != null) {
+            return configInterface.cast(config);
+        }
+
         ConfigHandler handler = cache.get(configInterface);
         if (handler == null) {
             handler = new ConfigHandler(createPersister(), configInterface);
@@ -52,6 +60,7 @@ public class ConfigurationImpl implements Configuration, BeanFactoryPostProcesso
         }
         ClassLoader classLoader = configInterface.getClassLoader();
         Object proxy = Proxy.newProxyInstance(classLoader, new Class[]{configInterface}, handler);
+        proxies.put(configInterface, (Config) proxy);
         return configInterface.cast(proxy);
     }
 
@@ -17,6 +17,7 @@
 package com.haulmont.cuba.core.sys.entitycache;
 
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -85,4 +86,11 @@ public interface QueryCache {
      * the map doesn't affect the cache.
      */
     Map<QueryKey, QueryResult> asMap();
+
+    /**
+     * Returns hit, miss, eviction and invalidation statistics by result entity type (metaClass name).
+     */
+    default Map<String, QueryCacheStats> getStatistics() {
+        return Collections.emptyMap();
+    }
 }
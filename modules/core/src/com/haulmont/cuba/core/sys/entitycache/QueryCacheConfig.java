@@ -22,6 +22,7 @@ import com.haulmont.cuba.core.config.Source;
 import com.haulmont.cuba.core.config.SourceType;
 import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
 import com.haulmont.cuba.core.config.defaults.DefaultInt;
+import com.haulmont.cuba.core.config.defaults.DefaultLong;
 
 
 @Source(type = SourceType.APP)
@@ -34,4 +35,27 @@ public interface QueryCacheConfig extends Config {
     @Property("cuba.queryCache.maxSize")
     @DefaultInt(100)
     int getQueryCacheMaxSize();
+
+    /**
+     * @return maximum total number of entity identifiers kept in the cache. If greater than zero, the cache is limited
+     * by this value instead of {@link #getQueryCacheMaxSize()}.
+     */
+    @Property("cuba.queryCache.maxWeight")
+    @DefaultLong(0)
+    long getQueryCacheMaxWeight();
+
+    /**
+     * @return time in seconds after which cached query results expire. Zero means no expiration.
+     */
+    @Property("cuba.queryCache.expirationTime")
+    @DefaultInt(0)
+    int getQueryCacheExpirationTime();
+
+    /**
+     * @return time in milliseconds during which invalidations of the query cache are collected and then sent to other
+     * cluster nodes as one message. Zero means that each invalidation is sent immediately.
+     */
+    @Property("cuba.queryCache.invalidationWindow")
+    @DefaultInt(5)
+    int getQueryCacheInvalidationWindow();
 }
@@ -17,7 +17,7 @@
 package com.haulmont.cuba.core.sys.entitycache;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.MetadataObject;
 import com.haulmont.cuba.core.EntityManager;
@@ -27,8 +27,10 @@ import com.haulmont.cuba.core.app.ClusterManagerAPI;
 import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.global.Metadata;
 import com.haulmont.cuba.core.global.View;
+import com.haulmont.cuba.core.sys.events.AppContextStoppedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -37,6 +39,13 @@ import javax.persistence.MappedSuperclass;
 import javax.persistence.TypedQuery;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 @Component(QueryCacheManager.NAME)
@@ -57,8 +66,18 @@ public class QueryCacheManager {
 
     protected static final Logger log = LoggerFactory.getLogger(QueryCacheManager.class);
 
+    protected ScheduledExecutorService invalidationSender;
+    protected Set<String> pendingTypeNames = ConcurrentHashMap.newKeySet();
+    protected AtomicBoolean invalidationScheduled = new AtomicBoolean();
+
+    protected LongAdder requestedInvalidations = new LongAdder();
+    protected LongAdder sentInvalidations = new LongAdder();
+
     @PostConstruct
     public void init() {
+        invalidationSender = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("QueryCacheInvalidationSender-%d").setDaemon(true).build());
+
         clusterManager.addListener(InvalidateQueryCacheMsg.class, new ClusterListenerAdapter<InvalidateQueryCacheMsg>() {
             @Override
             public void receive(InvalidateQueryCacheMsg message) {
@@ -199,7 +218,7 @@ public class QueryCacheManager {
             if (sendInCluster) {
                 MetaClass metaClass = metadata.getClass(typeName);
                 if (metaClass != null && metadata.getTools().isCacheable(metaClass)) {
-                    clusterManager.send(new InvalidateQueryCacheMsg(Sets.newHashSet(typeName)));
+                    sendInvalidation(Collections.singleton(typeName));
                 }
             }
         }
@@ -220,7 +239,7 @@ public class QueryCacheManager {
                         return metaClass != null && metadata.getTools().isCacheable(metaClass);
                     });
                     if (hasCacheable) {
-                        clusterManager.send(new InvalidateQueryCacheMsg(typeNames));
+                        sendInvalidation(typeNames);
                     }
                 }
             }
@@ -251,11 +270,83 @@ public class QueryCacheManager {
         if (isEnabled()) {
             queryCache.invalidateAll();
             if (sendInCluster) {
+                // pending type invalidations are covered by this message
+                pendingTypeNames.clear();
+                requestedInvalidations.increment();
+                sentInvalidations.increment();
                 clusterManager.send(new InvalidateQueryCacheMsg(true));
             }
         }
     }
 
+    /**
+     * Returns the number of type invalidations requested to be sent in cluster
+     */
+    public long getRequestedInvalidationsCount() {
+        return requestedInvalidations.sum();
+    }
+
+    /**
+     * Returns the number of invalidation messages actually sent in cluster after coalescing
+     */
+    public long getSentInvalidationsCount() {
+        return sentInvalidations.sum();
+    }
+
+    /**
+     * Sends invalidation of types in cluster. Invalidations requested within
+     * {@link QueryCacheConfig#getQueryCacheInvalidationWindow()} are merged and sent as one message.
+     */
+    protected void sendInvalidation(Set<String> typeNames) {
+        requestedInvalidations.increment();
+
+        int window = queryCacheConfig.getQueryCacheInvalidationWindow();
+        if (window <= 0 || invalidationSender.isShutdown()) {
+            sentInvalidations.increment();
+            clusterManager.send(new InvalidateQueryCacheMsg(new HashSet<>(typeNames)));
+            return;
+        }
+
+        pendingTypeNames.addAll(typeNames);
+        if (invalidationScheduled.compareAndSet(false, true)) {
+            try {
+                invalidationSender.schedule(this::sendPendingInvalidations, window, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // the application is being stopped
+                sendPendingInvalidations();
+            }
+        }
+    }
+
+    protected void sendPendingInvalidations() {
+        invalidationScheduled.set(false);
+
+        Set<String> typeNames = new HashSet<>();
+        for (Iterator<String> iterator = pendingTypeNames.iterator(); iterator.hasNext(); ) {
+            typeNames.add(iterator.next());
+            iterator.remove();
+        }
+        if (typeNames.isEmpty()) {
+            return;
+        }
+
+        log.debug("Sending merged query cache invalidation for types {}", typeNames);
+        sentInvalidations.increment();
+        try {
+            clusterManager.send(new InvalidateQueryCacheMsg(typeNames));
+        } catch (Exception e) {
+            log.error("Error sending query cache invalidation", e);
+        }
+    }
+
+    @EventListener(AppContextStoppedEvent.class)
+    protected void applicationStopped() {
+        // new invalidations are sent immediately after the sender is shut down, so flush the pending ones after it
+        invalidationSender.shutdown();
+        sendPendingInvalidations();
+        invalidationSender.shutdownNow();
+    }
+
     protected Set<String> getDescendants(Set<String> relatedTypes) {
         if (relatedTypes == null) return null;
         Set<String> newRelatedTypes = new HashSet<>();
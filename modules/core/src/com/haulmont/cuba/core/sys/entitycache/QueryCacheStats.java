@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.sys.entitycache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Query cache statistics collected for one entity type, i.e. for queries returning instances of this type.
+ */
+public class QueryCacheStats {
+
+    protected final LongAdder hitCount = new LongAdder();
+    protected final LongAdder missCount = new LongAdder();
+    protected final LongAdder evictionCount = new LongAdder();
+    protected final LongAdder invalidationCount = new LongAdder();
+
+    /**
+     * Returns the number of times query results were found in the cache
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of times query results were loaded from the database and put into the cache
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of query results evicted because of the cache size or expiration time
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Returns the number of query results discarded because of entity changes or explicit invalidation
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.sum();
+    }
+
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    public void recordInvalidation() {
+        invalidationCount.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHitCount()
+                + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount()
+                + ", invalidations=" + getInvalidationCount();
+    }
+}
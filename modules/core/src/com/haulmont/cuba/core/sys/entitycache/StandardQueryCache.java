@@ -18,27 +18,37 @@ package com.haulmont.cuba.core.sys.entitycache;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Standard implementation of {@link QueryCache} based on Guava cache.
+ * <p>
+ * Keeps reverse indexes by related type and by query identifier. Indexes are updated by the removal listener of the
+ * cache, so evicted, expired and invalidated queries do not remain in them.
+ */
 @Component(QueryCache.NAME)
 public class StandardQueryCache implements QueryCache {
 
     protected Cache<QueryKey, QueryResult> data;
-    protected ConcurrentMap<String, CopyOnWriteArrayList<QueryKey>> typeIndex = new ConcurrentHashMap<>();
+    protected ConcurrentMap<String, Set<QueryKey>> typeIndex = new ConcurrentHashMap<>();
+    protected ConcurrentMap<UUID, QueryKey> idIndex = new ConcurrentHashMap<>();
+    protected ConcurrentMap<String, QueryCacheStats> statistics = new ConcurrentHashMap<>();
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
 
     @Inject
@@ -48,12 +58,33 @@ public class StandardQueryCache implements QueryCache {
 
     @PostConstruct
     protected void init() {
-        data = CacheBuilder.newBuilder().maximumSize(queryCacheConfig.getQueryCacheMaxSize()).build();
+        CacheBuilder<QueryKey, QueryResult> builder = CacheBuilder.newBuilder()
+                .removalListener(this::onRemoval);
+
+        long maxWeight = queryCacheConfig.getQueryCacheMaxWeight();
+        if (maxWeight > 0) {
+            // weight of a query is the number of cached identifiers, empty results count as one
+            builder.maximumWeight(maxWeight)
+                    .weigher((QueryKey key, QueryResult value) -> Math.max(1, value.getResult().size()));
+        } else {
+            builder.maximumSize(queryCacheConfig.getQueryCacheMaxSize());
+        }
+
+        int expirationTime = queryCacheConfig.getQueryCacheExpirationTime();
+        if (expirationTime > 0) {
+            builder.expireAfterWrite(expirationTime, TimeUnit.SECONDS);
+        }
+
+        data = builder.build();
     }
 
     @Override
     public QueryResult get(QueryKey queryKey) {
-        return data.getIfPresent(queryKey);
+        QueryResult queryResult = data.getIfPresent(queryKey);
+        if (queryResult != null) {
+            getStats(queryResult.getType()).recordHit();
+        }
+        return queryResult;
     }
 
     @Override
@@ -61,16 +92,21 @@ public class StandardQueryCache implements QueryCache {
         Lock readLock = lock.readLock();
         readLock.lock();
         try {
-            data.put(queryKey, queryResult);
-
-            for (String type : queryResult.getRelatedTypes()) {
-                CopyOnWriteArrayList<QueryKey> keys = typeIndex.get(type);
-                if (keys == null) {
-                    typeIndex.putIfAbsent(type, new CopyOnWriteArrayList<>());
-                    keys = typeIndex.get(type);
+            idIndex.put(queryKey.getId(), queryKey);
+            if (queryResult.getRelatedTypes() != null) {
+                for (String type : queryResult.getRelatedTypes()) {
+                    typeIndex.compute(type, (t, keys) -> {
+                        if (keys == null) {
+                            keys = ConcurrentHashMap.newKeySet();
+                        }
+                        keys.add(queryKey);
+                        return keys;
+                    });
                 }
-                keys.add(queryKey);
             }
+            data.put(queryKey, queryResult);
+
+            getStats(queryResult.getType()).recordMiss();
         } finally {
             readLock.unlock();
         }
@@ -78,13 +114,7 @@ public class StandardQueryCache implements QueryCache {
 
     @Override
     public QueryKey findQueryKeyById(UUID queryId) {
-        Set<QueryKey> keys = Sets.newHashSet(data.asMap().keySet());
-        for (QueryKey key : keys) {
-            if (Objects.equals(queryId, key.getId())) {
-                return key;
-            }
-        }
-        return null;
+        return idIndex.get(queryId);
     }
 
     @Override
@@ -104,10 +134,7 @@ public class StandardQueryCache implements QueryCache {
         Lock readLock = lock.readLock();
         readLock.lock();
         try {
-            CopyOnWriteArrayList<QueryKey> keys = typeIndex.get(typeName);
-            if (keys == null) return;
-            log.debug("Invalidate cache for type {}", typeName);
-            Arrays.stream(keys.toArray()).forEach(it -> data.invalidate(it));
+            invalidateType(typeName);
         } finally {
             readLock.unlock();
         }
@@ -118,35 +145,33 @@ public class StandardQueryCache implements QueryCache {
         Lock readLock = lock.readLock();
         readLock.lock();
         try {
-            typeNames.forEach(typeName -> {
-                        CopyOnWriteArrayList<QueryKey> keys = typeIndex.get(typeName);
-                        if (keys == null) return;
-                        log.debug("Invalidate cache for type {}", typeName);
-                        Arrays.stream(keys.toArray()).forEach(it -> data.invalidate(it));
-                    }
-            );
+            typeNames.forEach(this::invalidateType);
         } finally {
             readLock.unlock();
         }
     }
 
+    protected void invalidateType(String typeName) {
+        Set<QueryKey> keys = typeIndex.get(typeName);
+        if (keys == null) return;
+        log.debug("Invalidate cache for type {}", typeName);
+        data.invalidateAll(new ArrayList<>(keys));
+    }
+
     @Override
     public QueryKey invalidate(UUID queryId) {
         Lock readLock = lock.readLock();
         readLock.lock();
         try {
-            Set<QueryKey> keys = Sets.newHashSet(data.asMap().keySet());
-            for (QueryKey key : keys) {
-                if (Objects.equals(queryId, key.getId())) {
-                    log.debug("Invalidate query by identifier {}", queryId);
-                    data.invalidate(key);
-                    return key;
-                }
+            QueryKey key = idIndex.get(queryId);
+            if (key != null) {
+                log.debug("Invalidate query by identifier {}", queryId);
+                data.invalidate(key);
             }
+            return key;
         } finally {
             readLock.unlock();
         }
-        return null;
     }
 
     @Override
@@ -157,11 +182,58 @@ public class StandardQueryCache implements QueryCache {
             log.debug("Invalidate all cache");
             data.invalidateAll();
             typeIndex.clear();
+            idIndex.clear();
         } finally {
             writeLock.unlock();
         }
     }
 
+    protected void onRemoval(RemovalNotification<QueryKey, QueryResult> notification) {
+        QueryKey key = notification.getKey();
+        QueryResult value = notification.getValue();
+        if (key == null || value == null) {
+            return;
+        }
+
+        if (notification.getCause() == RemovalCause.REPLACED) {
+            // indexes of the new result are filled before it is put, so keep the entries it shares with the old one
+            QueryResult current = data.getIfPresent(key);
+            removeFromIndexes(key, value, current);
+            return;
+        }
+
+        removeFromIndexes(key, value, null);
+
+        QueryCacheStats stats = getStats(value.getType());
+        if (notification.wasEvicted()) {
+            stats.recordEviction();
+        } else {
+            stats.recordInvalidation();
+        }
+    }
+
+    protected void removeFromIndexes(QueryKey key, QueryResult value, @Nullable QueryResult current) {
+        if (current == null) {
+            idIndex.remove(key.getId(), key);
+        }
+        if (value.getRelatedTypes() != null) {
+            for (String type : value.getRelatedTypes()) {
+                if (current != null && current.getRelatedTypes() != null
+                        && current.getRelatedTypes().contains(type)) {
+                    continue;
+                }
+                typeIndex.computeIfPresent(type, (t, keys) -> {
+                    keys.remove(key);
+                    return keys.isEmpty() ? null : keys;
+                });
+            }
+        }
+    }
+
+    protected QueryCacheStats getStats(String type) {
+        return statistics.computeIfAbsent(type != null ? type : "", t -> new QueryCacheStats());
+    }
+
     @Override
     public long size() {
         return data.size();
@@ -176,4 +248,9 @@ public class StandardQueryCache implements QueryCache {
     public Map<QueryKey, QueryResult> asMap() {
         return Maps.newHashMap(data.asMap());
     }
+
+    @Override
+    public Map<String, QueryCacheStats> getStatistics() {
+        return Collections.unmodifiableMap(new TreeMap<>(statistics));
+    }
 }
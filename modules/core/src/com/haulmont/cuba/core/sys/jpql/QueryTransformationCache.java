@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.sys.jpql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.global.QueryParser;
+import com.haulmont.cuba.core.global.QueryTransformer;
+import com.haulmont.cuba.core.global.QueryTransformerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Caches parsed JPQL queries and results of JPQL transformations performed on the middleware.
+ * <p>
+ * Parsers are cached by query string and are fully initialized before being put to the cache, so they can be shared
+ * between threads. Transformation results are cached by query string plus transformation identifier, which must
+ * include all arguments of the transformation.
+ */
+@Component(QueryTransformationCache.NAME)
+public class QueryTransformationCache {
+
+    public static final String NAME = "cuba_QueryTransformationCache";
+
+    // marks cached queries without distinct, compared by reference
+    protected static final String NO_DISTINCT = new String("");
+
+    private static final Logger log = LoggerFactory.getLogger(QueryTransformationCache.class);
+
+    @Inject
+    protected QueryTransformerFactory queryTransformerFactory;
+
+    @Inject
+    protected ServerConfig serverConfig;
+
+    protected volatile boolean enabled;
+
+    protected Cache<String, QueryParser> parsers;
+
+    protected Cache<TransformationKey, TransformationResult> transformations;
+
+    @PostConstruct
+    protected void init() {
+        enabled = serverConfig.getQueryTransformationCacheEnabled();
+        int maxSize = serverConfig.getQueryTransformationCacheMaxSize();
+        parsers = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+        transformations = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    /**
+     * Returns a parser for the given query. The returned instance may be shared with other threads.
+     */
+    public QueryParser parser(String query) {
+        if (!enabled) {
+            return queryTransformerFactory.parser(query);
+        }
+        QueryParser parser = parsers.getIfPresent(query);
+        if (parser == null) {
+            parser = queryTransformerFactory.parser(query);
+            // parse the query before publishing the parser, syntax errors are thrown here and not cached
+            parser.getEntityName();
+            parser.getParamNames();
+            parsers.put(query, parser);
+        }
+        return parser;
+    }
+
+    /**
+     * Applies the transformation to the query or returns the cached result of the same transformation.
+     *
+     * @param query          source query
+     * @param transformation unique identifier of the transformation including its arguments
+     * @param action         transformation to apply to a new {@link QueryTransformer} on cache miss
+     * @return transformed query
+     */
+    public String transform(String query, String transformation, Consumer<QueryTransformer> action) {
+        return transformWithParams(query, transformation, action).getQuery();
+    }
+
+    /**
+     * Same as {@link #transform(String, String, Consumer)} but also returns names of parameters added to the query
+     * by the transformation.
+     */
+    public TransformationResult transformWithParams(String query, String transformation,
+                                                    Consumer<QueryTransformer> action) {
+        return doTransform(query, transformation, transformer -> {
+            action.accept(transformer);
+            return new TransformationResult(transformer.getResult(), transformer.getAddedParams());
+        });
+    }
+
+    protected TransformationResult doTransform(String query, String transformation,
+                                               Function<QueryTransformer, TransformationResult> action) {
+        if (!enabled) {
+            return action.apply(queryTransformerFactory.transformer(query));
+        }
+        TransformationKey key = new TransformationKey(query, transformation);
+        TransformationResult result = transformations.getIfPresent(key);
+        if (result == null) {
+            result = action.apply(queryTransformerFactory.transformer(query));
+            transformations.put(key, result);
+        }
+        return result;
+    }
+
+    public String replaceEntityName(String query, String entityName) {
+        return transform(query, "replaceEntityName:" + entityName,
+                transformer -> transformer.replaceEntityName(entityName));
+    }
+
+    public String addOrderByIdIfNotExists(String query, String pkName) {
+        return transform(query, "addOrderByIdIfNotExists:" + pkName,
+                transformer -> transformer.addOrderByIdIfNotExists(pkName));
+    }
+
+    public String replaceWithCount(String query) {
+        return transform(query, "replaceWithCount", QueryTransformer::replaceWithCount);
+    }
+
+    /**
+     * Replaces the select clause with selection of entity identifiers and removes the order by clause.
+     */
+    public String replaceWithSelectId(String query, String pkName) {
+        return transform(query, "replaceWithSelectId:" + pkName,
+                transformer -> {
+                    transformer.replaceWithSelectId(pkName);
+                    transformer.removeOrderBy();
+                });
+    }
+
+    /**
+     * Removes {@code distinct} from the select clause.
+     *
+     * @return transformed query or null if the query does not contain {@code distinct}
+     */
+    @Nullable
+    public String removeDistinct(String query) {
+        String result = doTransform(query, "removeDistinct", transformer ->
+                new TransformationResult(transformer.removeDistinct() ? transformer.getResult() : NO_DISTINCT,
+                        Collections.emptySet())).getQuery();
+        //noinspection StringEquality
+        return result == NO_DISTINCT ? null : result;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            invalidateAll();
+        }
+    }
+
+    public void invalidateAll() {
+        log.debug("Invalidate parsed queries and transformation results");
+        parsers.invalidateAll();
+        transformations.invalidateAll();
+    }
+
+    public long getMaxSize() {
+        return serverConfig.getQueryTransformationCacheMaxSize();
+    }
+
+    public long getParsersCount() {
+        return parsers.size();
+    }
+
+    public long getTransformationsCount() {
+        return transformations.size();
+    }
+
+    public CacheStats getParserStats() {
+        return parsers.stats();
+    }
+
+    public CacheStats getTransformationStats() {
+        return transformations.stats();
+    }
+
+    /**
+     * Transformed query together with names of parameters added by the transformation.
+     */
+    public static class TransformationResult {
+
+        protected final String query;
+        protected final Set<String> addedParams;
+
+        public TransformationResult(String query, Set<String> addedParams) {
+            this.query = query;
+            this.addedParams = addedParams.isEmpty()
+                    ? Collections.emptySet() : Collections.unmodifiableSet(new LinkedHashSet<>(addedParams));
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public Set<String> getAddedParams() {
+            return addedParams;
+        }
+    }
+
+    protected static class TransformationKey {
+
+        protected final String query;
+        protected final String transformation;
+        protected final int hashCode;
+
+        public TransformationKey(String query, String transformation) {
+            this.query = query;
+            this.transformation = transformation;
+            this.hashCode = 31 * query.hashCode() + transformation.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TransformationKey that = (TransformationKey) o;
+            return hashCode == that.hashCode
+                    && Objects.equals(query, that.query)
+                    && Objects.equals(transformation, that.transformation);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -28,10 +28,9 @@ import org.springframework.web.util.NestedServletException;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OptionalDataException;
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Exports a middleware service bean as an HTTP invoker service endpoint.
@@ -39,6 +38,9 @@ import java.io.OptionalDataException;
  */
 public class HttpServiceExporter extends HttpInvokerServiceExporter implements BeanNameAware {
 
+    private static final String HTTP_HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String ENCODING_GZIP = "gzip";
+
     public HttpServiceExporter() {
         super();
         setRegisterTraceInterceptor(false);
@@ -86,6 +88,24 @@ public class HttpServiceExporter extends HttpInvokerServiceExporter implements B
         }
     }
 
+    @Override
+    protected InputStream decorateInputStream(HttpServletRequest request, InputStream is) throws IOException {
+        if (ENCODING_GZIP.equalsIgnoreCase(request.getHeader(HTTP_HEADER_CONTENT_ENCODING))) {
+            return new GZIPInputStream(is);
+        }
+        return is;
+    }
+
+    @Override
+    protected OutputStream decorateOutputStream(HttpServletRequest request, HttpServletResponse response,
+                                                OutputStream os) throws IOException {
+        if (ENCODING_GZIP.equalsIgnoreCase(request.getHeader(PooledHttpInvokerRequestExecutor.HTTP_HEADER_COMPRESS_RESPONSE))) {
+            response.setHeader(HTTP_HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+            return new GZIPOutputStream(os);
+        }
+        return os;
+    }
+
     @Override
     protected void doWriteRemoteInvocationResult(RemoteInvocationResult result, ObjectOutputStream oos) throws IOException {
         SerializationSupport.serialize(result, oos);
@@ -42,14 +42,20 @@ public class LocalFileExchangeServiceBean implements LocalFileExchangeService {
 
     @Override
     public InputStream downloadFile(FileDescriptor fileDescriptor) throws FileStorageException {
-        FileDescriptor descriptor;
+        return fileStorage.openStream(reloadDescriptor(fileDescriptor));
+    }
+
+    @Override
+    public InputStream downloadFile(FileDescriptor fileDescriptor, long offset, long length) throws FileStorageException {
+        return fileStorage.openStream(reloadDescriptor(fileDescriptor), offset, length);
+    }
+
+    protected FileDescriptor reloadDescriptor(FileDescriptor fileDescriptor) throws FileStorageException {
         try {
             // FileDescriptor must be available for the current user and be non deleted
-            descriptor = dataManager.secure().reload(fileDescriptor, View.LOCAL);
+            return dataManager.secure().reload(fileDescriptor, View.LOCAL);
         } catch (EntityAccessException e) {
             throw new FileStorageException(FileStorageException.Type.FILE_NOT_FOUND, fileDescriptor.getName(), e);
         }
-
-        return fileStorage.openStream(descriptor);
     }
 }
\ No newline at end of file
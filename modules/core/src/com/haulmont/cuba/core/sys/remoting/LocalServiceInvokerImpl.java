@@ -23,14 +23,27 @@ import com.haulmont.cuba.core.sys.UserInvocationContext;
 import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
 import org.apache.commons.lang3.ClassUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Locale;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class LocalServiceInvokerImpl implements LocalServiceInvoker {
 
+    private static final MethodType DISPATCH_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
     private Object target;
 
+    // method handles and invocation counters of the target resolved by method name and parameter type names
+    protected final Map<MethodKey, DispatchEntry> dispatchTable = new ConcurrentHashMap<>();
+
     public LocalServiceInvokerImpl(Object target) {
         if (target == null) {
             throw new IllegalArgumentException("Target object is null");
@@ -39,6 +52,11 @@ public class LocalServiceInvokerImpl implements LocalServiceInvoker {
         this.target = target;
     }
 
+    @Override
+    public boolean isPassByReferenceSupported(Class<?> serviceInterface) {
+        return serviceInterface.isInstance(target);
+    }
+
     @Override
     public LocalServiceInvocationResult invoke(LocalServiceInvocation invocation) {
         if (invocation == null) {
@@ -47,22 +65,19 @@ public class LocalServiceInvokerImpl implements LocalServiceInvoker {
 
         LocalServiceInvocationResult result = new LocalServiceInvocationResult();
         ClassLoader clientClassLoader = Thread.currentThread().getContextClassLoader();
+        DispatchEntry dispatchEntry = null;
+        long startTime = System.nanoTime();
         try {
             ClassLoader classLoader = target.getClass().getClassLoader();
             Thread.currentThread().setContextClassLoader(classLoader);
 
-            String[] parameterTypeNames = invocation.getParameterTypeNames();
-            Class[] parameterTypes = new Class[parameterTypeNames.length];
-            for (int i = 0; i < parameterTypeNames.length; i++) {
-                Class<?> paramClass = ClassUtils.getClass(classLoader, parameterTypeNames[i]);
-                parameterTypes[i] = paramClass;
-            }
+            dispatchEntry = getDispatchEntry(invocation, classLoader);
 
             byte[][] argumentsData = invocation.getArgumentsData();
             Object[] notSerializableArguments = invocation.getNotSerializableArguments();
             Object[] arguments;
             if (argumentsData == null) {
-                arguments = null;
+                arguments = NO_ARGUMENTS;
             } else {
                 arguments = new Object[argumentsData.length];
                 for (int i = 0; i < argumentsData.length; i++) {
@@ -90,11 +105,12 @@ public class LocalServiceInvokerImpl implements LocalServiceInvoker {
                         invocation.getAddress(), invocation.getClientInfo());
             }
 
-            Method method = target.getClass().getMethod(invocation.getMethodName(), parameterTypes);
-            Object data = method.invoke(target, arguments);
+            Object data = (Object) dispatchEntry.methodHandle.invokeExact(target, arguments);
 
             if (invocation.canResultBypassSerialization()) {
                 result.setNotSerializableData(data);
+            } else if (invocation.isPassByReference()) {
+                result.setNotSerializableData(LocalServiceInvocationCopier.copy(data));
             } else {
                 result.setData(SerializationSupport.serialize(data));
             }
@@ -105,9 +121,133 @@ public class LocalServiceInvokerImpl implements LocalServiceInvoker {
             result.setException(SerializationSupport.serialize(t));
             return result;
         } finally {
+            if (dispatchEntry != null) {
+                dispatchEntry.record(System.nanoTime() - startTime);
+            }
             Thread.currentThread().setContextClassLoader(clientClassLoader);
             AppContext.setSecurityContext(null);
             UserInvocationContext.clearRequestScopeInfo();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return number of invocations and their total time by method, sorted by method
+     */
+    public List<InvocationStats> getStatistics() {
+        List<InvocationStats> statistics = new ArrayList<>(dispatchTable.size());
+        for (Map.Entry<MethodKey, DispatchEntry> entry : dispatchTable.entrySet()) {
+            DispatchEntry dispatchEntry = entry.getValue();
+            statistics.add(new InvocationStats(entry.getKey().toString(),
+                    dispatchEntry.invocationCount.sum(), dispatchEntry.totalTimeNanos.sum()));
+        }
+        statistics.sort(Comparator.comparing(InvocationStats::getMethod));
+        return statistics;
+    }
+
+    protected DispatchEntry getDispatchEntry(LocalServiceInvocation invocation, ClassLoader classLoader)
+            throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException {
+        MethodKey key = new MethodKey(invocation.getMethodName(), invocation.getParameterTypeNames());
+        DispatchEntry dispatchEntry = dispatchTable.get(key);
+        if (dispatchEntry == null) {
+            String[] parameterTypeNames = invocation.getParameterTypeNames();
+            Class[] parameterTypes = new Class[parameterTypeNames.length];
+            for (int i = 0; i < parameterTypeNames.length; i++) {
+                Class<?> paramClass = ClassUtils.getClass(classLoader, parameterTypeNames[i]);
+                parameterTypes[i] = paramClass;
+            }
+
+            Method method = target.getClass().getMethod(invocation.getMethodName(), parameterTypes);
+            method.setAccessible(true);
+            MethodHandle methodHandle = MethodHandles.lookup().unreflect(method)
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(DISPATCH_TYPE);
+            dispatchEntry = dispatchTable.computeIfAbsent(key, k -> new DispatchEntry(methodHandle));
+        }
+        return dispatchEntry;
+    }
+
+    protected static class DispatchEntry {
+
+        protected final MethodHandle methodHandle;
+        protected final LongAdder invocationCount = new LongAdder();
+        protected final LongAdder totalTimeNanos = new LongAdder();
+
+        public DispatchEntry(MethodHandle methodHandle) {
+            this.methodHandle = methodHandle;
+        }
+
+        public void record(long timeNanos) {
+            invocationCount.increment();
+            totalTimeNanos.add(timeNanos);
+        }
+    }
+
+    /**
+     * Number of invocations of a service method and their total time.
+     */
+    public static class InvocationStats {
+
+        protected final String method;
+        protected final long invocationCount;
+        protected final long totalTimeNanos;
+
+        public InvocationStats(String method, long invocationCount, long totalTimeNanos) {
+            this.method = method;
+            this.invocationCount = invocationCount;
+            this.totalTimeNanos = totalTimeNanos;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public long getInvocationCount() {
+            return invocationCount;
+        }
+
+        public long getTotalTimeNanos() {
+            return totalTimeNanos;
+        }
+
+        @Override
+        public String toString() {
+            long averageMicros = invocationCount == 0 ? 0 : totalTimeNanos / invocationCount / 1000;
+            return method + ": count=" + invocationCount
+                    + ", totalMs=" + TimeUnit.NANOSECONDS.toMillis(totalTimeNanos)
+                    + ", avgUs=" + averageMicros;
+        }
+    }
+
+    protected static class MethodKey {
+
+        protected final String methodName;
+        protected final String[] parameterTypeNames;
+        protected final int hashCode;
+
+        public MethodKey(String methodName, String[] parameterTypeNames) {
+            this.methodName = methodName;
+            this.parameterTypeNames = parameterTypeNames;
+            this.hashCode = 31 * methodName.hashCode() + Arrays.hashCode(parameterTypeNames);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            MethodKey that = (MethodKey) o;
+            return hashCode == that.hashCode
+                    && methodName.equals(that.methodName)
+                    && Arrays.equals(parameterTypeNames, that.parameterTypeNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return methodName + "(" + String.join(", ", parameterTypeNames) + ")";
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package com.haulmont.cuba.security.app;
 
+import com.haulmont.bali.db.DbUtils;
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.chile.core.datatypes.Datatype;
 import com.haulmont.chile.core.model.*;
@@ -29,6 +30,8 @@ import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.AuditInfoProvider;
 import com.haulmont.cuba.core.sys.EntityManagerContext;
+import com.haulmont.cuba.core.sys.events.AppContextStoppedEvent;
+import com.haulmont.cuba.core.sys.persistence.DbTypeConverter;
 import com.haulmont.cuba.security.entity.*;
 import org.apache.commons.lang3.BooleanUtils;
 import org.eclipse.persistence.descriptors.changetracking.ChangeTracker;
@@ -36,17 +39,23 @@ import org.eclipse.persistence.internal.descriptors.changetracking.AttributeChan
 import org.eclipse.persistence.internal.sessions.ObjectChangeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.inject.Inject;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -81,14 +90,21 @@ public class EntityLog implements EntityLogAPI {
     protected volatile boolean loaded;
     protected EntityLogConfig config;
 
-    @GuardedBy("lock")
-    protected Map<String, Set<String>> entitiesManual;
-    @GuardedBy("lock")
-    protected Map<String, Set<String>> entitiesAuto;
+    // replaced as a whole on reload and read without locking after checking the loaded flag
+    protected volatile Map<String, Set<String>> entitiesManual;
+    protected volatile Map<String, Set<String>> entitiesAuto;
 
     protected ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     protected ThreadLocal<Boolean> entityLogSwitchedOn = new ThreadLocal<>();
 
+    protected static final String INSERT_SQL = "insert into SEC_ENTITY_LOG (ID, CREATE_TS, CREATED_BY, EVENT_TS, " +
+            "USER_ID, CHANGE_TYPE, ENTITY, ENTITY_ID, STRING_ENTITY_ID, INT_ENTITY_ID, LONG_ENTITY_ID, CHANGES) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    protected volatile BlockingQueue<EntityLogItem> writeQueue;
+    protected Thread writerThread;
+    protected volatile boolean stopped;
+
     @Inject
     public EntityLog(Configuration configuration) {
         config = configuration.getConfig(EntityLogConfig.class);
@@ -110,17 +126,24 @@ public class EntityLog implements EntityLogAPI {
         List<EntityLogItem> items = context.getAttribute(EntityLog.class.getName());
         if (items == null || items.isEmpty())
             return;
+        // items are inserted by JDBC, so they must not be saved again if flush is invoked once more
+        context.setAttribute(EntityLog.class.getName(), null);
 
+        Map<List<Object>, List<EntityLogItem>> itemsByEntity = new LinkedHashMap<>();
         for (EntityLogItem item : items) {
-            List<EntityLogItem> sameEntityList = items.stream()
-                    .filter(entityLogItem -> entityLogItem.getDbGeneratedIdEntity() != null ?
-                            entityLogItem.getDbGeneratedIdEntity().equals(item.getDbGeneratedIdEntity()) :
-                            entityLogItem.getObjectEntityId().equals(item.getObjectEntityId()))
-                    .collect(Collectors.toList());
+            Object entityId = item.getDbGeneratedIdEntity() != null ?
+                    item.getDbGeneratedIdEntity() : item.getObjectEntityId();
+            itemsByEntity.computeIfAbsent(Arrays.asList(item.getEntity(), entityId), key -> new ArrayList<>())
+                    .add(item);
+        }
+
+        List<EntityLogItem> itemsToSave = new ArrayList<>(itemsByEntity.size());
+        for (List<EntityLogItem> sameEntityList : itemsByEntity.values()) {
             EntityLogItem itemToSave = sameEntityList.get(0);
             computeChanges(itemToSave, sameEntityList);
-            saveItem(itemToSave);
+            itemsToSave.add(itemToSave);
         }
+        saveItems(itemsToSave);
     }
 
     protected void computeChanges(EntityLogItem itemToSave, List<EntityLogItem> sameEntityList) {
@@ -193,43 +216,249 @@ public class EntityLog implements EntityLogAPI {
         return attr;
     }
 
-    protected void saveItem(EntityLogItem item) {
-        String storeName = metadataTools.getStoreName(metadata.getClassNN(item.getEntity()));
-        if (item.getDbGeneratedIdEntity() == null) {
-            if (Stores.isMain(storeName)) {
-                EntityManager em = persistence.getEntityManager();
-                em.persist(item);
+    protected void saveItems(List<EntityLogItem> items) {
+        Date ts = timeSource.currentTimestamp();
+        String login = auditInfoProvider.getCurrentUserLogin();
+
+        List<EntityLogItem> mainStoreItems = new ArrayList<>();
+        List<EntityLogItem> additionalStoreItems = new ArrayList<>();
+        List<EntityLogItem> dbGeneratedIdItems = new ArrayList<>();
+        for (EntityLogItem item : items) {
+            item.setCreateTs(ts);
+            item.setCreatedBy(login);
+            if (item.getDbGeneratedIdEntity() != null) {
+                dbGeneratedIdItems.add(item);
+            } else if (Stores.isMain(metadataTools.getStoreName(metadata.getClassNN(item.getEntity())))) {
+                mainStoreItems.add(item);
             } else {
-                // Create a new transaction in main DB if we are saving an entity from additional data store
-                try (Transaction tx = persistence.createTransaction()) {
-                    EntityManager em = persistence.getEntityManager();
-                    em.persist(item);
-                    tx.commit();
-                }
+                additionalStoreItems.add(item);
             }
-        } else {
+        }
+
+        if (isAsyncWrite()) {
+            List<EntityLogItem> committedItems = new ArrayList<>(items);
             TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
                 @Override
                 public void afterCommit() {
-                    Number id = item.getDbGeneratedIdEntity().getId().getNN();
-                    item.setObjectEntityId(id);
-                    try (Transaction tx = persistence.createTransaction()) {
-                        EntityManager em = persistence.getEntityManager();
-                        em.persist(item);
-                        tx.commit();
+                    for (EntityLogItem item : dbGeneratedIdItems) {
+                        item.setObjectEntityId(item.getDbGeneratedIdEntity().getId().getNN());
+                    }
+                    enqueueForWriting(committedItems);
+                }
+            });
+            return;
+        }
+
+        if (!mainStoreItems.isEmpty()) {
+            writeItems(mainStoreItems);
+        }
+        if (!additionalStoreItems.isEmpty()) {
+            // Create a new transaction in main DB if we are saving an entity from additional data store
+            writeItemsInNewTransaction(additionalStoreItems);
+        }
+        if (!dbGeneratedIdItems.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    for (EntityLogItem item : dbGeneratedIdItems) {
+                        item.setObjectEntityId(item.getDbGeneratedIdEntity().getId().getNN());
                     }
+                    writeItemsInNewTransaction(dbGeneratedIdItems);
                 }
             });
         }
     }
 
+    /**
+     * Writes the items in the current transaction of the main data store.
+     */
+    protected void writeItems(List<EntityLogItem> items) {
+        if (isBatchInsert()) {
+            insertItems(items);
+        } else {
+            EntityManager em = persistence.getEntityManager();
+            for (EntityLogItem item : items) {
+                em.persist(item);
+            }
+        }
+    }
+
+    protected void writeItemsInNewTransaction(List<EntityLogItem> items) {
+        try (Transaction tx = persistence.createTransaction()) {
+            writeItems(items);
+            tx.commit();
+        }
+    }
+
+    protected void insertItems(List<EntityLogItem> items) {
+        EntityManager em = persistence.getEntityManager();
+        DbTypeConverter converter = persistence.getDbTypeConverter();
+        int batchSize = Math.max(1, config.getBatchSize());
+        PreparedStatement statement = null;
+        try {
+            statement = em.getConnection().prepareStatement(INSERT_SQL);
+            int count = 0;
+            for (EntityLogItem item : items) {
+                ReferenceToEntity entityRef = item.getEntityRef();
+                setParameter(statement, 1, item.getId(), UUID.class, converter);
+                setParameter(statement, 2, item.getCreateTs(), Date.class, converter);
+                setParameter(statement, 3, item.getCreatedBy(), String.class, converter);
+                setParameter(statement, 4, item.getEventTs(), Date.class, converter);
+                setParameter(statement, 5, item.getUser() != null ? item.getUser().getId() : null, UUID.class,
+                        converter);
+                setParameter(statement, 6, item.getType().getId(), String.class, converter);
+                setParameter(statement, 7, item.getEntity(), String.class, converter);
+                setParameter(statement, 8, entityRef.getEntityId(), UUID.class, converter);
+                setParameter(statement, 9, entityRef.getStringEntityId(), String.class, converter);
+                setParameter(statement, 10, entityRef.getIntEntityId(), Integer.class, converter);
+                setParameter(statement, 11, entityRef.getLongEntityId(), Long.class, converter);
+                setParameter(statement, 12, item.getChanges(), String.class, converter);
+                statement.addBatch();
+                if (++count % batchSize == 0) {
+                    statement.executeBatch();
+                }
+            }
+            if (count % batchSize != 0) {
+                statement.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error inserting entity log items", e);
+        } finally {
+            DbUtils.closeQuietly(statement);
+        }
+    }
+
+    protected void setParameter(PreparedStatement statement, int index, @Nullable Object value, Class<?> javaClass,
+                                DbTypeConverter converter) throws SQLException {
+        if (value != null) {
+            statement.setObject(index, converter.getSqlObject(value));
+        } else if (javaClass == String.class) {
+            statement.setNull(index, Types.VARCHAR);
+        } else if (javaClass == Integer.class) {
+            statement.setNull(index, Types.INTEGER);
+        } else if (javaClass == Long.class) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setNull(index, converter.getSqlType(javaClass));
+        }
+    }
+
+    protected boolean isBatchInsert() {
+        return config.getBatchInsert()
+                && metadata.getExtendedEntities().getExtendedClass(metadata.getClassNN(EntityLogItem.class)) == null;
+    }
+
+    protected boolean isAsyncWrite() {
+        return config.getAsyncWrite() && isBatchInsert();
+    }
+
+    /**
+     * Passes the items to the background writer. If its queue is full, writes the rest of items in the current thread.
+     */
+    protected void enqueueForWriting(List<EntityLogItem> items) {
+        BlockingQueue<EntityLogItem> queue = getWriteQueue();
+        List<EntityLogItem> rejectedItems = null;
+        for (EntityLogItem item : items) {
+            if (stopped || !queue.offer(item)) {
+                if (rejectedItems == null) {
+                    rejectedItems = new ArrayList<>();
+                }
+                rejectedItems.add(item);
+            }
+        }
+        if (rejectedItems != null) {
+            log.debug("Entity log write queue is full, writing {} items in the current thread", rejectedItems.size());
+            writeItemsWithFallback(rejectedItems);
+        }
+    }
+
+    /**
+     * Writes the items in a new transaction. If it fails, persists the items one by one through the entity manager
+     * in separate transactions, so a failure of the batch or of a single item does not cause losing other items.
+     */
+    protected void writeItemsWithFallback(List<EntityLogItem> items) {
+        try {
+            writeItemsInNewTransaction(items);
+        } catch (Exception e) {
+            log.warn("Unable to write {} entity log items by batch, persisting them one by one", items.size(), e);
+            for (EntityLogItem item : items) {
+                try (Transaction tx = persistence.createTransaction()) {
+                    persistence.getEntityManager().persist(item);
+                    tx.commit();
+                } catch (Exception itemException) {
+                    log.error("Unable to write entity log item: {} {} {} {}", item.getType(), item.getEntity(),
+                            item.getObjectEntityId(), item.getChanges(), itemException);
+                }
+            }
+        }
+    }
+
+    protected BlockingQueue<EntityLogItem> getWriteQueue() {
+        BlockingQueue<EntityLogItem> queue = writeQueue;
+        if (queue == null) {
+            synchronized (this) {
+                queue = writeQueue;
+                if (queue == null) {
+                    queue = new LinkedBlockingQueue<>(config.getAsyncWriteQueueCapacity());
+                    writeQueue = queue;
+                    writerThread = new Thread(this::writeQueuedItems, "EntityLogWriter");
+                    writerThread.setDaemon(true);
+                    writerThread.start();
+                }
+            }
+        }
+        return queue;
+    }
+
+    protected void writeQueuedItems() {
+        BlockingQueue<EntityLogItem> queue = writeQueue;
+        List<EntityLogItem> batch = new ArrayList<>();
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                EntityLogItem item = queue.poll(1, TimeUnit.SECONDS);
+                if (item != null) {
+                    batch.add(item);
+                    queue.drainTo(batch, Math.max(1, config.getBatchSize()) - 1);
+                    writeItemsWithFallback(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @EventListener(AppContextStoppedEvent.class)
+    protected void applicationStopped() {
+        stopped = true;
+        Thread thread;
+        synchronized (this) {
+            thread = writerThread;
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!writeQueue.isEmpty()) {
+                List<EntityLogItem> items = new ArrayList<>();
+                writeQueue.drainTo(items);
+                log.info("Writing {} entity log items left by the background writer", items.size());
+                writeItemsWithFallback(items);
+            }
+        }
+    }
+
     @Override
-    public synchronized boolean isEnabled() {
+    public boolean isEnabled() {
         return config.getEnabled() && isLoggingForCurrentThread();
     }
 
     @Override
-    public synchronized void setEnabled(boolean enabled) {
+    public void setEnabled(boolean enabled) {
         if (enabled != config.getEnabled()) {
             config.setEnabled(enabled);
         }
@@ -240,8 +469,6 @@ public class EntityLog implements EntityLogAPI {
         lock.writeLock().lock();
         try {
             log.debug("Invalidating cache");
-            entitiesManual = null;
-            entitiesAuto = null;
             loaded = false;
         } finally {
             lock.writeLock().unlock();
@@ -249,40 +476,31 @@ public class EntityLog implements EntityLogAPI {
     }
 
     protected Set<String> getLoggedAttributes(String entity, boolean auto) {
-        lock.readLock().lock();
-        try {
-            if (!loaded) {
-                // upgrade lock
-                lock.readLock().unlock();
-                lock.writeLock().lock();
-                try {
-                    if (!loaded) { // recheck because we unlocked for a while
-                        loadEntities();
-                        loaded = true;
-                    }
-                } finally {
-                    // downgrade lock
-                    lock.writeLock().unlock();
-                    lock.readLock().lock();
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    loadEntities();
+                    loaded = true;
                 }
+            } finally {
+                lock.writeLock().unlock();
             }
+        }
 
-            Set<String> attributes;
-            if (auto)
-                attributes = entitiesAuto.get(entity);
-            else
-                attributes = entitiesManual.get(entity);
+        Set<String> attributes;
+        if (auto)
+            attributes = entitiesAuto.get(entity);
+        else
+            attributes = entitiesManual.get(entity);
 
-            return attributes == null ? null : Collections.unmodifiableSet(attributes);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return attributes == null ? null : Collections.unmodifiableSet(attributes);
     }
 
     protected void loadEntities() {
         log.debug("Loading entities");
-        entitiesManual = new HashMap<>();
-        entitiesAuto = new HashMap<>();
+        Map<String, Set<String>> entitiesManual = new HashMap<>();
+        Map<String, Set<String>> entitiesAuto = new HashMap<>();
         Transaction tx = persistence.createTransaction();
         try {
             EntityManager em = persistence.getEntityManager();
@@ -310,6 +528,8 @@ public class EntityLog implements EntityLogAPI {
         } finally {
             tx.end();
         }
+        this.entitiesManual = entitiesManual;
+        this.entitiesAuto = entitiesAuto;
         log.debug("Loaded: entitiesAuto={}, entitiesManual={}", entitiesAuto.size(), entitiesManual.size());
     }
 
@@ -21,6 +21,7 @@ import com.haulmont.cuba.core.config.Property;
 import com.haulmont.cuba.core.config.Source;
 import com.haulmont.cuba.core.config.SourceType;
 import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
+import com.haulmont.cuba.core.config.defaults.DefaultInt;
 
 /**
  * {@link com.haulmont.cuba.security.app.EntityLog} configuration parameters
@@ -35,4 +36,39 @@ public interface EntityLogConfig extends Config {
     @DefaultBoolean(true)
     boolean getEnabled();
     void setEnabled(boolean value);
-}
\ No newline at end of file
+
+    /**
+     * @return whether entity log items are inserted by JDBC batches instead of persisting them one by one through
+     * the entity manager. Items inserted by JDBC bypass entity listeners of {@code EntityLogItem}, so do not enable
+     * it if the application relies on them. Not used if {@code EntityLogItem} is extended in the application.
+     */
+    @Property("cuba.entityLog.batchInsert")
+    @DefaultBoolean(false)
+    boolean getBatchInsert();
+
+    /**
+     * @return whether entity log items are written by a background thread after the transaction is committed.
+     * Works only with {@link #getBatchInsert()} enabled. If a batch fails, its items are persisted one by one
+     * through the entity manager.
+     */
+    @Property("cuba.entityLog.asyncWrite")
+    @DefaultBoolean(false)
+    boolean getAsyncWrite();
+
+    /**
+     * @return maximum number of entity log items waiting to be written by the background thread. If the queue is
+     * full, items are written by the thread that committed the transaction.
+     */
+    @Property("cuba.entityLog.asyncWriteQueueCapacity")
+    @Source(type = SourceType.APP)
+    @DefaultInt(10000)
+    int getAsyncWriteQueueCapacity();
+
+    /**
+     * @return maximum number of entity log items inserted by one JDBC batch
+     */
+    @Property("cuba.entityLog.batchSize")
+    @Source(type = SourceType.APP)
+    @DefaultInt(500)
+    int getBatchSize();
+}
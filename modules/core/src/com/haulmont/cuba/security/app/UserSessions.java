@@ -17,12 +17,14 @@ package com.haulmont.cuba.security.app;
 
 import com.haulmont.bali.util.Preconditions;
 import com.haulmont.cuba.core.app.ClusterListener;
+import com.haulmont.cuba.core.app.ClusterListenerAdapter;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
 import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.Metadata;
 import com.haulmont.cuba.core.global.TimeSource;
 import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.serialization.Serialization;
 import com.haulmont.cuba.security.entity.SessionAction;
 import com.haulmont.cuba.security.entity.User;
 import com.haulmont.cuba.security.entity.UserSessionEntity;
@@ -37,6 +39,7 @@ import javax.inject.Inject;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -84,6 +87,68 @@ public class UserSessions implements UserSessionsAPI {
         }
     }
 
+    /**
+     * Cluster message containing last usage timestamps of sessions refreshed on the sending node.
+     */
+    public static class UserSessionsTouchMsg implements Serializable {
+        private static final long serialVersionUID = 2196337151427368541L;
+
+        protected final long[] idBits;
+        protected final long[] lastUsedTs;
+
+        public UserSessionsTouchMsg(Map<UUID, Long> touches) {
+            idBits = new long[touches.size() * 2];
+            lastUsedTs = new long[touches.size()];
+            int i = 0;
+            for (Map.Entry<UUID, Long> entry : touches.entrySet()) {
+                idBits[i * 2] = entry.getKey().getMostSignificantBits();
+                idBits[i * 2 + 1] = entry.getKey().getLeastSignificantBits();
+                lastUsedTs[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        public int size() {
+            return lastUsedTs.length;
+        }
+
+        public UUID getId(int index) {
+            return new UUID(idBits[index * 2], idBits[index * 2 + 1]);
+        }
+
+        public long getLastUsedTs(int index) {
+            return lastUsedTs[index];
+        }
+
+        @Override
+        public String toString() {
+            return "UserSessionsTouchMsg{sessions=" + size() + "}";
+        }
+    }
+
+    /**
+     * Cluster message requesting nodes to send full information about the given sessions. It is sent by a node
+     * which has received touches of sessions it does not know, e.g. because their creation message was lost.
+     */
+    public static class UserSessionsRequestMsg implements Serializable {
+        private static final long serialVersionUID = -3349232426785419871L;
+
+        protected final ArrayList<UUID> ids;
+
+        public UserSessionsRequestMsg(Collection<UUID> ids) {
+            this.ids = new ArrayList<>(ids);
+        }
+
+        public List<UUID> getIds() {
+            return ids;
+        }
+
+        @Override
+        public String toString() {
+            return "UserSessionsRequestMsg{sessions=" + ids.size() + "}";
+        }
+    }
+
     private static final Logger log = LoggerFactory.getLogger(UserSessions.class);
 
     protected Map<UUID, UserSessionInfo> cache = new ConcurrentHashMap<>();
@@ -100,6 +165,13 @@ public class UserSessions implements UserSessionsAPI {
 
     protected ServerConfig serverConfig;
 
+    protected Map<UUID, Long> pendingTouches = new ConcurrentHashMap<>();
+
+    protected LongAdder propagatedTouches = new LongAdder();
+
+    // unknown sessions requested from the cluster and the time of the last request
+    protected Map<UUID, Long> requestedSessions = new ConcurrentHashMap<>();
+
     @Inject
     protected TimeSource timeSource;
 
@@ -151,12 +223,80 @@ public class UserSessions implements UserSessionsAPI {
                     public void setState(byte[] state) {
                         receiveClusterState(state);
                     }
+
+                    @Override
+                    public void writeState(OutputStream output, Serialization serialization) throws IOException {
+                        writeClusterState(output, serialization);
+                    }
+
+                    @Override
+                    public void readState(InputStream input, Serialization serialization) throws IOException {
+                        readClusterState(input, serialization);
+                    }
+                }
+        );
+        this.clusterManager.addListener(
+                UserSessionsTouchMsg.class,
+                new ClusterListenerAdapter<UserSessionsTouchMsg>() {
+                    @Override
+                    public void receive(UserSessionsTouchMsg message) {
+                        receiveTouchMessage(message);
+                    }
+                }
+        );
+        this.clusterManager.addListener(
+                UserSessionsRequestMsg.class,
+                new ClusterListenerAdapter<UserSessionsRequestMsg>() {
+                    @Override
+                    public void receive(UserSessionsRequestMsg message) {
+                        receiveRequestMessage(message);
+                    }
                 }
         );
     }
 
+    protected void receiveTouchMessage(UserSessionsTouchMsg message) {
+        log.debug("Updating last usage of sessions due to cluster message: {}", message);
+        List<UUID> unknownIds = null;
+        long now = timeSource.currentTimeMillis();
+        for (int i = 0; i < message.size(); i++) {
+            UUID id = message.getId(i);
+            UserSessionInfo usi = getSessionInfo(id);
+            long lastUsedTs = message.getLastUsedTs(i);
+            if (usi == null) {
+                // the whole session is received only on creation or change, so request it from the other nodes
+                Long requestedTs = requestedSessions.get(id);
+                if (requestedTs == null || now > requestedTs + toMillis(sendTimeout)) {
+                    requestedSessions.put(id, now);
+                    if (unknownIds == null) {
+                        unknownIds = new ArrayList<>();
+                    }
+                    unknownIds.add(id);
+                }
+            } else if (usi.lastUsedTs != 0 && usi.lastUsedTs < lastUsedTs) {
+                usi.lastUsedTs = lastUsedTs;
+                putSessionInfo(usi.session.getId(), usi);
+            }
+        }
+        if (unknownIds != null) {
+            log.debug("Requesting {} unknown sessions from cluster", unknownIds.size());
+            clusterManager.send(new UserSessionsRequestMsg(unknownIds));
+        }
+    }
+
+    protected void receiveRequestMessage(UserSessionsRequestMsg message) {
+        for (UUID id : message.getIds()) {
+            UserSessionInfo usi = getSessionInfo(id);
+            if (usi != null && !usi.session.isSystem()) {
+                log.debug("Sending session requested by cluster: {}", usi);
+                clusterManager.send(usi);
+            }
+        }
+    }
+
     protected void receiveClusterMessage(UserSessionInfo message) {
         UUID id = message.session.getId();
+        requestedSessions.remove(id);
         if (message.lastUsedTs == 0) {
             log.debug("Removing session due to cluster message: {}", message);
             removeSessionInfo(id);
@@ -208,6 +348,36 @@ public class UserSessions implements UserSessionsAPI {
         return bytes;
     }
 
+    /**
+     * Writes sessions one by one to the stream without building the whole state in memory. Each session is encoded
+     * by the cluster message serialization and prefixed with its length.
+     */
+    protected void writeClusterState(OutputStream output, Serialization serialization) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+        int count = 0;
+        for (Iterator<UserSessionInfo> iterator = getSessionInfoStream().iterator(); iterator.hasNext(); ) {
+            byte[] bytes = serialization.serialize(iterator.next());
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            count++;
+        }
+        out.writeInt(-1);
+        out.flush();
+        log.debug("Sent user sessions cache to cluster: {} sessions", count);
+    }
+
+    protected void readClusterState(InputStream input, Serialization serialization) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        int count = 0;
+        for (int length = in.readInt(); length >= 0; length = in.readInt()) {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            receiveClusterMessage((UserSessionInfo) serialization.deserialize(bytes));
+            count++;
+        }
+        log.debug("Received user sessions cache: {} sessions. Cache now contains {} sessions", count, cache.size());
+    }
+
     @Override
     public void add(UserSession session) {
         UserSessionInfo usi = new UserSessionInfo(session, timeSource.currentTimeMillis());
@@ -292,7 +462,11 @@ public class UserSessions implements UserSessionsAPI {
                 if (propagate && !usi.session.isSystem()) {
                     if (now > (usi.lastSentTs + toMillis(sendTimeout))) {
                         usi.lastSentTs = now;
-                        clusterManager.send(usi);
+                        if (serverConfig.getUserSessionTouchReplication()) {
+                            pendingTouches.put(id, usi.lastUsedTs);
+                        } else {
+                            clusterManager.send(usi);
+                        }
                     }
                 }
             }
@@ -313,6 +487,31 @@ public class UserSessions implements UserSessionsAPI {
         }
     }
 
+    @Override
+    public void propagateTouches() {
+        if (pendingTouches.isEmpty())
+            return;
+
+        Map<UUID, Long> touches = new HashMap<>();
+        for (Map.Entry<UUID, Long> entry : pendingTouches.entrySet()) {
+            // keep the entry if the session was touched again after it was read
+            if (pendingTouches.remove(entry.getKey(), entry.getValue())) {
+                touches.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (touches.isEmpty())
+            return;
+
+        log.trace("Sending last usage of {} sessions to cluster", touches.size());
+        propagatedTouches.add(touches.size());
+        clusterManager.send(new UserSessionsTouchMsg(touches));
+    }
+
+    @Override
+    public long getPropagatedTouchesCount() {
+        return propagatedTouches.sum();
+    }
+
     @Override
     public int getExpirationTimeoutSec() {
         return expirationTimeout;
@@ -397,6 +596,8 @@ public class UserSessions implements UserSessionsAPI {
         log.trace("Processing eviction");
         long now = timeSource.currentTimeMillis();
 
+        requestedSessions.values().removeIf(requestedTs -> now > requestedTs + toMillis(expirationTimeout));
+
         getSessionInfoStream()
                 .filter(info -> !info.session.isSystem() && now > (info.lastUsedTs + toMillis(expirationTimeout)))
                 .forEach(usi -> {
@@ -421,6 +622,7 @@ public class UserSessions implements UserSessionsAPI {
 
     @Nullable
     protected UserSessionInfo removeSessionInfo(UUID id) {
+        pendingTouches.remove(id);
         return cache.remove(id);
     }
 
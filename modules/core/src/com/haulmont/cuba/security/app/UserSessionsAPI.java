@@ -184,4 +184,20 @@ public interface UserSessionsAPI extends UserSessionFinder {
      * Evict timed out sessions from the cache.
      */
     void processEviction();
+
+    /**
+     * INTERNAL.
+     *
+     * Send last usage timestamps of sessions refreshed since the previous invocation to the cluster.
+     */
+    default void propagateTouches() {
+    }
+
+    /**
+     * @return number of session refreshes propagated to the cluster by {@link #propagateTouches()} instead of
+     * sending the whole session
+     */
+    default long getPropagatedTouchesCount() {
+        return 0;
+    }
 }
\ No newline at end of file
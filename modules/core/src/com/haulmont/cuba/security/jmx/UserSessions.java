@@ -17,6 +17,9 @@
 
 package com.haulmont.cuba.security.jmx;
 
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.security.app.UserSessions.UserSessionInfo;
+import com.haulmont.cuba.security.app.UserSessions.UserSessionsTouchMsg;
 import com.haulmont.cuba.security.app.UserSessionsAPI;
 import com.haulmont.cuba.security.entity.UserSessionEntity;
 import org.springframework.stereotype.Component;
@@ -31,6 +34,9 @@ public class UserSessions implements UserSessionsMBean {
     @Inject
     protected UserSessionsAPI userSessions;
 
+    @Inject
+    protected ClusterManagerAPI clusterManager;
+
     @Override
     public int getExpirationTimeoutSec() {
         return userSessions.getExpirationTimeoutSec();
@@ -56,6 +62,23 @@ public class UserSessions implements UserSessionsMBean {
         return userSessions.getUserSessionInfo().size();
     }
 
+    @Override
+    public long getPropagatedTouchesCount() {
+        return userSessions.getPropagatedTouchesCount();
+    }
+
+    @Override
+    public long getEstimatedTouchBytesSaved() {
+        String sessionMsgClass = UserSessionInfo.class.getName();
+        long sessionMessages = clusterManager.getSentMessages(sessionMsgClass);
+        if (sessionMessages == 0) {
+            return 0;
+        }
+        long avgSessionBytes = clusterManager.getSentBytes(sessionMsgClass) / sessionMessages;
+        long touchBytes = clusterManager.getSentBytes(UserSessionsTouchMsg.class.getName());
+        return userSessions.getPropagatedTouchesCount() * avgSessionBytes - touchBytes;
+    }
+
     @Override
     public String printSessions() {
         return userSessions.getUserSessionEntitiesStream()
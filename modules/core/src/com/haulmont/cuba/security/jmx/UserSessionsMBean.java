@@ -52,6 +52,17 @@ public interface UserSessionsMBean {
 
     int getCount();
 
+    /**
+     * @return number of session refreshes sent to the cluster as compact touch messages
+     */
+    long getPropagatedTouchesCount();
+
+    /**
+     * @return estimated number of bytes not sent to the cluster because touch messages were used instead of
+     * whole sessions
+     */
+    long getEstimatedTouchBytesSaved();
+
     String printSessions();
 
     void processEviction();
@@ -17,6 +17,7 @@
 package com.haulmont.cuba.core;
 
 import com.haulmont.bali.db.QueryRunner;
+import com.haulmont.cuba.core.app.DataService;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.Server;
 import com.haulmont.cuba.core.global.*;
@@ -111,6 +112,35 @@ public class DataManagerTest {
         assertTrue(list.size() == 1);
     }
 
+    @Test
+    public void testLoadBatch() {
+        Server server = new Server();
+        UUID id = server.getId();
+        server.setName("localhost");
+        server.setRunning(true);
+
+        dataManager.commit(new CommitContext(Collections.<Entity>singleton(server)));
+
+        DataService dataService = AppBeans.get(DataService.class);
+
+        LoadContext<Server> byIdContext = LoadContext.create(Server.class).setId(id);
+        LoadContext<Server> missingContext = LoadContext.create(Server.class).setId(UUID.randomUUID());
+        LoadContext<Server> listContext = LoadContext.create(Server.class);
+        listContext.setQueryString("select s from " + PersistenceHelper.getEntityName(Server.class) + " s");
+        LoadContext<User> userContext = LoadContext.create(User.class);
+        userContext.setQueryString("select u from sec$User u where u.login = 'admin'");
+
+        List<List<Entity>> results = dataService.loadBatch(
+                Arrays.asList(byIdContext, missingContext, listContext, userContext));
+
+        assertEquals(4, results.size());
+        assertEquals(Collections.singletonList(server), results.get(0));
+        assertTrue(results.get(1).isEmpty());
+        assertTrue(results.get(2).contains(server));
+        assertEquals(1, results.get(3).size());
+        assertEquals("admin", ((User) results.get(3).get(0)).getLogin());
+    }
+
     @Test
     public void testAssociatedResult() throws Exception {
         LoadContext<Group> loadContext = LoadContext.create(Group.class);
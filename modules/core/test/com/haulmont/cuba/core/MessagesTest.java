@@ -282,6 +282,22 @@ public class MessagesTest {
         assertEquals("Country Message fr CA", msg);
     }
 
+    @Test
+    public void testGetMessages() throws Exception {
+        Messages messages = AppBeans.get(Messages.class);
+
+        Map<String, String> packMessages = messages.getMessages("com.haulmont.cuba.core.mp_test", Locale.forLanguageTag("fr-CA"));
+        assertEquals("Common Message", packMessages.get("commonMsg"));
+        assertEquals("Language Message fr", packMessages.get("languageMsg"));
+        assertEquals("Country Message fr CA", packMessages.get("countryMsg"));
+        assertFalse(packMessages.containsKey("@include"));
+
+        for (Map.Entry<String, String> entry : packMessages.entrySet()) {
+            assertEquals(entry.getValue(),
+                    messages.getMessage("com.haulmont.cuba.core.mp_test", entry.getKey(), Locale.forLanguageTag("fr-CA")));
+        }
+    }
+
     private int getSearchMessagesCount() {
         return Iterables.size(Iterables.filter(appender.getMessages(), new Predicate<String>() {
             @Override
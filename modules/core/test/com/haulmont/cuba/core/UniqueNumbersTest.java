@@ -18,13 +18,20 @@
 package com.haulmont.cuba.core;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.haulmont.cuba.core.app.Sequences;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.app.UniqueNumbers;
 import com.haulmont.cuba.core.app.UniqueNumbersAPI;
 import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.global.TimeSource;
 import com.haulmont.cuba.testsupport.TestContainer;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
@@ -50,6 +57,66 @@ public class UniqueNumbersTest {
         assertTrue(n >= 0);
     }
 
+    @Test
+    public void testBlockAllocation() {
+        UniqueNumbers uniqueNumbers = createBlockUniqueNumbers(10);
+        Set<Long> numbers = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            assertTrue(numbers.add(uniqueNumbers.getNextNumber("block1")));
+        }
+        assertEquals(3, uniqueNumbers.getAllocatedBlocksCount());
+        assertEquals(22, uniqueNumbers.getNumbersFromBlocksCount());
+
+        uniqueNumbers.setCurrentNumber("block1", 100);
+        assertEquals(5, uniqueNumbers.getDiscardedNumbersCount());
+        long number = uniqueNumbers.getNextNumber("block1");
+        assertTrue(number >= 100);
+        assertEquals(number + 1, uniqueNumbers.getNextNumber("block1"));
+
+        uniqueNumbers.deleteSequence("block1");
+    }
+
+    @Test
+    public void testBlockAllocationForExistingSequence() {
+        // the sequence is created with increment 1 before the domain is switched to block allocation
+        UniqueNumbersAPI uniqueNumbersAPI = AppBeans.get(UniqueNumbersAPI.NAME);
+        Set<Long> numbers = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(numbers.add(uniqueNumbersAPI.getNextNumber("block2")));
+        }
+        long lastNumber = uniqueNumbersAPI.getCurrentNumber("block2");
+
+        // two instances simulate cluster nodes allocating blocks from the same sequence
+        UniqueNumbers node1 = createBlockUniqueNumbers(10);
+        UniqueNumbers node2 = createBlockUniqueNumbers(10);
+        for (int i = 0; i < 25; i++) {
+            long number1 = node1.getNextNumber("block2");
+            long number2 = node2.getNextNumber("block2");
+            assertTrue(number1 > lastNumber);
+            assertTrue(number2 > lastNumber);
+            assertTrue(numbers.add(number1));
+            assertTrue(numbers.add(number2));
+        }
+        assertEquals(6, node1.getAllocatedBlocksCount() + node2.getAllocatedBlocksCount());
+
+        node1.deleteSequence("block2");
+    }
+
+    private UniqueNumbers createBlockUniqueNumbers(int blockSize) {
+        return new UniqueNumbers() {
+            {
+                sequences = AppBeans.get(Sequences.NAME);
+                serverConfig = AppBeans.get(Configuration.class).getConfig(ServerConfig.class);
+                timeSource = AppBeans.get(TimeSource.NAME);
+            }
+
+            @Override
+            protected int getBlockSize(String domain) {
+                return blockSize;
+            }
+        };
+    }
+
     @Test
     public void testSequenceDeletion() throws Exception {
         UniqueNumbersAPI uniqueNumbersAPI = AppBeans.get(UniqueNumbersAPI.NAME);
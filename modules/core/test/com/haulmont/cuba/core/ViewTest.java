@@ -22,6 +22,8 @@ import com.haulmont.bali.db.QueryRunner;
 import com.haulmont.bali.db.ResultSetHandler;
 import com.haulmont.cuba.core.entity.EntitySnapshot;
 import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.core.sys.FetchGroupDescription;
+import com.haulmont.cuba.core.sys.FetchGroupManager;
 import com.haulmont.cuba.security.entity.*;
 import com.haulmont.cuba.testmodel.multiplelinks.LinkEntity;
 import com.haulmont.cuba.testmodel.multiplelinks.MultiLinkEntity;
@@ -452,11 +454,49 @@ public class ViewTest {
     @Test
     public void testViewCopy() throws Exception {
         ViewRepository viewRepository = cont.metadata().getViewRepository();
-        View view = viewRepository.getView(User.class, View.LOCAL);
+        View view = View.copy(viewRepository.getView(User.class, View.LOCAL));
         view.addProperty("group", viewRepository.getView(Group.class, View.MINIMAL));
 
         assertNotNull(view.getProperty("group"));
         assertNull(viewRepository.getView(User.class, View.LOCAL).getProperty("group"));
+
+        // views returned by the repository are shared and cannot be modified
+        try {
+            viewRepository.getView(User.class, View.LOCAL).addProperty("group");
+            fail();
+        } catch (IllegalStateException ignore) {
+        }
+    }
+
+    @Test
+    public void testFetchPlanCache() throws Exception {
+        FetchGroupManager fetchGroupManager = AppBeans.get(FetchGroupManager.NAME);
+        fetchGroupManager.invalidateFetchPlans();
+        String queryString = "select u from sec$User u where u.id = :id";
+
+        View view = cont.metadata().getViewRepository().getView(User.class, View.MINIMAL);
+        assertTrue(view.isFrozen());
+
+        long computed = fetchGroupManager.getComputedFetchPlansCount();
+        long reused = fetchGroupManager.getReusedFetchPlansCount();
+
+        FetchGroupDescription description = fetchGroupManager.calculateFetchGroup(queryString, view, false, true);
+        assertSame(description, fetchGroupManager.calculateFetchGroup(queryString, view, false, true));
+        assertEquals(computed + 1, fetchGroupManager.getComputedFetchPlansCount());
+        assertEquals(reused + 1, fetchGroupManager.getReusedFetchPlansCount());
+
+        // a modifiable view with the same structure reuses the plan
+        View copy = View.copy(view);
+        assertSame(description, fetchGroupManager.calculateFetchGroup(queryString, copy, false, true));
+
+        // a changed structure requires a new plan
+        copy.addProperty("email");
+        assertNotSame(description, fetchGroupManager.calculateFetchGroup(queryString, copy, false, true));
+        assertTrue(fetchGroupManager.calculateFetchGroup(queryString, copy, false, true).getAttributes().contains("email"));
+
+        fetchGroupManager.invalidateFetchPlans();
+        assertEquals(0, fetchGroupManager.getFetchPlansCount());
+        assertNotSame(description, fetchGroupManager.calculateFetchGroup(queryString, view, false, true));
     }
 
     @Test
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.sys.serialization.StandardSerialization;
+import com.haulmont.cuba.security.app.UserSessions.UserSessionsTouchMsg;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class ClusterMessageSerializationTest {
+
+    private ClusterMessageSerialization serialization = new ClusterMessageSerialization();
+
+    @Test
+    public void testRegisteredMessage() {
+        Map<UUID, Long> touches = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            touches.put(UUID.randomUUID(), (long) i);
+        }
+        UserSessionsTouchMsg message = new UserSessionsTouchMsg(touches);
+        assertTrue(serialization.isRegistered(message));
+
+        byte[] bytes = serialization.serialize(message);
+        assertEquals(ClusterMessageSerialization.KRYO_FORMAT, bytes[1]);
+        assertTrue(bytes.length < new StandardSerialization().serialize(message).length);
+
+        UserSessionsTouchMsg result = (UserSessionsTouchMsg) serialization.deserialize(bytes);
+        assertEquals(touches.size(), result.size());
+        int i = 0;
+        for (Map.Entry<UUID, Long> entry : touches.entrySet()) {
+            assertEquals(entry.getKey(), result.getId(i));
+            assertEquals(entry.getValue().longValue(), result.getLastUsedTs(i));
+            i++;
+        }
+    }
+
+    @Test
+    public void testJavaFallback() {
+        HashMap<String, Integer> message = new HashMap<>();
+        message.put("key", 1);
+        assertFalse(serialization.isRegistered(message));
+
+        byte[] bytes = serialization.serialize(message);
+        assertEquals(ClusterMessageSerialization.JAVA_FORMAT, bytes[1]);
+        assertEquals(message, serialization.deserialize(bytes));
+    }
+
+    @Test
+    public void testReadByNodeWithoutSetting() {
+        ClusterManager clusterManager = new ClusterManager();
+        clusterManager.clusterConfig = (ClusterConfig) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ClusterConfig.class},
+                (proxy, method, args) -> "getMessageSerialization".equals(method.getName())
+                        ? StandardSerialization.class.getName() : null);
+        clusterManager.initMessageSerialization();
+
+        UUID id = UUID.randomUUID();
+        byte[] bytes = serialization.serialize(new UserSessionsTouchMsg(Collections.singletonMap(id, 1L)));
+        assertTrue(ClusterMessageSerialization.hasHeader(bytes));
+        UserSessionsTouchMsg message = (UserSessionsTouchMsg) clusterManager.deserializeMessage(bytes);
+        assertEquals(id, message.getId(0));
+
+        HashMap<String, Integer> map = new HashMap<>();
+        map.put("key", 1);
+        assertEquals(map, clusterManager.deserializeMessage(serialization.serialize(map)));
+
+        byte[] javaBytes = new StandardSerialization().serialize(map);
+        assertFalse(ClusterMessageSerialization.hasHeader(javaBytes));
+        assertEquals(map, clusterManager.deserializeMessage(javaBytes));
+    }
+}
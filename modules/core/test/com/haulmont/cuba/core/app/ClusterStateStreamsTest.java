@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+
+public class ClusterStateStreamsTest {
+
+    @Test
+    public void testChunkedSections() throws Exception {
+        byte[] first = new byte[ClusterManager.STATE_CHUNK_SIZE * 2 + 17];
+        new Random(1).nextBytes(first);
+        byte[] second = "second".getBytes("UTF-8");
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        writeSection(out, first, false);
+        writeSection(out, second, true);
+        writeSection(out, new byte[0], false);
+        out.writeUTF("end");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+
+        ClusterManager.ChunkedInputStream chunked = new ClusterManager.ChunkedInputStream(in);
+        assertArrayEquals(first, IOUtils.toByteArray(chunked));
+        assertEquals(first.length, chunked.getSize());
+
+        InputStream section = new InflaterInputStream(new ClusterManager.ChunkedInputStream(in));
+        assertArrayEquals(second, IOUtils.toByteArray(section));
+        section.close();
+
+        chunked = new ClusterManager.ChunkedInputStream(in);
+        assertEquals(-1, chunked.read());
+
+        assertEquals("end", in.readUTF());
+    }
+
+    @Test
+    public void testUnreadDataIsSkipped() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        writeSection(out, new byte[ClusterManager.STATE_CHUNK_SIZE + 1], false);
+        out.writeUTF("end");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        ClusterManager.ChunkedInputStream chunked = new ClusterManager.ChunkedInputStream(in);
+        assertEquals(0, chunked.read());
+        chunked.close();
+
+        assertEquals("end", in.readUTF());
+    }
+
+    private void writeSection(DataOutputStream out, byte[] data, boolean compress) throws IOException {
+        ClusterManager.ChunkedOutputStream chunked = new ClusterManager.ChunkedOutputStream(out);
+        OutputStream section = compress ? new DeflaterOutputStream(chunked) : chunked;
+        section.write(data);
+        section.close();
+        section.close();
+    }
+}
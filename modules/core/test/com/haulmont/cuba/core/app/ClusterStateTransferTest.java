@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.sys.serialization.Serialization;
+import com.haulmont.cuba.core.sys.serialization.StandardSerialization;
+import com.haulmont.cuba.security.app.UserSessions.UserSessionsTouchMsg;
+import org.junit.Test;
+
+import java.io.*;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ClusterStateTransferTest {
+
+    @Test
+    public void testStateTransfer() throws Exception {
+        ClusterManager donor = createClusterManager(ClusterMessageSerialization.class.getName());
+        StateListener donorListener = new StateListener();
+        for (int i = 0; i < 1000; i++) {
+            donorListener.state.add(new UserSessionsTouchMsg(Collections.singletonMap(UUID.randomUUID(), (long) i)));
+        }
+        donor.addListener(UserSessionsTouchMsg.class, donorListener);
+
+        // the receiving node uses another serialization, but the state is decoded by the serialization of the donor
+        ClusterManager receiver = createClusterManager(StandardSerialization.class.getName());
+        StateListener receiverListener = new StateListener();
+        receiver.addListener(UserSessionsTouchMsg.class, receiverListener);
+
+        transferState(donor, receiver);
+
+        assertNull(receiver.stateReceivingError);
+        assertEquals(donorListener.state.size(), receiverListener.state.size());
+        for (int i = 0; i < donorListener.state.size(); i++) {
+            assertEquals(donorListener.state.get(i).getId(0), receiverListener.state.get(i).getId(0));
+            assertEquals(i, receiverListener.state.get(i).getLastUsedTs(0));
+        }
+        assertEquals(ClusterMessageSerialization.class, receiverListener.serialization.getClass());
+    }
+
+    @Test
+    public void testByteArrayState() throws Exception {
+        ClusterManager donor = createClusterManager(StandardSerialization.class.getName());
+        ByteArrayListener donorListener = new ByteArrayListener();
+        donorListener.state = new byte[]{1, 2, 3};
+        donor.addListener(String.class, donorListener);
+
+        ClusterManager receiver = createClusterManager(StandardSerialization.class.getName());
+        ByteArrayListener receiverListener = new ByteArrayListener();
+        receiver.addListener(String.class, receiverListener);
+
+        transferState(donor, receiver);
+
+        assertNull(receiver.stateReceivingError);
+        assertArrayEquals(donorListener.state, receiverListener.state);
+    }
+
+    @Test
+    public void testUnavailableSerialization() throws Exception {
+        ClusterManager donor = createClusterManager(StandardSerialization.class.getName());
+        donor.messageSerializationName = "com.company.sample.UnknownSerialization";
+        donor.addListener(UserSessionsTouchMsg.class, new StateListener());
+
+        ClusterManager receiver = createClusterManager(StandardSerialization.class.getName());
+        StateListener receiverListener = new StateListener();
+        receiver.addListener(UserSessionsTouchMsg.class, receiverListener);
+
+        transferState(donor, receiver);
+
+        assertTrue(receiver.stateReceivingError instanceof IllegalStateException);
+        assertNull(receiverListener.serialization);
+    }
+
+    @Test
+    public void testUnsupportedFormat() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeUTF("UNKNOWN_STATE");
+        out.writeInt(0);
+
+        ClusterManager receiver = createClusterManager(StandardSerialization.class.getName());
+        receiver.new ClusterReceiver().setState(new ByteArrayInputStream(bos.toByteArray()));
+
+        assertTrue(receiver.stateReceivingError instanceof IllegalStateException);
+    }
+
+    private void transferState(ClusterManager donor, ClusterManager receiver) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        donor.new ClusterReceiver().getState(bos);
+        receiver.new ClusterReceiver().setState(new ByteArrayInputStream(bos.toByteArray()));
+    }
+
+    private ClusterManager createClusterManager(String messageSerialization) {
+        ClusterManager clusterManager = new ClusterManager();
+        clusterManager.clusterConfig = (ClusterConfig) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ClusterConfig.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMessageSerialization":
+                            return messageSerialization;
+                        case "getStateCompression":
+                            return true;
+                        default:
+                            return null;
+                    }
+                });
+        clusterManager.initMessageSerialization();
+        return clusterManager;
+    }
+
+    private static class StateListener extends ClusterListenerAdapter<UserSessionsTouchMsg> {
+
+        private List<UserSessionsTouchMsg> state = new ArrayList<>();
+        private Serialization serialization;
+
+        @Override
+        public void receive(UserSessionsTouchMsg message) {
+        }
+
+        @Override
+        public void writeState(OutputStream output, Serialization serialization) throws IOException {
+            DataOutputStream out = new DataOutputStream(output);
+            out.writeInt(state.size());
+            for (UserSessionsTouchMsg message : state) {
+                byte[] bytes = serialization.serialize(message);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+        }
+
+        @Override
+        public void readState(InputStream input, Serialization serialization) throws IOException {
+            this.serialization = serialization;
+            DataInputStream in = new DataInputStream(input);
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                state.add((UserSessionsTouchMsg) serialization.deserialize(bytes));
+            }
+        }
+    }
+
+    private static class ByteArrayListener extends ClusterListenerAdapter<String> {
+
+        private byte[] state;
+
+        @Override
+        public void receive(String message) {
+        }
+
+        @Override
+        public byte[] getState() {
+            return state;
+        }
+
+        @Override
+        public void setState(byte[] state) {
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.filestorage;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FileStorageReplicatorTest {
+
+    private File dir;
+    private File primaryRoot;
+    private File secondaryRoot;
+    private File journalFile;
+
+    private List<File> createdReplicas = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("replicator").toFile();
+        primaryRoot = new File(dir, "primary");
+        secondaryRoot = new File(dir, "secondary");
+        FileUtils.forceMkdir(primaryRoot);
+        FileUtils.forceMkdir(secondaryRoot);
+        journalFile = new File(primaryRoot, FileStorageReplicator.JOURNAL_FILE_NAME);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void testReplicate() throws Exception {
+        File source = createSource("file1.txt");
+        File target = new File(secondaryRoot, "file1.txt");
+        TestReplicator replicator = new TestReplicator();
+
+        replicator.replicate(secondaryRoot, source, target, "admin");
+        assertEquals(1, replicator.getPendingCount());
+        assertEquals(1, readJournal().size());
+
+        replicator.runSubmitted();
+
+        assertEquals("file1.txt", FileUtils.readFileToString(target, StandardCharsets.UTF_8));
+        assertEquals(1, createdReplicas.size());
+        assertEquals(0, replicator.getPendingCount());
+        // nothing is left to replicate
+        assertTrue(readJournal().isEmpty());
+    }
+
+    @Test
+    public void testFailedReplicaIsKeptInCompactedJournal() throws Exception {
+        File source = createSource("file1.txt");
+        // the target directory cannot be created because a file with the same name exists
+        File blocker = new File(secondaryRoot, "blocker");
+        FileUtils.write(blocker, "x", StandardCharsets.UTF_8);
+        File failedTarget = new File(blocker, "file1.txt");
+        TestReplicator replicator = new TestReplicator();
+
+        replicator.replicate(secondaryRoot, source, failedTarget, "admin");
+        replicator.runSubmitted();
+        assertEquals(0, replicator.getPendingCount());
+        assertEquals(1, replicator.getFailedCount());
+
+        File target = new File(secondaryRoot, "file2.txt");
+        replicator.replicate(secondaryRoot, createSource("file2.txt"), target, "admin");
+        replicator.runSubmitted();
+        assertTrue(target.exists());
+
+        List<String> journal = readJournal();
+        assertEquals(1, journal.size());
+        assertTrue(journal.get(0).endsWith(failedTarget.getAbsolutePath()));
+    }
+
+    @Test
+    public void testJournalIsCompactedUnderLoad() throws Exception {
+        File source = createSource("file1.txt");
+        File stuckTarget = new File(secondaryRoot, "stuck.txt");
+        TestReplicator replicator = new TestReplicator();
+
+        // the replica is never copied, so the replicator always has work in progress
+        replicator.replicate(secondaryRoot, source, stuckTarget, "admin");
+        replicator.submitted.clear();
+
+        File target = new File(secondaryRoot, "file1.txt");
+        for (int i = 0; i < FileStorageReplicator.COMPACTION_THRESHOLD; i++) {
+            replicator.replicate(secondaryRoot, source, target, "admin");
+            replicator.runSubmitted();
+        }
+
+        List<String> journal = readJournal();
+        assertEquals(1, journal.size());
+        assertTrue(journal.get(0).endsWith(stuckTarget.getAbsolutePath()));
+        assertEquals(1, replicator.getPendingCount());
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        File source1 = createSource("file1.txt");
+        File source2 = createSource("file2.txt");
+        File target1 = new File(secondaryRoot, "file1.txt");
+        File target2 = new File(secondaryRoot, "file2.txt");
+
+        TestReplicator replicator = new TestReplicator();
+        replicator.replicate(secondaryRoot, source1, target1, "admin");
+        replicator.replicate(secondaryRoot, source2, target2, "admin");
+        // only the first replica is completed before the shutdown
+        replicator.runSubmitted(1);
+        replicator.shutdown();
+        FileUtils.write(journalFile, "invalid record\n", StandardCharsets.UTF_8, true);
+
+        assertTrue(target1.exists());
+        assertFalse(target2.exists());
+
+        TestReplicator restarted = new TestReplicator();
+        restarted.recover();
+        assertEquals(1, restarted.getPendingCount());
+        List<String> journal = readJournal();
+        assertEquals(1, journal.size());
+        assertTrue(journal.get(0).endsWith(target2.getAbsolutePath()));
+
+        restarted.runSubmitted();
+
+        assertEquals("file2.txt", FileUtils.readFileToString(target2, StandardCharsets.UTF_8));
+        assertEquals(0, restarted.getPendingCount());
+        assertTrue(readJournal().isEmpty());
+    }
+
+    @Test
+    public void testCopyAfterShutdown() throws Exception {
+        File source = createSource("file1.txt");
+        File target = new File(secondaryRoot, "file1.txt");
+        TestReplicator replicator = new TestReplicator();
+
+        replicator.replicate(secondaryRoot, source, target, "admin");
+        replicator.shutdown();
+        // copying started before the shutdown finishes after it
+        replicator.runSubmitted();
+
+        assertTrue(target.exists());
+        assertNull(replicator.journalWriter);
+        // the replica is not recorded as completed, so it is copied again on the next start
+        assertEquals(1, readJournal().size());
+
+        File target2 = new File(secondaryRoot, "file2.txt");
+        replicator.replicate(secondaryRoot, createSource("file2.txt"), target2, "admin");
+
+        assertNull(replicator.journalWriter);
+        assertEquals(2, readJournal().size());
+
+        TestReplicator restarted = new TestReplicator();
+        restarted.recover();
+        assertEquals(2, restarted.getPendingCount());
+    }
+
+    private File createSource(String name) throws Exception {
+        File file = new File(primaryRoot, name);
+        FileUtils.write(file, name, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private List<String> readJournal() throws Exception {
+        return journalFile.exists()
+                ? FileUtils.readLines(journalFile, StandardCharsets.UTF_8)
+                : new ArrayList<>();
+    }
+
+    private class TestReplicator extends FileStorageReplicator {
+
+        private List<Replica> submitted = new ArrayList<>();
+
+        TestReplicator() {
+            super(primaryRoot, 1, 1, (file, user) -> createdReplicas.add(file));
+        }
+
+        @Override
+        protected void submit(Replica replica) {
+            if (!stopped) {
+                submitted.add(replica);
+            }
+        }
+
+        void runSubmitted() {
+            runSubmitted(submitted.size());
+        }
+
+        void runSubmitted(int count) {
+            for (int i = 0; i < count; i++) {
+                copy(submitted.remove(0));
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.haulmont.cuba.core.global;
 
 import com.haulmont.cuba.core.sys.AbstractViewRepository;
+import com.haulmont.cuba.security.entity.LoggedEntity;
 import com.haulmont.cuba.security.entity.User;
 import com.haulmont.cuba.testsupport.TestContainer;
 import org.junit.Before;
@@ -26,9 +27,7 @@ import org.junit.Test;
 import java.io.InputStream;
 import java.util.Collection;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertNull;
+import static org.junit.Assert.*;
 
 public class ViewRepositoryTest {
 
@@ -114,4 +113,57 @@ public class ViewRepositoryTest {
 
         assertNotNull(groupView.getProperty("constraints").getView());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSharedViews() {
+        View view = repository.getView(User.class, "test");
+        assertTrue(view.isFrozen());
+        assertSame(view, repository.getView(User.class, "test"));
+
+        View userRolesView = view.getProperty("userRoles").getView();
+        assertTrue(userRolesView.isFrozen());
+
+        try {
+            view.addProperty("email");
+            fail();
+        } catch (IllegalStateException ignore) {
+        }
+        try {
+            userRolesView.setLoadPartialEntities(true);
+            fail();
+        } catch (IllegalStateException ignore) {
+        }
+
+        View copy = View.copy(view);
+        assertFalse(copy.isFrozen());
+        copy.addProperty("email");
+        copy.getProperty("userRoles").getView().addProperty("user");
+        assertNull(repository.getView(User.class, "test").getProperty("email"));
+        assertNull(userRolesView.getProperty("user"));
+
+        View extended = new View(view, "extended", false);
+        assertFalse(extended.isFrozen());
+        extended.addProperty("email");
+        assertNull(view.getProperty("email"));
+
+        // nested views of a view created from a frozen one are modifiable copies
+        View extendedUserRolesView = extended.getProperty("userRoles").getView();
+        assertFalse(extendedUserRolesView.isFrozen());
+        assertNotSame(userRolesView, extendedUserRolesView);
+        extendedUserRolesView.addProperty("user");
+        assertNull(userRolesView.getProperty("user"));
+    }
+
+    @Test
+    public void testSharedViewsAreKeptOnDefaultViewDeployment() {
+        View view = repository.getView(User.class, "test");
+
+        // default views are deployed on the first lookup
+        assertNotNull(repository.getView(LoggedEntity.class, View.BASE));
+        assertSame(view, repository.getView(User.class, "test"));
+
+        InputStream stream = ViewRepositoryTest.class.getResourceAsStream("test.view.xml");
+        ((AbstractViewRepository) repository).deployViews(stream);
+        assertNotSame(view, repository.getView(User.class, "test"));
+    }
+}
@@ -18,7 +18,9 @@
 package com.haulmont.cuba.core.sys;
 
 import com.haulmont.cuba.core.entity.BaseEntityInternalAccess;
+import com.haulmont.cuba.core.entity.SecurityState;
 import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.security.entity.Group;
 import com.haulmont.cuba.security.entity.User;
 import com.haulmont.cuba.testsupport.TestContainer;
 import org.junit.Assert;
@@ -26,6 +28,10 @@ import org.junit.ClassRule;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import javax.crypto.Cipher;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -58,4 +64,85 @@ public class SecurityTokenManagerTest {
         Assert.assertEquals(id3, userRoles.get(2));
         Assert.assertEquals(id4, userRoles.get(3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testJsonSecurityToken() throws Exception {
+        SecurityTokenManager securityTokenManager = AppBeans.get(SecurityTokenManager.class);
+        User user = new User();
+        UUID id = UUID.randomUUID();
+
+        String json = "{\"userRoles\":[\"" + id + "\"],\"__readonlyAttributes\":[\"login\"]," +
+                "\"__entityName\":\"sec$User\",\"__entityId\":\"" + user.getId() + "\"}";
+        byte[] token = securityTokenManager.doFinal(Cipher.ENCRYPT_MODE, json.getBytes(StandardCharsets.UTF_8));
+        SecurityState securityState = BaseEntityInternalAccess.getOrCreateSecurityState(user);
+        BaseEntityInternalAccess.setSecurityToken(securityState, token);
+
+        securityTokenManager.readSecurityToken(user);
+
+        Assert.assertEquals(id, BaseEntityInternalAccess.getFilteredData(user).get("userRoles").iterator().next());
+        Assert.assertTrue(securityState.getReadonlyAttributes().contains("login"));
+    }
+
+    @Test
+    public void testBinarySecurityToken() throws Exception {
+        SecurityTokenManager securityTokenManager = AppBeans.get(SecurityTokenManager.class);
+        User user = new User();
+        UUID uuidId = UUID.randomUUID();
+        Long longId = Integer.MAX_VALUE + 10L;
+        Integer integerId = 42;
+        String stringId = "code";
+        securityTokenManager.addFiltered(user, "userRoles", Arrays.asList(uuidId, longId, integerId, stringId));
+
+        SecurityState securityState = BaseEntityInternalAccess.getOrCreateSecurityState(user);
+        BaseEntityInternalAccess.setReadonlyAttributes(securityState, new String[]{"login"});
+        BaseEntityInternalAccess.setHiddenAttributes(securityState, new String[]{"password", "loginLowerCase"});
+        BaseEntityInternalAccess.setRequiredAttributes(securityState, new String[]{"name"});
+
+        securityTokenManager.writeSecurityTokens(Collections.singletonList(user));
+
+        User copy = new User();
+        copy.setId(user.getId());
+        SecurityState copyState = BaseEntityInternalAccess.getOrCreateSecurityState(copy);
+        BaseEntityInternalAccess.setSecurityToken(copyState, BaseEntityInternalAccess.getSecurityToken(user));
+
+        securityTokenManager.readSecurityToken(copy);
+
+        List<Object> userRoles = (List<Object>) BaseEntityInternalAccess.getFilteredData(copy).get("userRoles");
+        Assert.assertEquals(Arrays.asList(uuidId, longId, integerId, stringId), userRoles);
+        Assert.assertEquals(Long.class, userRoles.get(1).getClass());
+        Assert.assertEquals(Integer.class, userRoles.get(2).getClass());
+
+        Assert.assertEquals(Collections.singletonList("login"), copyState.getReadonlyAttributes());
+        Assert.assertEquals(Arrays.asList("password", "loginLowerCase"), copyState.getHiddenAttributes());
+        Assert.assertEquals(Collections.singletonList("name"), copyState.getRequiredAttributes());
+    }
+
+    @Test(expected = SecurityTokenException.class)
+    public void testSecurityTokenOfAnotherInstance() throws Exception {
+        SecurityTokenManager securityTokenManager = AppBeans.get(SecurityTokenManager.class);
+        User user = new User();
+        securityTokenManager.addFiltered(user, "userRoles", UUID.randomUUID());
+        securityTokenManager.writeSecurityToken(user);
+
+        User anotherUser = new User();
+        SecurityState securityState = BaseEntityInternalAccess.getOrCreateSecurityState(anotherUser);
+        BaseEntityInternalAccess.setSecurityToken(securityState, BaseEntityInternalAccess.getSecurityToken(user));
+
+        securityTokenManager.readSecurityToken(anotherUser);
+    }
+
+    @Test(expected = SecurityTokenException.class)
+    public void testSecurityTokenOfAnotherEntity() throws Exception {
+        SecurityTokenManager securityTokenManager = AppBeans.get(SecurityTokenManager.class);
+        User user = new User();
+        securityTokenManager.addFiltered(user, "userRoles", UUID.randomUUID());
+        securityTokenManager.writeSecurityToken(user);
+
+        Group group = new Group();
+        group.setId(user.getId());
+        SecurityState securityState = BaseEntityInternalAccess.getOrCreateSecurityState(group);
+        BaseEntityInternalAccess.setSecurityToken(securityState, BaseEntityInternalAccess.getSecurityToken(user));
+
+        securityTokenManager.readSecurityToken(group);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.sys.entitycache;
+
+import com.google.common.collect.Sets;
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueryCacheManagerTest {
+
+    private QueryCacheManager manager;
+    private List<Serializable> sentMessages = new CopyOnWriteArrayList<>();
+
+    private void createManager(int invalidationWindow) {
+        manager = new QueryCacheManager();
+        manager.queryCacheConfig = new TestQueryCacheConfig(invalidationWindow);
+        manager.clusterManager = (ClusterManagerAPI) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ClusterManagerAPI.class},
+                (proxy, method, args) -> {
+                    if ("send".equals(method.getName())) {
+                        sentMessages.add((Serializable) args[0]);
+                    }
+                    return null;
+                });
+        manager.init();
+    }
+
+    @After
+    public void tearDown() {
+        manager.invalidationSender.shutdownNow();
+    }
+
+    @Test
+    public void testInvalidationsAreMerged() throws Exception {
+        createManager(200);
+
+        manager.sendInvalidation(Collections.singleton("sec$User"));
+        manager.sendInvalidation(Sets.newHashSet("sec$User", "sec$Group"));
+        assertTrue(sentMessages.isEmpty());
+
+        waitForMessages(1);
+        assertEquals(1, sentMessages.size());
+        assertEquals(Sets.newHashSet("sec$User", "sec$Group"), typeNames(0));
+        assertEquals(2, manager.getRequestedInvalidationsCount());
+        assertEquals(1, manager.getSentInvalidationsCount());
+
+        manager.sendInvalidation(Collections.singleton("sec$Role"));
+        waitForMessages(2);
+        assertEquals(Collections.singleton("sec$Role"), typeNames(1));
+    }
+
+    @Test
+    public void testInvalidationsAreNotMergedWithoutWindow() {
+        createManager(0);
+
+        manager.sendInvalidation(Collections.singleton("sec$User"));
+        manager.sendInvalidation(Collections.singleton("sec$Group"));
+
+        assertEquals(2, sentMessages.size());
+        assertEquals(2, manager.getSentInvalidationsCount());
+    }
+
+    @Test
+    public void testPendingInvalidationsAreSentOnStop() {
+        createManager(60_000);
+
+        manager.sendInvalidation(Collections.singleton("sec$User"));
+        assertTrue(sentMessages.isEmpty());
+
+        manager.applicationStopped();
+
+        assertEquals(1, sentMessages.size());
+        assertEquals(Collections.singleton("sec$User"), typeNames(0));
+
+        // invalidations requested after stop are sent immediately
+        manager.sendInvalidation(Collections.singleton("sec$Group"));
+        assertEquals(2, sentMessages.size());
+    }
+
+    private void waitForMessages(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sentMessages.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Object typeNames(int index) {
+        return ((QueryCacheManager.InvalidateQueryCacheMsg) sentMessages.get(index)).typeNames;
+    }
+
+    private static class TestQueryCacheConfig implements QueryCacheConfig {
+
+        private final int invalidationWindow;
+
+        TestQueryCacheConfig(int invalidationWindow) {
+            this.invalidationWindow = invalidationWindow;
+        }
+
+        @Override
+        public boolean getQueryCacheEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getQueryCacheMaxSize() {
+            return 100;
+        }
+
+        @Override
+        public long getQueryCacheMaxWeight() {
+            return 0;
+        }
+
+        @Override
+        public int getQueryCacheExpirationTime() {
+            return 0;
+        }
+
+        @Override
+        public int getQueryCacheInvalidationWindow() {
+            return invalidationWindow;
+        }
+    }
+}
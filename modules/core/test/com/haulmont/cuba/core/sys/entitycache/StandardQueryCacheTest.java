@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.sys.entitycache;
+
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StandardQueryCacheTest {
+
+    private StandardQueryCache queryCache;
+
+    @Before
+    public void setUp() throws Exception {
+        queryCache = new StandardQueryCache();
+        queryCache.queryCacheConfig = new TestQueryCacheConfig(2, 0);
+        queryCache.init();
+    }
+
+    @Test
+    public void testIndexesAreCleanedOnEviction() {
+        QueryKey key1 = createKey("select u from sec$User u");
+        QueryKey key2 = createKey("select g from sec$Group g");
+        QueryKey key3 = createKey("select r from sec$Role r");
+
+        queryCache.put(key1, createResult("sec$User", 1));
+        queryCache.put(key2, createResult("sec$Group", 1));
+        queryCache.put(key3, createResult("sec$Role", 1));
+        queryCache.data.cleanUp();
+
+        assertEquals(2, queryCache.size());
+        assertNull(queryCache.findQueryKeyById(key1.getId()));
+        assertSame(key3, queryCache.findQueryKeyById(key3.getId()));
+        assertFalse(queryCache.typeIndex.containsKey("sec$User"));
+        assertEquals(2, queryCache.idIndex.size());
+        assertEquals(1, queryCache.getStatistics().get("sec$User").getEvictionCount());
+    }
+
+    @Test
+    public void testInvalidateByType() {
+        QueryKey key1 = createKey("select u from sec$User u");
+        QueryKey key2 = createKey("select u from sec$User u where u.active = true");
+
+        queryCache.put(key1, createResult("sec$User", 3));
+        queryCache.put(key2, createResult("sec$User", 1));
+        assertNotNull(queryCache.get(key1));
+
+        queryCache.invalidate("sec$User");
+
+        assertEquals(0, queryCache.size());
+        assertTrue(queryCache.typeIndex.isEmpty());
+        assertTrue(queryCache.idIndex.isEmpty());
+
+        QueryCacheStats stats = queryCache.getStatistics().get("sec$User");
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getInvalidationCount());
+    }
+
+    @Test
+    public void testInvalidateById() {
+        QueryKey key = createKey("select u from sec$User u");
+        queryCache.put(key, createResult("sec$User", 1));
+
+        assertSame(key, queryCache.invalidate(key.getId()));
+        assertNull(queryCache.get(key));
+        assertNull(queryCache.findQueryKeyById(key.getId()));
+    }
+
+    @Test
+    public void testReplaceResult() {
+        QueryKey key = createKey("select u from sec$User u");
+        queryCache.put(key, new QueryResult(Collections.singletonList(1), "sec$User",
+                Sets.newHashSet("sec$User", "sec$Group")));
+        queryCache.put(key, new QueryResult(Collections.singletonList(1), "sec$User",
+                Sets.newHashSet("sec$User", "sec$Role")));
+        queryCache.data.cleanUp();
+
+        assertEquals(1, queryCache.size());
+        assertSame(key, queryCache.findQueryKeyById(key.getId()));
+        assertTrue(queryCache.typeIndex.get("sec$User").contains(key));
+        assertTrue(queryCache.typeIndex.get("sec$Role").contains(key));
+        assertFalse(queryCache.typeIndex.containsKey("sec$Group"));
+
+        QueryCacheStats stats = queryCache.getStatistics().get("sec$User");
+        assertEquals(2, stats.getMissCount());
+        assertEquals(0, stats.getInvalidationCount());
+    }
+
+    @Test
+    public void testWeightLimit() {
+        queryCache = new StandardQueryCache();
+        queryCache.queryCacheConfig = new TestQueryCacheConfig(100, 10);
+        queryCache.init();
+
+        QueryKey key1 = createKey("select u from sec$User u");
+        QueryKey key2 = createKey("select u from sec$User u where u.active = true");
+
+        queryCache.put(key1, createResult("sec$User", 8));
+        queryCache.put(key2, createResult("sec$User", 8));
+        queryCache.data.cleanUp();
+
+        assertEquals(1, queryCache.size());
+        assertNotNull(queryCache.get(key2));
+    }
+
+    private QueryKey createKey(String queryString) {
+        return new QueryKey(queryString, 0, 0, true, false, null, null);
+    }
+
+    private QueryResult createResult(String type, int size) {
+        List<Integer> ids = Collections.nCopies(size, 1);
+        return new QueryResult(ids, type, Sets.newHashSet(type));
+    }
+
+    private static class TestQueryCacheConfig implements QueryCacheConfig {
+
+        private final int maxSize;
+        private final long maxWeight;
+
+        TestQueryCacheConfig(int maxSize, long maxWeight) {
+            this.maxSize = maxSize;
+            this.maxWeight = maxWeight;
+        }
+
+        @Override
+        public boolean getQueryCacheEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getQueryCacheMaxSize() {
+            return maxSize;
+        }
+
+        @Override
+        public long getQueryCacheMaxWeight() {
+            return maxWeight;
+        }
+
+        @Override
+        public int getQueryCacheExpirationTime() {
+            return 0;
+        }
+
+        @Override
+        public int getQueryCacheInvalidationWindow() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.sys.jpql;
+
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.QueryParser;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QueryTransformationCacheTest {
+
+    @ClassRule
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private QueryTransformationCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = AppBeans.get(QueryTransformationCache.NAME);
+        cache.invalidateAll();
+    }
+
+    @Test
+    public void testParserIsReused() {
+        String query = "select u from sec$User u where u.login = :login";
+
+        QueryParser parser = cache.parser(query);
+        long hits = cache.getParserStats().hitCount();
+
+        assertSame(parser, cache.parser(query));
+        assertEquals(hits + 1, cache.getParserStats().hitCount());
+        assertEquals("sec$User", parser.getEntityName());
+        assertTrue(parser.getParamNames().contains("login"));
+    }
+
+    @Test
+    public void testTransformationIsReused() {
+        String query = "select u from sec$User u where u.group.id = :groupId order by u.name";
+
+        String countQuery = cache.replaceWithCount(query);
+        long hits = cache.getTransformationStats().hitCount();
+
+        assertEquals(countQuery, cache.replaceWithCount(query));
+        assertEquals(hits + 1, cache.getTransformationStats().hitCount());
+        assertTrue(countQuery.startsWith("select count(u)"));
+
+        String idQuery = cache.replaceWithSelectId(query, "id");
+        assertNotEquals(countQuery, idQuery);
+        assertFalse(idQuery.contains("order by"));
+    }
+
+    @Test
+    public void testRemoveDistinct() {
+        assertNull(cache.removeDistinct("select u from sec$User u"));
+        assertNull(cache.removeDistinct("select u from sec$User u"));
+
+        String query = "select distinct u from sec$User u";
+        String result = cache.removeDistinct(query);
+        assertEquals("select u from sec$User u", result);
+        assertEquals(result, cache.removeDistinct(query));
+    }
+
+    @Test
+    public void testAddedParamsAreCached() {
+        String query = "select u from sec$User u";
+        String transformation = "constraints\0\0{E}.login = :session$userLogin";
+
+        QueryTransformationCache.TransformationResult result = cache.transformWithParams(query, transformation,
+                transformer -> transformer.addWhere("{E}.login = :session$userLogin"));
+        long hits = cache.getTransformationStats().hitCount();
+
+        QueryTransformationCache.TransformationResult cached = cache.transformWithParams(query, transformation,
+                transformer -> fail());
+        assertEquals(hits + 1, cache.getTransformationStats().hitCount());
+        assertEquals(result.getQuery(), cached.getQuery());
+        assertTrue(cached.getQuery().contains("u.login = :session$userLogin"));
+        assertTrue(cached.getAddedParams().contains("session$userLogin"));
+    }
+}
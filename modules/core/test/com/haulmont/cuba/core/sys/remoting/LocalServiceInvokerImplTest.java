@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class LocalServiceInvokerImplTest {
+
+    @ClassRule
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private TestServiceBean service;
+    private LocalServiceInvokerImpl invoker;
+
+    @Before
+    public void setUp() throws Exception {
+        service = new TestServiceBean();
+        invoker = new LocalServiceInvokerImpl(service);
+    }
+
+    @Test
+    public void testDispatchTable() throws Exception {
+        assertEquals("string:a", invokeSerialized("describe", String.class, "a"));
+        assertEquals("integer:1", invokeSerialized("describe", Integer.class, 1));
+        assertEquals("string:b", invokeSerialized("describe", String.class, "b"));
+        assertEquals("integer:2", invokeSerialized("describe", Integer.class, 2));
+
+        // overloaded methods are resolved once per parameter types
+        assertEquals(2, invoker.dispatchTable.size());
+    }
+
+    @Test
+    public void testSerializedInvocation() throws Exception {
+        List<String> argument = new ArrayList<>(Arrays.asList("a", "b"));
+
+        Object result = invokeSerialized("addItem", List.class, argument);
+
+        assertEquals(Arrays.asList("a", "b", "c"), result);
+        assertNotSame(service.lastArgument, argument);
+        assertEquals(Arrays.asList("a", "b"), argument);
+    }
+
+    @Test
+    public void testInvocationByReference() throws Exception {
+        List<String> argument = new ArrayList<>(Arrays.asList("a", "b"));
+
+        LocalServiceInvocation invocation = new LocalServiceInvocation("addItem",
+                new String[]{List.class.getName()}, new byte[1][],
+                new Object[]{LocalServiceInvocationCopier.copy(argument)}, null);
+        invocation.setPassByReference(true);
+
+        LocalServiceInvocationResult result = invoker.invoke(invocation);
+
+        assertNull(result.getException());
+        assertNull(result.getData());
+        assertEquals(Arrays.asList("a", "b", "c"), result.getNotSerializableData());
+        // neither the argument nor the result is shared with the service
+        assertNotSame(service.lastArgument, argument);
+        assertNotSame(service.lastResult, result.getNotSerializableData());
+        assertEquals(Arrays.asList("a", "b"), argument);
+    }
+
+    @Test
+    public void testException() throws Exception {
+        LocalServiceInvocation invocation = new LocalServiceInvocation("fail",
+                new String[0], null, null, null);
+
+        LocalServiceInvocationResult result = invoker.invoke(invocation);
+
+        Object exception = SerializationSupport.deserialize(result.getException());
+        assertTrue(exception instanceof IllegalStateException);
+        assertEquals("test failure", ((IllegalStateException) exception).getMessage());
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        invokeSerialized("describe", String.class, "a");
+        invokeSerialized("describe", String.class, "b");
+        invokeSerialized("describe", Integer.class, 1);
+        invoker.invoke(new LocalServiceInvocation("fail", new String[0], null, null, null));
+
+        List<LocalServiceInvokerImpl.InvocationStats> statistics = invoker.getStatistics();
+        assertEquals(3, statistics.size());
+
+        assertEquals("describe(java.lang.Integer)", statistics.get(0).getMethod());
+        assertEquals(1, statistics.get(0).getInvocationCount());
+
+        assertEquals("describe(java.lang.String)", statistics.get(1).getMethod());
+        assertEquals(2, statistics.get(1).getInvocationCount());
+        assertTrue(statistics.get(1).getTotalTimeNanos() > 0);
+
+        // failed invocations are counted too
+        assertEquals("fail()", statistics.get(2).getMethod());
+        assertEquals(1, statistics.get(2).getInvocationCount());
+    }
+
+    @Test
+    public void testPassByReferenceSupported() throws Exception {
+        assertTrue(invoker.isPassByReferenceSupported(TestService.class));
+        assertFalse(invoker.isPassByReferenceSupported(Runnable.class));
+    }
+
+    @Test
+    public void testCopier() throws Exception {
+        String string = "a";
+        BigDecimal decimal = new BigDecimal("1.5");
+        UUID uuid = UUID.randomUUID();
+        assertSame(string, LocalServiceInvocationCopier.copy(string));
+        assertSame(decimal, LocalServiceInvocationCopier.copy(decimal));
+        assertSame(uuid, LocalServiceInvocationCopier.copy(uuid));
+        assertNull(LocalServiceInvocationCopier.copy(null));
+
+        List<List<String>> list = new ArrayList<>();
+        list.add(new ArrayList<>(Collections.singletonList("a")));
+        @SuppressWarnings("unchecked")
+        List<List<String>> copy = (List<List<String>>) LocalServiceInvocationCopier.copy(list);
+        assertEquals(list, copy);
+        assertNotSame(list, copy);
+        assertNotSame(list.get(0), copy.get(0));
+    }
+
+    private Object invokeSerialized(String methodName, Class<?> parameterType, Object argument) {
+        LocalServiceInvocation invocation = new LocalServiceInvocation(methodName,
+                new String[]{parameterType.getName()},
+                new byte[][]{SerializationSupport.serialize(argument)}, new Object[1], null);
+
+        LocalServiceInvocationResult result = invoker.invoke(invocation);
+
+        assertNull(result.getException());
+        assertNull(result.getNotSerializableData());
+        return SerializationSupport.deserialize(result.getData());
+    }
+
+    public interface TestService {
+
+        String describe(String value);
+
+        String describe(Integer value);
+
+        List<String> addItem(List<String> items);
+
+        void fail();
+    }
+
+    public static class TestServiceBean implements TestService {
+
+        private List<String> lastArgument;
+        private List<String> lastResult;
+
+        @Override
+        public String describe(String value) {
+            return "string:" + value;
+        }
+
+        @Override
+        public String describe(Integer value) {
+            return "integer:" + value;
+        }
+
+        @Override
+        public List<String> addItem(List<String> items) {
+            lastArgument = items;
+            lastResult = new ArrayList<>(items);
+            lastResult.add("c");
+            return lastResult;
+        }
+
+        @Override
+        public void fail() {
+            throw new IllegalStateException("test failure");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.security.app;
+
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.global.TimeSource;
+import com.haulmont.cuba.security.app.UserSessions.UserSessionInfo;
+import com.haulmont.cuba.security.app.UserSessions.UserSessionsRequestMsg;
+import com.haulmont.cuba.security.app.UserSessions.UserSessionsTouchMsg;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.security.global.UserSession;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class UserSessionsTest {
+
+    private long now = 1_000_000L;
+
+    private UserSessions node1;
+    private UserSessions node2;
+    private List<Serializable> sentByNode1 = new ArrayList<>();
+    private List<Serializable> sentByNode2 = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        node1 = createNode(sentByNode1);
+        node2 = createNode(sentByNode2);
+    }
+
+    @Test
+    public void testUnknownSessionIsRequestedOnTouch() {
+        UserSession session = new UserSession(UUID.randomUUID(), new User(), Collections.emptyList(), Locale.ENGLISH, false);
+        node1.putSessionInfo(session.getId(), new UserSessionInfo(session, now));
+
+        // node2 has missed the session creation and receives a touch
+        now += 5000;
+        node2.receiveTouchMessage(new UserSessionsTouchMsg(Collections.singletonMap(session.getId(), now)));
+
+        assertNull(node2.getSessionInfo(session.getId()));
+        assertEquals(1, sentByNode2.size());
+        UserSessionsRequestMsg request = (UserSessionsRequestMsg) sentByNode2.get(0);
+        assertEquals(Collections.singletonList(session.getId()), request.getIds());
+
+        // repeated touches do not flood the cluster with requests
+        node2.receiveTouchMessage(new UserSessionsTouchMsg(Collections.singletonMap(session.getId(), now)));
+        assertEquals(1, sentByNode2.size());
+
+        // node1 answers with the whole session, which heals node2
+        node1.receiveRequestMessage(request);
+        assertEquals(1, sentByNode1.size());
+        node2.receiveClusterMessage((UserSessionInfo) sentByNode1.get(0));
+        assertNotNull(node2.getSessionInfo(session.getId()));
+
+        // subsequent touches update the last usage time
+        now += 5000;
+        node2.receiveTouchMessage(new UserSessionsTouchMsg(Collections.singletonMap(session.getId(), now)));
+        assertEquals(now, node2.getSessionInfo(session.getId()).lastUsedTs);
+        assertEquals(1, sentByNode2.size());
+    }
+
+    @Test
+    public void testRequestForUnknownSessionIsIgnored() {
+        node1.receiveRequestMessage(new UserSessionsRequestMsg(Collections.singletonList(UUID.randomUUID())));
+        assertTrue(sentByNode1.isEmpty());
+    }
+
+    private UserSessions createNode(List<Serializable> sentMessages) {
+        UserSessions userSessions = new UserSessions();
+        userSessions.timeSource = (TimeSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{TimeSource.class},
+                (proxy, method, args) -> "currentTimeMillis".equals(method.getName()) ? now : null);
+        userSessions.setClusterManager((ClusterManagerAPI) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ClusterManagerAPI.class},
+                (proxy, method, args) -> {
+                    if ("send".equals(method.getName())) {
+                        sentMessages.add((Serializable) args[0]);
+                    }
+                    return null;
+                }));
+        return userSessions;
+    }
+}
@@ -17,7 +17,9 @@
 package spec.cuba.core.config
 
 import com.haulmont.cuba.core.global.AppBeans
+import com.haulmont.cuba.core.app.ConfigStorageAPI
 import com.haulmont.cuba.core.global.Configuration
+import com.haulmont.cuba.core.sys.AppContext
 import com.haulmont.cuba.testsupport.TestContainer
 import org.junit.ClassRule
 import spock.lang.Shared
@@ -59,4 +61,44 @@ class ConfigInterfaceTest extends Specification {
 
         config.setFoo(null)
     }
+
+    def "cached property values are refreshed when properties change"() {
+
+        def config = configuration.getConfig(TestConfig)
+
+        expect:
+
+        config.getBar() == 'bar-value'
+        config.getFoo() == null
+
+        when: "app property is changed at runtime"
+
+        AppContext.setProperty('test.bar', 'bar-changed')
+
+        then:
+
+        config.getBar() == 'bar-changed'
+
+        when: "DB property is changed through the setter"
+
+        config.setFoo('foo-value')
+
+        then:
+
+        config.getFoo() == 'foo-value'
+
+        when: "DB property is changed bypassing the config interface"
+
+        AppBeans.get(ConfigStorageAPI).setDbProperty('test.foo', 'foo-changed')
+
+        then:
+
+        config.getFoo() == 'foo-changed'
+        configuration.getConfig(TestConfig).getFoo() == 'foo-changed'
+
+        cleanup:
+
+        AppContext.setProperty('test.bar', null)
+        config.setFoo(null)
+    }
 }
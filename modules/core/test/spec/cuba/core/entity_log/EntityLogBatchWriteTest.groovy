@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package spec.cuba.core.entity_log
+
+import com.haulmont.cuba.core.EntityManager
+import com.haulmont.cuba.core.sys.AppContext
+import com.haulmont.cuba.security.app.EntityLog
+import com.haulmont.cuba.security.entity.EntityLogItem
+import com.haulmont.cuba.security.entity.User
+
+class EntityLogBatchWriteTest extends AbstractEntityLogTest {
+
+    private List<UUID> userIds = []
+
+    void setup() {
+        clearTables("SEC_LOGGED_ATTR", "SEC_LOGGED_ENTITY")
+
+        withTransaction { EntityManager em ->
+            clearTable(em, "SEC_ENTITY_LOG")
+            saveEntityLogAutoConfFor(em, 'sec$User', 'name', 'email')
+        }
+
+        AppContext.setProperty('cuba.entityLog.batchInsert', 'true')
+        AppContext.setProperty('cuba.entityLog.batchSize', '2')
+
+        initEntityLogAPI()
+    }
+
+    void cleanup() {
+        AppContext.setProperty('cuba.entityLog.batchInsert', null)
+        AppContext.setProperty('cuba.entityLog.batchSize', null)
+        AppContext.setProperty('cuba.entityLog.asyncWrite', null)
+
+        clearTables("SEC_LOGGED_ATTR", "SEC_LOGGED_ENTITY")
+        userIds.each { cont.deleteRecord("SEC_USER", it) }
+    }
+
+    def "items are inserted by batches"() {
+
+        when: 'more users than the batch size are created in one transaction'
+
+        withTransaction { EntityManager em ->
+            5.times { userIds << createAndSaveUser(em, [login: "batch$it", name: "name$it"]) }
+        }
+
+        then: 'an item is written for every user'
+
+        userIds.every { id ->
+            def items = getEntityLogItems('sec$User', id)
+            items.size() == 1 && items[0].type == EntityLogItem.Type.CREATE
+        }
+    }
+
+    def "changes of one entity flushed in the middle of a transaction are written as one item"() {
+
+        given:
+
+        withTransaction { EntityManager em ->
+            userIds << createAndSaveUser(em, [login: 'flush', name: 'name1', email: 'email1'])
+        }
+
+        when: 'the entity is changed before and after a flush'
+
+        withTransaction { EntityManager em ->
+            def user = em.find(User, userIds[0])
+            user.setEmail('email2')
+            em.flush()
+            user.setName('name2')
+        }
+
+        then:
+
+        def items = getEntityLogItems('sec$User', userIds[0])
+        items.size() == 2
+
+        def item = items.find { it.type == EntityLogItem.Type.MODIFY }
+        loggedValueMatches(item, 'email', 'email2')
+        loggedOldValueMatches(item, 'email', 'email1')
+        loggedValueMatches(item, 'name', 'name2')
+    }
+
+    def "items are written by the background thread after commit"() {
+
+        given:
+
+        AppContext.setProperty('cuba.entityLog.asyncWrite', 'true')
+
+        when:
+
+        withTransaction { EntityManager em ->
+            3.times { userIds << createAndSaveUser(em, [login: "async$it", name: "name$it"]) }
+        }
+
+        then: 'all items are eventually written'
+
+        waitForItems(userIds)
+    }
+
+    def "items of a failed batch are written one by one"() {
+
+        given: 'a batch containing the same item twice fails on the primary key'
+
+        def userId = cont.persistence().callInTransaction { EntityManager em ->
+            userIds << createAndSaveUser(em, [login: 'fallback', name: 'name'])
+            userIds.last()
+        }
+        withTransaction { EntityManager em ->
+            clearTable(em, "SEC_ENTITY_LOG")
+        }
+
+        def item = cont.metadata().create(EntityLogItem)
+        item.type = EntityLogItem.Type.CREATE
+        item.entity = 'sec$User'
+        item.objectEntityId = userId
+        item.eventTs = new Date()
+        item.createTs = new Date()
+        item.changes = ''
+
+        when:
+
+        ((EntityLog) entityLog).writeItemsWithFallback([item, item])
+
+        then: 'the item is not lost'
+
+        getEntityLogItems('sec$User', userId).size() == 1
+    }
+
+    protected boolean waitForItems(List<UUID> ids) {
+        long deadline = System.currentTimeMillis() + 10000
+        while (System.currentTimeMillis() < deadline) {
+            if (ids.every { getEntityLogItems('sec$User', it).size() == 1 }) {
+                return true
+            }
+            Thread.sleep(100)
+        }
+        return false
+    }
+
+    protected UUID createAndSaveUser(EntityManager em, Map params) {
+        User user = cont.metadata().create(User)
+        params.each { k, v ->
+            user[k] = v
+        }
+        user.setGroup(findCompanyGroup())
+        em.persist(user)
+        user.getId()
+    }
+}
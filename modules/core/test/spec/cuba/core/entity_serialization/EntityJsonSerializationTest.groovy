@@ -6,6 +6,7 @@
 package spec.cuba.core.entity_serialization
 
 import com.haulmont.cuba.core.app.serialization.EntitySerializationAPI
+import com.haulmont.cuba.core.app.serialization.EntitySerializationOption
 import com.haulmont.cuba.core.global.AppBeans
 import com.haulmont.cuba.testmodel.entity_serialization.Serialization_Order
 import com.haulmont.cuba.testmodel.entity_serialization.Serialization_OrderItem
@@ -59,4 +60,34 @@ class EntityJsonSerializationTest extends Specification {
         item2.relatedItem.order.id == parsedObject.id
         item2.relatedItem.order.name == null //order name should NOT exist, it is a cyclic reference
     }
+
+    def "collection written to a writer is the same as serialized to a string"() {
+        def order1 = cont.metadata().create(Serialization_Order.class)
+        order1.setNumber('order-1')
+
+        def orderItem = cont.metadata().create(Serialization_OrderItem.class)
+        orderItem.name = 'item-1'
+        orderItem.order = order1
+        order1.items = [orderItem]
+
+        def order2 = cont.metadata().create(Serialization_Order.class)
+
+        def orders = [order1, order2]
+
+        when:
+
+        def writer = new StringWriter()
+        entitySerializationAPI.toJson(orders, null, writer, EntitySerializationOption.SERIALIZE_NULLS)
+
+        then:
+
+        writer.toString() == entitySerializationAPI.toJson(orders, null, EntitySerializationOption.SERIALIZE_NULLS)
+
+        def parsedArray = new JsonSlurper().parseText(writer.toString())
+        parsedArray.size() == 2
+        parsedArray[0].number == 'order-1'
+        parsedArray[0].items[0].name == 'item-1'
+        parsedArray[1].containsKey('number')
+        parsedArray[1].number == null
+    }
 }
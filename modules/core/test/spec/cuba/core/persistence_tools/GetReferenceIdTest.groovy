@@ -89,7 +89,7 @@ class GetReferenceIdTest extends Specification {
 
         def tx = cont.persistence().createTransaction()
         try {
-            def view = AppBeans.get(ViewRepository).getView(Order, View.LOCAL)
+            def view = View.copy(AppBeans.get(ViewRepository).getView(Order, View.LOCAL))
             view.setLoadPartialEntities(true)
 
             order = cont.persistence().getEntityManager().find(Order, order1.id, view)
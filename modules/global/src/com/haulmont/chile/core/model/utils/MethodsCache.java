@@ -16,19 +16,46 @@
  */
 package com.haulmont.chile.core.model.utils;
 
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.*;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Map;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
+/**
+ * Provides access to getters and setters of a class by property name.
+ * <p>
+ * Accessors are bound to the methods by {@link LambdaMetafactory} on first access to a property, so invoking them
+ * costs the same as a direct method call. Methods which cannot be bound this way, e.g. static methods or methods
+ * of classes not visible from the class loader of this class, are invoked through reflection.
+ * <p>
+ * Errors are reported the same way in both cases: a wrong object or argument causes {@link IllegalArgumentException}
+ * (wrapped in {@link RuntimeException} for getters), and an exception thrown by the accessor is wrapped in
+ * {@link RuntimeException} with {@link InvocationTargetException} cause.
+ */
 public class MethodsCache {
 
+    private static final Logger log = LoggerFactory.getLogger(MethodsCache.class);
+
     private final transient Map<String, Method> getters = new HashMap<>();
     private final transient Map<String, Method> setters = new HashMap<>();
 
+    private final transient Map<String, Function<Object, Object>> getterFunctions = new ConcurrentHashMap<>();
+    private final transient Map<String, BiConsumer<Object, Object>> setterFunctions = new ConcurrentHashMap<>();
+
+    private final Class clazz;
+
     public MethodsCache(Class clazz) {
+        this.clazz = clazz;
         final Method[] methods = clazz.getMethods();
         for (Method method : methods) {
             String name = method.getName();
@@ -49,28 +76,138 @@ public class MethodsCache {
     }
 
     public void invokeSetter(Object object, String property, Object value) {
-        final Method method = setters.get(property);
-        if (method == null) {
-            throw new IllegalArgumentException(
-                    String.format("Can't find setter for property '%s' at %s", property, object.getClass()));
-        }
-        try {
-            method.invoke(object, value);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(e);
+        BiConsumer<Object, Object> setter = setterFunctions.get(property);
+        if (setter == null) {
+            final Method method = setters.get(property);
+            if (method == null) {
+                throw new IllegalArgumentException(
+                        String.format("Can't find setter for property '%s' at %s", property, object.getClass()));
+            }
+            setter = createSetter(method);
+            setterFunctions.put(property, setter);
         }
+        setter.accept(object, value);
     }
 
     public Object invokeGetter(Object object, String property) {
-        final Method method = getters.get(property);
-        if (method == null) {
-            throw new IllegalArgumentException(
-                    String.format("Can't find getter for property '%s' at %s", property, object.getClass()));
+        Function<Object, Object> getter = getterFunctions.get(property);
+        if (getter == null) {
+            final Method method = getters.get(property);
+            if (method == null) {
+                throw new IllegalArgumentException(
+                        String.format("Can't find getter for property '%s' at %s", property, object.getClass()));
+            }
+            getter = createGetter(method);
+            getterFunctions.put(property, getter);
+        }
+        return getter.apply(object);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Function<Object, Object> createGetter(Method method) {
+        Function<Object, Object> reflectiveGetter = object -> {
+            try {
+                return method.invoke(object);
+            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        if (canBind(method)) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                        "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle,
+                        handle.type().wrap());
+                Function<Object, Object> getter = (Function<Object, Object>) callSite.getTarget().invokeExact();
+
+                Class<?> declaringClass = method.getDeclaringClass();
+                return object -> {
+                    try {
+                        return getter.apply(object);
+                    } catch (Throwable e) {
+                        if (!declaringClass.isInstance(object)) {
+                            // report the wrong object as reflection does
+                            return reflectiveGetter.apply(object);
+                        }
+                        throw new RuntimeException(new InvocationTargetException(e));
+                    }
+                };
+            } catch (Throwable e) {
+                log.debug("Unable to bind getter {}, using reflection: {}", method, e.toString());
+            }
+        }
+        return reflectiveGetter;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected BiConsumer<Object, Object> createSetter(Method method) {
+        BiConsumer<Object, Object> reflectiveSetter = (object, value) -> {
+            try {
+                method.invoke(object, value);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        if (canBind(method)) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                        "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        handle,
+                        handle.type().wrap().changeReturnType(void.class));
+                BiConsumer<Object, Object> setter = (BiConsumer<Object, Object>) callSite.getTarget().invokeExact();
+
+                Class<?> declaringClass = method.getDeclaringClass();
+                Class<?> parameterType = method.getParameterTypes()[0];
+                boolean primitive = parameterType.isPrimitive();
+                Class<?> valueType = ClassUtils.primitiveToWrapper(parameterType);
+                return (object, value) -> {
+                    if (primitive ? value == null || value.getClass() != valueType
+                            : value != null && !valueType.isInstance(value)) {
+                        // let reflection widen primitive values and report wrong arguments as before
+                        reflectiveSetter.accept(object, value);
+                        return;
+                    }
+                    try {
+                        setter.accept(object, value);
+                    } catch (Throwable e) {
+                        if (!declaringClass.isInstance(object)) {
+                            // report the wrong object as reflection does
+                            reflectiveSetter.accept(object, value);
+                            return;
+                        }
+                        throw new RuntimeException(new InvocationTargetException(e));
+                    }
+                };
+            } catch (Throwable e) {
+                log.debug("Unable to bind setter {}, using reflection: {}", method, e.toString());
+            }
+        }
+        return reflectiveSetter;
+    }
+
+    /**
+     * Generated accessors are defined in the class loader of this class, so they can be used only for public
+     * instance methods of public classes visible from it.
+     */
+    protected boolean canBind(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (Modifier.isStatic(method.getModifiers())
+                || !Modifier.isPublic(declaringClass.getModifiers())
+                || !Modifier.isPublic(clazz.getModifiers())) {
+            return false;
         }
         try {
-            return method.invoke(object);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            throw new RuntimeException(e);
+            return Class.forName(declaringClass.getName(), false, MethodsCache.class.getClassLoader()) == declaringClass;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -61,6 +61,16 @@ public interface DataService {
      */
     <E extends Entity> List<E> loadList(LoadContext<E> context);
 
+    /**
+     * Loads results of several independent load contexts in one call.
+     * <p>A context with the entity id set is loaded as a single instance, other contexts are loaded as collections.
+     * The contexts may be executed concurrently, see {@code cuba.batchLoadThreads} application property.</p>
+     * @param contexts  list of {@link LoadContext} objects
+     * @return          list of results in the same order as the contexts, a result of a single instance context is
+     *                  an empty or one-element list
+     */
+    List<List<Entity>> loadBatch(List<LoadContext<? extends Entity>> contexts);
+
     /**
      * Returns the number of entity instances for the given query passed in the {@link LoadContext}.
      * @param context   defines the query
@@ -21,8 +21,13 @@ package com.haulmont.cuba.core.config;
 
 import com.haulmont.cuba.core.config.type.TypeFactory;
 
+import org.apache.commons.lang3.ClassUtils;
+
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.NoSuchElementException;
+import java.util.UUID;
 
 /**
  * Implementation of configuration getter methods.
@@ -38,6 +43,8 @@ public class ConfigGetter extends ConfigAccessorMethod {
 
     private TypeFactory factory;
 
+    private final boolean immutableResult;
+
     /**
      * Create a new ConfigGetter instance.
      *
@@ -51,6 +58,7 @@ public class ConfigGetter extends ConfigAccessorMethod {
         sourceType = ConfigUtil.getSourceType(configInterface, method);
 //        if (!String.class.equals(method.getReturnType()))
         factory = TypeFactory.getInstance(configInterface, method);
+        immutableResult = isImmutable(method.getReturnType());
     }
 
     /**
@@ -79,12 +87,52 @@ public class ConfigGetter extends ConfigAccessorMethod {
             }
             str = getProperty(configuration, defValue);
         }
+        return convert(str);
+    }
+
+    /**
+     * Convert a string property value to the method return type.
+     *
+     * @param str The string value.
+     * @return The converted value.
+     */
+    public Object convert(String str) {
         if (factory == null)
             return str;
         else
             return factory.build(str);
     }
 
+    /**
+     * Whether the value can be cached by the configuration proxy until the configuration source is changed.
+     * Values of system properties are never cached because they can be changed without notice.
+     *
+     * @return Whether the value can be cached.
+     */
+    public boolean isCacheable() {
+        return sourceType != SourceType.SYSTEM;
+    }
+
+    /**
+     * Whether the converted value can be shared between callers. Mutable values like lists, dates and
+     * entities are built anew on each invocation.
+     *
+     * @return Whether the converted value is immutable.
+     */
+    public boolean isImmutableResult() {
+        return immutableResult;
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return ClassUtils.isPrimitiveOrWrapper(type)
+                || String.class.equals(type)
+                || type.isEnum()
+                || UUID.class.equals(type)
+                || BigDecimal.class.equals(type)
+                || BigInteger.class.equals(type)
+                || Class.class.equals(type);
+    }
+
     /**
      * Get a configuration field value.
      *
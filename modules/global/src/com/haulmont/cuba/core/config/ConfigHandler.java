@@ -21,6 +21,10 @@ package com.haulmont.cuba.core.config;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Configuration interface method handler.
@@ -35,6 +39,14 @@ public class ConfigHandler implements InvocationHandler {
      * The configuration interface.
      */
     private final Class<?> configInterface;
+    /**
+     * Method implementations resolved for the configuration interface.
+     */
+    private final Map<Method, ConfigMethod> methods = new ConcurrentHashMap<>();
+    /**
+     * Property values read at the current version of the configuration source.
+     */
+    private volatile Snapshot snapshot = new Snapshot(-1, Collections.emptyMap());
 
     /**
      * Create a new ConfigHandler instance.
@@ -75,7 +87,71 @@ public class ConfigHandler implements InvocationHandler {
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        ConfigMethod configMethod = ConfigMethods.getInstance(configInterface, method);
+        ConfigMethod configMethod = methods.get(method);
+        if (configMethod == null) {
+            configMethod = ConfigMethods.getInstance(configInterface, method);
+            methods.put(method, configMethod);
+        }
+        if ((args == null || args.length == 0)
+                && configMethod instanceof ConfigGetter
+                && ((ConfigGetter) configMethod).isCacheable()) {
+            return getCachedValue(method, (ConfigGetter) configMethod, proxy);
+        }
         return configMethod.invoke(this, args, proxy);
-  }
+    }
+
+    /**
+     * Get a getter result from the snapshot of values, reading the value from the configuration source if
+     * the snapshot does not contain it or the source has been changed since the snapshot was taken.
+     */
+    private Object getCachedValue(Method method, ConfigGetter getter, Object proxy) {
+        long version = persister.getVersion();
+        if (version < 0) {
+            return getter.invoke(this, null, proxy);
+        }
+
+        Snapshot current = snapshot;
+        if (current.version == version) {
+            CachedValue cachedValue = current.values.get(method);
+            if (cachedValue != null) {
+                return cachedValue.get(getter);
+            }
+        }
+
+        String str = getter.getProperty(persister);
+        CachedValue cachedValue = new CachedValue(str, getter);
+
+        // snapshots are immutable, the new one replaces the current atomically
+        Map<Method, CachedValue> values = current.version == version ? new HashMap<>(current.values) : new HashMap<>();
+        values.put(method, cachedValue);
+        snapshot = new Snapshot(version, values);
+
+        return cachedValue.get(getter);
+    }
+
+    private static class Snapshot {
+
+        private final long version;
+        private final Map<Method, CachedValue> values;
+
+        private Snapshot(long version, Map<Method, CachedValue> values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+
+    private static class CachedValue {
+
+        private final String str;
+        private final Object value;
+
+        private CachedValue(String str, ConfigGetter getter) {
+            this.str = str;
+            this.value = getter.isImmutableResult() ? getter.convert(str) : null;
+        }
+
+        private Object get(ConfigGetter getter) {
+            return getter.isImmutableResult() ? value : getter.convert(str);
+        }
+    }
 }
\ No newline at end of file
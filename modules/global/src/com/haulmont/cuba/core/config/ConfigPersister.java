@@ -20,4 +20,15 @@ public interface ConfigPersister {
     String getProperty(SourceType sourceType, String name);
 
     void setProperty(SourceType sourceType, String name, String value);
+
+    /**
+     * Returns the version of property values provided by this persister. The version must be increased each time
+     * a value of {@link SourceType#APP} or {@link SourceType#DATABASE} property is changed. Configuration
+     * interface proxies cache converted property values until the version changes.
+     *
+     * @return current version or a negative number if values must not be cached
+     */
+    default long getVersion() {
+        return -1;
+    }
 }
\ No newline at end of file
@@ -24,6 +24,8 @@ import com.haulmont.cuba.core.entity.KeyValueEntity;
 import com.haulmont.cuba.core.entity.contracts.Id;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -60,6 +62,28 @@ public interface DataManager {
      */
     <E extends Entity> List<E> loadList(LoadContext<E> context);
 
+    /**
+     * Loads results of several independent load contexts.
+     * <p>A context with the entity id set is loaded as a single instance, other contexts are loaded as collections.
+     * The default implementation executes the contexts one by one, the middleware {@code DataService} can execute
+     * them concurrently.</p>
+     * @param contexts  list of {@link LoadContext} objects
+     * @return          list of results in the same order as the contexts, a result of a single instance context is
+     *                  an empty or one-element list
+     */
+    default List<List<Entity>> loadBatch(List<LoadContext<? extends Entity>> contexts) {
+        List<List<Entity>> results = new ArrayList<>(contexts.size());
+        for (LoadContext<? extends Entity> context : contexts) {
+            if (context.getId() != null) {
+                Entity entity = load(context);
+                results.add(entity == null ? Collections.emptyList() : Collections.singletonList(entity));
+            } else {
+                results.add(new ArrayList<>(loadList(context)));
+            }
+        }
+        return results;
+    }
+
     /**
      * Returns the number of entity instances for the given query passed in the {@link LoadContext}.
      * @param context   defines the query
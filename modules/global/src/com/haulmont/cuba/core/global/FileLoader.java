@@ -18,7 +18,11 @@ package com.haulmont.cuba.core.global;
 
 import com.haulmont.cuba.core.entity.FileDescriptor;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.function.Supplier;
 
@@ -65,6 +69,27 @@ public interface FileLoader {
      */
     InputStream openStream(FileDescriptor fd) throws FileStorageException;
 
+    /**
+     * Return an input stream to load a part of a file contents from middleware.
+     *
+     * @param fd     file descriptor
+     * @param offset position of the first byte to load
+     * @param length maximum number of bytes to load
+     * @return input stream, must be closed after use
+     * @throws IllegalArgumentException if arguments are incorrect
+     * @throws FileStorageException     if something goes wrong
+     */
+    default InputStream openStream(FileDescriptor fd, long offset, long length) throws FileStorageException {
+        InputStream inputStream = openStream(fd);
+        try {
+            IOUtils.skipFully(inputStream, offset);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(inputStream);
+            throw new FileStorageException(FileStorageException.Type.IO_EXCEPTION, fd.getName(), e);
+        }
+        return new BoundedInputStream(inputStream, length);
+    }
+
     /**
      * Remove a file from the file storage.
      *
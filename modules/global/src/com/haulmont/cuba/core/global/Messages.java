@@ -18,7 +18,11 @@
 package com.haulmont.cuba.core.global;
 
 import javax.annotation.Nullable;
-import java.util.Locale;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 /**
  * Central infrastructure interface to work with localized messages.
@@ -182,6 +186,43 @@ public interface Messages {
     @Nullable
     String findMessage(String packs, String key, @Nullable Locale locale);
 
+    /**
+     * Returns all messages available in the package, including messages of its parent packages and includes.
+     * <p>
+     * The default implementation resolves by {@link #getMessage(String, String, Locale)} the keys found in
+     * {@code messages.properties} files of the package itself in the classpath.
+     *
+     * @param pack   package name
+     * @param locale message locale
+     * @return immutable map of message keys to localized messages
+     */
+    default Map<String, String> getMessages(String pack, Locale locale) {
+        String path = pack.replace('.', '/') + "/messages";
+        ClassLoader classLoader = Messages.class.getClassLoader();
+        Set<String> keys = new HashSet<>();
+        for (String suffix : Arrays.asList("", "_" + locale.getLanguage(), "_" + locale.toString())) {
+            try (InputStream stream = classLoader.getResourceAsStream(path + suffix + ".properties")) {
+                if (stream != null) {
+                    Properties properties = new Properties();
+                    properties.load(new InputStreamReader(stream, StandardCharsets.UTF_8));
+                    for (String key : properties.stringPropertyNames()) {
+                        if (!key.startsWith("@")) {
+                            keys.add(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to read messages of " + pack, e);
+            }
+        }
+
+        Map<String, String> messages = new HashMap<>(keys.size());
+        for (String key : keys) {
+            messages.put(key, getMessage(pack, key, locale));
+        }
+        return Collections.unmodifiableMap(messages);
+    }
+
     /**
      * Get localized message and use it as a format string for parameters provided
      *
@@ -40,7 +40,9 @@ import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
  * <li>{@link #MINIMAL}</li>
  * <li>{@link #BASE}</li>
  * </ul>
- *
+ * Views returned by {@link ViewRepository} are shared between all callers and therefore frozen: an attempt to modify
+ * them throws {@code IllegalStateException}. Use {@link #copy(View)} to obtain a modifiable view. A view created
+ * from a frozen source view by a constructor is modifiable including its nested views.
  */
 public class View implements Serializable {
 
@@ -104,6 +106,8 @@ public class View implements Serializable {
 
     private boolean loadPartialEntities;
 
+    private transient boolean frozen;
+
     public View(Class<? extends Entity> entityClass) {
         this(entityClass, "", true);
     }
@@ -166,17 +170,36 @@ public class View implements Serializable {
                 View sourcePropertyView = sourceProperty.getView();
 
                 if (sourcePropertyView != null && isNotEmpty(sourcePropertyView.getProperties())) {
-
-                    Map<String, ViewProperty> thisViewProperties = thisProperties.get(sourcePropertyName).getView().properties;
-                    putProperties(thisViewProperties, sourcePropertyView.getProperties());
+                    ViewProperty thisProperty = thisProperties.get(sourcePropertyName);
+                    View thisPropertyView = thisProperty.getView();
+                    if (thisPropertyView.isFrozen()) {
+                        // the nested view is shared by the repository, so merge into its copy
+                        thisPropertyView = copy(thisPropertyView);
+                        thisProperties.put(sourcePropertyName,
+                                new ViewProperty(sourcePropertyName, thisPropertyView, thisProperty.getFetchMode()));
+                    }
+                    putProperties(thisPropertyView.properties, sourcePropertyView.getProperties());
                 }
 
             } else {
-                thisProperties.put(sourceProperty.getName(), sourceProperty);
+                View sourcePropertyView = sourceProperty.getView();
+                if (sourcePropertyView != null && sourcePropertyView.isFrozen()) {
+                    // the nested view is shared by the repository, so the new view gets its modifiable copy
+                    thisProperties.put(sourcePropertyName,
+                            new ViewProperty(sourcePropertyName, copy(sourcePropertyView), sourceProperty.getFetchMode()));
+                } else {
+                    thisProperties.put(sourcePropertyName, sourceProperty);
+                }
             }
         }
     }
 
+    /**
+     * Creates a modifiable deep copy of the given view.
+     *
+     * @param view view to copy, can be frozen
+     * @return new view instance or null if the passed view is null
+     */
     public static View copy(@Nullable View view) {
         if (view == null) {
             return null;
@@ -211,7 +234,7 @@ public class View implements Serializable {
      * @return collection of properties
      */
     public Collection<ViewProperty> getProperties() {
-        return properties.values();
+        return frozen ? Collections.unmodifiableCollection(properties.values()) : properties.values();
     }
 
     /**
@@ -222,12 +245,14 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name, @Nullable View view, FetchMode fetchMode) {
+        checkNotFrozen();
         properties.put(name, new ViewProperty(name, view, fetchMode));
         return this;
     }
 
     @Deprecated
     public View addProperty(String name, @Nullable View view, boolean lazy) {
+        checkNotFrozen();
         properties.put(name, new ViewProperty(name, view, lazy));
         return this;
     }
@@ -239,6 +264,7 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name, View view) {
+        checkNotFrozen();
         properties.put(name, new ViewProperty(name, view));
         return this;
     }
@@ -249,6 +275,7 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name) {
+        checkNotFrozen();
         properties.put(name, new ViewProperty(name, null));
         return this;
     }
@@ -312,10 +339,43 @@ public class View implements Serializable {
      * @return this view instance for chaining
      */
     public View setLoadPartialEntities(boolean loadPartialEntities) {
+        checkNotFrozen();
         this.loadPartialEntities = loadPartialEntities;
         return this;
     }
 
+    /**
+     * Makes this view and all its nested views unmodifiable. Frozen views can be safely shared between threads.
+     *
+     * @return this view instance for chaining
+     */
+    public View freeze() {
+        if (!frozen) {
+            frozen = true;
+            for (ViewProperty property : properties.values()) {
+                if (property.getView() != null) {
+                    property.getView().freeze();
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the view cannot be modified
+     * @see #freeze()
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException(String.format("View %s is shared and cannot be modified, " +
+                    "use View.copy() to create a modifiable copy", this));
+        }
+    }
+
     /**
      * DEPRECATED since v.6
      */
@@ -19,6 +19,7 @@ package com.haulmont.cuba.core.sys;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
 import com.haulmont.chile.core.datatypes.FormatStrings;
 import com.haulmont.chile.core.datatypes.FormatStringsRegistry;
 import com.haulmont.cuba.core.global.*;
@@ -43,6 +44,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -77,6 +79,14 @@ public abstract class AbstractMessages implements Messages {
     // Using ConcurrentHashMap instead of synchronized Set for better parallelism
     protected Map<String, String> notFoundCache = new ConcurrentHashMap<>();
 
+    // resolved messages indexed by locale and pack names, so that a lookup doesn't need to build a string key
+    protected Map<Locale, Map<String, Map<String, String>>> messageIndex = new ConcurrentHashMap<>();
+    protected Map<Locale, Map<String, String>> mainMessageIndex = new ConcurrentHashMap<>();
+
+    protected final LongAdder cacheHits = new LongAdder();
+    protected final LongAdder cacheMisses = new LongAdder();
+    protected final LongAdder remoteCalls = new LongAdder();
+
     protected Cache<String, Properties> filePropertiesCache = CacheBuilder.newBuilder().build();
     protected Cache<String, Properties> resourcePropertiesCache = CacheBuilder.newBuilder().build();
 
@@ -139,6 +149,28 @@ public abstract class AbstractMessages implements Messages {
                     )
             );
         }
+
+        preloadMessagePacks();
+    }
+
+    /**
+     * Loads message packs listed in the {@code cuba.preloadedMessagePacks} app property for all available locales.
+     */
+    protected void preloadMessagePacks() {
+        String packs = AppContext.getProperty("cuba.preloadedMessagePacks");
+        if (StringUtils.isBlank(packs))
+            return;
+
+        StopWatch stopWatch = new Slf4JStopWatch("Messages.preload");
+        try {
+            for (String pack : StringUtils.split(packs, " ,")) {
+                for (Locale locale : globalConfig.getAvailableLocales().values()) {
+                    getMessages(pack, locale);
+                }
+            }
+        } finally {
+            stopWatch.stop();
+        }
     }
 
     @Override
@@ -223,7 +255,19 @@ public abstract class AbstractMessages implements Messages {
     @Override
     public String getMainMessage(String key, Locale locale) {
         checkNotNullArgument(key, "Message key is null");
-        return internalGetMessage(mainMessagePack, key, locale, key, false);
+
+        locale = messageTools.trimLocale(locale);
+        Map<String, String> index = mainMessageIndex.computeIfAbsent(locale, l -> new ConcurrentHashMap<>());
+        String msg = index.get(key);
+        if (msg != null) {
+            cacheHits.increment();
+            return msg;
+        }
+        cacheMisses.increment();
+
+        msg = internalGetMessage(mainMessagePack, key, locale, key, false);
+        index.put(key, msg);
+        return msg;
     }
 
     @Override
@@ -249,12 +293,118 @@ public abstract class AbstractMessages implements Messages {
         checkNotNullArgument(packs, "Messages pack name is null");
         checkNotNullArgument(key, "Message key is null");
 
-        String compositeKey = packs + "/" + key;
-        String msg = internalGetMessage(mainMessagePack, compositeKey, locale, null, false);
-        if (msg != null)
+        locale = messageTools.trimLocale(locale);
+        Map<String, String> index = getPackIndex(packs, locale);
+        String msg = index.get(key);
+        if (msg != null) {
+            cacheHits.increment();
             return msg;
+        }
+        cacheMisses.increment();
+
+        String compositeKey = packs + "/" + key;
+        msg = internalGetMessage(mainMessagePack, compositeKey, locale, null, false);
+        if (msg == null) {
+            msg = internalGetMessage(packs, key, locale, key, true);
+        }
+        index.put(key, msg);
+        return msg;
+    }
+
+    @Override
+    public Map<String, String> getMessages(String pack, Locale locale) {
+        checkNotNullArgument(pack, "Messages pack name is null");
+        checkNotNullArgument(locale, "Locale is null");
 
-        return internalGetMessage(packs, key, locale, key, true);
+        locale = messageTools.trimLocale(locale);
+
+        Set<String> keys = new HashSet<>();
+        collectKeys(pack, locale, keys, new HashSet<>());
+
+        ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+        for (String key : keys) {
+            builder.put(key, getMessage(pack, key, locale));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return hit count of the resolved messages index
+     */
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return miss count of the resolved messages index
+     */
+    public long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * @return number of requests sent to the middleware to load messages
+     */
+    public long getRemoteCallCount() {
+        return remoteCalls.sum();
+    }
+
+    protected Map<String, String> getPackIndex(String packs, Locale locale) {
+        return messageIndex
+                .computeIfAbsent(locale, l -> new ConcurrentHashMap<>())
+                .computeIfAbsent(packs, p -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Collects keys of all messages available in the given packs, their parent packs and includes,
+     * for the locale and its fallbacks.
+     */
+    protected void collectKeys(String packs, Locale locale, Set<String> keys, Set<String> passedPacks) {
+        for (String pack : new StringTokenizer(packs).getTokenArray()) {
+            if (!passedPacks.add(pack))
+                continue;
+
+            List<Locale> locales = new ArrayList<>();
+            Locale tmpLocale = locale;
+            while (tmpLocale != null) {
+                locales.add(tmpLocale);
+                tmpLocale = truncateLocale(tmpLocale);
+            }
+            locales.add(null);
+
+            for (Locale truncatedLocale : locales) {
+                String packPath = confDir + "/" + pack.replaceAll("\\.", "/");
+                while (packPath != null && !packPath.equals(confDir)) {
+                    collectKeys(loadPropertiesFromFile(packPath, locale, truncatedLocale), locale, keys, passedPacks);
+                    int pos = packPath.lastIndexOf("/");
+                    packPath = pos < 0 ? null : packPath.substring(0, pos);
+                }
+
+                packPath = "/" + pack.replaceAll("\\.", "/");
+                while (packPath != null) {
+                    collectKeys(loadPropertiesFromResource(packPath, locale, truncatedLocale), locale, keys, passedPacks);
+                    int pos = packPath.lastIndexOf("/");
+                    packPath = pos < 0 ? null : packPath.substring(0, pos);
+                }
+            }
+        }
+    }
+
+    private void collectKeys(Properties properties, Locale locale, Set<String> keys, Set<String> passedPacks) {
+        if (properties == PROPERTIES_NOT_FOUND)
+            return;
+
+        for (String key : properties.stringPropertyNames()) {
+            if (!"@include".equals(key))
+                keys.add(key);
+        }
+
+        String includesProperty = properties.getProperty("@include");
+        if (includesProperty != null) {
+            for (String includePath : StringUtils.split(includesProperty, " ,")) {
+                collectKeys(includePath, locale, keys, passedPacks);
+            }
+        }
     }
 
     @Nullable
@@ -296,6 +446,8 @@ public abstract class AbstractMessages implements Messages {
         resourcePropertiesCache.invalidateAll();
         strCache.clear();
         notFoundCache.clear();
+        messageIndex.clear();
+        mainMessageIndex.clear();
     }
 
     protected String internalGetMessage(String packs, String key, Locale locale, String defaultValue,
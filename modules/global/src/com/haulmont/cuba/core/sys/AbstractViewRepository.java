@@ -66,6 +66,11 @@ public class AbstractViewRepository implements ViewRepository {
 
     protected Map<MetaClass, Map<String, View>> storage = new ConcurrentHashMap<>();
 
+    /**
+     * Frozen copies of stored views returned to callers. Invalidated whenever the storage changes.
+     */
+    protected Map<MetaClass, Map<String, View>> frozenViews = new ConcurrentHashMap<>();
+
     @Inject
     protected Metadata metadata;
 
@@ -97,6 +102,7 @@ public class AbstractViewRepository implements ViewRepository {
         StopWatch initTiming = new Slf4JStopWatch("ViewRepository.init." + getClass().getSimpleName());
 
         storage.clear();
+        frozenViews.clear();
         readFileNames.clear();
 
         String configName = AppContext.getProperty("cuba.viewsConfig");
@@ -180,6 +186,7 @@ public class AbstractViewRepository implements ViewRepository {
 
     public void reset() {
         initialized = false;
+        frozenViews.clear();
     }
 
     /**
@@ -218,7 +225,7 @@ public class AbstractViewRepository implements ViewRepository {
      *
      * @param metaClass entity class
      * @param name      view name
-     * @return view instance or null if no view found
+     * @return frozen view instance shared by all callers or null if no view found
      */
     @Override
     @Nullable
@@ -231,12 +238,25 @@ public class AbstractViewRepository implements ViewRepository {
             return null;
         }
 
+        if (initialized) {
+            Map<String, View> views = frozenViews.get(metaClass);
+            View view = views == null ? null : views.get(name);
+            if (view != null) {
+                return view;
+            }
+        }
+
         lock.readLock().lock();
         try {
             checkInitialized();
 
             View view = retrieveView(metaClass, name, new HashSet<>());
-            return copyView(view);
+            if (view == null) {
+                return null;
+            }
+            View frozenView = copyView(view).freeze();
+            frozenViews.computeIfAbsent(metaClass, k -> new ConcurrentHashMap<>()).put(name, frozenView);
+            return frozenView;
         } finally {
             lock.readLock().unlock();
         }
@@ -384,6 +404,8 @@ public class AbstractViewRepository implements ViewRepository {
             for (Element viewElem : Dom4j.elements(rootElem, "view")) {
                 deployView(rootElem, viewElem, new HashSet<>());
             }
+            // a deployed view can replace nested views of the frozen ones
+            frozenViews.clear();
         } finally {
             lock.writeLock().unlock();
         }
@@ -433,7 +455,10 @@ public class AbstractViewRepository implements ViewRepository {
     public View deployView(Element rootElem, Element viewElem) {
         lock.writeLock().lock();
         try {
-            return deployView(rootElem, viewElem, new HashSet<>());
+            View view = deployView(rootElem, viewElem, new HashSet<>());
+            // a deployed view can replace nested views of the frozen ones
+            frozenViews.clear();
+            return view;
         } finally {
             lock.writeLock().unlock();
         }
@@ -694,13 +719,7 @@ public class AbstractViewRepository implements ViewRepository {
     }
 
     protected void storeView(MetaClass metaClass, View view) {
-        Map<String, View> views = storage.get(metaClass);
-        if (views == null) {
-            views = new ConcurrentHashMap<>();
-        }
-
-        views.put(view.getName(), view);
-        storage.put(metaClass, views);
+        storage.computeIfAbsent(metaClass, k -> new ConcurrentHashMap<>()).put(view.getName(), view);
     }
 
     protected List<View> getAllInitialized() {
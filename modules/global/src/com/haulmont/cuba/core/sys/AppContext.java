@@ -119,6 +119,15 @@ public class AppContext {
         return appProperties.getProperty(key);
     }
 
+    /**
+     * @return a number which is increased each time the application properties are changed at runtime
+     */
+    public static long getPropertiesVersion() {
+        if (appProperties == null)
+            throw new IllegalStateException("appProperties not initialized");
+        return appProperties.getVersion();
+    }
+
     /**
      * Set property value. The new value will be accessible at the runtime through {@link #getProperty(String)} and
      * {@link #getPropertyNames()}, but will not be saved in any {@code app.properties} file and will be lost
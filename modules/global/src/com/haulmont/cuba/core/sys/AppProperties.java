@@ -25,6 +25,7 @@ import org.apache.commons.text.StringSubstitutor;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 /**
@@ -41,6 +42,10 @@ public class AppProperties {
 
     private Map<String, String> systemProperties = new ConcurrentHashMap<>();
 
+    private static final AtomicLong versionCounter = new AtomicLong();
+
+    private volatile long version = versionCounter.incrementAndGet();
+
     // Temporary support for deprecated properties: the second element has priority
     private final List<Pair<String, String>> DEPRECATED_PROPERTIES = Arrays.asList(
             new Pair<>("cuba.connectionUrlList", "cuba.connectionUrl"),
@@ -74,6 +79,15 @@ public class AppProperties {
         for (String name : System.getProperties().stringPropertyNames()) {
             systemProperties.put(name, System.getProperty(name));
         }
+        version = versionCounter.incrementAndGet();
+    }
+
+    /**
+     * @return a number which is increased each time the properties are changed at runtime. Versions of different
+     * instances never coincide.
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -227,5 +241,6 @@ public class AppProperties {
             properties.remove(key);
         else
             properties.put(key, value);
+        version = versionCounter.incrementAndGet();
     }
 }
\ No newline at end of file
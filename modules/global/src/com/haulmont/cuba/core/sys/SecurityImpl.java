@@ -30,6 +30,7 @@ import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.cuba.security.entity.PermissionType;
 import com.haulmont.cuba.security.global.ConstraintData;
 import com.haulmont.cuba.security.global.UserSession;
+import groovy.lang.Binding;
 import org.apache.commons.lang3.StringUtils;
 import org.codehaus.groovy.runtime.MethodClosure;
 import org.slf4j.Logger;
@@ -39,6 +40,7 @@ import org.springframework.stereotype.Component;
 import javax.inject.Inject;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -65,6 +67,9 @@ public class SecurityImpl implements Security {
     @Inject
     protected Scripting scripting;
 
+    // constraint scripts with the {E} placeholder replaced, the same instances are used as compiled scripts cache keys
+    protected Map<String, String> preparedScripts = new ConcurrentHashMap<>();
+
     @Override
     public boolean isScreenPermitted(String windowAlias) {
         return userSessionSource.getUserSession().isScreenPermitted(windowAlias);
@@ -204,21 +209,47 @@ public class SecurityImpl implements Security {
     }
 
     protected boolean isPermitted(Entity entity, Predicate<ConstraintData> predicate) {
-        List<ConstraintData> constraints = getConstraints(entity.getMetaClass(), predicate);
-        for (ConstraintData constraint : constraints) {
-            if (!isPermitted(entity, constraint)) {
-                return false;
+        return createPermittedPredicate(predicate).test(entity);
+    }
+
+    /**
+     * Creates a predicate checking entities against in-memory constraints. Constraints of each entity class are
+     * selected once and the Groovy context is created once for all entities tested by the returned predicate,
+     * so it should be used to check a batch of entities loaded by one operation.
+     *
+     * @param predicate selects constraints to check
+     */
+    protected Predicate<Entity> createPermittedPredicate(Predicate<ConstraintData> predicate) {
+        Map<MetaClass, List<ConstraintData>> constraintsCache = new HashMap<>();
+        Map<String, Object> context = new HashMap<>();
+        return entity -> {
+            List<ConstraintData> constraints = constraintsCache.computeIfAbsent(entity.getMetaClass(),
+                    metaClass -> getConstraints(metaClass, predicate));
+            if (constraints.isEmpty()) {
+                return true;
             }
-        }
-        return true;
+            if (context.isEmpty()) {
+                context.putAll(createConstraintsContext());
+            }
+            for (ConstraintData constraint : constraints) {
+                if (!isPermitted(entity, constraint, context)) {
+                    return false;
+                }
+            }
+            return true;
+        };
     }
 
     protected boolean isPermitted(Entity entity, ConstraintData constraint) {
+        return isPermitted(entity, constraint, createConstraintsContext());
+    }
+
+    protected boolean isPermitted(Entity entity, ConstraintData constraint, Map<String, Object> context) {
         String metaClassName = entity.getMetaClass().getName();
         String groovyScript = constraint.getGroovyScript();
         if (constraint.getCheckType().memory() && StringUtils.isNotBlank(groovyScript)) {
             try {
-                Object o = evaluateConstraintScript(entity, groovyScript);
+                Object o = evaluateConstraintScript(entity, groovyScript, context);
                 if (Boolean.FALSE.equals(o)) {
                     log.trace("Entity does not match security constraint. Entity class [{}]. Entity [{}]. Constraint [{}].",
                             metaClassName, entity.getId(), constraint.getCheckType());
@@ -235,12 +266,29 @@ public class SecurityImpl implements Security {
 
     @Override
     public Object evaluateConstraintScript(Entity entity, String groovyScript) {
+        return evaluateConstraintScript(entity, groovyScript, createConstraintsContext());
+    }
+
+    /**
+     * Evaluates a constraint script with the context created by {@link #createConstraintsContext()}.
+     * The context is not modified, so it can be shared by evaluations for different entities.
+     */
+    protected Object evaluateConstraintScript(Entity entity, String groovyScript, Map<String, Object> context) {
+        Binding binding = new Binding(new HashMap<>(context));
+        binding.setVariable("__entity__", entity);
+        String script = preparedScripts.computeIfAbsent(groovyScript, text -> text.replace("{E}", "__entity__"));
+        return scripting.evaluateGroovy(script, binding);
+    }
+
+    /**
+     * Creates variables available in Groovy constraints, except the checked entity.
+     */
+    protected Map<String, Object> createConstraintsContext() {
         Map<String, Object> context = new HashMap<>();
-        context.put("__entity__", entity);
         context.put("parse", new MethodClosure(this, "parseValue"));
         context.put("userSession", userSessionSource.getUserSession());
         fillGroovyConstraintsContext(context);
-        return scripting.evaluateGroovy(groovyScript.replace("{E}", "__entity__"), context);
+        return context;
     }
 
     /**
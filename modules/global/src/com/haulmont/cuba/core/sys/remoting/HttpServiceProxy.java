@@ -17,9 +17,12 @@
 
 package com.haulmont.cuba.core.sys.remoting;
 
+import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.RemoteException;
 import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
 import org.springframework.remoting.httpinvoker.HttpInvokerProxyFactoryBean;
+import org.springframework.remoting.httpinvoker.HttpInvokerRequestExecutor;
+import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
 import org.springframework.remoting.support.RemoteInvocationUtils;
 
@@ -27,14 +30,49 @@ import java.lang.reflect.InvocationTargetException;
 
 public class HttpServiceProxy extends HttpInvokerProxyFactoryBean {
 
+    protected ServerSelector serverSelector;
+
+    protected volatile boolean requestExecutorResolved;
+
     public HttpServiceProxy(ServerSelector selector) {
         setRemoteInvocationFactory(new CubaRemoteInvocationFactory());
 
+        this.serverSelector = selector;
+
         ClusteredHttpInvokerRequestExecutor executor = new ClusteredHttpInvokerRequestExecutor(selector);
         executor.setBeanClassLoader(getBeanClassLoader());
         setHttpInvokerRequestExecutor(executor);
     }
 
+    @Override
+    protected RemoteInvocationResult executeRequest(RemoteInvocation invocation) throws Exception {
+        return resolveRequestExecutor().executeRequest(this, invocation);
+    }
+
+    /**
+     * Switches to the pooled HTTP client on first invocation if it is enabled on the client tier. The proxy is
+     * created together with other beans, so the {@link RemotingHttpClient} bean cannot be obtained in the constructor.
+     */
+    protected HttpInvokerRequestExecutor resolveRequestExecutor() {
+        if (!requestExecutorResolved) {
+            synchronized (this) {
+                if (!requestExecutorResolved) {
+                    RemotingHttpClient remotingHttpClient = AppBeans.getAll(RemotingHttpClient.class).values().stream()
+                            .findFirst()
+                            .orElse(null);
+                    if (remotingHttpClient != null && remotingHttpClient.isEnabled()) {
+                        PooledHttpInvokerRequestExecutor executor =
+                                new PooledHttpInvokerRequestExecutor(serverSelector, remotingHttpClient);
+                        executor.setBeanClassLoader(getBeanClassLoader());
+                        setHttpInvokerRequestExecutor(executor);
+                    }
+                    requestExecutorResolved = true;
+                }
+            }
+        }
+        return getHttpInvokerRequestExecutor();
+    }
+
     @Override
     protected Object recreateRemoteInvocationResult(RemoteInvocationResult result) throws Throwable {
         Throwable throwable = result.getException();
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.google.common.collect.ImmutableSet;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * INTERNAL.
+ * <p>
+ * Creates defensive copies of arguments and results of local service invocations passed by reference.
+ * Immutable values are returned as is, other objects are deep copied by Kryo.
+ */
+public final class LocalServiceInvocationCopier {
+
+    private static final Set<Class> IMMUTABLE_CLASSES = ImmutableSet.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigDecimal.class, BigInteger.class, UUID.class, Locale.class, Class.class
+    );
+
+    private LocalServiceInvocationCopier() {
+    }
+
+    public static Object copy(Object value) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        return SerializationSupport.getKryoSerialization().copy(value);
+    }
+
+    public static boolean isImmutable(Object value) {
+        Class<?> valueClass = value.getClass();
+        return IMMUTABLE_CLASSES.contains(valueClass)
+                || value instanceof Enum
+                || valueClass.getName().startsWith("java.time.");
+    }
+}
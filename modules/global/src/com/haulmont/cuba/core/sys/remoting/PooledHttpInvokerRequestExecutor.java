@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
+import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.remoting.httpinvoker.HttpComponentsHttpInvokerRequestExecutor;
+import org.springframework.remoting.httpinvoker.HttpInvokerClientConfiguration;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HttpInvokerRequestExecutor that executes requests using the pooled HTTP client provided by
+ * {@link RemotingHttpClient}, so connections to middleware servers are kept alive and reused between invocations.
+ * Like {@link ClusteredHttpInvokerRequestExecutor}, it selects the server according to the current cluster topology
+ * provided by {@link ServerSelector} and tries the next server if the invocation fails.
+ * <p>
+ * If {@code cuba.remotingCompressionThreshold} is not negative, request bodies exceeding the threshold are
+ * compressed with gzip, and the middleware is asked to compress responses.
+ */
+public class PooledHttpInvokerRequestExecutor extends HttpComponentsHttpInvokerRequestExecutor {
+
+    /**
+     * Request header asking the middleware to compress the response body.
+     */
+    public static final String HTTP_HEADER_COMPRESS_RESPONSE = "X-Cuba-Compress-Response";
+
+    private static final Logger log = LoggerFactory.getLogger(PooledHttpInvokerRequestExecutor.class);
+
+    protected ServerSelector serverSelector;
+
+    protected RemotingHttpClient remotingHttpClient;
+
+    public PooledHttpInvokerRequestExecutor(ServerSelector serverSelector, RemotingHttpClient remotingHttpClient) {
+        this.serverSelector = serverSelector;
+        this.remotingHttpClient = remotingHttpClient;
+    }
+
+    protected RemotingHttpClient getRemotingHttpClient() {
+        return remotingHttpClient;
+    }
+
+    @Override
+    public HttpClient getHttpClient() {
+        return getRemotingHttpClient().getHttpClient();
+    }
+
+    @Override
+    protected RemoteInvocationResult doExecuteRequest(HttpInvokerClientConfiguration config, ByteArrayOutputStream baos)
+            throws IOException, ClassNotFoundException {
+
+        Object context = serverSelector.initContext();
+        String url = currentServiceUrl(serverSelector.getUrl(context), config);
+        if (url == null)
+            throw new IllegalStateException("Server URL list is empty");
+
+        while (true) {
+            HttpPost httpPost = createHttpPost(url, config);
+            try {
+                setRequestBody(config, httpPost, baos);
+                HttpResponse response = executeHttpPost(config, getHttpClient(), httpPost);
+                validateResponse(config, response);
+                InputStream responseBody = getResponseBody(config, response);
+
+                serverSelector.success(context);
+
+                return readRemoteInvocationResult(responseBody, config.getCodebaseUrl());
+            } catch (IOException e) {
+                log.info(String.format("Invocation of %s failed: %s", url, e));
+
+                serverSelector.fail(context);
+                url = currentServiceUrl(serverSelector.getUrl(context), config);
+                if (url != null) {
+                    log.info("Trying to invoke the next available URL: " + url);
+                    continue;
+                }
+                log.info("No more URL available");
+                throw e;
+            } finally {
+                httpPost.releaseConnection();
+            }
+        }
+    }
+
+    @Nullable
+    protected String currentServiceUrl(String url, HttpInvokerClientConfiguration config) {
+        return url == null ? null : url + "/" + config.getServiceUrl();
+    }
+
+    protected HttpPost createHttpPost(String url, HttpInvokerClientConfiguration config) {
+        HttpPost httpPost = new HttpPost(url);
+        httpPost.setConfig(createRequestConfig(config));
+        httpPost.addHeader(HTTP_HEADER_CONTENT_TYPE, getContentType());
+        if (isAcceptGzipEncoding()) {
+            httpPost.addHeader(HTTP_HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
+        }
+        if (getRemotingHttpClient().getCompressionThreshold() >= 0) {
+            httpPost.addHeader(HTTP_HEADER_COMPRESS_RESPONSE, ENCODING_GZIP);
+        }
+        return httpPost;
+    }
+
+    @Override
+    protected RequestConfig createRequestConfig(HttpInvokerClientConfiguration config) {
+        return getRemotingHttpClient().getRequestConfig();
+    }
+
+    @Override
+    protected void setRequestBody(HttpInvokerClientConfiguration config, HttpPost httpPost, ByteArrayOutputStream baos)
+            throws IOException {
+        int threshold = getRemotingHttpClient().getCompressionThreshold();
+        if (threshold >= 0 && baos.size() > threshold) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(baos.size() / 2);
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+                baos.writeTo(gzipOutputStream);
+            }
+            ByteArrayEntity entity = new ByteArrayEntity(compressed.toByteArray(), ContentType.create(getContentType()));
+            entity.setContentEncoding(ENCODING_GZIP);
+            httpPost.setEntity(entity);
+        } else {
+            super.setRequestBody(config, httpPost, baos);
+        }
+    }
+
+    @Override
+    protected void doWriteRemoteInvocation(RemoteInvocation invocation, ObjectOutputStream oos) throws IOException {
+        SerializationSupport.serialize(invocation, oos);
+    }
+
+    @Override
+    protected RemoteInvocationResult doReadRemoteInvocationResult(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        return (RemoteInvocationResult) SerializationSupport.deserialize(ois);
+    }
+}
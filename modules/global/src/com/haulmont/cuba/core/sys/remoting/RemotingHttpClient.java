@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * Holds the HTTP client shared by the client tier for service invocations and file transfer to the middleware.
+ * <p>
+ * The client keeps a pool of persistent connections, so requests to the same middleware server reuse established
+ * TCP and TLS connections instead of opening a new one for each request. The bean is available on client tiers only.
+ */
+public interface RemotingHttpClient {
+
+    String NAME = "cuba_RemotingHttpClient";
+
+    /**
+     * @return whether the pooled HTTP client is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * @return size of a service invocation request in bytes starting from which the request is compressed,
+     * or -1 if compression is disabled
+     */
+    int getCompressionThreshold();
+
+    /**
+     * @return shared HTTP client, created on first access
+     */
+    CloseableHttpClient getHttpClient();
+
+    /**
+     * @return request config with connection timeouts defined by application properties
+     */
+    RequestConfig getRequestConfig();
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.servlet;
+
+import com.haulmont.cuba.core.entity.FileDescriptor;
+import com.haulmont.cuba.core.sys.AppContext;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpRange;
+
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * INTERNAL.
+ * <p>
+ * Supports conditional and partial (HTTP {@code Range}) requests in controllers downloading files defined by
+ * {@link FileDescriptor}s.
+ * <p>
+ * The entity tag of a file is built from the file descriptor identifier and size. By default, responses must be
+ * revalidated by clients on each use, which costs a {@code 304 Not Modified} response if the file is not changed.
+ * If the {@code cuba.download.cacheMaxAge} application property is set to a positive number of seconds, files are
+ * considered immutable and cached by clients without revalidation for the specified time.
+ */
+public final class FileDownloadSupport {
+
+    private FileDownloadSupport() {
+    }
+
+    /**
+     * Describes a byte range of a file to send in response.
+     */
+    public static class Range {
+
+        private final long start;
+        private final long end;
+
+        public Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return position of the first byte
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return position of the last byte, inclusive
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        public long getLength() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * @return entity tag of the file
+     */
+    public static String getETag(FileDescriptor fd) {
+        return "\"" + fd.getId() + "-" + fd.getSize() + "\"";
+    }
+
+    /**
+     * Sets caching headers of a file download response.
+     */
+    public static void setCacheHeaders(HttpServletResponse response, FileDescriptor fd) {
+        int maxAge = getCacheMaxAge();
+        if (maxAge > 0) {
+            response.setHeader("Cache-Control", "private, max-age=" + maxAge + ", immutable");
+        } else {
+            response.setHeader("Cache-Control", "no-cache");
+        }
+        response.setHeader("ETag", getETag(fd));
+        if (fd.getSize() != null) {
+            response.setHeader("Accept-Ranges", "bytes");
+        }
+    }
+
+    /**
+     * @return true if the client already has the current version of the file and {@code 304 Not Modified} can be
+     * sent instead of the file contents
+     */
+    public static boolean isNotModified(HttpServletRequest request, FileDescriptor fd) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (StringUtils.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        String eTag = getETag(fd);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = StringUtils.removeStart(tag.trim(), "W/");
+            if ("*".equals(tag) || eTag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the byte range requested by the {@code Range} header.
+     * <p>
+     * Only requests for a single range are served partially, requests without the {@code Range} header,
+     * with several ranges, with the {@code If-Range} header not matching the current entity tag, or for files
+     * of unknown size are served with the full content.
+     *
+     * @return requested range or null if the full content must be sent
+     * @throws IllegalArgumentException if the range cannot be satisfied. In this case the caller should send
+     *                                  {@code 416 Range Not Satisfiable} response, see {@link #setRangeNotSatisfiable}
+     */
+    @Nullable
+    public static Range getRange(HttpServletRequest request, FileDescriptor fd) {
+        String rangeHeader = request.getHeader("Range");
+        Long size = fd.getSize();
+        if (StringUtils.isBlank(rangeHeader) || size == null) {
+            return null;
+        }
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange != null && !getETag(fd).equals(ifRange.trim())) {
+            return null;
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // a syntactically invalid header is ignored
+            return null;
+        }
+        if (ranges.size() != 1) {
+            return null;
+        }
+        HttpRange range = ranges.get(0);
+        long start = range.getRangeStart(size);
+        long end = range.getRangeEnd(size);
+        if (start > end) {
+            throw new IllegalArgumentException("Range is not satisfiable");
+        }
+        return new Range(start, end);
+    }
+
+    /**
+     * Sets status and headers of a partial content response.
+     */
+    public static void setPartialContent(HttpServletResponse response, FileDescriptor fd, Range range) {
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader("Content-Range", "bytes " + range.getStart() + "-" + range.getEnd() + "/" + fd.getSize());
+        response.setHeader("Content-Length", String.valueOf(range.getLength()));
+    }
+
+    /**
+     * Sends {@code 416 Range Not Satisfiable} response.
+     */
+    public static void setRangeNotSatisfiable(HttpServletResponse response, FileDescriptor fd) {
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.setHeader("Content-Range", "bytes */" + fd.getSize());
+    }
+
+    private static int getCacheMaxAge() {
+        String maxAge = AppContext.getProperty("cuba.download.cacheMaxAge");
+        return StringUtils.isBlank(maxAge) ? 0 : Integer.parseInt(maxAge);
+    }
+}
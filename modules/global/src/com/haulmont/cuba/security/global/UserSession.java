@@ -17,6 +17,7 @@
 package com.haulmont.cuba.security.global;
 
 import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaProperty;
 import com.haulmont.cuba.core.sys.UserInvocationContext;
 import com.haulmont.cuba.security.entity.*;
 
@@ -58,12 +59,19 @@ public class UserSession implements Serializable {
 
     protected transient Map<String, Object> localAttributes;
 
+    /**
+     * Entity and attribute permissions compiled from {@link #permissions} by entity name. Shared between copies
+     * of the session together with the permission maps and cleared when the permissions change.
+     */
+    protected transient Map<String, EntityPermissions> entityPermissions;
+
     /**
      * INTERNAL
      * Used only for kryo serialization
      */
     public UserSession() {
         localAttributes = new ConcurrentHashMap<>();
+        entityPermissions = new ConcurrentHashMap<>();
     }
 
     /**
@@ -93,6 +101,7 @@ public class UserSession implements Serializable {
         constraints = new HashMap<>();
         attributes = new ConcurrentHashMap<>();
         localAttributes = new ConcurrentHashMap<>();
+        entityPermissions = new ConcurrentHashMap<>();
     }
 
     /**
@@ -120,6 +129,7 @@ public class UserSession implements Serializable {
         attributes = src.attributes;
         roleTypes = src.roleTypes;
         localAttributes = src.localAttributes;
+        entityPermissions = src.getEntityPermissions();
         address = src.address;
         clientInfo = src.clientInfo;
     }
@@ -127,6 +137,7 @@ public class UserSession implements Serializable {
     private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
         stream.defaultReadObject();
         localAttributes = new ConcurrentHashMap<>();
+        entityPermissions = new ConcurrentHashMap<>();
     }
 
     /**
@@ -264,6 +275,7 @@ public class UserSession implements Serializable {
             permissions[type.ordinal()].put(target, value);
             if (extTarget != null)
                 permissions[type.ordinal()].put(extTarget, value);
+            permissionsChanged(type);
         }
     }
 
@@ -272,6 +284,7 @@ public class UserSession implements Serializable {
      */
     public void removePermission(PermissionType type, String target) {
         permissions[type.ordinal()].remove(target);
+        permissionsChanged(type);
     }
 
     /**
@@ -299,17 +312,18 @@ public class UserSession implements Serializable {
      * Check user permission for the entity operation
      */
     public boolean isEntityOpPermitted(MetaClass metaClass, EntityOp entityOp) {
-        return isPermitted(PermissionType.ENTITY_OP,
-                metaClass.getName() + Permission.TARGET_PATH_DELIMETER + entityOp.getId());
+        if (roleTypes.contains(RoleType.SUPER))
+            return true;
+        return getEntityPermissions(metaClass).isOpPermitted(entityOp);
     }
 
     /**
      * Check user permission for the entity attribute
      */
     public boolean isEntityAttrPermitted(MetaClass metaClass, String property, EntityAttrAccess access) {
-        return isPermitted(PermissionType.ENTITY_ATTR,
-                metaClass.getName() + Permission.TARGET_PATH_DELIMETER + property,
-                access.getId());
+        if (roleTypes.contains(RoleType.SUPER))
+            return true;
+        return getEntityPermissions(metaClass).isAttrPermitted(property, access);
     }
 
     /**
@@ -356,6 +370,16 @@ public class UserSession implements Serializable {
         // If we have super-role no need to check anything
         if (roleTypes.contains(RoleType.SUPER))
             return true;
+        Integer v = getEffectivePermissionValue(type, target);
+        // Return true if no value set for this target, or if the value is more than requested
+        return v == null || v >= value;
+    }
+
+    /**
+     * Permission value assigned by the set of permissions and by non-standard roles, or null if no value is set.
+     */
+    @Nullable
+    protected Integer getEffectivePermissionValue(PermissionType type, String target) {
         // Get permission value assigned by the set of permissions
         Integer v = permissions[type.ordinal()].get(target);
         // Get permission value assigned by non-standard roles
@@ -365,8 +389,83 @@ public class UserSession implements Serializable {
                 v = v1;
             }
         }
-        // Return true if no value set for this target, or if the value is more than requested
-        return v == null || v >= value;
+        return v;
+    }
+
+    protected EntityPermissions getEntityPermissions(MetaClass metaClass) {
+        Map<String, EntityPermissions> map = getEntityPermissions();
+        EntityPermissions entityPerms = map.get(metaClass.getName());
+        if (entityPerms == null) {
+            entityPerms = new EntityPermissions(metaClass);
+            map.put(metaClass.getName(), entityPerms);
+        }
+        return entityPerms;
+    }
+
+    protected Map<String, EntityPermissions> getEntityPermissions() {
+        // the field is transient and can be absent after deserialization by Kryo
+        if (entityPermissions == null) {
+            entityPermissions = new ConcurrentHashMap<>();
+        }
+        return entityPermissions;
+    }
+
+    protected void permissionsChanged(PermissionType type) {
+        if (type == PermissionType.ENTITY_OP || type == PermissionType.ENTITY_ATTR) {
+            getEntityPermissions().clear();
+        }
+    }
+
+    /**
+     * Effective permissions for operations and attributes of one entity. Operation permissions are computed
+     * at once, attribute permissions are computed for all properties of the entity on creation and on demand
+     * for other properties, e.g. dynamic attributes.
+     */
+    protected class EntityPermissions {
+
+        /**
+         * Means that no permission value is set for the attribute, so any access is allowed.
+         */
+        protected static final int NOT_SET = Integer.MAX_VALUE;
+
+        protected final String entityName;
+        protected final boolean[] ops;
+        protected final Map<String, Integer> attrs = new ConcurrentHashMap<>();
+
+        protected EntityPermissions(MetaClass metaClass) {
+            entityName = metaClass.getName();
+
+            EntityOp[] entityOps = EntityOp.values();
+            ops = new boolean[entityOps.length];
+            for (EntityOp entityOp : entityOps) {
+                Integer v = getEffectivePermissionValue(PermissionType.ENTITY_OP,
+                        entityName + Permission.TARGET_PATH_DELIMETER + entityOp.getId());
+                ops[entityOp.ordinal()] = v == null || v >= 1;
+            }
+
+            for (MetaProperty metaProperty : metaClass.getProperties()) {
+                attrs.put(metaProperty.getName(), computeAttrValue(metaProperty.getName()));
+            }
+        }
+
+        protected boolean isOpPermitted(EntityOp entityOp) {
+            return ops[entityOp.ordinal()];
+        }
+
+        protected boolean isAttrPermitted(String property, EntityAttrAccess access) {
+            Integer v = attrs.get(property);
+            if (v == null) {
+                v = computeAttrValue(property);
+                attrs.put(property, v);
+            }
+            return v >= access.getId();
+        }
+
+        protected int computeAttrValue(String property) {
+            Integer v = getEffectivePermissionValue(PermissionType.ENTITY_ATTR,
+                    entityName + Permission.TARGET_PATH_DELIMETER + property);
+            return v == null ? NOT_SET : v;
+        }
     }
 
     /**
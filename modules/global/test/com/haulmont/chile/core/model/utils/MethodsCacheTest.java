@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.chile.core.model.utils;
+
+import junit.framework.TestCase;
+
+import java.lang.reflect.InvocationTargetException;
+
+public class MethodsCacheTest extends TestCase {
+
+    public void testAccessors() throws Exception {
+        MethodsCache cache = new MethodsCache(Bean.class);
+        Bean bean = new Bean();
+
+        cache.invokeSetter(bean, "name", "abc");
+        assertEquals("abc", bean.getName());
+        assertEquals("abc", cache.invokeGetter(bean, "name"));
+
+        cache.invokeSetter(bean, "count", 10);
+        assertEquals(10, cache.invokeGetter(bean, "count"));
+
+        cache.invokeSetter(bean, "amount", 5);
+        assertEquals(5L, cache.invokeGetter(bean, "amount"));
+
+        cache.invokeSetter(bean, "active", true);
+        assertEquals(Boolean.TRUE, cache.invokeGetter(bean, "active"));
+
+        try {
+            cache.invokeSetter(bean, "count", null);
+            fail();
+        } catch (RuntimeException ignore) {
+        }
+
+        try {
+            cache.invokeGetter(bean, "unknown");
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+    }
+
+    public void testNonPublicClass() throws Exception {
+        MethodsCache cache = new MethodsCache(HiddenBean.class);
+        HiddenBean bean = new HiddenBean();
+
+        cache.invokeSetter(bean, "name", "abc");
+        assertEquals("abc", cache.invokeGetter(bean, "name"));
+    }
+
+    public void testWrongArguments() throws Exception {
+        assertWrongArguments(new MethodsCache(Bean.class), new Bean());
+        assertWrongArguments(new MethodsCache(HiddenBean.class), new HiddenBean());
+    }
+
+    public void testAccessorExceptions() throws Exception {
+        assertAccessorExceptions(new MethodsCache(Bean.class), new Bean());
+        assertAccessorExceptions(new MethodsCache(HiddenBean.class), new HiddenBean());
+    }
+
+    private void assertWrongArguments(MethodsCache cache, Object bean) {
+        try {
+            cache.invokeSetter(bean, "name", 10);
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+
+        try {
+            cache.invokeSetter(new Object(), "name", "abc");
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+
+        try {
+            cache.invokeGetter(new Object(), "name");
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    private void assertAccessorExceptions(MethodsCache cache, Object bean) {
+        try {
+            cache.invokeGetter(bean, "failing");
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertTrue(((InvocationTargetException) e.getCause()).getTargetException() instanceof IllegalStateException);
+        }
+
+        try {
+            cache.invokeSetter(bean, "failing", "abc");
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertTrue(((InvocationTargetException) e.getCause()).getTargetException() instanceof IllegalStateException);
+        }
+    }
+
+    public static class Bean {
+
+        private String name;
+        private int count;
+        private long amount;
+        private boolean active;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public void setAmount(long amount) {
+            this.amount = amount;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public String getFailing() {
+            throw new IllegalStateException("getter failure");
+        }
+
+        public void setFailing(String value) {
+            throw new IllegalStateException("setter failure");
+        }
+    }
+
+    static class HiddenBean {
+
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getFailing() {
+            throw new IllegalStateException("getter failure");
+        }
+
+        public void setFailing(String value) {
+            throw new IllegalStateException("setter failure");
+        }
+    }
+}
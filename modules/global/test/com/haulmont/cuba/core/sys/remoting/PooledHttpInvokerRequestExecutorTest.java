@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class PooledHttpInvokerRequestExecutorTest {
+
+    @Test
+    public void testRequestBelowThresholdIsNotCompressed() throws Exception {
+        PooledHttpInvokerRequestExecutor executor = createExecutor(100);
+        byte[] body = createBody(100);
+
+        HttpPost httpPost = executor.createHttpPost("http://localhost/app-core/remoting/service", null);
+        executor.setRequestBody(null, httpPost, toStream(body));
+
+        HttpEntity entity = httpPost.getEntity();
+        assertNull(entity.getContentEncoding());
+        assertArrayEquals(body, IOUtils.toByteArray(entity.getContent()));
+        // the middleware compresses responses if compression is enabled
+        assertEquals("gzip",
+                httpPost.getFirstHeader(PooledHttpInvokerRequestExecutor.HTTP_HEADER_COMPRESS_RESPONSE).getValue());
+    }
+
+    @Test
+    public void testRequestAboveThresholdIsCompressed() throws Exception {
+        PooledHttpInvokerRequestExecutor executor = createExecutor(100);
+        byte[] body = createBody(101);
+
+        HttpPost httpPost = executor.createHttpPost("http://localhost/app-core/remoting/service", null);
+        executor.setRequestBody(null, httpPost, toStream(body));
+
+        HttpEntity entity = httpPost.getEntity();
+        Header contentEncoding = entity.getContentEncoding();
+        assertNotNull(contentEncoding);
+        assertEquals("gzip", contentEncoding.getValue());
+        try (GZIPInputStream inputStream = new GZIPInputStream(entity.getContent())) {
+            assertArrayEquals(body, IOUtils.toByteArray(inputStream));
+        }
+    }
+
+    @Test
+    public void testCompressionDisabled() throws Exception {
+        PooledHttpInvokerRequestExecutor executor = createExecutor(-1);
+        byte[] body = createBody(10000);
+
+        HttpPost httpPost = executor.createHttpPost("http://localhost/app-core/remoting/service", null);
+        executor.setRequestBody(null, httpPost, toStream(body));
+
+        assertNull(httpPost.getEntity().getContentEncoding());
+        assertNull(httpPost.getFirstHeader(PooledHttpInvokerRequestExecutor.HTTP_HEADER_COMPRESS_RESPONSE));
+    }
+
+    @Test
+    public void testRequestConfigOfSharedClient() throws Exception {
+        PooledHttpInvokerRequestExecutor executor = createExecutor(-1);
+
+        HttpPost httpPost = executor.createHttpPost("http://localhost/app-core/remoting/service", null);
+
+        assertEquals(1000, httpPost.getConfig().getConnectTimeout());
+        assertEquals(2000, httpPost.getConfig().getSocketTimeout());
+    }
+
+    private PooledHttpInvokerRequestExecutor createExecutor(int compressionThreshold) {
+        return new PooledHttpInvokerRequestExecutor(null, new TestRemotingHttpClient(compressionThreshold));
+    }
+
+    private byte[] createBody(int size) {
+        byte[] body = new byte[size];
+        Arrays.fill(body, (byte) 'a');
+        return body;
+    }
+
+    private ByteArrayOutputStream toStream(byte[] body) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(body, 0, body.length);
+        return outputStream;
+    }
+
+    private static class TestRemotingHttpClient implements RemotingHttpClient {
+
+        private final int compressionThreshold;
+
+        public TestRemotingHttpClient(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        @Override
+        public CloseableHttpClient getHttpClient() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public RequestConfig getRequestConfig() {
+            return RequestConfig.custom()
+                    .setConnectTimeout(1000)
+                    .setSocketTimeout(2000)
+                    .build();
+        }
+    }
+}
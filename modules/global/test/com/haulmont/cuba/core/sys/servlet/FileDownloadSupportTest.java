@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.servlet;
+
+import com.haulmont.cuba.core.entity.FileDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FileDownloadSupportTest {
+
+    private FileDescriptor fd;
+
+    @Before
+    public void setUp() throws Exception {
+        fd = new FileDescriptor();
+        fd.setName("test.txt");
+        fd.setSize(1000L);
+    }
+
+    @Test
+    public void testNoRange() throws Exception {
+        assertNull(FileDownloadSupport.getRange(createRequest(new HashMap<>()), fd));
+    }
+
+    @Test
+    public void testSingleRange() throws Exception {
+        FileDownloadSupport.Range range = getRange("bytes=100-199");
+        assertNotNull(range);
+        assertEquals(100, range.getStart());
+        assertEquals(199, range.getEnd());
+        assertEquals(100, range.getLength());
+
+        range = getRange("bytes=900-");
+        assertNotNull(range);
+        assertEquals(900, range.getStart());
+        assertEquals(999, range.getEnd());
+
+        // suffix range
+        range = getRange("bytes=-10");
+        assertNotNull(range);
+        assertEquals(990, range.getStart());
+        assertEquals(999, range.getEnd());
+
+        // end beyond the file size is truncated
+        range = getRange("bytes=500-5000");
+        assertNotNull(range);
+        assertEquals(999, range.getEnd());
+    }
+
+    @Test
+    public void testMalformedRangeIsIgnored() throws Exception {
+        assertNull(getRange("bytes=abc"));
+        assertNull(getRange("items=0-10"));
+        assertNull(getRange("bytes=10-5"));
+    }
+
+    @Test
+    public void testMultipleRangesAreServedFully() throws Exception {
+        assertNull(getRange("bytes=0-10, 20-30"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangeNotSatisfiable() throws Exception {
+        getRange("bytes=1000-1100");
+    }
+
+    @Test
+    public void testUnknownSize() throws Exception {
+        fd.setSize(null);
+        assertNull(getRange("bytes=0-10"));
+    }
+
+    @Test
+    public void testIfRange() throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Range", "bytes=0-9");
+        headers.put("If-Range", FileDownloadSupport.getETag(fd));
+        assertNotNull(FileDownloadSupport.getRange(createRequest(headers), fd));
+
+        // the file has been changed, full content is sent
+        headers.put("If-Range", "\"" + fd.getId() + "-1\"");
+        assertNull(FileDownloadSupport.getRange(createRequest(headers), fd));
+    }
+
+    @Test
+    public void testIfNoneMatch() throws Exception {
+        String eTag = FileDownloadSupport.getETag(fd);
+
+        assertFalse(isNotModified(null));
+        assertFalse(isNotModified(""));
+        assertTrue(isNotModified(eTag));
+        assertTrue(isNotModified("W/" + eTag));
+        assertTrue(isNotModified("\"other\", " + eTag));
+        assertTrue(isNotModified("*"));
+        assertFalse(isNotModified("\"other\""));
+
+        fd.setSize(2000L);
+        assertFalse(isNotModified(eTag));
+    }
+
+    private FileDownloadSupport.Range getRange(String rangeHeader) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Range", rangeHeader);
+        return FileDownloadSupport.getRange(createRequest(headers), fd);
+    }
+
+    private boolean isNotModified(String ifNoneMatch) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("If-None-Match", ifNoneMatch);
+        return FileDownloadSupport.isNotModified(createRequest(headers), fd);
+    }
+
+    private HttpServletRequest createRequest(Map<String, String> headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HttpServletRequest.class},
+                (proxy, method, args) -> {
+                    if ("getHeader".equals(method.getName())) {
+                        return headers.get((String) args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.security.global;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.impl.MetaClassImpl;
+import com.haulmont.chile.core.model.impl.MetaModelImpl;
+import com.haulmont.chile.core.model.impl.MetaPropertyImpl;
+import com.haulmont.chile.core.model.impl.SessionImpl;
+import com.haulmont.cuba.security.entity.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UserSessionTest {
+
+    private MetaClass metaClass;
+    private UserSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        SessionImpl metadataSession = new SessionImpl();
+        metaClass = new MetaClassImpl(new MetaModelImpl(metadataSession, "test"), "test$Order");
+        new MetaPropertyImpl(metaClass, "number");
+        new MetaPropertyImpl(metaClass, "amount");
+
+        Role role = new Role();
+        role.setName("test");
+        role.setType(RoleType.STANDARD);
+
+        session = new UserSession(UUID.randomUUID(), new User(), Collections.singletonList(role), Locale.ENGLISH, false);
+    }
+
+    @Test
+    public void testEntityOpPermissions() throws Exception {
+        session.addPermission(PermissionType.ENTITY_OP, "test$Order:delete", null, 0);
+
+        assertTrue(session.isEntityOpPermitted(metaClass, EntityOp.READ));
+        assertFalse(session.isEntityOpPermitted(metaClass, EntityOp.DELETE));
+
+        session.removePermission(PermissionType.ENTITY_OP, "test$Order:delete");
+
+        assertTrue(session.isEntityOpPermitted(metaClass, EntityOp.DELETE));
+    }
+
+    @Test
+    public void testEntityAttrPermissions() throws Exception {
+        session.addPermission(PermissionType.ENTITY_ATTR, "test$Order:amount", null, EntityAttrAccess.VIEW.getId());
+
+        assertTrue(session.isEntityAttrPermitted(metaClass, "number", EntityAttrAccess.MODIFY));
+        assertTrue(session.isEntityAttrPermitted(metaClass, "amount", EntityAttrAccess.VIEW));
+        assertFalse(session.isEntityAttrPermitted(metaClass, "amount", EntityAttrAccess.MODIFY));
+
+        // attribute which is not a property of the meta-class
+        session.addPermission(PermissionType.ENTITY_ATTR, "test$Order:+category", null, EntityAttrAccess.DENY.getId());
+
+        assertFalse(session.isEntityAttrPermitted(metaClass, "+category", EntityAttrAccess.VIEW));
+
+        // copies of the session share permissions
+        UserSession copy = new UserSession(session);
+        session.addPermission(PermissionType.ENTITY_ATTR, "test$Order:number", null, EntityAttrAccess.DENY.getId());
+
+        assertFalse(copy.isEntityAttrPermitted(metaClass, "number", EntityAttrAccess.VIEW));
+    }
+}
@@ -16,8 +16,10 @@
 
 package com.haulmont.cuba.gui.actions.list;
 
+import com.haulmont.cuba.client.ClientConfig;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.BeanLocator;
+import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.Messages;
 import com.haulmont.cuba.gui.ComponentsHelper;
 import com.haulmont.cuba.gui.Dialogs;
@@ -28,10 +30,14 @@ import com.haulmont.cuba.gui.components.actions.ListAction;
 import com.haulmont.cuba.gui.components.data.meta.ContainerDataUnit;
 import com.haulmont.cuba.gui.export.ExcelExporter;
 import com.haulmont.cuba.gui.export.ExportDisplay;
+import com.haulmont.cuba.gui.export.ExportFormat;
+import com.haulmont.cuba.gui.export.StreamingExporter;
 import com.haulmont.cuba.gui.icons.CubaIcon;
 import com.haulmont.cuba.gui.icons.Icons;
 import com.haulmont.cuba.gui.model.CollectionContainer;
+import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -51,6 +57,11 @@ public class ExcelAction extends ListAction {
      */
     protected boolean exportAggregation = true;
 
+    /**
+     * If not null, all rows are exported by {@link StreamingExporter} into this format.
+     */
+    protected ExportFormat streamingFormat;
+
     public ExcelAction() {
         super(ID);
     }
@@ -75,6 +86,14 @@ public class ExcelAction extends ListAction {
         this.beanLocator = beanLocator;
     }
 
+    @Inject
+    protected void setConfiguration(Configuration configuration) {
+        String format = configuration.getConfig(ClientConfig.class).getExcelActionStreamingFormat();
+        if (StringUtils.isNotEmpty(format)) {
+            setStreamingFormat(ExportFormat.getByExtension(format));
+        }
+    }
+
     @Override
     public void actionPerform(Component component) {
         if (!hasSubscriptions(ActionPerformedEvent.class)) {
@@ -141,10 +160,32 @@ public class ExcelAction extends ListAction {
         this.fileName = fileName;
     }
 
+    @Nullable
+    public ExportFormat getStreamingFormat() {
+        return streamingFormat;
+    }
+
     /**
-     * Export via {@link ExcelExporter}.
+     * Sets the format to export all rows by {@link StreamingExporter}: {@link ExportFormat#XLSX} or
+     * {@link ExportFormat#CSV}. If null, all rows are exported by {@link ExcelExporter}.
+     */
+    public void setStreamingFormat(@Nullable ExportFormat streamingFormat) {
+        if (streamingFormat != null && streamingFormat != ExportFormat.XLSX && streamingFormat != ExportFormat.CSV) {
+            throw new IllegalArgumentException("Unsupported streaming export format: " + streamingFormat);
+        }
+        this.streamingFormat = streamingFormat;
+    }
+
+    /**
+     * Export via {@link ExcelExporter}, or via {@link StreamingExporter} if all rows are exported and
+     * the streaming format is set.
      */
     protected void export(ExcelExporter.ExportMode exportMode) {
+        if (exportMode == ExcelExporter.ExportMode.ALL_ROWS && streamingFormat != null) {
+            exportStreaming();
+            return;
+        }
+
         ExcelExporter exporter = new ExcelExporter();
         exporter.setExportAggregation(exportAggregation);
 
@@ -177,4 +218,28 @@ public class ExcelAction extends ListAction {
                     .show();
         }
     }
-}
\ No newline at end of file
+
+    protected void exportStreaming() {
+        StreamingExporter exporter = new StreamingExporter(streamingFormat);
+
+        Window window = ComponentsHelper.getWindowNN(target);
+
+        ExportDisplay display = beanLocator.get(ExportDisplay.NAME);
+        display.setFrame(window);
+
+        if (target instanceof Table) {
+            @SuppressWarnings("unchecked")
+            Table<Entity> table = (Table<Entity>) target;
+            exporter.exportTable(table, table.getNotCollapsedColumns(), display, fileName);
+        }
+
+        if (target instanceof DataGrid) {
+            @SuppressWarnings("unchecked")
+            DataGrid<Entity> dataGrid = (DataGrid<Entity>) target;
+            List<DataGrid.Column> columns = dataGrid.getVisibleColumns().stream()
+                    .filter(col -> !col.isCollapsed())
+                    .collect(Collectors.toList());
+            exporter.exportDataGrid(dataGrid, columns, display, fileName);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Loads entities of a {@link CollectionLoader} query from the database by pages on demand.
+ * <p>
+ * The number of entities is obtained by a count query, pages are loaded with the first and max results set
+ * and the current sort passed to the database. Only a limited number of recently used pages is kept in memory,
+ * so the query should define a stable order of results.
+ *
+ * @param <E> entity type
+ */
+public class PagedEntityCache<E extends Entity> {
+
+    private static final Logger log = LoggerFactory.getLogger(PagedEntityCache.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 20;
+
+    protected final CollectionLoader<E> loader;
+    protected final DataManager dataManager;
+    protected final MetadataTools metadataTools;
+    protected final int pageSize;
+    protected final int maxPages;
+
+    protected final Map<Integer, List<E>> pages;
+    protected final Map<Object, Integer> indexes = new HashMap<>();
+
+    protected Sort sort;
+    protected int size = -1;
+
+    /**
+     * @param loader        loader defining the query, its parameters and view
+     * @param dataManager   data manager executing the queries
+     * @param metadataTools metadata tools used to check that a sort property is persistent
+     * @param pageSize      number of entities loaded by one query
+     * @param maxPages      maximum number of pages kept in memory
+     */
+    public PagedEntityCache(CollectionLoader<E> loader, DataManager dataManager, MetadataTools metadataTools,
+                            int pageSize, int maxPages) {
+        this.loader = loader;
+        this.dataManager = dataManager;
+        this.metadataTools = metadataTools;
+        this.pageSize = Math.max(pageSize, 1);
+        this.maxPages = Math.max(maxPages, 1);
+
+        this.pages = new LinkedHashMap<Integer, List<E>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<E>> eldest) {
+                if (size() > PagedEntityCache.this.maxPages) {
+                    removeIndexes(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return total number of entities returned by the query
+     */
+    public int size() {
+        if (size < 0) {
+            LoadContext<E> loadContext = loader.createLoadContext();
+            loadContext.getQuery()
+                    .setFirstResult(0)
+                    .setMaxResults(0)
+                    .setSort(null);
+            size = (int) Math.min(dataManager.getCount(loadContext), Integer.MAX_VALUE);
+        }
+        return size;
+    }
+
+    /**
+     * @param index entity index in the query results
+     * @return entity or null if the index is out of range
+     */
+    @Nullable
+    public E getItem(int index) {
+        if (index < 0 || index >= size()) {
+            return null;
+        }
+        List<E> page = getPage(index / pageSize);
+        int offset = index % pageSize;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    /**
+     * @param startIndex    index of the first entity
+     * @param numberOfItems maximum number of entities
+     * @return entities of the given range loading missing pages
+     */
+    public List<E> getItems(int startIndex, int numberOfItems) {
+        int endIndex = (int) Math.min((long) startIndex + numberOfItems, size());
+        List<E> items = new ArrayList<>(Math.max(endIndex - startIndex, 0));
+        for (int i = Math.max(startIndex, 0); i < endIndex; i++) {
+            E item = getItem(i);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * @param itemId entity id
+     * @return entity if its page is loaded, null otherwise
+     */
+    @Nullable
+    public E getItemById(Object itemId) {
+        Integer index = indexes.get(itemId);
+        if (index == null) {
+            return null;
+        }
+        List<E> page = pages.get(index / pageSize);
+        return page == null ? null : page.get(index % pageSize);
+    }
+
+    /**
+     * @param itemId entity id
+     * @return index of the entity if its page is loaded, -1 otherwise
+     */
+    public int indexOfId(Object itemId) {
+        Integer index = indexes.get(itemId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns a stream of all entities of the query.
+     * <p>
+     * Consuming the whole stream loads every page of the query result, one query per page, so it is as expensive
+     * as loading the whole result at once. Only the last {@code maxPages} pages stay in memory afterwards.
+     * Use {@link #getItems(int, int)} to access a range of entities.
+     *
+     * @return stream of all entities, loading pages while it is consumed
+     */
+    public Stream<E> stream() {
+        return IntStream.range(0, size())
+                .mapToObj(this::getItem)
+                .filter(Objects::nonNull);
+    }
+
+    @Nullable
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Sets the sort passed to the database and discards loaded pages.
+     */
+    public void setSort(@Nullable Sort sort) {
+        this.sort = sort;
+        reset();
+    }
+
+    /**
+     * Creates a sort by table or data grid column identifiers. Columns of non-persistent properties are skipped,
+     * because the database cannot sort by them.
+     *
+     * @return sort or null if none of the columns can be sorted by the database
+     */
+    @Nullable
+    public Sort createSort(Object[] propertyId, boolean[] ascending) {
+        MetaClass metaClass = loader.getContainer().getEntityMetaClass();
+        List<Sort.Order> orders = new ArrayList<>();
+        for (int i = 0; i < propertyId.length; i++) {
+            MetaPropertyPath propertyPath;
+            if (propertyId[i] instanceof MetaPropertyPath) {
+                propertyPath = (MetaPropertyPath) propertyId[i];
+            } else {
+                propertyPath = metaClass.getPropertyPath((String) propertyId[i]);
+            }
+            if (propertyPath == null || !metadataTools.isPersistent(propertyPath)) {
+                log.debug("Cannot sort {} by non-persistent property {}", metaClass.getName(), propertyId[i]);
+                continue;
+            }
+            String property = propertyPath.toPathString();
+            Sort.Order order = ascending[i] ? Sort.Order.asc(property) : Sort.Order.desc(property);
+            orders.add(order);
+        }
+        return orders.isEmpty() ? null : Sort.by(orders);
+    }
+
+    /**
+     * Discards loaded pages and the number of entities, so they are loaded again on next access.
+     */
+    public void reset() {
+        pages.clear();
+        indexes.clear();
+        size = -1;
+    }
+
+    protected List<E> getPage(int pageNumber) {
+        List<E> page = pages.get(pageNumber);
+        if (page == null) {
+            page = loadPage(pageNumber);
+            int firstIndex = pageNumber * pageSize;
+            for (int i = 0; i < page.size(); i++) {
+                indexes.put(page.get(i).getId(), firstIndex + i);
+            }
+            pages.put(pageNumber, page);
+        }
+        return page;
+    }
+
+    protected List<E> loadPage(int pageNumber) {
+        LoadContext<E> loadContext = loader.createLoadContext();
+        LoadContext.Query query = loadContext.getQuery();
+        query.setFirstResult(pageNumber * pageSize);
+        query.setMaxResults(pageSize);
+        if (sort != null) {
+            query.setSort(sort);
+        }
+        return dataManager.loadList(loadContext);
+    }
+
+    protected void removeIndexes(int pageNumber, List<E> page) {
+        int firstIndex = pageNumber * pageSize;
+        for (int i = 0; i < page.size(); i++) {
+            indexes.remove(page.get(i).getId(), firstIndex + i);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.haulmont.bali.events.Subscription;
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.EventObject;
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -76,6 +77,27 @@ public interface TableItems<I> extends DataUnit {
         void resetSortOrder();
     }
 
+    /**
+     * Items which provide access by index, so a table requests only the rows being displayed.
+     */
+    interface Indexed<T> extends Ordered<T> {
+        /**
+         * @return index of the item or -1 if the item is not available
+         */
+        int indexOfId(Object itemId);
+
+        /**
+         * @return id of the item at the given index or null if the index is out of range
+         */
+        @Nullable
+        Object getIdByIndex(int index);
+
+        /**
+         * @return ids of items from the {@code startIndex} and size not exceeding the specified number
+         */
+        List<?> getItemIds(int startIndex, int numberOfItems);
+    }
+
     // todo
     class ValueChangeEvent<T> extends EventObject {
         private final T item;
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data.datagrid;
+
+import com.haulmont.bali.events.EventHub;
+import com.haulmont.bali.events.Subscription;
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.DataManager;
+import com.haulmont.cuba.core.global.MetadataTools;
+import com.haulmont.cuba.gui.components.data.BindingState;
+import com.haulmont.cuba.gui.components.data.DataGridItems;
+import com.haulmont.cuba.gui.components.data.PagedEntityCache;
+import com.haulmont.cuba.gui.components.data.meta.EntityDataGridItems;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Data grid items which load entities of the {@link CollectionLoader} query from the database by pages when
+ * the grid is scrolled, instead of holding all entities in the loader's container. Sorting is performed by
+ * the database.
+ * <p>
+ * The selected item is kept by this object, call {@link #refresh()} to reload the data.
+ *
+ * @param <E> entity type
+ */
+public class PagedDataGridItems<E extends Entity> implements EntityDataGridItems<E>, DataGridItems.Sortable<E> {
+
+    protected CollectionLoader<E> loader;
+    protected PagedEntityCache<E> cache;
+
+    protected E selectedItem;
+
+    protected EventHub events = new EventHub();
+
+    public PagedDataGridItems(CollectionLoader<E> loader, DataManager dataManager, MetadataTools metadataTools) {
+        this(loader, dataManager, metadataTools, PagedEntityCache.DEFAULT_PAGE_SIZE,
+                PagedEntityCache.DEFAULT_MAX_PAGES);
+    }
+
+    public PagedDataGridItems(CollectionLoader<E> loader, DataManager dataManager, MetadataTools metadataTools,
+                              int pageSize, int maxPages) {
+        this.loader = loader;
+        this.cache = new PagedEntityCache<>(loader, dataManager, metadataTools, pageSize, maxPages);
+    }
+
+    /**
+     * Discards loaded pages and reloads visible rows from the database.
+     */
+    public void refresh() {
+        cache.reset();
+        events.publish(ItemSetChangeEvent.class, new ItemSetChangeEvent<>(this));
+    }
+
+    @Override
+    public MetaClass getEntityMetaClass() {
+        return loader.getContainer().getEntityMetaClass();
+    }
+
+    @Override
+    public BindingState getState() {
+        return BindingState.ACTIVE;
+    }
+
+    @Override
+    public Object getItemId(E item) {
+        return item.getId();
+    }
+
+    @Override
+    public E getItem(@Nullable Object itemId) {
+        if (itemId == null) {
+            return null;
+        }
+        E item = cache.getItemById(itemId);
+        if (item == null && selectedItem != null && selectedItem.getId().equals(itemId)) {
+            return selectedItem;
+        }
+        return item;
+    }
+
+    @Override
+    public int indexOfItem(E item) {
+        return cache.indexOfId(item.getId());
+    }
+
+    @Nullable
+    @Override
+    public E getItemByIndex(int index) {
+        return cache.getItem(index);
+    }
+
+    /**
+     * Consuming the whole stream loads every page of the query result, which is as expensive as loading the whole
+     * result at once. Use {@link #getItems(int, int)} to get a range of items.
+     *
+     * @return stream of all items, which loads all pages while it is consumed
+     */
+    @Override
+    public Stream<E> getItems() {
+        return cache.stream();
+    }
+
+    @Override
+    public List<E> getItems(int startIndex, int numberOfItems) {
+        return cache.getItems(startIndex, numberOfItems);
+    }
+
+    @Override
+    public boolean containsItem(E item) {
+        return getItem(item.getId()) != null;
+    }
+
+    @Override
+    public int size() {
+        return cache.size();
+    }
+
+    @Nullable
+    @Override
+    public E getSelectedItem() {
+        return selectedItem;
+    }
+
+    @Override
+    public void setSelectedItem(@Nullable E item) {
+        if (!Objects.equals(selectedItem, item)) {
+            selectedItem = item;
+            events.publish(SelectedItemChangeEvent.class, new SelectedItemChangeEvent<>(this, item));
+        }
+    }
+
+    @Override
+    public void sort(Object[] propertyId, boolean[] ascending) {
+        cache.setSort(cache.createSort(propertyId, ascending));
+        events.publish(ItemSetChangeEvent.class, new ItemSetChangeEvent<>(this));
+    }
+
+    @Override
+    public void resetSortOrder() {
+        cache.setSort(null);
+        events.publish(ItemSetChangeEvent.class, new ItemSetChangeEvent<>(this));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Subscription addStateChangeListener(Consumer<StateChangeEvent> listener) {
+        return events.subscribe(StateChangeEvent.class, listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Subscription addValueChangeListener(Consumer<ValueChangeEvent<E>> listener) {
+        return events.subscribe(ValueChangeEvent.class, (Consumer) listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Subscription addItemSetChangeListener(Consumer<ItemSetChangeEvent<E>> listener) {
+        return events.subscribe(ItemSetChangeEvent.class, (Consumer) listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Subscription addSelectedItemChangeListener(Consumer<SelectedItemChangeEvent<E>> listener) {
+        return events.subscribe(SelectedItemChangeEvent.class, (Consumer) listener);
+    }
+}
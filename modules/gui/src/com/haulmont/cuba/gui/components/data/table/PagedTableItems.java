@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data.table;
+
+import com.haulmont.bali.events.EventHub;
+import com.haulmont.bali.events.Subscription;
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.DataManager;
+import com.haulmont.cuba.core.global.MetadataTools;
+import com.haulmont.cuba.gui.components.data.BindingState;
+import com.haulmont.cuba.gui.components.data.PagedEntityCache;
+import com.haulmont.cuba.gui.components.data.TableItems;
+import com.haulmont.cuba.gui.components.data.meta.EntityTableItems;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Table items which load entities of the {@link CollectionLoader} query from the database by pages when the table
+ * is scrolled, instead of holding all entities in the loader's container. Sorting is performed by the database.
+ * <p>
+ * The selected item is kept by this object, call {@link #refresh()} to reload the data.
+ *
+ * @param <E> entity type
+ */
+public class PagedTableItems<E extends Entity> implements EntityTableItems<E>, TableItems.Sortable<E>,
+        TableItems.Indexed<E> {
+
+    protected CollectionLoader<E> loader;
+    protected PagedEntityCache<E> cache;
+
+    protected E selectedItem;
+
+    protected EventHub events = new EventHub();
+
+    public PagedTableItems(CollectionLoader<E> loader, DataManager dataManager, MetadataTools metadataTools) {
+        this(loader, dataManager, metadataTools, PagedEntityCache.DEFAULT_PAGE_SIZE,
+                PagedEntityCache.DEFAULT_MAX_PAGES);
+    }
+
+    public PagedTableItems(CollectionLoader<E> loader, DataManager dataManager, MetadataTools metadataTools,
+                           int pageSize, int maxPages) {
+        this.loader = loader;
+        this.cache = new PagedEntityCache<>(loader, dataManager, metadataTools, pageSize, maxPages);
+    }
+
+    /**
+     * Discards loaded pages and reloads visible rows from the database.
+     */
+    public void refresh() {
+        cache.reset();
+        events.publish(ItemSetChangeEvent.class, new ItemSetChangeEvent<>(this));
+    }
+
+    /**
+     * Returns a list view of the ids of all entities of the query. Getting an id by index loads only the page
+     * containing it, but iterating over the whole list loads every page of the query result, which is as expensive
+     * as loading the whole result at once. Use {@link #getItemIds(int, int)} to get ids of a range of rows.
+     */
+    @Override
+    public Collection<?> getItemIds() {
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(int index) {
+                return getIdByIndex(index);
+            }
+
+            @Override
+            public int size() {
+                return cache.size();
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public E getItem(Object itemId) {
+        E item = cache.getItemById(itemId);
+        if (item == null && selectedItem != null && selectedItem.getId().equals(itemId)) {
+            return selectedItem;
+        }
+        return item;
+    }
+
+    @Override
+    public Object getItemValue(Object itemId, Object propertyId) {
+        E item = getItem(itemId);
+        return item == null ? null : item.getValueEx((MetaPropertyPath) propertyId);
+    }
+
+    @Override
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public boolean containsId(Object itemId) {
+        return getItem(itemId) != null;
+    }
+
+    @Override
+    public Class<?> getType(Object propertyId) {
+        MetaPropertyPath propertyPath = (MetaPropertyPath) propertyId;
+        return propertyPath.getRangeJavaClass();
+    }
+
+    @Override
+    public boolean supportsProperty(Object propertyId) {
+        return propertyId instanceof MetaPropertyPath;
+    }
+
+    @Override
+    public BindingState getState() {
+        return BindingState.ACTIVE;
+    }
+
+    @Override
+    public MetaClass getEntityMetaClass() {
+        return loader.getContainer().getEntityMetaClass();
+    }
+
+    @Nullable
+    @Override
+    public E getSelectedItem() {
+        return selectedItem;
+    }
+
+    @Override
+    public void setSelectedItem(@Nullable E item) {
+        if (!Objects.equals(selectedItem, item)) {
+            selectedItem = item;
+            events.publish(SelectedItemChangeEvent.class, new SelectedItemChangeEvent<>(this, item));
+        }
+    }
+
+    @Override
+    public int indexOfId(Object itemId) {
+        return cache.indexOfId(itemId);
+    }
+
+    @Nullable
+    @Override
+    public Object getIdByIndex(int index) {
+        E item = cache.getItem(index);
+        return item == null ? null : item.getId();
+    }
+
+    @Override
+    public List<?> getItemIds(int startIndex, int numberOfItems) {
+        List<E> items = cache.getItems(startIndex, numberOfItems);
+        List<Object> ids = new ArrayList<>(items.size());
+        for (E item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    @Override
+    public Object nextItemId(Object itemId) {
+        int index = cache.indexOfId(itemId);
+        return index < 0 ? null : getIdByIndex(index + 1);
+    }
+
+    @Override
+    public Object prevItemId(Object itemId) {
+        int index = cache.indexOfId(itemId);
+        return index <= 0 ? null : getIdByIndex(index - 1);
+    }
+
+    @Override
+    public Object firstItemId() {
+        return getIdByIndex(0);
+    }
+
+    @Override
+    public Object lastItemId() {
+        return getIdByIndex(cache.size() - 1);
+    }
+
+    @Override
+    public boolean isFirstId(Object itemId) {
+        return cache.indexOfId(itemId) == 0;
+    }
+
+    @Override
+    public boolean isLastId(Object itemId) {
+        int index = cache.indexOfId(itemId);
+        return index >= 0 && index == cache.size() - 1;
+    }
+
+    @Override
+    public void sort(Object[] propertyId, boolean[] ascending) {
+        cache.setSort(cache.createSort(propertyId, ascending));
+        events.publish(ItemSetChangeEvent.class, new ItemSetChangeEvent<>(this));
+    }
+
+    @Override
+    public void resetSortOrder() {
+        cache.setSort(null);
+        events.publish(ItemSetChangeEvent.class, new ItemSetChangeEvent<>(this));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Subscription addStateChangeListener(Consumer<StateChangeEvent> listener) {
+        return events.subscribe(StateChangeEvent.class, listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Subscription addValueChangeListener(Consumer<ValueChangeEvent<E>> listener) {
+        return events.subscribe(ValueChangeEvent.class, (Consumer) listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Subscription addItemSetChangeListener(Consumer<ItemSetChangeEvent<E>> listener) {
+        return events.subscribe(ItemSetChangeEvent.class, (Consumer) listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Subscription addSelectedItemChangeListener(Consumer<SelectedItemChangeEvent<E>> listener) {
+        return events.subscribe(SelectedItemChangeEvent.class, (Consumer) listener);
+    }
+}
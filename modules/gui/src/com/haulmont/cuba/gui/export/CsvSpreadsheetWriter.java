@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.gui.export;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Writes spreadsheet rows in CSV format as described in RFC 4180. Values are written formatted according to the
+ * user locale. The output starts with UTF-8 byte order mark, so that Excel recognizes the encoding.
+ */
+public class CsvSpreadsheetWriter implements SpreadsheetWriter {
+
+    protected static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    protected final Writer writer;
+
+    protected final char separator;
+
+    protected boolean firstCell;
+
+    public CsvSpreadsheetWriter(OutputStream outputStream) {
+        this(outputStream, ',');
+    }
+
+    public CsvSpreadsheetWriter(OutputStream outputStream, char separator) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.separator = separator;
+    }
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.CSV;
+    }
+
+    @Override
+    public void writeHeader(List<String> captions) throws IOException {
+        writer.write(BYTE_ORDER_MARK);
+        startRow();
+        for (String caption : captions) {
+            writeText(caption);
+        }
+        endRow();
+    }
+
+    @Override
+    public void startRow() {
+        firstCell = true;
+    }
+
+    @Override
+    public void writeText(@Nullable String value) throws IOException {
+        if (!firstCell) {
+            writer.write(separator);
+        }
+        firstCell = false;
+        if (value != null && !value.isEmpty()) {
+            writeEscaped(value);
+        }
+    }
+
+    @Override
+    public void writeNumber(Number value, String formatted, boolean integer) throws IOException {
+        writeText(formatted);
+    }
+
+    @Override
+    public void writeDate(Date value, String formatted, DateType type, @Nullable TimeZone timeZone) throws IOException {
+        writeText(formatted);
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    protected void writeEscaped(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == separator || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
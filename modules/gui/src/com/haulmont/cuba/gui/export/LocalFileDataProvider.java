@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.gui.export;
+
+import javax.annotation.Nullable;
+import java.io.*;
+
+/**
+ * Provides data of a local file.
+ * <p>
+ * By default the file is not deleted after reading, as {@link ExportDisplay} may read the data several times.
+ * If a dispose action is specified, e.g. deleting a temporary file, it is invoked once the first stream returned by
+ * {@link #provide()} is closed, so the data can be read only once.
+ */
+public class LocalFileDataProvider implements ExportDataProvider {
+
+    protected File file;
+
+    protected Runnable disposeAction;
+
+    public LocalFileDataProvider(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param file          file to read
+     * @param disposeAction action invoked after the data has been read
+     */
+    public LocalFileDataProvider(File file, @Nullable Runnable disposeAction) {
+        this.file = file;
+        this.disposeAction = disposeAction;
+    }
+
+    @Override
+    public InputStream provide() {
+        InputStream inputStream;
+        try {
+            inputStream = new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Unable to read file " + file, e);
+        }
+        if (disposeAction == null) {
+            return inputStream;
+        }
+        return new FilterInputStream(inputStream) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    dispose();
+                }
+            }
+        };
+    }
+
+    protected synchronized void dispose() {
+        if (disposeAction != null) {
+            Runnable action = disposeAction;
+            disposeAction = null;
+            action.run();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
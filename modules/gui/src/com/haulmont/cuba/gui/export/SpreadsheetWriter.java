@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.gui.export;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Writes rows of a spreadsheet to a stream one by one, without keeping them in memory.
+ * <p>
+ * Cells of a row are written in order between {@link #startRow()} and {@link #endRow()}. {@link #finish()} completes
+ * the document, {@link #close()} closes the underlying stream.
+ *
+ * @see StreamingExporter
+ */
+public interface SpreadsheetWriter extends Closeable {
+
+    enum DateType {
+        DATE,
+        TIME,
+        DATE_TIME
+    }
+
+    /**
+     * @return format of the resulting document
+     */
+    ExportFormat getFormat();
+
+    /**
+     * Writes a row of column captions. Must be invoked before any other row is written.
+     */
+    void writeHeader(List<String> captions) throws IOException;
+
+    void startRow() throws IOException;
+
+    /**
+     * Writes a text cell, null is written as an empty cell.
+     */
+    void writeText(@Nullable String value) throws IOException;
+
+    /**
+     * Writes a numeric cell.
+     *
+     * @param value     numeric value
+     * @param formatted value formatted according to its datatype and user locale
+     * @param integer   whether the value has no fractional part
+     */
+    void writeNumber(Number value, String formatted, boolean integer) throws IOException;
+
+    /**
+     * Writes a date cell.
+     *
+     * @param value     date value
+     * @param formatted value formatted according to its datatype and user locale
+     * @param type      which parts of the value are significant
+     * @param timeZone  time zone to show the value in, null for the server time zone
+     */
+    void writeDate(Date value, String formatted, DateType type, @Nullable TimeZone timeZone) throws IOException;
+
+    void endRow() throws IOException;
+
+    /**
+     * Completes the document. No rows can be written after this method is invoked.
+     */
+    void finish() throws IOException;
+}
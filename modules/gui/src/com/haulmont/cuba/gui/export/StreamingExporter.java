@@ -0,0 +1,669 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.gui.export;
+
+import com.haulmont.chile.core.datatypes.Datatype;
+import com.haulmont.chile.core.datatypes.Datatypes;
+import com.haulmont.chile.core.datatypes.TimeZoneAwareDatatype;
+import com.haulmont.chile.core.datatypes.impl.EnumClass;
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaProperty;
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.chile.core.model.Range;
+import com.haulmont.chile.core.model.utils.InstanceUtils;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.IdProxy;
+import com.haulmont.cuba.core.entity.annotation.IgnoreUserTimeZone;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.gui.ComponentsHelper;
+import com.haulmont.cuba.gui.backgroundwork.BackgroundWorkProgressWindow;
+import com.haulmont.cuba.gui.components.DataGrid;
+import com.haulmont.cuba.gui.components.Table;
+import com.haulmont.cuba.gui.components.data.DataGridItems;
+import com.haulmont.cuba.gui.components.data.TableItems;
+import com.haulmont.cuba.gui.components.data.meta.ContainerDataUnit;
+import com.haulmont.cuba.gui.components.data.meta.DatasourceDataUnit;
+import com.haulmont.cuba.gui.components.data.meta.EntityDataUnit;
+import com.haulmont.cuba.gui.executors.BackgroundTask;
+import com.haulmont.cuba.gui.executors.BackgroundWorker;
+import com.haulmont.cuba.gui.executors.TaskLifeCycle;
+import com.haulmont.cuba.gui.executors.UIAccessor;
+import com.haulmont.cuba.gui.model.CollectionContainer;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+import com.haulmont.cuba.gui.model.HasLoader;
+import com.haulmont.cuba.gui.screen.Screen;
+import com.haulmont.cuba.gui.upload.FileUploadingAPI;
+import org.apache.commons.lang3.StringUtils;
+import org.dom4j.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Exports all rows of a {@link Table} or {@link DataGrid} into XLSX or CSV format without building the whole
+ * document in memory.
+ * <p>
+ * If the component is bound to a data loader or a datasource with a query, the rows are loaded from the middleware
+ * page by page, see {@link #setPageSize(int)}, regardless of the rows currently displayed by the component.
+ * Otherwise the rows are taken from the component items. Each row is written to a temporary file right after it is
+ * loaded. The export is performed by a {@link BackgroundTask} showing the progress, the result is shown using
+ * {@link ExportDisplay} when the task is done and the temporary file is deleted after it has been downloaded.
+ * <p>
+ * Values of property columns are obtained in the background thread. Values of columns depending on the UI, i.e.
+ * table columns with {@link Table.Printable} and generated data grid columns, are obtained holding the UI lock
+ * once per page of rows.
+ * <p>
+ * Unlike {@link ExcelExporter}, the streaming exporter does not export groups, tree hierarchy and aggregation rows.
+ */
+public class StreamingExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingExporter.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    protected static final Pattern ORDER_BY_PATTERN = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+
+    public static final long DEFAULT_TIMEOUT_SECONDS = 60 * 60;
+
+    protected ExportFormat format;
+
+    protected int pageSize = DEFAULT_PAGE_SIZE;
+
+    protected long timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+
+    protected String trueStr;
+
+    protected String falseStr;
+
+    protected volatile boolean rowNumberExceeded;
+
+    protected final Messages messages;
+
+    protected final UserSessionSource userSessionSource;
+
+    protected final Metadata metadata;
+
+    protected final MetadataTools metadataTools;
+
+    protected final DataManager dataManager;
+
+    protected final FileUploadingAPI fileUploading;
+
+    protected final BackgroundWorker backgroundWorker;
+
+    public StreamingExporter() {
+        this(ExportFormat.XLSX);
+    }
+
+    /**
+     * @param format {@link ExportFormat#XLSX} or {@link ExportFormat#CSV}
+     */
+    public StreamingExporter(ExportFormat format) {
+        if (format != ExportFormat.XLSX && format != ExportFormat.CSV) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        this.format = format;
+
+        messages = AppBeans.get(Messages.NAME);
+        userSessionSource = AppBeans.get(UserSessionSource.NAME);
+        metadata = AppBeans.get(Metadata.NAME);
+        metadataTools = AppBeans.get(MetadataTools.NAME);
+        dataManager = AppBeans.get(DataManager.NAME);
+        fileUploading = AppBeans.get(FileUploadingAPI.NAME);
+        backgroundWorker = AppBeans.get(BackgroundWorker.NAME);
+
+        trueStr = messages.getMessage(ExcelExporter.class, "excelExporter.true");
+        falseStr = messages.getMessage(ExcelExporter.class, "excelExporter.false");
+    }
+
+    public void exportTable(Table<Entity> table, List<Table.Column> columns, ExportDisplay display) {
+        exportTable(table, columns, display, null);
+    }
+
+    public void exportTable(Table<Entity> table, List<Table.Column> columns, ExportDisplay display,
+                            @Nullable String fileName) {
+        List<ExportColumn> exportColumns = new ArrayList<>(columns.size());
+        for (Table.Column column : columns) {
+            exportColumns.add(createExportColumn(table, column));
+        }
+
+        TableItems<Entity> items = table.getItems();
+        export(ComponentsHelper.getWindowNN(table).getFrameOwner(), items, exportColumns, display, fileName,
+                () -> items.getItemIds().stream()
+                        .map(items::getItem)
+                        .collect(Collectors.toList()));
+    }
+
+    public void exportDataGrid(DataGrid<Entity> dataGrid, List<DataGrid.Column> columns, ExportDisplay display) {
+        exportDataGrid(dataGrid, columns, display, null);
+    }
+
+    public void exportDataGrid(DataGrid<Entity> dataGrid, List<DataGrid.Column> columns, ExportDisplay display,
+                               @Nullable String fileName) {
+        List<ExportColumn> exportColumns = new ArrayList<>(columns.size());
+        for (DataGrid.Column column : columns) {
+            exportColumns.add(createExportColumn(dataGrid, column));
+        }
+
+        DataGridItems<Entity> items = dataGrid.getItems();
+        export(ComponentsHelper.getWindowNN(dataGrid).getFrameOwner(), items, exportColumns, display, fileName,
+                () -> items.getItems().collect(Collectors.toList()));
+    }
+
+    @SuppressWarnings("unchecked")
+    protected ExportColumn createExportColumn(Table<Entity> table, Table.Column column) {
+        MetaPropertyPath propertyPath = column.getId() instanceof MetaPropertyPath
+                ? (MetaPropertyPath) column.getId() : null;
+
+        Function<Entity, Object> valueProvider;
+        Table.Printable printable = table.getPrintable(column);
+        boolean uiDependent = false;
+        if (printable != null) {
+            valueProvider = printable::getValue;
+            uiDependent = true;
+        } else if (propertyPath != null) {
+            Element xmlDescriptor = column.getXmlDescriptor();
+            String path = xmlDescriptor != null && StringUtils.isNotEmpty(xmlDescriptor.attributeValue("captionProperty"))
+                    ? xmlDescriptor.attributeValue("captionProperty")
+                    : propertyPath.toPathString();
+            Function<Object, String> formatter = column.getFormatter();
+            valueProvider = entity -> {
+                Object value = InstanceUtils.getValueEx(entity, path);
+                return formatter != null ? formatter.apply(value) : value;
+            };
+        } else {
+            valueProvider = entity -> null;
+        }
+        return new ExportColumn(column.getCaption(), propertyPath, valueProvider, uiDependent);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected ExportColumn createExportColumn(DataGrid<Entity> dataGrid, DataGrid.Column column) {
+        MetaPropertyPath propertyPath = column.getPropertyPath();
+
+        Function<Entity, Object> valueProvider;
+        boolean uiDependent = false;
+        if (propertyPath != null) {
+            String path = propertyPath.toPathString();
+            Function formatter = column.getFormatter();
+            valueProvider = entity -> {
+                Object value = InstanceUtils.getValueEx(entity, path);
+                return formatter != null ? formatter.apply(value) : value;
+            };
+        } else {
+            DataGrid.ColumnGenerator generator = dataGrid.getColumnGenerator(column.getId());
+            if (generator != null) {
+                String columnId = column.getId();
+                valueProvider = entity -> {
+                    Object value = generator.getValue(new DataGrid.ColumnGeneratorEvent(dataGrid, entity, columnId));
+                    if (value == null && Boolean.class.equals(generator.getType())) {
+                        value = false;
+                    }
+                    return value;
+                };
+                uiDependent = true;
+            } else {
+                valueProvider = entity -> null;
+            }
+        }
+        return new ExportColumn(column.getCaption(), propertyPath, valueProvider, uiDependent);
+    }
+
+    protected void export(Screen screen, Object items, List<ExportColumn> columns, ExportDisplay display,
+                          @Nullable String fileName, ItemsSupplier itemsSupplier) {
+        if (display == null) {
+            throw new IllegalArgumentException("ExportDisplay is null");
+        }
+
+        String resultFileName;
+        if (fileName != null) {
+            resultFileName = fileName;
+        } else if (items instanceof EntityDataUnit) {
+            resultFileName = messages.getTools().getEntityCaption(((EntityDataUnit) items).getEntityMetaClass());
+        } else {
+            resultFileName = "export";
+        }
+
+        LoadContext<Entity> loadContext = getLoadContext(items);
+        int total;
+        List<Entity> loadedItems;
+        if (loadContext != null) {
+            total = (int) Math.min(dataManager.getCount(loadContext), Integer.MAX_VALUE);
+            loadedItems = null;
+        } else {
+            loadedItems = itemsSupplier.get();
+            total = loadedItems.size();
+        }
+
+        BackgroundTask<Integer, FileUploadingAPI.FileInfo> task = new ExportTask(screen, columns, loadContext,
+                loadedItems, display, resultFileName, backgroundWorker.getUIAccessor());
+
+        BackgroundWorkProgressWindow.show(task, messages.getMainMessage("streamingExporter.progress"),
+                null, Math.max(total, 1), true, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    protected CollectionLoader<Entity> getLoader(Object items) {
+        if (items instanceof ContainerDataUnit) {
+            CollectionContainer<Entity> container = ((ContainerDataUnit<Entity>) items).getContainer();
+            if (container instanceof HasLoader && ((HasLoader) container).getLoader() instanceof CollectionLoader) {
+                return (CollectionLoader<Entity>) ((HasLoader) container).getLoader();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return load context of all rows of the component or null if the rows cannot be loaded by pages
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    protected LoadContext<Entity> getLoadContext(Object items) {
+        LoadContext<Entity> loadContext = null;
+        CollectionLoader<Entity> loader = getLoader(items);
+        if (loader != null) {
+            if (loader.getLoadDelegate() == null) {
+                loadContext = loader.createLoadContext();
+            }
+        } else if (items instanceof DatasourceDataUnit) {
+            loadContext = ((DatasourceDataUnit) items).getDatasource().getCompiledLoadContext();
+        }
+        if (loadContext == null
+                || loadContext.getQuery() == null
+                || StringUtils.isBlank(loadContext.getQuery().getQueryString())) {
+            return null;
+        }
+        loadContext.getQuery().setFirstResult(0);
+        loadContext.getQuery().setMaxResults(0);
+        addIdOrder(loadContext);
+        return loadContext;
+    }
+
+    /**
+     * Adds the primary key to the order of rows, so pages loaded with first and max results neither repeat
+     * nor skip rows having equal values of the sorted properties.
+     */
+    protected void addIdOrder(LoadContext<Entity> loadContext) {
+        MetaClass metaClass = metadata.getClassNN(loadContext.getEntityMetaClass());
+        String pkName = metadataTools.getPrimaryKeyName(metaClass);
+        if (pkName == null) {
+            return;
+        }
+
+        LoadContext.Query query = loadContext.getQuery();
+        Sort sort = query.getSort();
+        if (sort != null && !sort.getOrders().isEmpty()) {
+            // the sort replaces the order of the query string, so the primary key is added to the sort
+            List<Sort.Order> orders = sort.getOrders();
+            if (orders.stream().noneMatch(order -> pkName.equals(order.getProperty()))) {
+                List<Sort.Order> idOrders = new ArrayList<>(orders);
+                Sort.Direction direction = orders.get(orders.size() - 1).getDirection();
+                idOrders.add(direction == Sort.Direction.ASC ? Sort.Order.asc(pkName) : Sort.Order.desc(pkName));
+                query.setSort(Sort.by(idOrders));
+            }
+        } else {
+            String queryString = query.getQueryString();
+            int orderByIndex = -1;
+            Matcher matcher = ORDER_BY_PATTERN.matcher(queryString);
+            while (matcher.find()) {
+                orderByIndex = matcher.start();
+            }
+            if (orderByIndex < 0) {
+                QueryTransformer transformer = QueryTransformerFactory.createTransformer(queryString);
+                transformer.addOrderByIdIfNotExists(pkName);
+                query.setQueryString(transformer.getResult());
+            } else {
+                // order by clause is the last one of a query, so the primary key is appended to it
+                String idPath = QueryTransformerFactory.createParser(queryString).getEntityAlias() + "." + pkName;
+                Pattern idPattern = Pattern.compile("\\b" + Pattern.quote(idPath) + "\\b");
+                if (!idPattern.matcher(queryString.substring(orderByIndex)).find()) {
+                    query.setQueryString(queryString.trim() + ", " + idPath);
+                }
+            }
+        }
+    }
+
+    protected SpreadsheetWriter createWriter(OutputStream outputStream) {
+        if (format == ExportFormat.CSV) {
+            return new CsvSpreadsheetWriter(outputStream);
+        }
+        return new XlsxSpreadsheetWriter(outputStream);
+    }
+
+    protected int getMaxRowCount() {
+        // one row is occupied by the header
+        return format == ExportFormat.XLSX ? XlsxSpreadsheetWriter.MAX_ROW_COUNT - 1 : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Obtains cell values of the rows. Values of UI dependent columns are obtained holding the UI lock.
+     *
+     * @return values of each row in the order of columns
+     */
+    protected List<Object[]> getValues(List<ExportColumn> columns, List<Entity> rows, UIAccessor uiAccessor) {
+        List<Object[]> values = new ArrayList<>(rows.size());
+        boolean hasUiDependentColumns = false;
+        for (Entity entity : rows) {
+            Object[] rowValues = new Object[columns.size()];
+            for (int i = 0; i < rowValues.length; i++) {
+                ExportColumn column = columns.get(i);
+                if (column.isUiDependent()) {
+                    hasUiDependentColumns = true;
+                } else {
+                    rowValues[i] = column.getValueProvider().apply(entity);
+                }
+            }
+            values.add(rowValues);
+        }
+        if (hasUiDependentColumns) {
+            uiAccessor.accessSynchronously(() -> {
+                for (int row = 0; row < rows.size(); row++) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        ExportColumn column = columns.get(i);
+                        if (column.isUiDependent()) {
+                            values.get(row)[i] = column.getValueProvider().apply(rows.get(row));
+                        }
+                    }
+                }
+            });
+        }
+        return values;
+    }
+
+    protected void writeRow(SpreadsheetWriter writer, List<ExportColumn> columns, Object[] values)
+            throws IOException {
+        writer.startRow();
+        for (int i = 0; i < values.length; i++) {
+            writeCell(writer, values[i], columns.get(i).getPropertyPath());
+        }
+        writer.endRow();
+    }
+
+    protected void writeCell(SpreadsheetWriter writer, @Nullable Object value,
+                             @Nullable MetaPropertyPath propertyPath) throws IOException {
+        if (value == null) {
+            if (propertyPath != null
+                    && propertyPath.getRange().isDatatype()
+                    && Boolean.class.equals(propertyPath.getRange().asDatatype().getJavaClass())) {
+                value = false;
+            } else {
+                writer.writeText(null);
+                return;
+            }
+        }
+
+        if (value instanceof IdProxy) {
+            value = ((IdProxy) value).get();
+        }
+
+        Locale locale = userSessionSource.getLocale();
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            Datatype datatype = getDatatype(propertyPath, number.getClass());
+            boolean integer = number instanceof Integer || number instanceof Long
+                    || number instanceof Byte || number instanceof Short;
+            writer.writeNumber(number, datatype.format(number, locale), integer);
+        } else if (value instanceof Date) {
+            writeDate(writer, (Date) value, propertyPath, locale);
+        } else if (value instanceof Boolean) {
+            writer.writeText((Boolean) value ? trueStr : falseStr);
+        } else if (value instanceof EnumClass) {
+            String nameKey = value.getClass().getSimpleName() + "." + value.toString();
+            writer.writeText(messages.getMessage(value.getClass(), nameKey));
+        } else if (value instanceof Entity) {
+            writer.writeText(((Entity) value).getInstanceName());
+        } else if (value instanceof Collection) {
+            writer.writeText(null);
+        } else {
+            writer.writeText(value.toString());
+        }
+    }
+
+    protected void writeDate(SpreadsheetWriter writer, Date date, @Nullable MetaPropertyPath propertyPath,
+                             Locale locale) throws IOException {
+        Class javaClass = null;
+        TimeZone timeZone = null;
+        if (propertyPath != null) {
+            MetaProperty metaProperty = propertyPath.getMetaProperty();
+            if (metaProperty.getRange().isDatatype()) {
+                javaClass = metaProperty.getRange().asDatatype().getJavaClass();
+            }
+            Boolean ignoreUserTimeZone = metadataTools.getMetaAnnotationValue(metaProperty, IgnoreUserTimeZone.class);
+            if (Objects.equals(Date.class, javaClass) && !Boolean.TRUE.equals(ignoreUserTimeZone)) {
+                timeZone = userSessionSource.getUserSession().getTimeZone();
+            }
+        }
+
+        SpreadsheetWriter.DateType type;
+        if (Objects.equals(java.sql.Time.class, javaClass)) {
+            type = SpreadsheetWriter.DateType.TIME;
+        } else if (Objects.equals(java.sql.Date.class, javaClass)) {
+            type = SpreadsheetWriter.DateType.DATE;
+        } else {
+            type = SpreadsheetWriter.DateType.DATE_TIME;
+        }
+
+        Datatype datatype = getDatatype(propertyPath, date.getClass());
+        String formatted = timeZone != null && datatype instanceof TimeZoneAwareDatatype
+                ? ((TimeZoneAwareDatatype) datatype).format(date, locale, timeZone)
+                : datatype.format(date, locale);
+        writer.writeDate(date, formatted, type, timeZone);
+    }
+
+    protected Datatype getDatatype(@Nullable MetaPropertyPath propertyPath, Class<?> valueClass) {
+        if (propertyPath != null) {
+            Range range = propertyPath.getMetaProperty().getRange();
+            if (range.isDatatype() && range.asDatatype().getJavaClass().isAssignableFrom(valueClass)) {
+                return range.asDatatype();
+            }
+        }
+        return Datatypes.getNN(valueClass);
+    }
+
+    /**
+     * @return true if the last export contained more rows than the format permits, the rest rows were not exported
+     */
+    public boolean isMaxRowNumberExceeded() {
+        return rowNumberExceeded;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of rows loaded from the middleware by one request.
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+    public long getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(long timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    protected interface ItemsSupplier {
+        List<Entity> get();
+    }
+
+    protected static class ExportColumn {
+
+        protected final String caption;
+        protected final MetaPropertyPath propertyPath;
+        protected final Function<Entity, Object> valueProvider;
+        protected final boolean uiDependent;
+
+        /**
+         * @param uiDependent whether the value provider accesses UI components and must be invoked holding the UI lock
+         */
+        public ExportColumn(String caption, @Nullable MetaPropertyPath propertyPath,
+                            Function<Entity, Object> valueProvider, boolean uiDependent) {
+            this.caption = caption;
+            this.propertyPath = propertyPath;
+            this.valueProvider = valueProvider;
+            this.uiDependent = uiDependent;
+        }
+
+        public String getCaption() {
+            return caption;
+        }
+
+        @Nullable
+        public MetaPropertyPath getPropertyPath() {
+            return propertyPath;
+        }
+
+        public Function<Entity, Object> getValueProvider() {
+            return valueProvider;
+        }
+
+        public boolean isUiDependent() {
+            return uiDependent;
+        }
+    }
+
+    protected class ExportTask extends BackgroundTask<Integer, FileUploadingAPI.FileInfo> {
+
+        protected final List<ExportColumn> columns;
+        protected final LoadContext<Entity> loadContext;
+        protected final List<Entity> items;
+        protected final ExportDisplay display;
+        protected final String fileName;
+        protected final UIAccessor uiAccessor;
+
+        protected volatile FileUploadingAPI.FileInfo fileInfo;
+
+        public ExportTask(Screen screen, List<ExportColumn> columns,
+                          @Nullable LoadContext<Entity> loadContext,
+                          @Nullable List<Entity> items, ExportDisplay display, String fileName,
+                          UIAccessor uiAccessor) {
+            super(timeoutSeconds, screen);
+            this.columns = columns;
+            this.loadContext = loadContext;
+            this.items = items;
+            this.display = display;
+            this.fileName = fileName;
+            this.uiAccessor = uiAccessor;
+        }
+
+        @Override
+        public FileUploadingAPI.FileInfo run(TaskLifeCycle<Integer> taskLifeCycle) throws Exception {
+            rowNumberExceeded = false;
+            fileInfo = fileUploading.createFile();
+
+            try (OutputStream outputStream = new FileOutputStream(fileInfo.getFile());
+                 SpreadsheetWriter writer = createWriter(outputStream)) {
+                writer.writeHeader(columns.stream()
+                        .map(ExportColumn::getCaption)
+                        .collect(Collectors.toList()));
+
+                if (loadContext != null) {
+                    writeLoadedRows(writer, taskLifeCycle);
+                } else {
+                    writeRows(writer, items, 0, taskLifeCycle);
+                }
+                writer.finish();
+            }
+            return fileInfo;
+        }
+
+        protected void writeLoadedRows(SpreadsheetWriter writer, TaskLifeCycle<Integer> taskLifeCycle)
+                throws IOException, InterruptedException {
+            int count = 0;
+            while (!taskLifeCycle.isCancelled() && !rowNumberExceeded) {
+                @SuppressWarnings("unchecked")
+                LoadContext<Entity> pageContext = (LoadContext<Entity>) loadContext.copy();
+                pageContext.getQuery().setFirstResult(count);
+                pageContext.getQuery().setMaxResults(pageSize);
+
+                List<Entity> page = dataManager.loadList(pageContext);
+                count = writeRows(writer, page, count, taskLifeCycle);
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+        }
+
+        protected int writeRows(SpreadsheetWriter writer, List<Entity> rows, int count,
+                                TaskLifeCycle<Integer> taskLifeCycle) throws IOException, InterruptedException {
+            int maxRowCount = getMaxRowCount();
+            List<Entity> exportedRows = rows;
+            if ((long) count + rows.size() > maxRowCount) {
+                rowNumberExceeded = true;
+                exportedRows = rows.subList(0, Math.max(0, maxRowCount - count));
+            }
+            for (Object[] values : getValues(columns, exportedRows, uiAccessor)) {
+                if (taskLifeCycle.isCancelled()) {
+                    break;
+                }
+                writeRow(writer, columns, values);
+                count++;
+            }
+            taskLifeCycle.publish(count);
+            return count;
+        }
+
+        @Override
+        public void done(FileUploadingAPI.FileInfo result) {
+            display.show(new LocalFileDataProvider(result.getFile(), this::deleteFile),
+                    fileName + "." + format.getFileExt(), format);
+        }
+
+        @Override
+        public void canceled() {
+            deleteFile();
+        }
+
+        @Override
+        public boolean handleException(Exception ex) {
+            deleteFile();
+            return super.handleException(ex);
+        }
+
+        protected void deleteFile() {
+            FileUploadingAPI.FileInfo fileInfo = this.fileInfo;
+            if (fileInfo != null) {
+                try {
+                    fileUploading.deleteFile(fileInfo.getId());
+                } catch (FileStorageException e) {
+                    log.warn("Unable to delete temporary file {}", fileInfo.getFile(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.gui.export;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes spreadsheet rows in Office Open XML (XLSX) format. The worksheet is written directly to the zip stream
+ * using inline strings, so memory consumption does not depend on the number of rows. The number of rows is limited
+ * only by the format itself, see {@link #MAX_ROW_COUNT}.
+ */
+public class XlsxSpreadsheetWriter implements SpreadsheetWriter {
+
+    public static final int MAX_ROW_COUNT = 1048576;
+
+    protected static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    protected static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    protected static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    protected static final String DOCUMENT_RELATIONSHIPS_NS =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    protected static final String CONTENT_TYPES = XML_HEADER
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+            + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+            + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+            + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>"
+            + "</Types>";
+
+    protected static final String ROOT_RELATIONSHIPS = XML_HEADER
+            + "<Relationships xmlns=\"" + RELATIONSHIPS_NS + "\">"
+            + "<Relationship Id=\"rId1\" Type=\"" + DOCUMENT_RELATIONSHIPS_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>";
+
+    protected static final String WORKBOOK_RELATIONSHIPS = XML_HEADER
+            + "<Relationships xmlns=\"" + RELATIONSHIPS_NS + "\">"
+            + "<Relationship Id=\"rId1\" Type=\"" + DOCUMENT_RELATIONSHIPS_NS + "/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+            + "<Relationship Id=\"rId2\" Type=\"" + DOCUMENT_RELATIONSHIPS_NS + "/styles\" Target=\"styles.xml\"/>"
+            + "</Relationships>";
+
+    // cell styles referenced by index in the worksheet
+    protected static final int HEADER_STYLE = 1;
+    protected static final int INTEGER_STYLE = 2;
+    protected static final int DOUBLE_STYLE = 3;
+    protected static final int DATE_STYLE = 4;
+    protected static final int TIME_STYLE = 5;
+    protected static final int DATE_TIME_STYLE = 6;
+
+    protected static final String STYLES = XML_HEADER
+            + "<styleSheet xmlns=\"" + MAIN_NS + "\">"
+            + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"#,##0.################\"/></numFmts>"
+            + "<fonts count=\"2\">"
+            + "<font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+            + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+            + "</fonts>"
+            + "<fills count=\"2\">"
+            + "<fill><patternFill patternType=\"none\"/></fill>"
+            + "<fill><patternFill patternType=\"gray125\"/></fill>"
+            + "</fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"7\">"
+            + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+            + "<xf numFmtId=\"3\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"21\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"22\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "</cellXfs>"
+            + "</styleSheet>";
+
+    // days between 1899-12-30 (zero date of Excel) and 1970-01-01
+    protected static final long EPOCH_OFFSET_DAYS = 25569;
+    protected static final double MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
+    protected final ZipOutputStream zipOutputStream;
+
+    protected final Writer writer;
+
+    protected final String sheetName;
+
+    protected int rowIndex;
+
+    protected int columnIndex;
+
+    public XlsxSpreadsheetWriter(OutputStream outputStream) {
+        this(outputStream, "Export");
+    }
+
+    public XlsxSpreadsheetWriter(OutputStream outputStream, String sheetName) {
+        this.zipOutputStream = new ZipOutputStream(new BufferedOutputStream(outputStream));
+        this.writer = new BufferedWriter(new OutputStreamWriter(zipOutputStream, StandardCharsets.UTF_8));
+        this.sheetName = sheetName;
+    }
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.XLSX;
+    }
+
+    @Override
+    public void writeHeader(List<String> captions) throws IOException {
+        writeStaticEntries();
+
+        zipOutputStream.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        writer.write(XML_HEADER);
+        writer.write("<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>");
+
+        startRow();
+        for (String caption : captions) {
+            writeCellStart(HEADER_STYLE, "inlineStr");
+            writeInlineString(caption);
+        }
+        endRow();
+    }
+
+    protected void writeStaticEntries() throws IOException {
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", ROOT_RELATIONSHIPS);
+        writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELATIONSHIPS);
+        writeEntry("xl/workbook.xml", XML_HEADER
+                + "<workbook xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + DOCUMENT_RELATIONSHIPS_NS + "\">"
+                + "<sheets><sheet name=\"" + escape(sheetName) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>"
+                + "</workbook>");
+        writeEntry("xl/styles.xml", STYLES);
+    }
+
+    protected void writeEntry(String name, String content) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zipOutputStream.closeEntry();
+    }
+
+    @Override
+    public void startRow() throws IOException {
+        if (rowIndex >= MAX_ROW_COUNT) {
+            throw new IllegalStateException("XLSX document cannot contain more than " + MAX_ROW_COUNT + " rows");
+        }
+        rowIndex++;
+        columnIndex = 0;
+        writer.write("<row r=\"");
+        writer.write(Integer.toString(rowIndex));
+        writer.write("\">");
+    }
+
+    @Override
+    public void writeText(@Nullable String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            columnIndex++;
+            return;
+        }
+        writeCellStart(0, "inlineStr");
+        writeInlineString(value);
+    }
+
+    @Override
+    public void writeNumber(Number value, String formatted, boolean integer) throws IOException {
+        double doubleValue = value.doubleValue();
+        if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+            writeText(formatted);
+            return;
+        }
+        writeCellStart(integer ? INTEGER_STYLE : DOUBLE_STYLE, null);
+        writer.write("<v>");
+        writer.write(integer ? Long.toString(value.longValue()) : Double.toString(doubleValue));
+        writer.write("</v></c>");
+    }
+
+    @Override
+    public void writeDate(Date value, String formatted, DateType type, @Nullable TimeZone timeZone) throws IOException {
+        long millis = value.getTime();
+        millis += (timeZone != null ? timeZone : TimeZone.getDefault()).getOffset(millis);
+        double serial = millis / MILLIS_PER_DAY + EPOCH_OFFSET_DAYS;
+
+        int style;
+        switch (type) {
+            case DATE:
+                style = DATE_STYLE;
+                serial = Math.floor(serial);
+                break;
+            case TIME:
+                style = TIME_STYLE;
+                serial = serial - Math.floor(serial);
+                break;
+            default:
+                style = DATE_TIME_STYLE;
+        }
+        if (serial < 0) {
+            // dates before 1900 are not supported by Excel
+            writeText(formatted);
+            return;
+        }
+        writeCellStart(style, null);
+        writer.write("<v>");
+        writer.write(Double.toString(serial));
+        writer.write("</v></c>");
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        writer.write("</row>");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zipOutputStream.closeEntry();
+        zipOutputStream.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    protected void writeCellStart(int style, @Nullable String type) throws IOException {
+        writer.write("<c r=\"");
+        writer.write(getColumnName(columnIndex++));
+        writer.write(Integer.toString(rowIndex));
+        writer.write('"');
+        if (style != 0) {
+            writer.write(" s=\"");
+            writer.write(Integer.toString(style));
+            writer.write('"');
+        }
+        if (type != null) {
+            writer.write(" t=\"");
+            writer.write(type);
+            writer.write('"');
+        }
+        writer.write('>');
+    }
+
+    protected void writeInlineString(String value) throws IOException {
+        writer.write("<is><t xml:space=\"preserve\">");
+        writer.write(escape(value));
+        writer.write("</t></is></c>");
+    }
+
+    protected static String getColumnName(int index) {
+        StringBuilder sb = new StringBuilder(3);
+        int i = index + 1;
+        while (i > 0) {
+            int remainder = (i - 1) % 26;
+            sb.insert(0, (char) ('A' + remainder));
+            i = (i - 1) / 26;
+        }
+        return sb.toString();
+    }
+
+    protected static String escape(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                default:
+                    // control characters are not allowed in XML 1.0
+                    replacement = c < 0x20 && c != '\t' && c != '\n' && c != '\r' ? "" : null;
+            }
+            if (replacement != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(value.length() + 16);
+                    sb.append(value, 0, i);
+                }
+                sb.append(replacement);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : value;
+    }
+}
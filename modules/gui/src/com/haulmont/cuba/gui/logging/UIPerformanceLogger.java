@@ -39,7 +39,8 @@ public final class UIPerformanceLogger {
         SET_ITEM("setItem", "#setItem"),
         UI_PERMISSIONS("uiPermissions", "#uiPermissions"),
         INJECTION("inject", "#inject"),
-        COMPANION("companion", "#companion");
+        COMPANION("companion", "#companion"),
+        DATA_LOAD("dataLoad", "#dataLoad");
 
         private String name;
         private String suffix;
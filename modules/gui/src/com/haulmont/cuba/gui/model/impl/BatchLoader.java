@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.model.impl;
+
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.DataManager;
+import com.haulmont.cuba.core.global.LoadContext;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Loader which can be executed by {@link ScreenDataImpl#loadAll()} together with other loaders of the screen
+ * in one {@link DataManager#loadBatch(List)} call.
+ */
+public interface BatchLoader<E extends Entity> {
+
+    /**
+     * @return load context to be executed in a batch, or null if the loader must be executed by its own
+     * {@code load()} method
+     */
+    @Nullable
+    LoadContext<E> createBatchLoadContext();
+
+    /**
+     * Merges the loaded entities into the data context and sets them to the container.
+     *
+     * @param entities result of the context returned by {@link #createBatchLoadContext()}
+     */
+    void applyBatchResult(List<E> entities);
+}
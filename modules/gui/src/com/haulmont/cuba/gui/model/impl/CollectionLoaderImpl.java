@@ -32,7 +32,7 @@ import java.util.function.Function;
 /**
  *
  */
-public class CollectionLoaderImpl<E extends Entity> implements CollectionLoader<E> {
+public class CollectionLoaderImpl<E extends Entity> implements CollectionLoader<E>, BatchLoader<E> {
 
     private ApplicationContext applicationContext;
 
@@ -90,6 +90,24 @@ public class CollectionLoaderImpl<E extends Entity> implements CollectionLoader<
             list = delegate.apply(loadContext);
         }
 
+        setLoadedItems(list);
+    }
+
+    @Nullable
+    @Override
+    public LoadContext<E> createBatchLoadContext() {
+        if (container == null || query == null || delegate != null)
+            return null;
+
+        return createLoadContext();
+    }
+
+    @Override
+    public void applyBatchResult(List<E> entities) {
+        setLoadedItems(entities);
+    }
+
+    protected void setLoadedItems(List<E> list) {
         if (dataContext != null) {
             List<E> mergedList = new ArrayList<>(list.size());
             for (E entity : list) {
@@ -29,13 +29,14 @@ import org.springframework.context.ApplicationContext;
 import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 /**
  *
  */
-public class InstanceLoaderImpl<E extends Entity> implements InstanceLoader<E> {
+public class InstanceLoaderImpl<E extends Entity> implements InstanceLoader<E>, BatchLoader<E> {
 
     private final ApplicationContext applicationContext;
 
@@ -96,6 +97,28 @@ public class InstanceLoaderImpl<E extends Entity> implements InstanceLoader<E> {
             entity = delegate.apply(createLoadContext());
         }
 
+        setLoadedItem(entity);
+    }
+
+    @Nullable
+    @Override
+    public LoadContext<E> createBatchLoadContext() {
+        // loading by query takes the first result, so only loading by id is executed in a batch
+        if (container == null || delegate != null || entityId == null)
+            return null;
+
+        return createLoadContext();
+    }
+
+    @Override
+    public void applyBatchResult(List<E> entities) {
+        if (entities.isEmpty()) {
+            throw new EntityAccessException(container.getEntityMetaClass(), entityId);
+        }
+        setLoadedItem(entities.get(0));
+    }
+
+    protected void setLoadedItem(E entity) {
         if (dataContext != null) {
             entity = dataContext.merge(entity);
         }
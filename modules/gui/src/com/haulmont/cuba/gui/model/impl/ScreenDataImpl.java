@@ -16,14 +16,21 @@
 
 package com.haulmont.cuba.gui.model.impl;
 
+import com.haulmont.cuba.client.ClientConfig;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.global.DataManager;
+import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.gui.logging.UIPerformanceLogger;
+import com.haulmont.cuba.gui.logging.UIPerformanceLogger.LifeCycle;
 import com.haulmont.cuba.gui.model.DataContext;
 import com.haulmont.cuba.gui.model.DataLoader;
 import com.haulmont.cuba.gui.model.InstanceContainer;
 import com.haulmont.cuba.gui.model.ScreenData;
+import org.perf4j.StopWatch;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class ScreenDataImpl implements ScreenData {
 
@@ -31,7 +38,7 @@ public class ScreenDataImpl implements ScreenData {
 
     protected Map<String, InstanceContainer> containers = new HashMap<>();
 
-    protected Map<String, DataLoader> loaders = new HashMap<>();
+    protected Map<String, DataLoader> loaders = new LinkedHashMap<>();
 
     @Override
     public DataContext getDataContext() {
@@ -75,8 +82,59 @@ public class ScreenDataImpl implements ScreenData {
 
     @Override
     public void loadAll() {
-        for (DataLoader loader : loaders.values()) {
-            loader.load();
+        Configuration configuration = AppBeans.get(Configuration.NAME);
+        if (configuration.getConfig(ClientConfig.class).getBatchDataLoading()) {
+            loadBatch();
+        } else {
+            for (Map.Entry<String, DataLoader> entry : loaders.entrySet()) {
+                StopWatch sw = UIPerformanceLogger.createStopWatch(LifeCycle.DATA_LOAD, entry.getKey());
+                try {
+                    entry.getValue().load();
+                } finally {
+                    sw.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads entities of all batch-capable loaders in one {@link DataManager#loadBatch(List)} call and sets
+     * the results to the containers in the order of loaders declaration. Other loaders are executed one by one.
+     */
+    @SuppressWarnings("unchecked")
+    protected void loadBatch() {
+        Map<String, LoadContext<? extends Entity>> batchContexts = new LinkedHashMap<>();
+        for (Map.Entry<String, DataLoader> entry : loaders.entrySet()) {
+            if (entry.getValue() instanceof BatchLoader) {
+                LoadContext<? extends Entity> context = ((BatchLoader) entry.getValue()).createBatchLoadContext();
+                if (context != null) {
+                    batchContexts.put(entry.getKey(), context);
+                }
+            }
+        }
+
+        Map<String, List<Entity>> results = new HashMap<>();
+        if (!batchContexts.isEmpty()) {
+            DataManager dataManager = AppBeans.get(DataManager.NAME);
+            List<List<Entity>> batchResults = dataManager.loadBatch(new ArrayList<>(batchContexts.values()));
+            Iterator<List<Entity>> iterator = batchResults.iterator();
+            for (String loaderId : batchContexts.keySet()) {
+                results.put(loaderId, iterator.next());
+            }
+        }
+
+        for (Map.Entry<String, DataLoader> entry : loaders.entrySet()) {
+            StopWatch sw = UIPerformanceLogger.createStopWatch(LifeCycle.DATA_LOAD, entry.getKey());
+            try {
+                List<Entity> entities = results.get(entry.getKey());
+                if (entities != null) {
+                    ((BatchLoader) entry.getValue()).applyBatchResult(entities);
+                } else {
+                    entry.getValue().load();
+                }
+            } finally {
+                sw.stop();
+            }
         }
     }
 
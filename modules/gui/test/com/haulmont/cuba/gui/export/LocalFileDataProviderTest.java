@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.gui.export;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class LocalFileDataProviderTest extends Assert {
+
+    @Test
+    public void testFileIsKept() throws Exception {
+        File file = createFile();
+        try {
+            LocalFileDataProvider provider = new LocalFileDataProvider(file);
+            for (int i = 0; i < 2; i++) {
+                try (InputStream inputStream = provider.provide()) {
+                    assertEquals("data", IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+                }
+            }
+            assertTrue(file.exists());
+        } finally {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+
+    @Test
+    public void testDisposeAfterReading() throws Exception {
+        File file = createFile();
+        int[] disposeCount = new int[1];
+        LocalFileDataProvider provider = new LocalFileDataProvider(file, () -> {
+            disposeCount[0]++;
+            FileUtils.deleteQuietly(file);
+        });
+
+        InputStream inputStream = provider.provide();
+        assertEquals("data", IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+        assertTrue(file.exists());
+
+        inputStream.close();
+        inputStream.close();
+        assertFalse(file.exists());
+        assertEquals(1, disposeCount[0]);
+    }
+
+    private File createFile() throws Exception {
+        File file = File.createTempFile("export", ".csv");
+        FileUtils.writeStringToFile(file, "data", StandardCharsets.UTF_8);
+        return file;
+    }
+}
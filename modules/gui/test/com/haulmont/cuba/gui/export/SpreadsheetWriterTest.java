@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.gui.export;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class SpreadsheetWriterTest extends Assert {
+
+    @Test
+    public void testCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SpreadsheetWriter writer = new CsvSpreadsheetWriter(out)) {
+            writer.writeHeader(Arrays.asList("Name", "Amount"));
+
+            writer.startRow();
+            writer.writeText("a, \"b\"");
+            writer.writeNumber(1500, "1,500", true);
+            writer.endRow();
+
+            writer.startRow();
+            writer.writeText(null);
+            writer.writeText("c");
+            writer.endRow();
+
+            writer.finish();
+        }
+
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals("\uFEFFName,Amount\r\n\"a, \"\"b\"\"\",\"1,500\"\r\n,c\r\n", csv);
+    }
+
+    @Test
+    public void testXlsx() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TimeZone timeZone = TimeZone.getTimeZone("GMT");
+        try (SpreadsheetWriter writer = new XlsxSpreadsheetWriter(out)) {
+            writer.writeHeader(Arrays.asList("Name", "Amount", "Date"));
+
+            writer.startRow();
+            writer.writeText("<a & b>");
+            writer.writeNumber(12.5, "12.5", false);
+            writer.writeDate(new Date(0), "01/01/1970", SpreadsheetWriter.DateType.DATE, timeZone);
+            writer.endRow();
+
+            writer.finish();
+        }
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toString(zis, StandardCharsets.UTF_8));
+            }
+        }
+
+        assertTrue(entries.containsKey("[Content_Types].xml"));
+        assertTrue(entries.containsKey("xl/workbook.xml"));
+        assertTrue(entries.containsKey("xl/styles.xml"));
+
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        assertNotNull(sheet);
+        assertTrue(sheet.contains("<row r=\"1\"><c r=\"A1\" s=\"1\" t=\"inlineStr\"><is><t xml:space=\"preserve\">Name</t>"));
+        assertTrue(sheet.contains("<c r=\"A2\" t=\"inlineStr\"><is><t xml:space=\"preserve\">&lt;a &amp; b&gt;</t></is></c>"));
+        assertTrue(sheet.contains("<c r=\"B2\" s=\"3\"><v>12.5</v></c>"));
+        assertTrue(sheet.contains("<c r=\"C2\" s=\"4\"><v>25569.0</v></c>"));
+        assertTrue(sheet.endsWith("</sheetData></worksheet>"));
+    }
+
+    @Test
+    public void testColumnName() {
+        assertEquals("A", XlsxSpreadsheetWriter.getColumnName(0));
+        assertEquals("Z", XlsxSpreadsheetWriter.getColumnName(25));
+        assertEquals("AA", XlsxSpreadsheetWriter.getColumnName(26));
+        assertEquals("AZ", XlsxSpreadsheetWriter.getColumnName(51));
+        assertEquals("BA", XlsxSpreadsheetWriter.getColumnName(52));
+    }
+}
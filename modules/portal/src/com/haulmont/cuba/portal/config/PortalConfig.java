@@ -39,6 +39,15 @@ public interface PortalConfig extends Config {
     @DefaultBoolean(true)
     boolean getUseLocalServiceInvocation();
 
+    /**
+     * Whether to pass arguments and results of local service invocations by reference instead of serializing them.
+     * Mutable values are deep copied. Applies only if the client and the middleware share the class loader,
+     * e.g. in a single WAR deployment, otherwise the values are serialized.
+     */
+    @Property("cuba.localServiceInvocationByReference")
+    @DefaultBoolean(false)
+    boolean getLocalServiceInvocationByReference();
+
     @Property("cuba.portal.anonymousUserLogin")
     String getAnonymousUserLogin();
 
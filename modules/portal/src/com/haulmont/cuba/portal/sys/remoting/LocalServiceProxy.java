@@ -17,6 +17,8 @@
 
 package com.haulmont.cuba.portal.sys.remoting;
 
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.RemoteException;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.SecurityContext;
@@ -24,6 +26,7 @@ import com.haulmont.cuba.core.sys.remoting.*;
 import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
 import com.haulmont.cuba.security.global.ClientBasedSession;
 import com.haulmont.cuba.security.global.UserSession;
+import com.haulmont.cuba.portal.config.PortalConfig;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.remoting.support.RemoteAccessor;
@@ -32,7 +35,9 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.Proxy;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * INTERNAL.
@@ -89,6 +94,10 @@ public class LocalServiceProxy extends RemoteAccessor implements FactoryBean<Obj
 
         private String serviceName;
 
+        private Map<Method, String[]> parameterTypeNamesCache = new ConcurrentHashMap<>();
+
+        private volatile Boolean invocationByReference;
+
         public LocalServiceInvocationHandler(String serviceName) {
             this.serviceName = serviceName;
         }
@@ -105,11 +114,8 @@ public class LocalServiceProxy extends RemoteAccessor implements FactoryBean<Obj
                 throw new IllegalArgumentException("Service " + entryName + " is not registered in LocalServiceDirectory");
 
             Parameter[] parameters = method.getParameters();
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            String[] parameterTypeNames = new String[parameterTypes.length];
-            for (int i = 0; i < parameterTypes.length; i++) {
-                parameterTypeNames[i] = parameterTypes[i].getName();
-            }
+            String[] parameterTypeNames = parameterTypeNamesCache.computeIfAbsent(method, this::getParameterTypeNames);
+            boolean passByReference = isPassByReference(invoker, method);
 
             byte[][] argumentsData;
             Object[] notSerializableArguments;
@@ -125,6 +131,9 @@ public class LocalServiceProxy extends RemoteAccessor implements FactoryBean<Obj
                     if (canBypassSerialization(parameter)) {
                         notSerializableArguments[i] = args[i];
                         argumentsData[i] = null;
+                    } else if (passByReference) {
+                        notSerializableArguments[i] = LocalServiceInvocationCopier.copy(arg);
+                        argumentsData[i] = null;
                     } else if (arg != null) {
                         argumentsData[i] = SerializationSupport.serialize(arg);
                     } else {
@@ -150,6 +159,7 @@ public class LocalServiceProxy extends RemoteAccessor implements FactoryBean<Obj
                 }
             }
             invocation.setResultBypassSerialization(canMethodResultBypassSerialization(method));
+            invocation.setPassByReference(passByReference);
 
             LocalServiceInvocationResult result = invoker.invoke(invocation);
             AppContext.setSecurityContext(AppContext.getSecurityContext());// to reset application name in LogMDC for the current thread
@@ -174,6 +184,29 @@ public class LocalServiceProxy extends RemoteAccessor implements FactoryBean<Obj
             }
         }
 
+        private String[] getParameterTypeNames(Method method) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            String[] parameterTypeNames = new String[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterTypeNames[i] = parameterTypes[i].getName();
+            }
+            return parameterTypeNames;
+        }
+
+        private boolean isPassByReference(LocalServiceInvoker invoker, Method method) {
+            return isInvocationByReference() && invoker.isPassByReferenceSupported(method.getDeclaringClass());
+        }
+
+        private boolean isInvocationByReference() {
+            Boolean byReference = invocationByReference;
+            if (byReference == null) {
+                byReference = AppBeans.get(Configuration.class).getConfig(PortalConfig.class)
+                        .getLocalServiceInvocationByReference();
+                invocationByReference = byReference;
+            }
+            return byReference;
+        }
+
         private boolean canBypassSerialization(Parameter parameter) {
             return parameter.getAnnotation(BypassSerialization.class) != null;
         }
@@ -19,19 +19,29 @@ package com.haulmont.restapi.common;
 import com.google.common.base.Strings;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.MetaProperty;
+import com.haulmont.cuba.core.app.serialization.EntitySerializationAPI;
+import com.haulmont.cuba.core.app.serialization.EntitySerializationOption;
 import com.haulmont.cuba.core.entity.BaseEntityInternalAccess;
 import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.SecurityState;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.restapi.config.RestJsonTransformations;
+import com.haulmont.restapi.data.EntitiesSearchResult;
 import com.haulmont.restapi.exception.RestAPIException;
+import com.haulmont.restapi.transform.EntityJsonTransformer;
 import com.haulmont.restapi.transform.JsonTransformationDirection;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Arrays;
+import java.util.Collection;
 
 /**
  */
@@ -53,6 +63,9 @@ public class RestControllerUtils {
     @Inject
     protected ViewRepository viewRepository;
 
+    @Inject
+    protected EntitySerializationAPI entitySerializationAPI;
+
     /**
      * Finds metaClass by entityName. Throws a RestAPIException if metaClass not found
      */
@@ -99,6 +112,56 @@ public class RestControllerUtils {
             restJsonTransformations.getTransformer(entityName, modelVersion, direction).transformJson(json);
     }
 
+    /**
+     * Writes a JSON array of entities to the writer. If the model version is specified, JSON of each entity is
+     * transformed separately, so neither the whole array nor its transformed copy is kept in memory.
+     */
+    public void writeEntitiesJson(Collection<? extends Entity> entities,
+                                  @Nullable View view,
+                                  String entityName,
+                                  @Nullable String modelVersion,
+                                  Writer writer,
+                                  EntitySerializationOption... options) throws IOException {
+        if (Strings.isNullOrEmpty(modelVersion)) {
+            entitySerializationAPI.toJson(entities, view, writer, options);
+            return;
+        }
+        EntityJsonTransformer transformer =
+                restJsonTransformations.getTransformer(entityName, modelVersion, JsonTransformationDirection.TO_VERSION);
+        writer.write('[');
+        boolean first = true;
+        for (Entity entity : entities) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write(transformer.transformJson(entitySerializationAPI.toJson(entity, view, options)));
+        }
+        writer.write(']');
+    }
+
+    /**
+     * Streams JSON of the result to the response body.
+     *
+     * The {@code X-Next-Cursor} header is added if the result has the cursor of the next page.
+     *
+     * @param totalCount value of the {@code X-Total-Count} header, not added if null
+     */
+    public void writeJsonResponse(HttpServletResponse response, EntitiesSearchResult result,
+                                  @Nullable String totalCount) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        if (totalCount != null) {
+            response.setHeader("X-Total-Count", totalCount);
+        }
+        if (result.getNextCursor() != null) {
+            response.setHeader("X-Next-Cursor", result.getNextCursor());
+        }
+        Writer writer = response.getWriter();
+        result.writeJson(writer);
+        writer.flush();
+    }
+
     private class FillingInaccessibleAttributesVisitor implements EntityAttributeVisitor {
 
         @Override
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.restapi.common;
+
+import com.google.common.base.Strings;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.haulmont.chile.core.datatypes.Datatype;
+import com.haulmont.chile.core.datatypes.Datatypes;
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaProperty;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.IdProxy;
+import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.core.global.MetadataTools;
+import com.haulmont.cuba.core.global.QueryTransformer;
+import com.haulmont.cuba.core.global.QueryTransformerFactory;
+import com.haulmont.restapi.exception.RestAPIException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.*;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Supports cursor (keyset) pagination of entity lists.
+ * <p>
+ * A page is loaded by a query ordered by the sort attribute, if any, and then by the entity identifier. The cursor
+ * encodes values of these keys for the last entity of the previous page, and the next page is selected by comparing
+ * the keys with the cursor values instead of skipping rows, so loading of any page costs the same. Values are
+ * encoded in a locale independent form which is parsed back to the exact value.
+ * <p>
+ * Entities having null value of the sort attribute follow the other entities in the ascending order and precede
+ * them in the descending order. They are returned by separate pages, so a page can contain fewer entities than the
+ * limit while the next cursor is returned.
+ * <p>
+ * If no sort attribute is specified and the query has its own order, the order is kept and the cursor contains
+ * the offset of the next page.
+ */
+@Component("cuba_RestCursorUtils")
+public class RestCursorUtils {
+
+    protected static final String SORT_VALUE_PARAM = "cursorSortValue";
+    protected static final String ID_PARAM = "cursorId";
+
+    protected static final String SORT_VALUE_KEY = "s";
+    protected static final String ID_KEY = "i";
+    protected static final String NULLS_KEY = "n";
+    protected static final String OFFSET_KEY = "o";
+
+    protected static final Pattern ORDER_BY_PATTERN = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+
+    @Inject
+    protected MetadataTools metadataTools;
+
+    @Inject
+    protected QueryTransformerFactory queryTransformerFactory;
+
+    /**
+     * Position of a page being loaded, used to create the cursor of the next page.
+     */
+    public static class CursorPosition {
+
+        protected final MetaClass metaClass;
+        protected final String sort;
+        protected final int limit;
+        protected final boolean offsetMode;
+        protected final int offset;
+        protected final boolean nulls;
+
+        public CursorPosition(MetaClass metaClass, @Nullable String sort, int limit, boolean offsetMode, int offset,
+                              boolean nulls) {
+            this.metaClass = metaClass;
+            this.sort = sort;
+            this.limit = limit;
+            this.offsetMode = offsetMode;
+            this.offset = offset;
+            this.nulls = nulls;
+        }
+
+        /**
+         * @return whether the page contains entities having null value of the sort attribute
+         */
+        public boolean isNulls() {
+            return nulls;
+        }
+
+        /**
+         * @return whether the page is selected by the offset because the query has its own order
+         */
+        public boolean isOffsetMode() {
+            return offsetMode;
+        }
+    }
+
+    /**
+     * Modifies the query to load a page of entities following the cursor.
+     *
+     * @param query     query selecting entities of the given meta class
+     * @param metaClass meta class of the entities
+     * @param sort      name of the sort attribute, prefixed with "-" for descending order. If null, entities are
+     *                  sorted by identifier in ascending order, "-" sorts them by identifier in descending order.
+     * @param cursor    cursor returned with the previous page, null or empty for the first page
+     * @param limit     maximum number of entities in the page, 0 for no limit
+     * @return position of the page to be passed to {@link #createNextCursor(CursorPosition, List)}
+     */
+    public CursorPosition applyCursor(LoadContext.Query query, MetaClass metaClass, @Nullable String sort,
+                                      @Nullable String cursor, int limit) {
+        JsonObject cursorObject = !Strings.isNullOrEmpty(cursor) ? decodeCursor(cursor) : null;
+        if (sort == null && ORDER_BY_PATTERN.matcher(query.getQueryString()).find()) {
+            int offset = cursorObject != null ? parseOffset(cursorObject) : 0;
+            query.setFirstResult(offset);
+            query.setMaxResults(limit);
+            return new CursorPosition(metaClass, null, limit, true, offset, false);
+        }
+
+        MetaProperty idProperty = getIdProperty(metaClass);
+        MetaProperty sortProperty = getSortProperty(metaClass, sort);
+        boolean desc = sort != null && sort.startsWith("-");
+        String operator = desc ? "<" : ">";
+
+        QueryTransformer transformer = queryTransformerFactory.transformer(query.getQueryString());
+        String idPath = "{E}." + idProperty.getName();
+        boolean nulls = false;
+        if (sortProperty != null) {
+            String sortPath = "{E}." + sortProperty.getName();
+            // nulls are the last in the ascending order and the first in the descending one
+            nulls = cursorObject != null ? isNullsCursor(cursorObject) : desc;
+            if (nulls) {
+                transformer.addWhere(sortPath + " is null");
+                if (cursorObject != null && cursorObject.has(ID_KEY)) {
+                    transformer.addWhere(idPath + " " + operator + " :" + ID_PARAM);
+                    query.setParameter(ID_PARAM, parseCursorValue(cursorObject, ID_KEY, idProperty));
+                }
+                transformer.replaceOrderBy(desc, idProperty.getName());
+            } else {
+                transformer.addWhere(sortPath + " is not null");
+                if (cursorObject != null && cursorObject.has(ID_KEY)) {
+                    transformer.addWhere(String.format("(%1$s %2$s :%3$s or (%1$s = :%3$s and %4$s %2$s :%5$s))",
+                            sortPath, operator, SORT_VALUE_PARAM, idPath, ID_PARAM));
+                    query.setParameter(SORT_VALUE_PARAM,
+                            parseCursorValue(cursorObject, SORT_VALUE_KEY, sortProperty));
+                    query.setParameter(ID_PARAM, parseCursorValue(cursorObject, ID_KEY, idProperty));
+                }
+                transformer.replaceOrderBy(desc, sortProperty.getName(), idProperty.getName());
+            }
+        } else {
+            if (cursorObject != null) {
+                transformer.addWhere(idPath + " " + operator + " :" + ID_PARAM);
+                query.setParameter(ID_PARAM, parseCursorValue(cursorObject, ID_KEY, idProperty));
+            }
+            transformer.replaceOrderBy(desc, idProperty.getName());
+        }
+
+        query.setQueryString(transformer.getResult());
+        query.setFirstResult(0);
+        query.setMaxResults(limit);
+        return new CursorPosition(metaClass, sort, limit, false, 0, nulls);
+    }
+
+    /**
+     * Creates a cursor pointing to the last entity of the page.
+     *
+     * @param position position returned by {@link #applyCursor}
+     * @param page     loaded entities
+     * @return cursor of the next page or null if the page is the last one
+     */
+    @Nullable
+    public String createNextCursor(CursorPosition position, List<? extends Entity> page) {
+        if (position.limit <= 0) {
+            // the whole result has been loaded
+            return null;
+        }
+        JsonObject cursorObject = new JsonObject();
+        if (position.offsetMode) {
+            if (page.size() < position.limit) {
+                return null;
+            }
+            cursorObject.addProperty(OFFSET_KEY, position.offset + page.size());
+            return encodeCursor(cursorObject);
+        }
+
+        MetaProperty sortProperty = getSortProperty(position.metaClass, position.sort);
+        if (page.isEmpty() || page.size() < position.limit) {
+            boolean desc = position.sort != null && position.sort.startsWith("-");
+            if (sortProperty == null || position.nulls != desc) {
+                return null;
+            }
+            // the first group of entities is over, continue with entities of the other group
+            cursorObject.addProperty(NULLS_KEY, !position.nulls);
+            return encodeCursor(cursorObject);
+        }
+
+        Entity lastEntity = page.get(page.size() - 1);
+        Object id = lastEntity.getId();
+        if (id instanceof IdProxy) {
+            id = ((IdProxy) id).getNN();
+        }
+        cursorObject.add(ID_KEY, encodeValue(id));
+        if (sortProperty != null) {
+            cursorObject.addProperty(NULLS_KEY, position.nulls);
+            if (!position.nulls) {
+                cursorObject.add(SORT_VALUE_KEY, encodeValue(lastEntity.getValue(sortProperty.getName())));
+            }
+        }
+        return encodeCursor(cursorObject);
+    }
+
+    protected MetaProperty getIdProperty(MetaClass metaClass) {
+        MetaProperty idProperty = metadataTools.getPrimaryKeyProperty(metaClass);
+        if (idProperty == null || metadataTools.hasCompositePrimaryKey(metaClass)) {
+            throw new RestAPIException("Cursor pagination is not supported",
+                    String.format("Cursor pagination is not supported for entity %s", metaClass.getName()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return idProperty;
+    }
+
+    @Nullable
+    protected MetaProperty getSortProperty(MetaClass metaClass, @Nullable String sort) {
+        if (sort == null) {
+            return null;
+        }
+        String propertyName = sort.startsWith("-") || sort.startsWith("+") ? sort.substring(1) : sort;
+        if (propertyName.isEmpty()) {
+            return null;
+        }
+        MetaProperty metaProperty = metaClass.getProperty(propertyName);
+        if (metaProperty == null
+                || !metaProperty.getRange().isDatatype()
+                || !metadataTools.isPersistent(metaProperty)) {
+            throw new RestAPIException("Invalid sort attribute",
+                    String.format("Attribute %s of entity %s cannot be used for cursor pagination",
+                            propertyName, metaClass.getName()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return metaProperty.equals(metadataTools.getPrimaryKeyProperty(metaClass)) ? null : metaProperty;
+    }
+
+    protected String encodeCursor(JsonObject cursorObject) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(cursorObject.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected JsonObject decodeCursor(String cursor) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new JsonParser().parse(json).getAsJsonObject();
+        } catch (IllegalArgumentException | IllegalStateException | JsonParseException e) {
+            throw invalidCursor(e);
+        }
+    }
+
+    protected boolean isNullsCursor(JsonObject cursorObject) {
+        JsonElement element = cursorObject.get(NULLS_KEY);
+        try {
+            return element != null && element.getAsBoolean();
+        } catch (ClassCastException | IllegalStateException | UnsupportedOperationException e) {
+            throw invalidCursor(e);
+        }
+    }
+
+    protected int parseOffset(JsonObject cursorObject) {
+        JsonElement element = cursorObject.get(OFFSET_KEY);
+        try {
+            int offset = element != null ? element.getAsInt() : -1;
+            if (offset < 0) {
+                throw new IllegalStateException("Cursor offset is missing");
+            }
+            return offset;
+        } catch (ClassCastException | IllegalStateException | UnsupportedOperationException
+                | NumberFormatException e) {
+            throw invalidCursor(e);
+        }
+    }
+
+    /**
+     * Encodes the value so that {@link #decodeValue(JsonElement, Class)} restores the exact value regardless of
+     * the locale: numbers and strings are kept as is, dates are written as milliseconds and Java 8 date/time values
+     * in the ISO format.
+     */
+    protected JsonElement encodeValue(Object value) {
+        if (value instanceof Date) {
+            return new JsonPrimitive(((Date) value).getTime());
+        } else if (value instanceof BigDecimal) {
+            return new JsonPrimitive(value.toString());
+        } else if (value instanceof Number) {
+            return new JsonPrimitive((Number) value);
+        } else if (value instanceof Boolean) {
+            return new JsonPrimitive((Boolean) value);
+        } else {
+            Datatype<Object> datatype = Datatypes.get(value.getClass());
+            return new JsonPrimitive(datatype != null ? datatype.format(value) : value.toString());
+        }
+    }
+
+    protected Object decodeValue(JsonElement element, Class<?> javaClass) throws ParseException {
+        String string = element.getAsString();
+        if (String.class.equals(javaClass)) {
+            return string;
+        } else if (UUID.class.equals(javaClass)) {
+            return UUID.fromString(string);
+        } else if (Integer.class.equals(javaClass)) {
+            return Integer.valueOf(string);
+        } else if (Long.class.equals(javaClass)) {
+            return Long.valueOf(string);
+        } else if (Double.class.equals(javaClass)) {
+            return Double.valueOf(string);
+        } else if (Float.class.equals(javaClass)) {
+            return Float.valueOf(string);
+        } else if (BigDecimal.class.equals(javaClass)) {
+            return new BigDecimal(string);
+        } else if (BigInteger.class.equals(javaClass)) {
+            return new BigInteger(string);
+        } else if (Boolean.class.equals(javaClass)) {
+            return Boolean.valueOf(string);
+        } else if (java.sql.Date.class.equals(javaClass)) {
+            return new java.sql.Date(Long.parseLong(string));
+        } else if (java.sql.Time.class.equals(javaClass)) {
+            return new java.sql.Time(Long.parseLong(string));
+        } else if (Date.class.isAssignableFrom(javaClass)) {
+            return new Date(Long.parseLong(string));
+        } else if (LocalDate.class.equals(javaClass)) {
+            return LocalDate.parse(string);
+        } else if (LocalTime.class.equals(javaClass)) {
+            return LocalTime.parse(string);
+        } else if (LocalDateTime.class.equals(javaClass)) {
+            return LocalDateTime.parse(string);
+        } else if (OffsetTime.class.equals(javaClass)) {
+            return OffsetTime.parse(string);
+        } else if (OffsetDateTime.class.equals(javaClass)) {
+            return OffsetDateTime.parse(string);
+        }
+        Datatype<?> datatype = Datatypes.get(javaClass);
+        if (datatype != null) {
+            Object value = datatype.parse(string);
+            if (value != null) {
+                return value;
+            }
+        }
+        throw new ParseException("Unsupported cursor value type: " + javaClass.getName(), 0);
+    }
+
+    protected Object parseCursorValue(JsonObject cursorObject, String key, MetaProperty metaProperty) {
+        JsonElement element = cursorObject.get(key);
+        try {
+            if (element == null || !element.isJsonPrimitive()) {
+                throw new ParseException("Cursor value is missing", 0);
+            }
+            Class<?> javaClass = metaProperty.getRange().isDatatype()
+                    ? metaProperty.getRange().<Datatype>asDatatype().getJavaClass()
+                    : metaProperty.getJavaType();
+            return decodeValue(element, javaClass);
+        } catch (ParseException | RuntimeException e) {
+            throw invalidCursor(e);
+        }
+    }
+
+    protected RestAPIException invalidCursor(Exception cause) {
+        return new RestAPIException("Invalid cursor", "Cursor cannot be parsed", HttpStatus.BAD_REQUEST, cause);
+    }
+}
@@ -21,6 +21,7 @@ import com.haulmont.cuba.core.config.Property;
 import com.haulmont.cuba.core.config.Source;
 import com.haulmont.cuba.core.config.SourceType;
 import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
+import com.haulmont.cuba.core.config.defaults.DefaultInt;
 import com.haulmont.cuba.core.config.type.CommaSeparatedStringListTypeFactory;
 import com.haulmont.cuba.core.config.type.Factory;
 
@@ -81,4 +82,12 @@ public interface RestApiConfig extends Config {
     @Property("cuba.checkPasswordOnClient")
     @DefaultBoolean(false)
     boolean getCheckPasswordOnClient();
-}
\ No newline at end of file
+
+    /**
+     * @return number of entities loaded from the database at once when entities are exported in the newline
+     * delimited JSON format
+     */
+    @Property("cuba.rest.exportChunkSize")
+    @DefaultInt(1000)
+    int getExportChunkSize();
+}
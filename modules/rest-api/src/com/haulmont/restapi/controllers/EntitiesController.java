@@ -19,6 +19,7 @@ package com.haulmont.restapi.controllers;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.haulmont.restapi.common.RestControllerUtils;
 import com.haulmont.restapi.data.CreatedEntityInfo;
 import com.haulmont.restapi.data.EntitiesSearchResult;
 import com.haulmont.restapi.service.EntitiesControllerManager;
@@ -34,6 +35,8 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 /**
  * Controller that performs CRUD entity operations
@@ -45,6 +48,9 @@ public class EntitiesController {
     @Inject
     protected EntitiesControllerManager entitiesControllerManager;
 
+    @Inject
+    protected RestControllerUtils restControllerUtils;
+
     @GetMapping("/{entityName}/{entityId}")
     public String loadEntity(@PathVariable String entityName,
                              @PathVariable String entityId,
@@ -56,55 +62,71 @@ public class EntitiesController {
     }
 
     @GetMapping("/{entityName}")
-    public ResponseEntity<String> loadEntitiesList(@PathVariable String entityName,
-                                                   @RequestParam(required = false) String view,
-                                                   @RequestParam(required = false) Integer limit,
-                                                   @RequestParam(required = false) Integer offset,
-                                                   @RequestParam(required = false) String sort,
-                                                   @RequestParam(required = false) Boolean returnNulls,
-                                                   @RequestParam(required = false) Boolean returnCount,
-                                                   @RequestParam(required = false) Boolean dynamicAttributes,
-                                                   @RequestParam(required = false) String modelVersion) {
+    public void loadEntitiesList(@PathVariable String entityName,
+                                 @RequestParam(required = false) String view,
+                                 @RequestParam(required = false) Integer limit,
+                                 @RequestParam(required = false) Integer offset,
+                                 @RequestParam(required = false) String sort,
+                                 @RequestParam(required = false) Boolean returnNulls,
+                                 @RequestParam(required = false) Boolean returnCount,
+                                 @RequestParam(required = false) Boolean dynamicAttributes,
+                                 @RequestParam(required = false) String modelVersion,
+                                 @RequestParam(required = false) String cursor,
+                                 HttpServletResponse response) throws IOException {
         EntitiesSearchResult entitiesSearchResult = entitiesControllerManager.loadEntitiesList(entityName, view, limit,
-                offset, sort, returnNulls, returnCount, dynamicAttributes, modelVersion);
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(HttpStatus.OK);
-        if (BooleanUtils.isTrue(returnCount)) {
-            responseBuilder.header("X-Total-Count", entitiesSearchResult.getCount().toString());
-        }
-        return responseBuilder.body(entitiesSearchResult.getJson());
+                offset, sort, returnNulls, returnCount, dynamicAttributes, modelVersion, cursor);
+        writeSearchResult(entitiesSearchResult, BooleanUtils.isTrue(returnCount), response);
+    }
+
+    @GetMapping(value = "/{entityName}/export", produces = "application/x-ndjson;charset=UTF-8")
+    public void exportEntities(@PathVariable String entityName,
+                               @RequestParam(required = false) String view,
+                               @RequestParam(required = false) String sort,
+                               @RequestParam(required = false) String filter,
+                               @RequestParam(required = false) Boolean returnNulls,
+                               @RequestParam(required = false) Boolean dynamicAttributes,
+                               @RequestParam(required = false) String modelVersion,
+                               HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        entitiesControllerManager.exportEntities(entityName, view, sort, filter, returnNulls, dynamicAttributes,
+                modelVersion, response.getWriter());
     }
 
     @GetMapping("/{entityName}/search")
-    public ResponseEntity<String> searchEntitiesListGet(@PathVariable String entityName,
-                                                        @RequestParam String filter,
-                                                        @RequestParam(required = false) String view,
-                                                        @RequestParam(required = false) Integer limit,
-                                                        @RequestParam(required = false) Integer offset,
-                                                        @RequestParam(required = false) String sort,
-                                                        @RequestParam(required = false) Boolean returnNulls,
-                                                        @RequestParam(required = false) Boolean returnCount,
-                                                        @RequestParam(required = false) Boolean dynamicAttributes,
-                                                        @RequestParam(required = false) String modelVersion) {
+    public void searchEntitiesListGet(@PathVariable String entityName,
+                                      @RequestParam String filter,
+                                      @RequestParam(required = false) String view,
+                                      @RequestParam(required = false) Integer limit,
+                                      @RequestParam(required = false) Integer offset,
+                                      @RequestParam(required = false) String sort,
+                                      @RequestParam(required = false) Boolean returnNulls,
+                                      @RequestParam(required = false) Boolean returnCount,
+                                      @RequestParam(required = false) Boolean dynamicAttributes,
+                                      @RequestParam(required = false) String modelVersion,
+                                      HttpServletResponse response) throws IOException {
         EntitiesSearchResult entitiesSearchResult = entitiesControllerManager.searchEntities(entityName, filter,
                 view, limit, offset, sort, returnNulls, returnCount, dynamicAttributes, modelVersion);
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(HttpStatus.OK);
-        if (BooleanUtils.isTrue(returnCount)) {
-            responseBuilder.header("X-Total-Count", entitiesSearchResult.getCount().toString());
-        }
-        return responseBuilder.body(entitiesSearchResult.getJson());
+        writeSearchResult(entitiesSearchResult, BooleanUtils.isTrue(returnCount), response);
     }
 
     @PostMapping("/{entityName}/search")
-    public ResponseEntity<String> searchEntitiesListPost(@PathVariable String entityName,
-                                                         @RequestBody String requestBodyJson) {
+    public void searchEntitiesListPost(@PathVariable String entityName,
+                                       @RequestBody String requestBodyJson,
+                                       HttpServletResponse response) throws IOException {
         EntitiesSearchResult entitiesSearchResult = entitiesControllerManager.searchEntities(entityName, requestBodyJson);
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(HttpStatus.OK);
         JsonObject requestJsonObject = new JsonParser().parse(requestBodyJson).getAsJsonObject();
         JsonPrimitive returnCount = requestJsonObject.getAsJsonPrimitive("returnCount");
-        if (returnCount != null && returnCount.getAsBoolean()) {
-            responseBuilder.header("X-Total-Count", entitiesSearchResult.getCount().toString());
-        }
-        return responseBuilder.body(entitiesSearchResult.getJson());
+        writeSearchResult(entitiesSearchResult, returnCount != null && returnCount.getAsBoolean(), response);
+    }
+
+    /**
+     * Writes JSON of the loaded entities directly to the response, without building the response body in memory.
+     */
+    protected void writeSearchResult(EntitiesSearchResult entitiesSearchResult, boolean returnCount,
+                                     HttpServletResponse response) throws IOException {
+        String count = returnCount ? entitiesSearchResult.getCount().toString() : null;
+        restControllerUtils.writeJsonResponse(response, entitiesSearchResult, count);
     }
 
     @PostMapping("/{entityName}")
@@ -19,6 +19,7 @@ package com.haulmont.restapi.controllers;
 import com.haulmont.cuba.core.app.DataService;
 import com.haulmont.cuba.core.entity.FileDescriptor;
 import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.core.sys.servlet.FileDownloadSupport;
 import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
 import com.haulmont.restapi.exception.RestAPIException;
 import org.apache.commons.io.IOUtils;
@@ -32,6 +33,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
@@ -63,6 +65,7 @@ public class FileDownloadController {
     @GetMapping("/{fileDescriptorId}")
     public void downloadFile(@PathVariable String fileDescriptorId,
                              @RequestParam(required = false) Boolean attachment,
+                             HttpServletRequest request,
                              HttpServletResponse response) {
         UUID uuid;
         try {
@@ -80,14 +83,29 @@ public class FileDownloadController {
         }
 
         try {
-            response.setHeader("Cache-Control", "no-cache");
-            response.setHeader("Pragma", "no-cache");
-            response.setDateHeader("Expires", 0);
+            FileDownloadSupport.setCacheHeaders(response, fd);
+            if (FileDownloadSupport.isNotModified(request, fd)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            FileDownloadSupport.Range range;
+            try {
+                range = FileDownloadSupport.getRange(request, fd);
+            } catch (IllegalArgumentException e) {
+                FileDownloadSupport.setRangeNotSatisfiable(response, fd);
+                return;
+            }
+
             response.setHeader("Content-Type", getContentType(fd));
             response.setHeader("Content-Disposition", (BooleanUtils.isTrue(attachment) ? "attachment" : "inline")
                     + "; filename=\"" + fd.getName() + "\"");
 
-            downloadFromMiddlewareAndWriteResponse(fd, response);
+            if (range != null) {
+                downloadRangeFromMiddlewareAndWriteResponse(fd, range, response);
+            } else {
+                downloadFromMiddlewareAndWriteResponse(fd, response);
+            }
         } catch (Exception e) {
             log.error("Error on downloading the file {}", fileDescriptorId, e);
             throw new RestAPIException("Error on downloading the file", "", HttpStatus.INTERNAL_SERVER_ERROR, e);
@@ -107,6 +125,21 @@ public class FileDownloadController {
         }
     }
 
+    protected void downloadRangeFromMiddlewareAndWriteResponse(FileDescriptor fd, FileDownloadSupport.Range range,
+                                                               HttpServletResponse response) throws IOException {
+        try (InputStream is = fileLoader.openStream(fd, range.getStart(), range.getLength())) {
+            FileDownloadSupport.setPartialContent(response, fd, range);
+            ServletOutputStream os = response.getOutputStream();
+            IOUtils.copyLarge(is, os);
+            os.flush();
+        } catch (FileStorageException e) {
+            throw new RestAPIException("Unable to download file from FileStorage",
+                    "Unable to download file from FileStorage: " + fd.getId(),
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    e);
+        }
+    }
+
     protected String getContentType(FileDescriptor fd) {
         if (StringUtils.isEmpty(fd.getExtension())) {
             return FileTypesHelper.DEFAULT_MIME_TYPE;
@@ -16,20 +16,78 @@
 
 package com.haulmont.restapi.data;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
 public class EntitiesSearchResult {
     protected String json;
+    protected JsonSource jsonSource;
     protected Long count;
+    protected String nextCursor;
 
     public EntitiesSearchResult(String json, Long count) {
         this.json = json;
         this.count = count;
     }
 
+    /**
+     * Creates a result which JSON is written by the given source on demand, see {@link #writeJson(Writer)}.
+     */
+    public EntitiesSearchResult(JsonSource jsonSource, Long count) {
+        this.jsonSource = jsonSource;
+        this.count = count;
+    }
+
     public String getJson() {
+        if (json == null && jsonSource != null) {
+            StringWriter writer = new StringWriter();
+            try {
+                jsonSource.writeTo(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            json = writer.toString();
+        }
         return json;
     }
 
+    /**
+     * Writes JSON of the result to the writer without building it in memory if possible.
+     */
+    public void writeJson(Writer writer) throws IOException {
+        if (json == null && jsonSource != null) {
+            jsonSource.writeTo(writer);
+        } else if (json != null) {
+            writer.write(json);
+        }
+    }
+
     public Long getCount() {
         return count;
     }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return cursor of the next page if the result is loaded in the cursor pagination mode and it is not the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Writes JSON to a writer.
+     */
+    @FunctionalInterface
+    public interface JsonSource {
+        void writeTo(Writer writer) throws IOException;
+    }
 }
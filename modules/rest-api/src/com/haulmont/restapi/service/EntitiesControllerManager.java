@@ -31,6 +31,7 @@ import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.restapi.common.RestControllerUtils;
+import com.haulmont.restapi.common.RestCursorUtils;
 import com.haulmont.restapi.config.RestApiConfig;
 import com.haulmont.restapi.data.CreatedEntityInfo;
 import com.haulmont.restapi.data.EntitiesSearchResult;
@@ -45,6 +46,8 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.util.*;
 
@@ -88,6 +91,9 @@ public class EntitiesControllerManager {
     @Inject
     protected RestApiConfig restApiConfig;
 
+    @Inject
+    protected RestCursorUtils restCursorUtils;
+
     public String loadEntity(String entityName,
                              String entityId,
                              @Nullable String viewName,
@@ -133,24 +139,39 @@ public class EntitiesControllerManager {
                                                  @Nullable Boolean returnCount,
                                                  @Nullable Boolean dynamicAttributes,
                                                  @Nullable String modelVersion) {
+        return loadEntitiesList(entityName, viewName, limit, offset, sort, returnNulls, returnCount,
+                dynamicAttributes, modelVersion, null);
+    }
+
+    /**
+     * Loads a page of entities. If the {@code cursor} is not null, the page is selected by the cursor returned with
+     * the previous page (an empty cursor means the first page) instead of the offset, see {@link RestCursorUtils}.
+     */
+    public EntitiesSearchResult loadEntitiesList(String entityName,
+                                                 @Nullable String viewName,
+                                                 @Nullable Integer limit,
+                                                 @Nullable Integer offset,
+                                                 @Nullable String sort,
+                                                 @Nullable Boolean returnNulls,
+                                                 @Nullable Boolean returnCount,
+                                                 @Nullable Boolean dynamicAttributes,
+                                                 @Nullable String modelVersion,
+                                                 @Nullable String cursor) {
         entityName = restControllerUtils.transformEntityNameIfRequired(entityName, modelVersion, JsonTransformationDirection.FROM_VERSION);
         MetaClass metaClass = restControllerUtils.getMetaClass(entityName);
         checkCanReadEntity(metaClass);
+        checkCursorAndOffset(cursor, offset);
 
         String queryString = "select e from " + entityName + " e";
-        String json = _loadEntitiesList(queryString, viewName, limit, offset, sort, returnNulls, dynamicAttributes, modelVersion,
-                metaClass, new HashMap<>());
-
-        json = restControllerUtils.transformJsonIfRequired(entityName, modelVersion, JsonTransformationDirection.TO_VERSION, json);
+        EntitiesSearchResult result = _loadEntities(queryString, viewName, limit, offset, sort,
+                returnNulls, dynamicAttributes, modelVersion, metaClass, new HashMap<>(), cursor);
 
-        Long count = null;
         if (BooleanUtils.isTrue(returnCount)) {
             LoadContext ctx = LoadContext.create(metaClass.getJavaClass())
                     .setQuery(LoadContext.createQuery(queryString));
-            count = dataManager.getCount(ctx);
+            result.setCount(dataManager.getCount(ctx));
         }
-        return new EntitiesSearchResult(json, count);
-
+        return result;
     }
 
     public EntitiesSearchResult searchEntities(String entityName,
@@ -182,16 +203,15 @@ public class EntitiesControllerManager {
         Map<String, Object> queryParameters = filterParseResult.getQueryParameters();
 
         String queryString = "select e from " + entityName + " e where " + jpqlWhere;
-        String json = _loadEntitiesList(queryString, viewName, limit, offset, sort, returnNulls,
-                dynamicAttributes, modelVersion, metaClass, queryParameters);
-        Long count = null;
+        EntitiesSearchResult result = _loadEntities(queryString, viewName, limit, offset, sort,
+                returnNulls, dynamicAttributes, modelVersion, metaClass, queryParameters, null);
         if (BooleanUtils.isTrue(returnCount)) {
             LoadContext ctx = LoadContext.create(metaClass.getJavaClass())
                     .setQuery(LoadContext.createQuery(queryString).setParameters(queryParameters));
-            count = dataManager.getCount(ctx);
+            result.setCount(dataManager.getCount(ctx));
         }
 
-        return new EntitiesSearchResult(json, count);
+        return result;
     }
 
     public EntitiesSearchResult searchEntities(String entityName, String searchRequestBody) {
@@ -231,8 +251,27 @@ public class EntitiesControllerManager {
                                        @Nullable String modelVersion,
                                        MetaClass metaClass,
                                        Map<String, Object> queryParameters) {
+        return _loadEntities(queryString, viewName, limit, offset, sort,
+                returnNulls, dynamicAttributes, modelVersion, metaClass, queryParameters, null).getJson();
+    }
+
+    /**
+     * Loads entities and returns the result writing their JSON, so that the JSON can be streamed to the response.
+     * If the {@code cursor} is not null, the entities are loaded in the cursor pagination mode.
+     */
+    protected EntitiesSearchResult _loadEntities(String queryString,
+                                                 @Nullable String viewName,
+                                                 @Nullable Integer limit,
+                                                 @Nullable Integer offset,
+                                                 @Nullable String sort,
+                                                 @Nullable Boolean returnNulls,
+                                                 @Nullable Boolean dynamicAttributes,
+                                                 @Nullable String modelVersion,
+                                                 MetaClass metaClass,
+                                                 Map<String, Object> queryParameters,
+                                                 @Nullable String cursor) {
         LoadContext<Entity> ctx = new LoadContext<>(metaClass);
-        if (!Strings.isNullOrEmpty(sort)) {
+        if (cursor == null && !Strings.isNullOrEmpty(sort)) {
             boolean descSortOrder = false;
             if (sort.startsWith("-")) {
                 descSortOrder = true;
@@ -254,6 +293,9 @@ public class EntitiesControllerManager {
         if (queryParameters != null) {
             query.setParameters(queryParameters);
         }
+        RestCursorUtils.CursorPosition cursorPosition = cursor != null
+                ? restCursorUtils.applyCursor(query, metaClass, sort, cursor, query.getMaxResults())
+                : null;
         ctx.setQuery(query);
 
         View view = null;
@@ -271,9 +313,77 @@ public class EntitiesControllerManager {
         serializationOptions.add(EntitySerializationOption.SERIALIZE_INSTANCE_NAME);
         if (BooleanUtils.isTrue(returnNulls)) serializationOptions.add(EntitySerializationOption.SERIALIZE_NULLS);
 
-        String json = entitySerializationAPI.toJson(entities, view, serializationOptions.toArray(new EntitySerializationOption[0]));
-        json = restControllerUtils.transformJsonIfRequired(metaClass.getName(), modelVersion, JsonTransformationDirection.TO_VERSION, json);
-        return json;
+        View serializationView = view;
+        EntitySerializationOption[] options = serializationOptions.toArray(new EntitySerializationOption[0]);
+        EntitiesSearchResult result = new EntitiesSearchResult(writer -> restControllerUtils.writeEntitiesJson(
+                entities, serializationView, metaClass.getName(), modelVersion, writer, options), null);
+        if (cursorPosition != null) {
+            result.setNextCursor(restCursorUtils.createNextCursor(cursorPosition, entities));
+        }
+        return result;
+    }
+
+    /**
+     * Writes all entities matching the filter to the writer in the newline delimited JSON format, one entity per
+     * line. Entities are loaded by chunks of {@link RestApiConfig#getExportChunkSize()} using cursor pagination, so
+     * the whole result is never held in memory.
+     */
+    public void exportEntities(String entityName,
+                               @Nullable String viewName,
+                               @Nullable String sort,
+                               @Nullable String filterJson,
+                               @Nullable Boolean returnNulls,
+                               @Nullable Boolean dynamicAttributes,
+                               @Nullable String modelVersion,
+                               Writer writer) throws IOException {
+        String transformedEntityName = restControllerUtils.transformEntityNameIfRequired(entityName, modelVersion, JsonTransformationDirection.FROM_VERSION);
+        MetaClass metaClass = restControllerUtils.getMetaClass(transformedEntityName);
+        checkCanReadEntity(metaClass);
+
+        String queryString = "select e from " + transformedEntityName + " e";
+        Map<String, Object> queryParameters = new HashMap<>();
+        if (!Strings.isNullOrEmpty(filterJson)) {
+            RestFilterParseResult filterParseResult;
+            try {
+                filterParseResult = restFilterParser.parse(filterJson, metaClass);
+            } catch (RestFilterParseException e) {
+                throw new RestAPIException("Cannot parse entities filter", e.getMessage(), HttpStatus.BAD_REQUEST, e);
+            }
+            queryString += " where " + filterParseResult.getJpqlWhere().replace("{E}", "e");
+            queryParameters.putAll(filterParseResult.getQueryParameters());
+        }
+
+        View view = !Strings.isNullOrEmpty(viewName) ? restControllerUtils.getView(metaClass, viewName) : null;
+
+        List<EntitySerializationOption> serializationOptions = new ArrayList<>();
+        serializationOptions.add(EntitySerializationOption.SERIALIZE_INSTANCE_NAME);
+        if (BooleanUtils.isTrue(returnNulls)) serializationOptions.add(EntitySerializationOption.SERIALIZE_NULLS);
+        EntitySerializationOption[] options = serializationOptions.toArray(new EntitySerializationOption[0]);
+
+        int chunkSize = restApiConfig.getExportChunkSize();
+        String cursor = null;
+        do {
+            LoadContext.Query query = new LoadContext.Query(queryString).setParameters(queryParameters);
+            RestCursorUtils.CursorPosition cursorPosition =
+                    restCursorUtils.applyCursor(query, metaClass, sort, cursor, chunkSize);
+
+            LoadContext<Entity> ctx = new LoadContext<>(metaClass);
+            ctx.setQuery(query);
+            ctx.setView(view);
+            ctx.setLoadDynamicAttributes(BooleanUtils.isTrue(dynamicAttributes));
+
+            List<Entity> entities = dataManager.loadList(ctx);
+            for (Entity entity : entities) {
+                restControllerUtils.applyAttributesSecurity(entity);
+                String json = entitySerializationAPI.toJson(entity, view, options);
+                writer.write(restControllerUtils.transformJsonIfRequired(transformedEntityName, modelVersion,
+                        JsonTransformationDirection.TO_VERSION, json));
+                writer.write('\n');
+            }
+            writer.flush();
+
+            cursor = restCursorUtils.createNextCursor(cursorPosition, entities);
+        } while (cursor != null);
     }
 
     public CreatedEntityInfo createEntity(String entityJson, String entityName, String modelVersion) {
@@ -424,6 +534,14 @@ public class EntitiesControllerManager {
         }
     }
 
+    protected void checkCursorAndOffset(@Nullable String cursor, @Nullable Integer offset) {
+        if (cursor != null && offset != null) {
+            throw new RestAPIException("Invalid pagination parameters",
+                    "Cursor and offset cannot be used together",
+                    HttpStatus.BAD_REQUEST);
+        }
+    }
+
     protected void checkCanCreateEntity(MetaClass metaClass) {
         if (!security.isEntityOpPermitted(metaClass, EntityOp.CREATE)) {
             throw new RestAPIException("Creation forbidden",
@@ -30,8 +30,10 @@ import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.cuba.security.entity.User;
 import com.haulmont.restapi.common.RestControllerUtils;
+import com.haulmont.restapi.common.RestCursorUtils;
 import com.haulmont.restapi.common.RestParseUtils;
 import com.haulmont.restapi.config.RestQueriesConfiguration;
+import com.haulmont.restapi.data.EntitiesSearchResult;
 import com.haulmont.restapi.exception.RestAPIException;
 import com.haulmont.restapi.transform.JsonTransformationDirection;
 import org.apache.commons.lang3.BooleanUtils;
@@ -76,6 +78,9 @@ public class QueriesControllerManager {
     @Inject
     protected UserSessionSource userSessionSource;
 
+    @Inject
+    protected RestCursorUtils restCursorUtils;
+
     public String executeQueryGet(String entityName,
                                   String queryName,
                                   @Nullable Integer limit,
@@ -101,6 +106,46 @@ public class QueriesControllerManager {
         return _executeQuery(entityName, queryName, limit, offset, viewName, returnNulls, dynamicAttributes, version, paramsMap);
     }
 
+    /**
+     * Executes the query and returns the result which JSON can be streamed to the response. If the {@code cursor} is
+     * not null, the page is selected by the cursor returned with the previous page (an empty cursor means the first
+     * page) instead of the offset. The result is ordered by entity identifier unless the query has its own order,
+     * which is kept, see {@link RestCursorUtils}.
+     */
+    public EntitiesSearchResult loadQueryResultGet(String entityName,
+                                                   String queryName,
+                                                   @Nullable Integer limit,
+                                                   @Nullable Integer offset,
+                                                   @Nullable String viewName,
+                                                   @Nullable Boolean returnNulls,
+                                                   @Nullable Boolean dynamicAttributes,
+                                                   @Nullable String version,
+                                                   Map<String, String> params,
+                                                   @Nullable String cursor) {
+        return _loadQueryResult(entityName, queryName, limit, offset, viewName, returnNulls, dynamicAttributes,
+                version, params, cursor);
+    }
+
+    /**
+     * Executes the query and returns the result which JSON can be streamed to the response.
+     *
+     * @see #loadQueryResultGet(String, String, Integer, Integer, String, Boolean, Boolean, String, Map, String)
+     */
+    public EntitiesSearchResult loadQueryResultPost(String entityName,
+                                                    String queryName,
+                                                    @Nullable Integer limit,
+                                                    @Nullable Integer offset,
+                                                    @Nullable String viewName,
+                                                    @Nullable Boolean returnNulls,
+                                                    @Nullable Boolean dynamicAttributes,
+                                                    @Nullable String version,
+                                                    String paramsJson,
+                                                    @Nullable String cursor) {
+        Map<String, String> paramsMap = restParseUtils.parseParamsJson(paramsJson);
+        return _loadQueryResult(entityName, queryName, limit, offset, viewName, returnNulls, dynamicAttributes,
+                version, paramsMap, cursor);
+    }
+
     protected String _executeQuery(String entityName,
                                    String queryName,
                                    @Nullable Integer limit,
@@ -110,6 +155,25 @@ public class QueriesControllerManager {
                                    @Nullable Boolean dynamicAttributes,
                                    @Nullable String version,
                                    Map<String, String> params) {
+        return _loadQueryResult(entityName, queryName, limit, offset, viewName,
+                returnNulls, dynamicAttributes, version, params, null).getJson();
+    }
+
+    protected EntitiesSearchResult _loadQueryResult(String entityName,
+                                                    String queryName,
+                                                    @Nullable Integer limit,
+                                                    @Nullable Integer offset,
+                                                    @Nullable String viewName,
+                                                    @Nullable Boolean returnNulls,
+                                                    @Nullable Boolean dynamicAttributes,
+                                                    @Nullable String version,
+                                                    Map<String, String> params,
+                                                    @Nullable String cursor) {
+        if (cursor != null && offset != null) {
+            throw new RestAPIException("Invalid pagination parameters",
+                    "Cursor and offset cannot be used together",
+                    HttpStatus.BAD_REQUEST);
+        }
         LoadContext<Entity> ctx;
         entityName = restControllerUtils.transformEntityNameIfRequired(entityName, version, JsonTransformationDirection.FROM_VERSION);
         try {
@@ -119,6 +183,12 @@ public class QueriesControllerManager {
         }
         ctx.setLoadDynamicAttributes(BooleanUtils.isTrue(dynamicAttributes));
 
+        MetaClass queryMetaClass = restControllerUtils.getMetaClass(entityName);
+        LoadContext.Query query = ctx.getQuery();
+        RestCursorUtils.CursorPosition cursorPosition = cursor != null
+                ? restCursorUtils.applyCursor(query, queryMetaClass, null, cursor, query.getMaxResults())
+                : null;
+
         //override default view defined in queries config
         if (!Strings.isNullOrEmpty(viewName)) {
             MetaClass metaClass = restControllerUtils.getMetaClass(entityName);
@@ -132,9 +202,15 @@ public class QueriesControllerManager {
         serializationOptions.add(EntitySerializationOption.SERIALIZE_INSTANCE_NAME);
         if (BooleanUtils.isTrue(returnNulls)) serializationOptions.add(EntitySerializationOption.SERIALIZE_NULLS);
 
-        String json = entitySerializationAPI.toJson(entities, ctx.getView(), serializationOptions.toArray(new EntitySerializationOption[0]));
-        json = restControllerUtils.transformJsonIfRequired(entityName, version, JsonTransformationDirection.TO_VERSION, json);
-        return json;
+        String metaClassName = entityName;
+        View view = ctx.getView();
+        EntitySerializationOption[] options = serializationOptions.toArray(new EntitySerializationOption[0]);
+        EntitiesSearchResult result = new EntitiesSearchResult(writer -> restControllerUtils.writeEntitiesJson(
+                entities, view, metaClassName, version, writer, options), null);
+        if (cursorPosition != null) {
+            result.setNextCursor(restCursorUtils.createNextCursor(cursorPosition, entities));
+        }
+        return result;
     }
 
     public String getCountGet(String entityName,
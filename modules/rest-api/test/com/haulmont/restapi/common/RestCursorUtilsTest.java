@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.restapi.common;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.client.testsupport.CubaClientTestCase;
+import com.haulmont.cuba.core.global.LoadContext;
+import com.haulmont.cuba.core.global.QueryTransformerFactory;
+import com.haulmont.restapi.service.filter.testmodel.TestEntity;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RestCursorUtilsTest extends CubaClientTestCase {
+
+    private RestCursorUtils restCursorUtils;
+
+    private MetaClass metaClass;
+
+    @Before
+    public void setUp() {
+        addEntityPackage("com.haulmont.cuba");
+        addEntityPackage("com.haulmont.restapi.service.filter.testmodel");
+        setupInfrastructure();
+
+        restCursorUtils = new RestCursorUtils();
+        restCursorUtils.metadataTools = metadata.getTools();
+        restCursorUtils.queryTransformerFactory = new QueryTransformerFactory();
+
+        metaClass = metadata.getClass("test$TestEntity");
+    }
+
+    @Test
+    public void testDateCursorRoundTrip() {
+        Date createTs = new Date(1546300800123L);
+        TestEntity entity = createEntity(1, createTs);
+
+        LoadContext.Query query = createQuery("select e from test$TestEntity e");
+        RestCursorUtils.CursorPosition position = restCursorUtils.applyCursor(query, metaClass, "createTs", "", 1);
+        String cursor = restCursorUtils.createNextCursor(position, Collections.singletonList(entity));
+        assertNotNull(cursor);
+
+        LoadContext.Query nextQuery = createQuery("select e from test$TestEntity e");
+        restCursorUtils.applyCursor(nextQuery, metaClass, "createTs", cursor, 1);
+
+        assertEquals(createTs, nextQuery.getParameters().get(RestCursorUtils.SORT_VALUE_PARAM));
+        assertEquals(entity.getId(), nextQuery.getParameters().get(RestCursorUtils.ID_PARAM));
+        assertTrue(nextQuery.getQueryString().contains("e.createTs is not null"));
+        assertTrue(nextQuery.getQueryString().endsWith("order by e.createTs, e.id"));
+    }
+
+    @Test
+    public void testValueRoundTrip() throws Exception {
+        Locale locale = Locale.getDefault();
+        try {
+            // decimal separator must not depend on the locale
+            Locale.setDefault(Locale.GERMANY);
+            assertRoundTrip(new java.math.BigDecimal("12345.678900"), java.math.BigDecimal.class);
+            assertRoundTrip(0.1d, Double.class);
+            assertRoundTrip(Long.MAX_VALUE, Long.class);
+            assertRoundTrip(new java.sql.Timestamp(1546300800123L), Date.class);
+            assertRoundTrip(java.time.LocalDateTime.of(2019, 1, 1, 12, 30, 15, 123000000),
+                    java.time.LocalDateTime.class);
+            assertRoundTrip(UUID.randomUUID(), UUID.class);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void testNullSortValuesAscending() {
+        LoadContext.Query query = createQuery("select e from test$TestEntity e");
+        RestCursorUtils.CursorPosition position = restCursorUtils.applyCursor(query, metaClass, "intField", "", 2);
+        assertFalse(position.isNulls());
+
+        // short page of non-null values is followed by the entities having null values
+        List<TestEntity> page = Collections.singletonList(createEntity(1, new Date()));
+        String cursor = restCursorUtils.createNextCursor(position, page);
+        assertNotNull(cursor);
+
+        LoadContext.Query nullsQuery = createQuery("select e from test$TestEntity e");
+        position = restCursorUtils.applyCursor(nullsQuery, metaClass, "intField", cursor, 2);
+        assertTrue(position.isNulls());
+        assertTrue(nullsQuery.getQueryString().contains("e.intField is null"));
+        assertFalse(nullsQuery.getParameters().containsKey(RestCursorUtils.ID_PARAM));
+        assertTrue(nullsQuery.getQueryString().endsWith("order by e.id"));
+
+        // full page of null values continues by identifier
+        TestEntity last = createEntity(null, new Date());
+        cursor = restCursorUtils.createNextCursor(position, Arrays.asList(createEntity(null, new Date()), last));
+        assertNotNull(cursor);
+
+        LoadContext.Query nextQuery = createQuery("select e from test$TestEntity e");
+        position = restCursorUtils.applyCursor(nextQuery, metaClass, "intField", cursor, 2);
+        assertTrue(position.isNulls());
+        assertEquals(last.getId(), nextQuery.getParameters().get(RestCursorUtils.ID_PARAM));
+
+        // short page of null values is the last one
+        assertNull(restCursorUtils.createNextCursor(position, Collections.emptyList()));
+    }
+
+    @Test
+    public void testNullSortValuesDescending() {
+        LoadContext.Query query = createQuery("select e from test$TestEntity e");
+        RestCursorUtils.CursorPosition position = restCursorUtils.applyCursor(query, metaClass, "-intField", "", 2);
+        assertTrue(position.isNulls());
+        assertTrue(query.getQueryString().endsWith("order by e.id desc"));
+
+        String cursor = restCursorUtils.createNextCursor(position, Collections.emptyList());
+        assertNotNull(cursor);
+
+        LoadContext.Query nextQuery = createQuery("select e from test$TestEntity e");
+        position = restCursorUtils.applyCursor(nextQuery, metaClass, "-intField", cursor, 2);
+        assertFalse(position.isNulls());
+        assertTrue(nextQuery.getQueryString().contains("e.intField is not null"));
+        assertTrue(nextQuery.getQueryString().endsWith("order by e.intField desc, e.id desc"));
+
+        assertNull(restCursorUtils.createNextCursor(position, Collections.singletonList(createEntity(1, new Date()))));
+    }
+
+    @Test
+    public void testQueryOrderIsKept() {
+        String queryString = "select e from test$TestEntity e order by e.stringField";
+        LoadContext.Query query = createQuery(queryString);
+        RestCursorUtils.CursorPosition position = restCursorUtils.applyCursor(query, metaClass, null, "", 2);
+        assertTrue(position.isOffsetMode());
+        assertEquals(queryString, query.getQueryString());
+        assertEquals(0, query.getFirstResult());
+
+        String cursor = restCursorUtils.createNextCursor(position,
+                Arrays.asList(createEntity(1, new Date()), createEntity(2, new Date())));
+        assertNotNull(cursor);
+
+        LoadContext.Query nextQuery = createQuery(queryString);
+        position = restCursorUtils.applyCursor(nextQuery, metaClass, null, cursor, 2);
+        assertEquals(queryString, nextQuery.getQueryString());
+        assertEquals(2, nextQuery.getFirstResult());
+        assertEquals(2, nextQuery.getMaxResults());
+
+        assertNull(restCursorUtils.createNextCursor(position, Collections.singletonList(createEntity(3, new Date()))));
+    }
+
+    @Test
+    public void testNoLimit() {
+        LoadContext.Query query = createQuery("select e from test$TestEntity e");
+        RestCursorUtils.CursorPosition position = restCursorUtils.applyCursor(query, metaClass, null, "", 0);
+
+        assertNull(restCursorUtils.createNextCursor(position, Collections.singletonList(createEntity(1, new Date()))));
+    }
+
+    private void assertRoundTrip(Object value, Class<?> javaClass) throws Exception {
+        Object decoded = restCursorUtils.decodeValue(restCursorUtils.encodeValue(value), javaClass);
+        if (value instanceof Date) {
+            assertEquals(((Date) value).getTime(), ((Date) decoded).getTime());
+        } else {
+            assertEquals(value, decoded);
+        }
+    }
+
+    private LoadContext.Query createQuery(String queryString) {
+        return new LoadContext.Query(queryString);
+    }
+
+    private TestEntity createEntity(Integer intField, Date createTs) {
+        TestEntity entity = new TestEntity();
+        entity.setIntField(intField);
+        entity.setCreateTs(createTs);
+        return entity;
+    }
+}
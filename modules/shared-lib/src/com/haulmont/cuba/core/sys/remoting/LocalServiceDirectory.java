@@ -20,6 +20,7 @@ package com.haulmont.cuba.core.sys.remoting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
@@ -59,6 +60,13 @@ public class LocalServiceDirectory {
         return invokers.get(name);
     }
 
+    /**
+     * @return registered invokers by service entry name
+     */
+    public static Map<String, LocalServiceInvoker> getInvokers() {
+        return Collections.unmodifiableMap(invokers);
+    }
+
     public static void start() {
         log.debug("Starting local service bridge");
 
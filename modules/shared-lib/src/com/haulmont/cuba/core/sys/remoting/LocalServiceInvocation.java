@@ -38,6 +38,7 @@ public class LocalServiceInvocation {
     private String address;
     private String clientInfo;
     private boolean resultBypassSerialization;
+    private boolean passByReference;
 
     public LocalServiceInvocation(String methodName, String[] parameterTypeNames,
                                   byte[][] argumentsData, Object[] notSerializableArguments, UUID sessionId) {
@@ -107,4 +108,16 @@ public class LocalServiceInvocation {
     public void setResultBypassSerialization(boolean resultBypassSerialization) {
         this.resultBypassSerialization = resultBypassSerialization;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return true if arguments are passed as not serializable arguments and the result must be returned as not
+     * serializable data. The client and the service must share the class loader in this case.
+     */
+    public boolean isPassByReference() {
+        return passByReference;
+    }
+
+    public void setPassByReference(boolean passByReference) {
+        this.passByReference = passByReference;
+    }
+}
@@ -27,4 +27,12 @@ package com.haulmont.cuba.core.sys.remoting;
 public interface LocalServiceInvoker {
 
     LocalServiceInvocationResult invoke(LocalServiceInvocation invocation);
+
+    /**
+     * @return true if arguments and results of the service methods can be passed by reference, i.e. the client
+     * and the service share the classes of the service interface
+     */
+    default boolean isPassByReferenceSupported(Class<?> serviceInterface) {
+        return false;
+    }
 }
\ No newline at end of file
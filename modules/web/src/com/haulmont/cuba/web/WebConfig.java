@@ -47,6 +47,15 @@ public interface WebConfig extends Config {
     @DefaultBoolean(true)
     boolean getUseLocalServiceInvocation();
 
+    /**
+     * @return Whether to pass arguments and results of local service invocations by reference instead of serializing them.
+     * Mutable values are deep copied. Applies only if the client and the middleware share the class loader,
+     * e.g. in a single WAR deployment, otherwise the values are serialized.
+     */
+    @Property("cuba.localServiceInvocationByReference")
+    @DefaultBoolean(false)
+    boolean getLocalServiceInvocationByReference();
+
     /**
      * @return Default user login to set in the login dialog.
      */
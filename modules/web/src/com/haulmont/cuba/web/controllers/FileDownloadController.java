@@ -25,6 +25,7 @@ import com.haulmont.cuba.core.global.FileTypesHelper;
 import com.haulmont.cuba.core.global.LoadContext;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.SecurityContext;
+import com.haulmont.cuba.core.sys.servlet.FileDownloadSupport;
 import com.haulmont.cuba.security.app.UserSessionService;
 import com.haulmont.cuba.security.global.NoUserSessionException;
 import com.haulmont.cuba.security.global.UserSession;
@@ -93,16 +94,31 @@ public class FileDownloadController {
 
             String fileName = URLEncodeUtils.encodeUtf8(fd.getName());
 
-            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
-            response.setDateHeader(HttpHeaders.EXPIRES, 0);
+            FileDownloadSupport.setCacheHeaders(response, fd);
+            if (FileDownloadSupport.isNotModified(request, fd)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return null;
+            }
+
+            FileDownloadSupport.Range range;
+            try {
+                range = FileDownloadSupport.getRange(request, fd);
+            } catch (IllegalArgumentException e) {
+                FileDownloadSupport.setRangeNotSatisfiable(response, fd);
+                return null;
+            }
+
             response.setHeader(HttpHeaders.CONTENT_TYPE, getContentType(fd));
-            response.setHeader(HttpHeaders.PRAGMA, "no-cache");
 
             boolean attach = Boolean.valueOf(request.getParameter("a"));
             response.setHeader("Content-Disposition", (attach ? "attachment" : "inline")
                     + "; filename=" + fileName);
 
-            downloadFromMiddlewareAndWriteResponse(fd, response);
+            if (range != null) {
+                downloadRangeFromMiddlewareAndWriteResponse(fd, range, response);
+            } else {
+                downloadFromMiddlewareAndWriteResponse(fd, response);
+            }
         } finally {
             AppContext.setSecurityContext(null);
         }
@@ -120,6 +136,19 @@ public class FileDownloadController {
         }
     }
 
+    protected void downloadRangeFromMiddlewareAndWriteResponse(FileDescriptor fd, FileDownloadSupport.Range range,
+                                                               HttpServletResponse response) throws IOException {
+        try (InputStream is = fileLoader.openStream(fd, range.getStart(), range.getLength())) {
+            FileDownloadSupport.setPartialContent(response, fd, range);
+            ServletOutputStream os = response.getOutputStream();
+            IOUtils.copyLarge(is, os);
+            os.flush();
+        } catch (FileStorageException e) {
+            log.error("Unable to load file from middleware", e);
+            error(response);
+        }
+    }
+
     protected UserSession getSession(HttpServletRequest request, HttpServletResponse response) throws IOException {
         UUID sessionId;
         try {
@@ -1512,6 +1512,9 @@ public abstract class WebAbstractTable<T extends com.vaadin.v7.ui.Table & CubaEn
     }
 
     protected TableDataContainer<E> createTableDataContainer(TableItems<E> tableItems) {
+        if (tableItems instanceof TableItems.Indexed && tableItems instanceof TableItems.Sortable) {
+            return new IndexedDataContainer<>((TableItems.Sortable<E>) tableItems, this);
+        }
         if (tableItems instanceof TableItems.Sortable) {
             return new AggregatableSortableDataContainer<>((TableItems.Sortable<E>) tableItems, this);
         }
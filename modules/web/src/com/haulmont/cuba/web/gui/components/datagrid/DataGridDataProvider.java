@@ -104,9 +104,13 @@ public class DataGridDataProvider<T> extends AbstractDataProvider<T, Serializabl
             return Stream.empty();
         }
 
-        return dataGridItems.getItems()
-                .skip(query.getOffset())
-                .limit(query.getLimit());
+        // request only the rows being displayed, so paged items load just the visible window
+        int offset = query.getOffset();
+        int limit = Math.min(query.getLimit(), dataGridItems.size() - offset);
+        if (limit <= 0) {
+            return Stream.empty();
+        }
+        return dataGridItems.getItems(offset, limit).stream();
     }
 
     protected void datasourceItemSetChanged(DataGridItems.ItemSetChangeEvent<T> event) {
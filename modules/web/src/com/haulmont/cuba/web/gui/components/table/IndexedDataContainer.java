@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.web.gui.components.table;
+
+import com.haulmont.cuba.gui.components.data.BindingState;
+import com.haulmont.cuba.gui.components.data.TableItems;
+import com.vaadin.v7.data.Container;
+import com.vaadin.v7.data.Item;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Container for {@link TableItems.Indexed} items. The table requests items of the visible rows by index,
+ * so items which load data by pages are not iterated from the beginning.
+ */
+@SuppressWarnings("deprecation")
+public class IndexedDataContainer<I> extends SortableDataContainer<I> implements Container.Indexed {
+
+    public IndexedDataContainer(TableItems.Sortable<I> tableDataSource, TableItemsEventsDelegate<I> dataEventsDelegate) {
+        super(tableDataSource, dataEventsDelegate);
+
+        if (!(tableDataSource instanceof TableItems.Indexed)) {
+            throw new IllegalArgumentException("Table items must implement TableItems.Indexed");
+        }
+    }
+
+    protected TableItems.Indexed getIndexedTableSource() {
+        return (TableItems.Indexed) tableItems;
+    }
+
+    @Override
+    public int indexOfId(Object itemId) {
+        return getIndexedTableSource().indexOfId(itemId);
+    }
+
+    @Override
+    public Object getIdByIndex(int index) {
+        return getIndexedTableSource().getIdByIndex(index);
+    }
+
+    @Override
+    public List<?> getItemIds(int startIndex, int numberOfItems) {
+        if (tableItems.getState() == BindingState.INACTIVE) {
+            return Collections.emptyList();
+        }
+
+        return getIndexedTableSource().getItemIds(startIndex, numberOfItems);
+    }
+
+    @Override
+    public Object addItemAt(int index) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Item addItemAt(int index, Object newItemId) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+}
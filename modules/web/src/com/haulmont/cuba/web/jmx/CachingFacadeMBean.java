@@ -23,6 +23,12 @@ public interface CachingFacadeMBean {
 
     int getMessagesCacheSize();
 
+    long getMessagesCacheHitCount();
+
+    long getMessagesCacheMissCount();
+
+    long getMessagesRemoteCallCount();
+
     void clearGroovyCache();
 
     void clearMessagesCache();
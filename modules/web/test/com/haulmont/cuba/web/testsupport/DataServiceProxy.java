@@ -104,6 +104,11 @@ public class DataServiceProxy implements DataService {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<List<Entity>> loadBatch(List<LoadContext<? extends Entity>> contexts) {
+        return Collections.nCopies(contexts.size(), Collections.emptyList());
+    }
+
     @Override
     public long getCount(LoadContext<? extends Entity> context) {
         return 0;
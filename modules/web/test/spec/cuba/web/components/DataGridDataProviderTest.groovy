@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.components
+
+import com.haulmont.cuba.core.app.DataService
+import com.haulmont.cuba.gui.components.data.datagrid.ContainerDataGridItems
+import com.haulmont.cuba.gui.components.data.datagrid.PagedDataGridItems
+import com.haulmont.cuba.gui.model.CollectionContainer
+import com.haulmont.cuba.gui.model.CollectionLoader
+import com.haulmont.cuba.web.gui.components.datagrid.DataGridDataProvider
+import com.haulmont.cuba.web.gui.components.datagrid.DataGridItemsEventsDelegate
+import com.haulmont.cuba.web.testmodel.sales.Product
+import com.haulmont.cuba.web.testsupport.TestServiceProxy
+import com.vaadin.data.provider.Query
+import spec.cuba.web.WebSpec
+
+import java.util.stream.Collectors
+
+class DataGridDataProviderTest extends WebSpec {
+
+    private CollectionContainer<Product> container
+    private CollectionLoader<Product> loader
+    private List<Product> products
+
+    @Override
+    void setup() {
+        container = dataComponents.createCollectionContainer(Product)
+        loader = dataComponents.createCollectionLoader()
+        loader.setContainer(container)
+        loader.setQuery('select p from test$Product p order by p.name')
+
+        products = (0..9).collect { new Product(name: "p$it") }
+    }
+
+    def "container items are fetched by the requested range"() {
+        container.setItems(products)
+
+        def provider = new DataGridDataProvider<Product>(new ContainerDataGridItems<>(container),
+                Mock(DataGridItemsEventsDelegate))
+
+        expect:
+
+        provider.size(new Query<>()) == 10
+        fetch(provider, 2, 3)*.name == ['p2', 'p3', 'p4']
+        fetch(provider, 8, 5)*.name == ['p8', 'p9']
+        fetch(provider, 10, 5).isEmpty()
+    }
+
+    def "paged items load only the pages of the requested range"() {
+        def dataService = Mock(DataService)
+        TestServiceProxy.mock(DataService, dataService)
+
+        def dataGridItems = new PagedDataGridItems<Product>(loader, dataManager, metadataTools, 2, 5)
+        def provider = new DataGridDataProvider<Product>(dataGridItems, Mock(DataGridItemsEventsDelegate))
+
+        when:
+
+        def size = provider.size(new Query<>())
+
+        then:
+
+        1 * dataService.getCount(_) >> 10
+        size == 10
+
+        when:
+
+        def items = fetch(provider, 3, 3)
+
+        then:
+
+        1 * dataService.loadList({ it.query.firstResult == 2 }) >> products[2..3]
+        1 * dataService.loadList({ it.query.firstResult == 4 }) >> products[4..5]
+        0 * dataService.loadList(_)
+        items*.name == ['p3', 'p4', 'p5']
+
+        when:
+
+        items = fetch(provider, 9, 5)
+
+        then:
+
+        1 * dataService.loadList({ it.query.firstResult == 8 }) >> products[8..9]
+        items*.name == ['p9']
+    }
+
+    private static List<Product> fetch(DataGridDataProvider<Product> provider, int offset, int limit) {
+        return provider.fetch(new Query<>(offset, limit, [], null, null)).collect(Collectors.toList())
+    }
+}
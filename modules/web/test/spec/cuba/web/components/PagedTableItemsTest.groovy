@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.components
+
+import com.haulmont.cuba.core.app.DataService
+import com.haulmont.cuba.core.global.Sort
+import com.haulmont.cuba.gui.components.data.table.ContainerTableItems
+import com.haulmont.cuba.gui.components.data.table.PagedTableItems
+import com.haulmont.cuba.gui.model.CollectionContainer
+import com.haulmont.cuba.gui.model.CollectionLoader
+import com.haulmont.cuba.security.entity.EntityLogItem
+import com.haulmont.cuba.web.gui.components.table.IndexedDataContainer
+import com.haulmont.cuba.web.gui.components.table.TableItemsEventsDelegate
+import com.haulmont.cuba.web.testmodel.sales.Product
+import com.haulmont.cuba.web.testsupport.TestServiceProxy
+import spec.cuba.web.WebSpec
+
+class PagedTableItemsTest extends WebSpec {
+
+    private CollectionContainer<Product> container
+    private CollectionLoader<Product> loader
+    private List<Product> products
+
+    @Override
+    void setup() {
+        container = dataComponents.createCollectionContainer(Product)
+        loader = dataComponents.createCollectionLoader()
+        loader.setContainer(container)
+        loader.setQuery('select p from test$Product p order by p.name')
+
+        products = (0..9).collect { new Product(name: "p$it") }
+    }
+
+    def "indexed container requests ids of the visible rows by index"() {
+        def dataService = Mock(DataService)
+        TestServiceProxy.mock(DataService, dataService)
+
+        def tableItems = new PagedTableItems<Product>(loader, dataManager, metadataTools, 2, 5)
+        def dataContainer = new IndexedDataContainer<Product>(tableItems, Mock(TableItemsEventsDelegate))
+
+        when:
+
+        def ids = dataContainer.getItemIds(3, 3)
+
+        then:
+
+        1 * dataService.getCount(_) >> 10
+        1 * dataService.loadList({ it.query.firstResult == 2 }) >> products[2..3]
+        1 * dataService.loadList({ it.query.firstResult == 4 }) >> products[4..5]
+        0 * dataService.loadList(_)
+        ids == products[3..5]*.id
+        dataContainer.size() == 10
+        dataContainer.indexOfId(products[4].id) == 4
+        dataContainer.getIdByIndex(5) == products[5].id
+        dataContainer.nextItemId(products[3].id) == products[4].id
+        dataContainer.prevItemId(products[3].id) == products[2].id
+        dataContainer.getItem(products[4].id) != null
+    }
+
+    def "indexed container requires indexed table items"() {
+        when:
+
+        new IndexedDataContainer<Product>(new ContainerTableItems<>(container), Mock(TableItemsEventsDelegate))
+
+        then:
+
+        thrown(IllegalArgumentException)
+    }
+
+    def "sort by a persistent property is passed to the database"() {
+        def dataService = Mock(DataService)
+        TestServiceProxy.mock(DataService, dataService)
+
+        def tableItems = new PagedTableItems<Product>(loader, dataManager, metadataTools, 2, 5)
+        def namePath = metadata.getClass(Product).getPropertyPath('name')
+
+        when:
+
+        tableItems.sort([namePath] as Object[], [false] as boolean[])
+        def id = tableItems.firstItemId()
+
+        then:
+
+        1 * dataService.getCount(_) >> 10
+        1 * dataService.loadList({
+            it.query.sort.orders.size() == 1 &&
+                    it.query.sort.orders[0].property == 'name' &&
+                    it.query.sort.orders[0].direction == Sort.Direction.DESC
+        }) >> products.reverse()[0..1]
+        id == products[9].id
+
+        when:
+
+        tableItems.resetSortOrder()
+        tableItems.firstItemId()
+
+        then:
+
+        1 * dataService.getCount(_) >> 10
+        1 * dataService.loadList({ it.query.sort == null }) >> products[0..1]
+    }
+
+    def "sort by a non-persistent property is not passed to the database"() {
+        def dataService = Mock(DataService)
+        TestServiceProxy.mock(DataService, dataService)
+
+        CollectionContainer<EntityLogItem> logContainer = dataComponents.createCollectionContainer(EntityLogItem)
+        CollectionLoader<EntityLogItem> logLoader = dataComponents.createCollectionLoader()
+        logLoader.setContainer(logContainer)
+        logLoader.setQuery('select e from sec$EntityLog e')
+
+        def tableItems = new PagedTableItems<EntityLogItem>(logLoader, dataManager, metadataTools, 2, 5)
+        def metaClass = metadata.getClass(EntityLogItem)
+
+        when:
+
+        tableItems.sort([metaClass.getPropertyPath('attributes'), metaClass.getPropertyPath('eventTs')] as Object[],
+                [true, true] as boolean[])
+        tableItems.firstItemId()
+
+        then:
+
+        1 * dataService.getCount(_) >> 2
+        1 * dataService.loadList({
+            it.query.sort.orders*.property == ['eventTs'] &&
+                    it.query.sort.orders[0].direction == Sort.Direction.ASC
+        }) >> []
+
+        when:
+
+        tableItems.sort([metaClass.getPropertyPath('attributes')] as Object[], [true] as boolean[])
+        tableItems.getItemIds(0, 2)
+
+        then:
+
+        1 * dataService.getCount(_) >> 2
+        1 * dataService.loadList({ it.query.sort == null }) >> []
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.components
+
+import com.haulmont.cuba.core.global.LoadContext
+import com.haulmont.cuba.core.global.Sort
+import com.haulmont.cuba.gui.export.StreamingExporter
+import com.haulmont.cuba.web.testmodel.sales.Product
+import spec.cuba.web.WebSpec
+
+class StreamingExporterTest extends WebSpec {
+
+    def "rows are ordered by the primary key after the query order"() {
+        def exporter = new StreamingExporter()
+
+        def loadContext = LoadContext.create(Product)
+        loadContext.setQueryString('select p from test$Product p order by p.name')
+
+        when:
+
+        exporter.addIdOrder(loadContext)
+
+        then:
+
+        loadContext.query.queryString.endsWith('order by p.name, p.id')
+
+        when:
+
+        exporter.addIdOrder(loadContext)
+
+        then:
+
+        loadContext.query.queryString.endsWith('order by p.name, p.id')
+    }
+
+    def "rows are ordered by the primary key if the query has no order"() {
+        def exporter = new StreamingExporter()
+
+        def loadContext = LoadContext.create(Product)
+        loadContext.setQueryString('select p from test$Product p where p.name is not null')
+
+        when:
+
+        exporter.addIdOrder(loadContext)
+
+        then:
+
+        loadContext.query.queryString.contains('order by p.id')
+    }
+
+    def "primary key is added to the sort in its direction"() {
+        def exporter = new StreamingExporter()
+
+        def loadContext = LoadContext.create(Product)
+        loadContext.setQueryString('select p from test$Product p')
+                .setSort(Sort.by(Sort.Direction.DESC, 'name'))
+
+        when:
+
+        exporter.addIdOrder(loadContext)
+
+        then:
+
+        loadContext.query.queryString == 'select p from test$Product p'
+        loadContext.query.sort.orders*.property == ['name', 'id']
+        loadContext.query.sort.orders*.direction == [Sort.Direction.DESC, Sort.Direction.DESC]
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.datacontext
+
+import com.haulmont.cuba.core.app.DataService
+import com.haulmont.cuba.core.global.EntityAccessException
+import com.haulmont.cuba.core.sys.AppContext
+import com.haulmont.cuba.gui.model.*
+import com.haulmont.cuba.gui.model.impl.ScreenDataImpl
+import com.haulmont.cuba.web.testmodel.datacontext.Foo
+import com.haulmont.cuba.web.testsupport.TestContainer
+import com.haulmont.cuba.web.testsupport.TestServiceProxy
+import org.junit.ClassRule
+import spock.lang.Shared
+import spock.lang.Specification
+
+import static com.haulmont.cuba.client.testsupport.TestSupport.reserialize
+
+class BatchLoadingTest extends Specification {
+
+    @Shared @ClassRule
+    public TestContainer cont = TestContainer.Common.INSTANCE
+
+    private DataComponents factory
+
+    void setup() {
+        factory = cont.getBean(DataComponents)
+        AppContext.setProperty('cuba.gui.batchDataLoading', 'true')
+    }
+
+    void cleanup() {
+        AppContext.setProperty('cuba.gui.batchDataLoading', null)
+        TestServiceProxy.clear()
+    }
+
+    def "loaders are executed in one batch in the order of declaration"() {
+        Foo foo = new Foo()
+        Foo foo1 = new Foo()
+        Foo foo2 = new Foo()
+
+        ScreenData screenData = new ScreenDataImpl()
+
+        CollectionContainer<Foo> foosCont = factory.createCollectionContainer(Foo)
+        CollectionLoader<Foo> foosLoader = factory.createCollectionLoader()
+        foosLoader.setContainer(foosCont)
+        foosLoader.setQuery('select e from test\$Foo e')
+
+        InstanceContainer<Foo> fooCont = factory.createInstanceContainer(Foo)
+        InstanceLoader<Foo> fooLoader = factory.createInstanceLoader()
+        fooLoader.setContainer(fooCont)
+        fooLoader.setEntityId(foo.id)
+
+        screenData.registerLoader('foosLoader', foosLoader)
+        screenData.registerLoader('fooLoader', fooLoader)
+
+        def dataService = Mock(DataService)
+        TestServiceProxy.mock(DataService, dataService)
+
+        when:
+
+        screenData.loadAll()
+
+        then:
+
+        1 * dataService.loadBatch({ it.size() == 2 && it[0].query != null && it[1].id == foo.id }) >>
+                reserialize([[foo1, foo2], [foo]])
+        0 * dataService.load(_)
+        0 * dataService.loadList(_)
+
+        foosCont.items == [foo1, foo2]
+        fooCont.item == foo
+    }
+
+    def "missing instance in batch result"() {
+        Foo foo = new Foo()
+
+        ScreenData screenData = new ScreenDataImpl()
+
+        InstanceContainer<Foo> fooCont = factory.createInstanceContainer(Foo)
+        InstanceLoader<Foo> fooLoader = factory.createInstanceLoader()
+        fooLoader.setContainer(fooCont)
+        fooLoader.setEntityId(foo.id)
+
+        screenData.registerLoader('fooLoader', fooLoader)
+
+        TestServiceProxy.mock(DataService, Mock(DataService) {
+            loadBatch(_) >> [[]]
+        })
+
+        when:
+
+        screenData.loadAll()
+
+        then:
+
+        thrown(EntityAccessException)
+        fooCont.itemOrNull == null
+    }
+}
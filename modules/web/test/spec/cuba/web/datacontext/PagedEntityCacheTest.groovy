@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.datacontext
+
+import com.haulmont.cuba.core.app.DataService
+import com.haulmont.cuba.core.global.Sort
+import com.haulmont.cuba.gui.components.data.PagedEntityCache
+import com.haulmont.cuba.gui.model.CollectionContainer
+import com.haulmont.cuba.gui.model.CollectionLoader
+import com.haulmont.cuba.web.testmodel.sales.Product
+import com.haulmont.cuba.web.testsupport.TestServiceProxy
+import spec.cuba.web.WebSpec
+
+class PagedEntityCacheTest extends WebSpec {
+
+    private CollectionContainer<Product> container
+    private CollectionLoader<Product> loader
+
+    @Override
+    void setup() {
+        container = dataComponents.createCollectionContainer(Product)
+        loader = dataComponents.createCollectionLoader()
+        loader.setContainer(container)
+        loader.setQuery('select p from test$Product p order by p.name')
+    }
+
+    @Override
+    void cleanup() {
+        TestServiceProxy.clear()
+    }
+
+    def "entities are loaded by pages and least recently used pages are evicted"() {
+        def products = (0..9).collect { new Product(name: "p$it") }
+        def dataService = Mock(DataService)
+        TestServiceProxy.mock(DataService, dataService)
+
+        def cache = new PagedEntityCache<Product>(loader, dataManager, metadataTools, 2, 2)
+
+        when:
+
+        def size = cache.size()
+
+        then:
+
+        1 * dataService.getCount(_) >> 10
+        size == 10
+
+        when:
+
+        def item = cache.getItem(3)
+
+        then:
+
+        1 * dataService.loadList({ it.query.firstResult == 2 && it.query.maxResults == 2 }) >> products[2..3]
+        item.name == 'p3'
+        cache.indexOfId(products[2].id) == 2
+        cache.getItemById(products[3].id) == products[3]
+
+        when:
+
+        def items = cache.getItems(2, 4)
+
+        then:
+
+        1 * dataService.loadList({ it.query.firstResult == 4 }) >> products[4..5]
+        items*.name == ['p2', 'p3', 'p4', 'p5']
+
+        when:
+
+        cache.getItem(6)
+
+        then:
+
+        1 * dataService.loadList({ it.query.firstResult == 6 }) >> products[6..7]
+        cache.getItemById(products[2].id) == null
+        cache.indexOfId(products[2].id) == -1
+        cache.getItemById(products[4].id) == products[4]
+    }
+
+    def "sort is passed to the database and discards loaded pages"() {
+        def products = (0..3).collect { new Product(name: "p$it") }
+        def dataService = Mock(DataService)
+        TestServiceProxy.mock(DataService, dataService)
+
+        def cache = new PagedEntityCache<Product>(loader, dataManager, metadataTools, 2, 2)
+
+        when:
+
+        cache.getItem(0)
+
+        then:
+
+        1 * dataService.getCount(_) >> 4
+        1 * dataService.loadList(_) >> products[0..1]
+
+        when:
+
+        cache.setSort(Sort.by(Sort.Direction.DESC, 'name'))
+        def item = cache.getItem(0)
+
+        then:
+
+        1 * dataService.getCount(_) >> 4
+        1 * dataService.loadList({ it.query.sort.orders[0].property == 'name' }) >> products.reverse()[0..1]
+        item.name == 'p3'
+    }
+}